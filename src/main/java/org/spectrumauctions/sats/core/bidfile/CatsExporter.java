@@ -15,12 +15,14 @@ import org.spectrumauctions.sats.core.model.bvm.BMLicense;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.*;
 
+/**
+ * Writes the bids in the CATS file format. The bids are streamed to the file while they are generated
+ * (see {@link CatsFileStream}), such that the memory use doesn't grow with the number of bids.
+ */
 public class CatsExporter extends FileWriter {
 
     public CatsExporter(File path) {
@@ -29,27 +31,15 @@ public class CatsExporter extends FileWriter {
 
     @Override
     public File writeSingleBidderXOR(XORLanguage<? extends Good> valueFunction, int numberOfBids, String filePrefix) throws IOException {
-        Iterator iter = valueFunction.iterator();
-        Set<XORValue<?>> selectedValues = new HashSet<>();
-        List<String> bidLines = fileInit(valueFunction);
-        for (int i = 0; i < numberOfBids && iter.hasNext(); i++) {
-            XORValue<?> value = (XORValue) iter.next();
-            selectedValues.add(value);
-            String line = String.valueOf(i).concat("\t");
-            line = line.concat(value.value().setScale(ROUNDING_SCALE, BigDecimal.ROUND_HALF_UP).toString());
-            line = line.concat("\t");
-            line = line.concat(value.getLicenses().itemIds("\t")).concat("#");
-            bidLines.add(line);
-        }
-        List<String> lines = new ArrayList<>();
-        lines.add("goods " + valueFunction.getBidder().getWorld().getNumberOfGoods());
-        lines.add("bids " + selectedValues.size());
-        lines.add("dummy 0");
-        lines.add("");
-        lines.addAll(bidLines);
-
-        return write(lines, filePrefix);
-
+        int goods = valueFunction.getBidder().getWorld().getNumberOfGoods();
+        return write(filePrefix, fileInit(valueFunction), goods, 0, stream -> {
+            Iterator iter = valueFunction.iterator();
+            for (int i = 0; i < numberOfBids && iter.hasNext(); i++) {
+                XORValue<?> value = (XORValue) iter.next();
+                stream.writeBid(value.value().setScale(ROUNDING_SCALE, BigDecimal.ROUND_HALF_UP).toString(),
+                        value.getLicenses().itemIds("\t"), null);
+            }
+        });
     }
 
     private List<String> fileInit(XORLanguage<? extends Good> lang) {
@@ -73,46 +63,53 @@ public class CatsExporter extends FileWriter {
 
     @Override
     public File writeMultiBidderXOR(Collection<XORLanguage<? extends Good>> valueFunctions, int numberOfBids, String filePrefix) throws IOException {
-        List<String> lines = fileInit(valueFunctions.iterator().next());
-        lines.add("%% This file may contain bids from multiple bidders.");
-        lines.add("% Bids from different bidders are separated using dummy items with negative IDs");
-        lines.add("");
-        lines.add("");
-        List<String> bidLines = new ArrayList<>();
-        //Dummy items are negative integers, for easier distinction
-        int dummyItem = -1;
-        int countBids = 0;
-        for (XORLanguage<? extends Good> valueFunction : valueFunctions) {
-            Iterator iter = valueFunction.iterator();
-            for (int i = 0; i < numberOfBids && iter.hasNext(); i++) {
-                XORValue<?> value = (XORValue) iter.next();
-                StringBuilder line = new StringBuilder(String.valueOf(countBids++)).append("\t");
-                line.append(value.value().setScale(ROUNDING_SCALE, BigDecimal.ROUND_HALF_UP).toString());
-                line.append("\t");
-                line.append(value.getLicenses().itemIds("\t"));
-                line.append("\t");
-                line.append(dummyItem);
-                line.append("\t#");
-                bidLines.add(line.toString());
+        List<String> preamble = fileInit(valueFunctions.iterator().next());
+        preamble.add("%% This file may contain bids from multiple bidders.");
+        preamble.add("% Bids from different bidders are separated using dummy items with negative IDs");
+        preamble.add("");
+        preamble.add("");
+        int goods = valueFunctions.iterator().next().getBidder().getWorld().getNumberOfGoods();
+        return write(filePrefix, preamble, goods, valueFunctions.size(), stream -> {
+            //Dummy items are negative integers, for easier distinction
+            int dummyItem = -1;
+            for (XORLanguage<? extends Good> valueFunction : valueFunctions) {
+                Iterator iter = valueFunction.iterator();
+                for (int i = 0; i < numberOfBids && iter.hasNext(); i++) {
+                    XORValue<?> value = (XORValue) iter.next();
+                    stream.writeBid(value.value().setScale(ROUNDING_SCALE, BigDecimal.ROUND_HALF_UP).toString(),
+                            value.getLicenses().itemIds("\t"), String.valueOf(dummyItem));
+                }
+                dummyItem--;
             }
-            dummyItem--;
-        }
-
-        lines.add("goods " + valueFunctions.iterator().next().getBidder().getWorld().getNumberOfGoods());
-        lines.add("bids " + bidLines.size());
-        lines.add("dummy " + valueFunctions.size());
-        lines.add("");
-        lines.addAll(bidLines);
-        return write(lines, filePrefix);
+        });
     }
 
-    private File write(List<String> lines, String filePrefix) throws IOException {
+    /**
+     * Writes the bids to a new file. If writing fails, the incomplete file is deleted.
+     */
+    private File write(String filePrefix, List<String> preamble, int goods, int dummies, CatsContent content) throws IOException {
         Path file = nextNonexistingFile(filePrefix);
-        Files.write(file, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE);
-//            Files.write(file, lines, StandardOpenOption.CREATE); //jvm 8 version
+        try (CatsFileStream stream = new CatsFileStream(file, preamble, goods, dummies)) {
+            content.writeTo(stream);
+            stream.finish();
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException deleteFailure) {
+                e.addSuppressed(deleteFailure);
+            }
+            throw e;
+        }
         return file.toFile();
     }
 
+    /**
+     * Writes the bids of a CATS file to the stream
+     */
+    private interface CatsContent {
+        void writeTo(CatsFileStream stream) throws IOException;
+    }
+
     /* (non-Javadoc)
      * @see FileWriter#writeMultiBidderXORQ(java.util.Collection, int, java.lang.String)
      */
@@ -0,0 +1,123 @@
+package org.spectrumauctions.sats.core.bidfile;
+
+import com.google.common.base.Preconditions;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes a CATS file while the bids are generated.<br>
+ * The header of a CATS file contains the number of bids, which is only known at the end. Thus, the number is
+ * written as a fixed-width placeholder (padded with spaces), which is overwritten in place once the stream is
+ * finished. Bid lines are written through a buffer, such that the memory use doesn't depend on the number of bids.<br>
+ * If the stream is closed without being finished (i.e., writing failed), the header keeps the placeholder count of 0.
+ */
+final class CatsFileStream implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * Enough digits for any long
+     */
+    private static final int BID_COUNT_WIDTH = 19;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final FileChannel channel;
+    private final Writer writer;
+    private final long bidCountPosition;
+    private long bids = 0;
+    private boolean finished = false;
+    private boolean closed = false;
+
+    /**
+     * @param preamble the comment lines before the header
+     * @param goods    the number of goods
+     * @param dummies  the number of dummy items
+     */
+    CatsFileStream(Path file, List<String> preamble, int goods, int dummies) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        try {
+            StringBuilder head = new StringBuilder();
+            for (String line : preamble) {
+                head.append(line).append(LINE_SEPARATOR);
+            }
+            head.append("goods ").append(goods).append(LINE_SEPARATOR);
+            head.append("bids ");
+            write(head.toString(), 0);
+            this.bidCountPosition = channel.size();
+            String placeholder = pad(0) + LINE_SEPARATOR + "dummy " + dummies + LINE_SEPARATOR + LINE_SEPARATOR;
+            write(placeholder, bidCountPosition);
+            channel.position(channel.size());
+            this.writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8), BUFFER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a bid line, i.e., the bid id, the value and the items, separated by tabs and terminated by {@code #}
+     *
+     * @return the id of the written bid
+     */
+    long writeBid(String value, String itemIds, String dummyItem) throws IOException {
+        Preconditions.checkState(!finished && !closed, "The CATS file is already finished.");
+        long bidId = bids++;
+        writer.write(String.valueOf(bidId));
+        writer.write('\t');
+        writer.write(value);
+        writer.write('\t');
+        writer.write(itemIds);
+        if (dummyItem != null) {
+            writer.write('\t');
+            writer.write(dummyItem);
+            writer.write('\t');
+        }
+        writer.write('#');
+        writer.write(LINE_SEPARATOR);
+        return bidId;
+    }
+
+    long getBids() {
+        return bids;
+    }
+
+    /**
+     * Flushes the bid lines and patches the number of bids into the header. Must be called once all bids are
+     * written, before the stream is closed.
+     */
+    void finish() throws IOException {
+        Preconditions.checkState(!closed, "The CATS file is already closed.");
+        writer.flush();
+        write(pad(bids), bidCountPosition);
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        writer.close();
+    }
+
+    private static String pad(long number) {
+        StringBuilder padded = new StringBuilder(String.valueOf(number));
+        while (padded.length() < BID_COUNT_WIDTH) {
+            padded.append(' ');
+        }
+        return padded.toString();
+    }
+
+    private void write(String content, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
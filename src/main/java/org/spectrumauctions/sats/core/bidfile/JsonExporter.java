@@ -5,7 +5,8 @@
  */
 package org.spectrumauctions.sats.core.bidfile;
 
-import com.google.gson.*;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import org.spectrumauctions.sats.core.bidlang.generic.GenericDefinition;
 import org.spectrumauctions.sats.core.bidlang.generic.GenericLang;
 import org.spectrumauctions.sats.core.bidlang.generic.GenericValue;
@@ -13,8 +14,7 @@ import org.spectrumauctions.sats.core.bidlang.xor.XORLanguage;
 import org.spectrumauctions.sats.core.bidlang.xor.XORValue;
 import org.spectrumauctions.sats.core.model.Good;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -23,21 +23,62 @@ import java.nio.file.StandardOpenOption;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map.Entry;
+import java.util.zip.GZIPOutputStream;
 
 /**
+ * Writes the bids as json. The bids are streamed to the file while they are generated, such that the memory
+ * use doesn't grow with the number of bids.<br>
+ * By default, the json is pretty printed and not compressed. Compact output and gzip compression
+ * (with the file ending {@code json.gz}) can be enabled.
+ *
  * @author Michael Weiss
  *
  */
 public class JsonExporter extends FileWriter {
 
     public static final boolean ONLY_NONZERO_QUANTITIES = true;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String INDENT = "  ";
+
     Gson gson;
+    private boolean compact = false;
+    private boolean gzip = false;
 
     public JsonExporter(File path) {
         super(path);
-        GsonBuilder builder = new GsonBuilder();
-        builder.setPrettyPrinting();
-        gson = builder.create();
+        gson = new Gson();
+    }
+
+    /**
+     * @param compact if true, the json is written without whitespace. Default is false.
+     */
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
+    /**
+     * @param gzip if true, the files are gzip compressed and end with {@code json.gz}. Default is false.
+     */
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    public JsonExporter withCompact(boolean compact) {
+        setCompact(compact);
+        return this;
+    }
+
+    public JsonExporter withGzip(boolean gzip) {
+        setGzip(gzip);
+        return this;
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public boolean isGzip() {
+        return gzip;
     }
 
     /* (non-Javadoc)
@@ -46,32 +87,35 @@ public class JsonExporter extends FileWriter {
     @Override
     public File writeMultiBidderXOR(Collection<XORLanguage<? extends Good>> valueFunctions, int numberOfBids, String filePrefix)
             throws IOException {
-        JsonArray json = new JsonArray();
-        for (XORLanguage<? extends Good> lang : valueFunctions) {
-            JsonObject thisBidder = new JsonObject();
-            thisBidder.addProperty("bidder", lang.getBidder().getId());
-            thisBidder.add("bids", singleBidderXOR(lang, numberOfBids, filePrefix));
-            json.add(thisBidder);
-        }
-        return write(json, filePrefix);
+        return write(filePrefix, writer -> {
+            writer.beginArray();
+            for (XORLanguage<? extends Good> lang : valueFunctions) {
+                writer.beginObject();
+                writer.name("bidder").value(lang.getBidder().getId());
+                writer.name("bids");
+                singleBidderXOR(writer, lang, numberOfBids);
+                writer.endObject();
+            }
+            writer.endArray();
+        });
     }
 
 
-    private JsonElement singleBidderXOR(XORLanguage<? extends Good> lang, int numberOfBids, String filePrefix) {
-        JsonArray result = new JsonArray();
+    private void singleBidderXOR(JsonWriter writer, XORLanguage<? extends Good> lang, int numberOfBids) throws IOException {
+        writer.beginArray();
         Iterator iter = lang.iterator();
         for (int i = 0; i < numberOfBids && iter.hasNext(); i++) {
-            JsonObject bid = new JsonObject();
             XORValue<Good> xorValue = (XORValue) iter.next();
-            JsonArray licenses = new JsonArray();
+            writer.beginObject();
+            writer.name("licenses").beginArray();
             for (Good license : xorValue.getLicenses()) {
-                licenses.add(license.getId());
+                writer.value(license.getId());
             }
-            bid.add("licenses", licenses);
-            bid.addProperty("value", xorValue.value().setScale(ROUNDING_SCALE, BigDecimal.ROUND_HALF_UP).toString());
-            result.add(bid);
+            writer.endArray();
+            writer.name("value").value(xorValue.value().setScale(ROUNDING_SCALE, BigDecimal.ROUND_HALF_UP).toString());
+            writer.endObject();
         }
-        return result;
+        writer.endArray();
     }
 
     /* (non-Javadoc)
@@ -80,8 +124,7 @@ public class JsonExporter extends FileWriter {
     @Override
     public File writeSingleBidderXOR(XORLanguage<? extends Good> valueFunction, int numberOfBids, String filePrefix)
             throws IOException {
-        JsonElement singleBidder = singleBidderXOR(valueFunction, numberOfBids, filePrefix);
-        return write(singleBidder, filePrefix);
+        return write(filePrefix, writer -> singleBidderXOR(writer, valueFunction, numberOfBids));
     }
 
     /* (non-Javadoc)
@@ -90,14 +133,17 @@ public class JsonExporter extends FileWriter {
     @Override
     public File writeMultiBidderXORQ(Collection<GenericLang<GenericDefinition<? extends Good>, ?>> valueFunctions, int numberOfBids,
                                      String filePrefix) throws IOException {
-        JsonArray json = new JsonArray();
-        for (GenericLang<GenericDefinition<? extends Good>, ?> lang : valueFunctions) {
-            JsonObject thisBidder = new JsonObject();
-            thisBidder.addProperty("bidder", lang.getBidder().getId());
-            thisBidder.add("bids", singleBidderXORQ(lang, numberOfBids, filePrefix));
-            json.add(thisBidder);
-        }
-        return write(json, filePrefix);
+        return write(filePrefix, writer -> {
+            writer.beginArray();
+            for (GenericLang<GenericDefinition<? extends Good>, ?> lang : valueFunctions) {
+                writer.beginObject();
+                writer.name("bidder").value(lang.getBidder().getId());
+                writer.name("bids");
+                singleBidderXORQ(writer, lang, numberOfBids);
+                writer.endObject();
+            }
+            writer.endArray();
+        });
     }
 
     /* (non-Javadoc)
@@ -106,45 +152,74 @@ public class JsonExporter extends FileWriter {
     @Override
     public File writeSingleBidderXORQ(GenericLang<GenericDefinition<? extends Good>, ?> lang, int numberOfBids, String filePrefix)
             throws IOException {
-        JsonElement singleBidder = singleBidderXORQ(lang, numberOfBids, filePrefix);
-        return write(singleBidder, filePrefix);
+        return write(filePrefix, writer -> singleBidderXORQ(writer, lang, numberOfBids));
     }
 
-    private JsonElement singleBidderXORQ(GenericLang<GenericDefinition<? extends Good>, ?> lang, int numberOfBids, String filePrefix) {
-        JsonArray result = new JsonArray();
+    private void singleBidderXORQ(JsonWriter writer, GenericLang<GenericDefinition<? extends Good>, ?> lang, int numberOfBids) throws IOException {
+        writer.beginArray();
         Iterator<? extends GenericValue<GenericDefinition<? extends Good>, ?>> iter = lang.iterator();
         for (int i = 0; i < numberOfBids && iter.hasNext(); i++) {
-            JsonObject bid = new JsonObject();
             GenericValue<GenericDefinition<? extends Good>, ?> val = iter.next();
-            JsonArray quantities = new JsonArray();
+            writer.beginObject();
+            writer.name("quantities").beginArray();
             for (Entry<GenericDefinition<? extends Good>, Integer> quant : val.getQuantities().entrySet()) {
                 if (quant.getValue() != 0 || !ONLY_NONZERO_QUANTITIES) {
-                    JsonObject object = new JsonObject();
-                    object.add("generic definition", quant.getKey().shortJson());
-                    object.addProperty("quantity", quant.getValue());
-                    quantities.add(object);
+                    writer.beginObject();
+                    writer.name("generic definition");
+                    gson.toJson(quant.getKey().shortJson(), writer);
+                    writer.name("quantity").value(quant.getValue());
+                    writer.endObject();
                 }
             }
-            bid.add("quantities", quantities);
-            bid.addProperty("value", val.getValue().setScale(ROUNDING_SCALE, BigDecimal.ROUND_HALF_UP).toString());
-            result.add(bid);
+            writer.endArray();
+            writer.name("value").value(val.getValue().setScale(ROUNDING_SCALE, BigDecimal.ROUND_HALF_UP).toString());
+            writer.endObject();
         }
-        return result;
+        writer.endArray();
     }
 
-
-    private File write(JsonElement toWrite, String filePrefix) throws IOException {
+    /**
+     * Streams the content to a new file. If writing fails, the partially written file is deleted.
+     */
+    private File write(String filePrefix, JsonContent content) throws IOException {
         Path file = nextNonexistingFile(filePrefix);
-        String content = gson.toJson(toWrite);
-        Files.write(file, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE);
+        try (OutputStream fileStream = Files.newOutputStream(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = new BufferedOutputStream(fileStream, BUFFER_SIZE);
+            if (gzip) {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            }
+            JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (!compact) {
+                writer.setIndent(INDENT);
+            }
+            writer.setHtmlSafe(true);
+            content.writeTo(writer);
+            // Flushes the buffers and finishes the gzip stream
+            writer.close();
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException deleteFailure) {
+                e.addSuppressed(deleteFailure);
+            }
+            throw e;
+        }
         return file.toFile();
     }
 
+    /**
+     * Writes the content of a bid file to the stream
+     */
+    private interface JsonContent {
+        void writeTo(JsonWriter writer) throws IOException;
+    }
+
     /* (non-Javadoc)
      * @see FileWriter#filetype()
      */
     @Override
     protected String filetype() {
-        return "json";
+        return gzip ? "json.gz" : "json";
     }
 }
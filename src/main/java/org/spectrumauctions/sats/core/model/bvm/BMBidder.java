@@ -19,6 +19,7 @@ import org.spectrumauctions.sats.core.bidlang.xor.DecreasingSizeOrderedXOR;
 import org.spectrumauctions.sats.core.bidlang.xor.IncreasingSizeOrderedXOR;
 import org.spectrumauctions.sats.core.bidlang.xor.SizeBasedUniqueRandomXOR;
 import org.spectrumauctions.sats.core.model.*;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
 import org.spectrumauctions.sats.core.util.random.RNGSupplier;
 import org.spectrumauctions.sats.core.util.random.UniformDistributionRNG;
 
@@ -265,6 +266,7 @@ public final class BMBidder extends Bidder<BMLicense> implements GenericValueBid
      */
     @Override
     public BigDecimal calculateValue(Map<BMBand, Integer> genericQuantities) {
+        Metrics.count(Metrics.VALUE_QUERY);
         //Check input
         for (Entry<BMBand, Integer> entry : genericQuantities.entrySet()) {
             Preconditions.checkArgument(entry.getKey().getWorld().equals(this.getWorld()), "Band is not from this world" + entry.getKey().getName());
@@ -9,6 +9,7 @@ import org.spectrumauctions.sats.core.bidlang.xor.DecreasingSizeOrderedXOR;
 import org.spectrumauctions.sats.core.bidlang.xor.IncreasingSizeOrderedXOR;
 import org.spectrumauctions.sats.core.bidlang.xor.SizeBasedUniqueRandomXOR;
 import org.spectrumauctions.sats.core.model.*;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
 import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
 import org.spectrumauctions.sats.core.util.random.RNGSupplier;
 
@@ -35,6 +36,7 @@ public final class CATSBidder extends Bidder<CATSLicense> {
 
     @Override
     public BigDecimal calculateValue(Bundle<CATSLicense> bundle) {
+        Metrics.count(Metrics.VALUE_QUERY);
         double value = 0;
         for (CATSLicense license : bundle) {
             if (this.privateValues.containsKey(license.getId())) {
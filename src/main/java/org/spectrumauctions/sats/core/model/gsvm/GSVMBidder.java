@@ -9,6 +9,7 @@ import org.spectrumauctions.sats.core.model.Bidder;
 import org.spectrumauctions.sats.core.model.Bundle;
 import org.spectrumauctions.sats.core.model.UnsupportedBiddingLanguageException;
 import org.spectrumauctions.sats.core.model.World;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
 import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
 import org.spectrumauctions.sats.core.util.random.RNGSupplier;
 
@@ -39,6 +40,7 @@ public final class GSVMBidder extends Bidder<GSVMLicense> {
 
     @Override
     public BigDecimal calculateValue(Bundle<GSVMLicense> bundle) {
+        Metrics.count(Metrics.VALUE_QUERY);
         double value = 0;
         for (GSVMLicense license : bundle) {
             if (this.values.containsKey(license.getId())) {
@@ -10,6 +10,7 @@ import org.spectrumauctions.sats.core.model.Bidder;
 import org.spectrumauctions.sats.core.model.Bundle;
 import org.spectrumauctions.sats.core.model.UnsupportedBiddingLanguageException;
 import org.spectrumauctions.sats.core.model.World;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
 import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
 import org.spectrumauctions.sats.core.util.random.RNGSupplier;
 
@@ -49,6 +50,7 @@ public final class LSVMBidder extends Bidder<LSVMLicense> {
 
     @Override
     public BigDecimal calculateValue(Bundle<LSVMLicense> bundle) {
+        Metrics.count(Metrics.VALUE_QUERY);
         double value = 0;
         Set<Set<LSVMLicense>> subpackages = world.getGrid().getMaximallyConnectedSubpackages(bundle);
         for (Set<LSVMLicense> subset : subpackages) {
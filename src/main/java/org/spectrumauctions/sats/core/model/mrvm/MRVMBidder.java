@@ -18,6 +18,7 @@ import org.spectrumauctions.sats.core.bidlang.xor.IncreasingSizeOrderedXOR;
 import org.spectrumauctions.sats.core.bidlang.xor.SizeBasedUniqueRandomXOR;
 import org.spectrumauctions.sats.core.model.*;
 import org.spectrumauctions.sats.core.util.math.ContinuousPiecewiseLinearFunction;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
 import org.spectrumauctions.sats.core.util.random.RNGSupplier;
 import org.spectrumauctions.sats.core.util.random.UniformDistributionRNG;
 
@@ -150,6 +151,7 @@ public abstract class MRVMBidder extends Bidder<MRVMLicense> implements GenericV
 
     @Override
     public BigDecimal calculateValue(Bundle<MRVMLicense> bundle) {
+        Metrics.count(Metrics.VALUE_QUERY);
         if (bundle.isEmpty()) {
             return BigDecimal.ZERO;
         }
@@ -16,6 +16,7 @@ import org.spectrumauctions.sats.core.model.Bidder;
 import org.spectrumauctions.sats.core.model.Bundle;
 import org.spectrumauctions.sats.core.model.UnsupportedBiddingLanguageException;
 import org.spectrumauctions.sats.core.model.World;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
 import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
 import org.spectrumauctions.sats.core.util.random.RNGSupplier;
 
@@ -137,6 +138,7 @@ public final class SRVMBidder extends Bidder<SRVMLicense> implements GenericValu
      */
     @Override
     public BigDecimal calculateValue(Map<SRVMBand, Integer> genericQuantities) {
+        Metrics.count(Metrics.VALUE_QUERY);
         BigDecimal bandValuesSum = BigDecimal.ZERO;
         //We count the number of bands with more than 0 licenses in this bundle
         int synergyBandCount = 0;
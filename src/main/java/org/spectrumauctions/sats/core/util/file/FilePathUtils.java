@@ -34,6 +34,8 @@ public class FilePathUtils {
     private final java.io.File folder;
     private static final String FILE_TYPE_BIDDER = ".bidder.json";
     private static final String FILE_TYPE_WORLD = ".world.json";
+    private static final String WORLD_ID_COUNTER = ".nextWorldId";
+    private static final String POPULATION_ID_COUNTER = ".nextPopulationId";
     private static final int BIDDER_ID_LENGTH = 5;
     private static final int POPULATION_ID_LENGTH = 5;
     private static final int WORLD_ID_LENGTH = 5;
@@ -110,9 +112,30 @@ public class FilePathUtils {
         return preZeros.toString() + number;
     }
 
+    /**
+     * @return the file holding the next world id candidate, see {@link LockedCounterFile}
+     */
+    public java.io.File worldIdCounterPath() {
+        return new java.io.File(folder, WORLD_ID_COUNTER);
+    }
+
+    /**
+     * @return the file holding the next population id candidate of the world, see {@link LockedCounterFile}
+     */
+    public java.io.File populationIdCounterPath(long worldId) {
+        return new java.io.File(worldFolderPath(worldId), POPULATION_ID_COUNTER);
+    }
+
+    public Collection<Long> getWorldIds() {
+        return getNumericSubFolders(folder);
+    }
+
     public Collection<Long> getPopulationIds(long worldId) {
-        File worldFolder = worldFolderPath(worldId);
-        File[] subFilesArray = worldFolder.listFiles();
+        return getNumericSubFolders(worldFolderPath(worldId));
+    }
+
+    private Collection<Long> getNumericSubFolders(File parent) {
+        File[] subFilesArray = parent.listFiles();
         if (subFilesArray == null) {
             throw new FileException("Files could not be read. Check if Folder exists!");
         }
@@ -0,0 +1,103 @@
+package org.spectrumauctions.sats.core.util.file;
+
+import com.google.common.base.Preconditions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+
+/**
+ * A file holding the next candidate of an id sequence as decimal text. Ids are allocated under an exclusive
+ * file lock, such that several JVMs can allocate ids from the same file without collisions.<br>
+ * Within a JVM, the same counter file must not be used concurrently by several threads.
+ */
+public class LockedCounterFile {
+
+    private final File file;
+
+    public LockedCounterFile(File file) {
+        this.file = Preconditions.checkNotNull(file);
+    }
+
+    /**
+     * Allocates the next id.
+     *
+     * @param initialCandidate computes the first candidate if the counter file doesn't exist yet, e.g., by
+     *                         scanning the ids used before the counter was introduced
+     * @param reserve          tries to reserve a candidate (e.g., with {@link #reserveFolder(File)}); returns false
+     *                         if the candidate is already taken, in which case the next candidate is tried. If the
+     *                         candidate can't be reserved for another reason, it must throw, as the candidates would
+     *                         be tried forever otherwise.
+     * @return the reserved id
+     */
+    public long next(LongSupplier initialCandidate, LongPredicate reserve) {
+        try {
+            Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    long candidate = read(channel, initialCandidate);
+                    while (!reserve.test(candidate)) {
+                        candidate++;
+                    }
+                    write(channel, candidate + 1);
+                    return candidate;
+                } finally {
+                    lock.release();
+                }
+            }
+        } catch (IOException e) {
+            throw new FileException("Could not allocate an id with the counter " + file, e);
+        }
+    }
+
+    /**
+     * Reserves an id by creating its folder.
+     *
+     * @return true if the folder was created, false if it already exists
+     * @throws FileException if the folder doesn't exist and can't be created, e.g., as its parent isn't writable
+     */
+    public static boolean reserveFolder(File folder) {
+        if (folder.mkdirs()) {
+            return true;
+        }
+        if (!folder.isDirectory()) {
+            throw new FileException("Could not create the folder " + folder);
+        }
+        return false;
+    }
+
+    private long read(FileChannel channel, LongSupplier initialCandidate) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) >= 0) {
+            // Read the whole file
+        }
+        String content = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8).trim();
+        if (content.isEmpty()) {
+            return initialCandidate.getAsLong();
+        }
+        try {
+            return Long.parseLong(content);
+        } catch (NumberFormatException e) {
+            throw new FileException("The id counter " + file + " is corrupt: " + content, e);
+        }
+    }
+
+    private void write(FileChannel channel, long nextCandidate) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(String.valueOf(nextCandidate).getBytes(StandardCharsets.UTF_8));
+        channel.truncate(0);
+        long position = 0;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(false);
+    }
+}
@@ -0,0 +1,68 @@
+package org.spectrumauctions.sats.core.util.file.gson;
+
+import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.spectrumauctions.sats.core.model.BidderSetup;
+import org.spectrumauctions.sats.core.util.file.FileException;
+
+import java.io.IOException;
+
+/**
+ * Serializes {@link BidderSetup}s together with the name of their implementation.<br>
+ * A bidder only declares its setup as the abstract {@link BidderSetup}, from which gson can't construct an instance.
+ * Thus, the implementation class is added to the serialized setup and used to pick the type when deserializing.
+ */
+public class BidderSetupAdapterFactory implements TypeAdapterFactory {
+
+    static final String IMPLEMENTATION_FIELD = "implementation";
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (!BidderSetup.class.isAssignableFrom(type.getRawType())) {
+            return null;
+        }
+        TypeAdapter<JsonElement> jsonAdapter = gson.getAdapter(JsonElement.class);
+        return new TypeAdapter<T>() {
+            @Override
+            public void write(JsonWriter out, T value) throws IOException {
+                if (value == null) {
+                    out.nullValue();
+                    return;
+                }
+                JsonObject json = delegate(gson, value.getClass()).toJsonTree(value).getAsJsonObject();
+                json.addProperty(IMPLEMENTATION_FIELD, value.getClass().getName());
+                jsonAdapter.write(out, json);
+            }
+
+            @Override
+            public T read(JsonReader in) throws IOException {
+                JsonElement json = jsonAdapter.read(in);
+                if (json.isJsonNull()) {
+                    return null;
+                }
+                JsonElement implementation = json.getAsJsonObject().remove(IMPLEMENTATION_FIELD);
+                Class<?> implementationType = type.getRawType();
+                if (implementation != null) {
+                    try {
+                        implementationType = Class.forName(implementation.getAsString());
+                    } catch (ClassNotFoundException e) {
+                        throw new FileException("Type Unknown", e);
+                    }
+                    if (!type.getRawType().isAssignableFrom(implementationType)) {
+                        throw new JsonParseException(implementationType.getName() + " is not a " + type.getRawType().getName());
+                    }
+                }
+                @SuppressWarnings("unchecked")
+                T setup = (T) delegate(gson, implementationType).fromJsonTree(json);
+                return setup;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private TypeAdapter<Object> delegate(Gson gson, Class<?> implementationType) {
+        return (TypeAdapter<Object>) gson.getDelegateAdapter(this, TypeToken.get(implementationType));
+    }
+}
@@ -20,11 +20,15 @@ public class GsonWrapper {
 
     private static GsonWrapper INSTANCE = null;
     private Gson gson;
+    private Gson compactGson;
 
     private GsonWrapper() {
         GsonBuilder builder = new GsonBuilder();
         builder.registerTypeAdapter(UnmodifiableUndirectedGraph.class, new UndirectedGraphAdapter());
+        builder.registerTypeAdapterFactory(new BidderSetupAdapterFactory());
+        builder.registerTypeAdapterFactory(new ImmutableMapAdapterFactory());
         builder.disableHtmlEscaping();
+        compactGson = builder.create();
         if (PRETTY_JSON) {
             builder.setPrettyPrinting();
         }
@@ -42,6 +46,13 @@ public class GsonWrapper {
         return gson;
     }
 
+    /**
+     * @return a gson instance with the same type adapters as {@link #getGson()}, which never pretty prints
+     */
+    public Gson getCompactGson() {
+        return compactGson;
+    }
+
     public <T extends Object> T fromJson(Class<T> type, String json) {
         T object = gson.fromJson(json, type);
         return object;
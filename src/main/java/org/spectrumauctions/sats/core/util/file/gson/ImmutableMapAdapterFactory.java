@@ -0,0 +1,43 @@
+package org.spectrumauctions.sats.core.util.file.gson;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Reads {@link ImmutableMap}s (e.g. the synergy factors of a {@link org.spectrumauctions.sats.core.model.bvm.BMBidderSetup})
+ * as regular maps and copies them, as gson can't construct an {@link ImmutableMap} itself.
+ * The json representation is the one of a regular map.
+ */
+public class ImmutableMapAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != ImmutableMap.class) {
+            return null;
+        }
+        // Same key and value types as the immutable map
+        TypeToken<?> mapType = TypeToken.get(com.google.common.reflect.TypeToken.of(type.getType()).getSupertype((Class) Map.class).getType());
+        TypeAdapter<Map<?, ?>> mapAdapter = (TypeAdapter<Map<?, ?>>) gson.getAdapter(mapType);
+        return (TypeAdapter<T>) new TypeAdapter<ImmutableMap<?, ?>>() {
+            @Override
+            public void write(JsonWriter out, ImmutableMap<?, ?> value) throws IOException {
+                mapAdapter.write(out, value);
+            }
+
+            @Override
+            public ImmutableMap<?, ?> read(JsonReader in) throws IOException {
+                Map<?, ?> map = mapAdapter.read(in);
+                return map == null ? null : ImmutableMap.copyOf(map);
+            }
+        };
+    }
+}
@@ -0,0 +1,256 @@
+package org.spectrumauctions.sats.core.util.instancehandling;
+
+import com.google.common.base.Preconditions;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.World;
+import org.spectrumauctions.sats.core.util.file.FileException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A write-behind <b>instance handler</b>, which wraps another instance handler (by default the
+ * {@link JSONInstanceHandler}).<br>
+ * Worlds and bidders are serialized and written by the wrapped handler on a background thread, such that the
+ * creation of worlds and populations isn't bound by disk I/O. The writer thread takes the queued writes in
+ * batches. The queue is bounded: If it is full, the creating thread waits until the writer caught up, such that
+ * the memory used by pending writes is limited.<br>
+ * <br>
+ * Reads see all previous writes: Before any read, the pending writes are flushed. Ids are allocated by the
+ * wrapped handler on the calling thread.<br>
+ * The instances are not copied, but serialized later on the writer thread. Thus, a stored world or bidder must be
+ * effectively immutable once it's passed to the handler; changes made afterwards (e.g., lazily filled fields which
+ * aren't transient) race with its serialization.<br>
+ * If a background write fails, the failure is thrown (as {@link FileException}) by the next call to this
+ * handler. The handler has to be closed to make sure all writes are on disk, e.g.:
+ * <pre>{@code
+ * try (AsyncInstanceHandler handler = new AsyncInstanceHandler(JSONInstanceHandler.getInstance())) {
+ *     InstanceHandler.setDefaultHandler(handler);
+ *     // create worlds and populations
+ * }
+ * }</pre>
+ */
+public class AsyncInstanceHandler extends InstanceHandler implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(AsyncInstanceHandler.class);
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private static final Runnable STOP = () -> {
+    };
+
+    private final InstanceHandler delegate;
+    private final BlockingQueue<Runnable> queue;
+    private final int batchSize;
+    private final Thread writer;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    // Producers enqueue under this lock, such that no write can be queued after the stop marker
+    private final Object enqueueLock = new Object();
+    private final Object pendingLock = new Object();
+    private long pending;
+    private volatile boolean closed;
+
+    public AsyncInstanceHandler(InstanceHandler delegate) {
+        this(delegate, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param delegate  the handler which serializes and writes the instances and allocates the ids
+     * @param capacity  the maximal number of pending writes
+     * @param batchSize the maximal number of writes the writer thread takes from the queue at once
+     */
+    public AsyncInstanceHandler(InstanceHandler delegate, int capacity, int batchSize) {
+        Preconditions.checkNotNull(delegate);
+        Preconditions.checkArgument(capacity > 0);
+        Preconditions.checkArgument(batchSize > 0);
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.writer = new Thread(this::runWriter, "sats-instance-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void writeWorld(World world) {
+        enqueue(() -> delegate.writeWorld(world));
+    }
+
+    @Override
+    public void writeBidder(Bidder<?> bidder) {
+        enqueue(() -> delegate.writeBidder(bidder));
+    }
+
+    @Override
+    public <T extends World> T readWorld(Class<T> type, long world) {
+        flush();
+        return delegate.readWorld(type, world);
+    }
+
+    @Override
+    public Collection<Long> getPopulationIds(long worldId) {
+        flush();
+        return delegate.getPopulationIds(worldId);
+    }
+
+    @Override
+    public <T extends Bidder<?>> T readBidder(Class<T> type, World world, long populationId, long bidderId) {
+        flush();
+        return delegate.readBidder(type, world, populationId, bidderId);
+    }
+
+    @Override
+    public <T extends Bidder<?>> T readBidderWithUnknownType(Class<T> bidderSuperType, World world, long populationId, long bidderId) {
+        flush();
+        return delegate.readBidderWithUnknownType(bidderSuperType, world, populationId, bidderId);
+    }
+
+    @Override
+    public <T extends Bidder<?>> Collection<T> readPopulation(Class<T> type, World world, long populationId) {
+        flush();
+        return delegate.readPopulation(type, world, populationId);
+    }
+
+    @Override
+    public <T extends Bidder<?>> Collection<T> readPopulationWithUnknownTypes(Class<T> bidderSuperType, World world, long populationId) {
+        flush();
+        return delegate.readPopulationWithUnknownTypes(bidderSuperType, world, populationId);
+    }
+
+    @Override
+    public long getNextWorldId() {
+        throwPendingFailure();
+        return delegate.getNextWorldId();
+    }
+
+    @Override
+    public long getNextPopulationId(long worldId) {
+        throwPendingFailure();
+        return delegate.getNextPopulationId(worldId);
+    }
+
+    /**
+     * Blocks until all writes queued so far are written.
+     *
+     * @throws FileException if a write failed
+     */
+    public void flush() {
+        synchronized (pendingLock) {
+            while (pending > 0) {
+                try {
+                    pendingLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new FileException("Interrupted while waiting for pending writes.", e);
+                }
+            }
+        }
+        throwPendingFailure();
+    }
+
+    /**
+     * @return the number of queued writes which aren't written yet
+     */
+    public long getPendingWrites() {
+        synchronized (pendingLock) {
+            return pending;
+        }
+    }
+
+    /**
+     * Writes all pending instances and stops the writer thread. Further writes are rejected.
+     *
+     * @throws FileException if a write failed
+     */
+    @Override
+    public void close() {
+        synchronized (enqueueLock) {
+            if (!closed) {
+                closed = true;
+                putUninterruptibly(STOP);
+            }
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileException("Interrupted while waiting for pending writes.", e);
+        }
+        throwPendingFailure();
+    }
+
+    private void enqueue(Runnable write) {
+        throwPendingFailure();
+        synchronized (enqueueLock) {
+            Preconditions.checkState(!closed, "The instance handler is closed.");
+            synchronized (pendingLock) {
+                pending++;
+            }
+            putUninterruptibly(write);
+        }
+    }
+
+    private void putUninterruptibly(Runnable task) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(task);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void throwPendingFailure() {
+        Throwable cause = failure.getAndSet(null);
+        if (cause != null) {
+            throw new FileException("An asynchronous write of an instance failed.", cause);
+        }
+    }
+
+    private void runWriter() {
+        List<Runnable> batch = new ArrayList<>(batchSize);
+        boolean stopped = false;
+        while (!stopped) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // Only the stop marker ends the writer, such that no queued write is lost
+                continue;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            int written = 0;
+            for (Runnable write : batch) {
+                if (write == STOP) {
+                    stopped = true;
+                    continue;
+                }
+                try {
+                    write.run();
+                } catch (Throwable e) {
+                    logger.error("Asynchronous write of an instance failed.", e);
+                    failure.compareAndSet(null, e);
+                }
+                written++;
+            }
+            batch.clear();
+            synchronized (pendingLock) {
+                pending -= written;
+                pendingLock.notifyAll();
+            }
+        }
+    }
+}
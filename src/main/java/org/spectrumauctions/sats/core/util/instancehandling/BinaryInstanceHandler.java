@@ -0,0 +1,546 @@
+package org.spectrumauctions.sats.core.util.instancehandling;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.World;
+import org.spectrumauctions.sats.core.util.file.FileException;
+import org.spectrumauctions.sats.core.util.file.FilePathUtils;
+import org.spectrumauctions.sats.core.util.file.gson.GsonWrapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * An <b>instance handler</b> which stores a world and all its populations in a single binary file
+ * ({@code <worldId>.sats} in the output folder), instead of one json file per world and bidder.<br>
+ * <br>
+ * The file starts with a magic number and the format version, followed by length-prefixed records:
+ * <pre>
+ * record  := type (byte) populationId (long) bidderId (long) className (short length, UTF-8) payload (int length, bytes)
+ * </pre>
+ * There is one record for the world, one for each opened population (without payload), and one for each bidder.
+ * The payload is the compact json of the instance. Records are only appended; if an instance is written twice,
+ * the last record wins.<br>
+ * The file is indexed by reading the record headers only, and the payloads are read from a memory-mapping of the
+ * file, such that a single bidder is read without parsing the other instances.<br>
+ * Records are appended under an exclusive file lock, such that several JVMs can write to the same output folder.
+ * Within a JVM, all handlers share the open world files. If the last record is torn (e.g., the JVM was killed
+ * while appending it), it is ignored by readers and cut off by the next writer.<br>
+ * The handler keeps the files open until it's closed. As the records are memory-mapped at once, a world file
+ * must not exceed 2 GB.
+ */
+public class BinaryInstanceHandler extends InstanceHandler implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(BinaryInstanceHandler.class);
+
+    static final int MAGIC = 0x53415453; // "SATS"
+    static final short VERSION = 1;
+
+    private static final int FILE_HEADER_LENGTH = 6;
+    // type, populationId, bidderId and the length of the class name
+    private static final int RECORD_HEADER_LENGTH = 1 + 8 + 8 + 2;
+    private static final String FILE_SUFFIX = ".sats";
+
+    private static final byte WORLD_RECORD = 1;
+    private static final byte POPULATION_RECORD = 2;
+    private static final byte BIDDER_RECORD = 3;
+
+    // Keyed by the absolute path, shared by all handlers of this JVM
+    private static final Map<Path, WorldFile> OPEN_FILES = new HashMap<>();
+
+    private final Path folder;
+    private final Gson gson = GsonWrapper.getInstance().getCompactGson();
+    private final Map<Long, WorldFile> worldFiles = new HashMap<>();
+    private long worldIdCandidate = -1;
+
+    /**
+     * Stores the files in {@link FilePathUtils#FOLDER}
+     */
+    public BinaryInstanceHandler() {
+        this(FilePathUtils.FOLDER.toPath());
+    }
+
+    public BinaryInstanceHandler(Path folder) {
+        this.folder = Preconditions.checkNotNull(folder);
+    }
+
+    @Override
+    public synchronized void writeWorld(World world) {
+        worldFile(world.getId(), true).append(WORLD_RECORD, -1, -1, world.getClass().getName(), gson.toJson(world));
+    }
+
+    @Override
+    public synchronized void writeBidder(Bidder<?> bidder) {
+        worldFile(bidder.getWorld().getId(), true).append(BIDDER_RECORD, bidder.getPopulation(), bidder.getId(),
+                bidder.getClass().getName(), gson.toJson(bidder));
+    }
+
+    @Override
+    public synchronized <T extends World> T readWorld(Class<T> type, long worldId) {
+        WorldFile file = worldFile(worldId, false);
+        Record record = file.getWorldRecord();
+        if (record == null) {
+            throw new FileException("The world " + worldId + " is not stored in " + file.path);
+        }
+        T world = file.read(record, type, gson);
+        world.refreshFieldBackReferences();
+        return world;
+    }
+
+    @Override
+    public synchronized Collection<Long> getPopulationIds(long worldId) {
+        return new ArrayList<>(worldFile(worldId, false).getPopulations().keySet());
+    }
+
+    @Override
+    public synchronized <T extends Bidder<?>> T readBidder(Class<T> type, World world, long populationId, long bidderId) {
+        WorldFile file = worldFile(world.getId(), false);
+        T bidder = file.read(file.getBidderRecord(populationId, bidderId), type, gson);
+        bidder.refreshReference(world);
+        return bidder;
+    }
+
+    @Override
+    public synchronized <T extends Bidder<?>> T readBidderWithUnknownType(Class<T> bidderSuperType, World world, long populationId, long bidderId) {
+        WorldFile file = worldFile(world.getId(), false);
+        return readWithUnknownType(file, file.getBidderRecord(populationId, bidderId), bidderSuperType, world);
+    }
+
+    @Override
+    public synchronized <T extends Bidder<?>> Collection<T> readPopulation(Class<T> type, World world, long populationId) {
+        WorldFile file = worldFile(world.getId(), false);
+        List<T> bidders = new ArrayList<>();
+        for (Record record : file.getBidderRecords(populationId)) {
+            T bidder = file.read(record, type, gson);
+            bidder.refreshReference(world);
+            bidders.add(bidder);
+        }
+        return bidders;
+    }
+
+    @Override
+    public synchronized <T extends Bidder<?>> Collection<T> readPopulationWithUnknownTypes(Class<T> bidderSuperType, World world, long populationId) {
+        WorldFile file = worldFile(world.getId(), false);
+        List<T> bidders = new ArrayList<>();
+        for (Record record : file.getBidderRecords(populationId)) {
+            bidders.add(readWithUnknownType(file, record, bidderSuperType, world));
+        }
+        return bidders;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Bidder<?>> T readWithUnknownType(WorldFile file, Record record, Class<T> bidderSuperType, World world) {
+        Class<?> type;
+        try {
+            type = Class.forName(record.className);
+        } catch (ClassNotFoundException e) {
+            throw new FileException("Type Unknown", e);
+        }
+        if (!bidderSuperType.isAssignableFrom(type)) {
+            throw new FileException("generated object (" + type.getName() + ") is not of specified bidder type (" + bidderSuperType.getName() + ")");
+        }
+        T bidder = (T) file.read(record, type, gson);
+        bidder.refreshReference(world);
+        return bidder;
+    }
+
+    /**
+     * Reserves a new world id by creating its file. The output folder is only scanned for the highest used id
+     * on the first call.
+     */
+    @Override
+    public synchronized long getNextWorldId() {
+        try {
+            Files.createDirectories(folder);
+            if (worldIdCandidate < 0) {
+                worldIdCandidate = 0;
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "*" + FILE_SUFFIX)) {
+                    for (Path file : files) {
+                        String name = file.getFileName().toString();
+                        try {
+                            long id = Long.parseLong(name.substring(0, name.length() - FILE_SUFFIX.length()));
+                            worldIdCandidate = Math.max(worldIdCandidate, id + 1);
+                        } catch (NumberFormatException e) {
+                            // Not a world file
+                        }
+                    }
+                }
+            }
+            while (true) {
+                long id = worldIdCandidate++;
+                try {
+                    Files.createFile(worldFilePath(id));
+                    worldFile(id, true);
+                    return id;
+                } catch (FileAlreadyExistsException e) {
+                    // Reserved by another handler in the meantime
+                }
+            }
+        } catch (IOException e) {
+            throw new FileException("Could not reserve a new world id in " + folder, e);
+        }
+    }
+
+    /**
+     * Reserves a new population id by appending a population record to the world file.
+     */
+    @Override
+    public synchronized long getNextPopulationId(long worldId) {
+        return worldFile(worldId, false).appendPopulation();
+    }
+
+    /**
+     * Releases all world files opened by this handler. The handler may still be used afterwards, files are then
+     * opened again.
+     */
+    @Override
+    public synchronized void close() {
+        FileException failure = null;
+        for (WorldFile file : worldFiles.values()) {
+            try {
+                release(file);
+            } catch (IOException e) {
+                if (failure == null) failure = new FileException("Could not close " + file.path, e);
+            }
+        }
+        worldFiles.clear();
+        if (failure != null) throw failure;
+    }
+
+    private Path worldFilePath(long worldId) {
+        return folder.resolve(worldId + FILE_SUFFIX);
+    }
+
+    private WorldFile worldFile(long worldId, boolean create) {
+        WorldFile file = worldFiles.get(worldId);
+        if (file == null) {
+            Path path = worldFilePath(worldId);
+            if (!create && !Files.exists(path)) {
+                throw new FileException("No binary file for world " + worldId + " found: " + path);
+            }
+            file = open(path);
+            worldFiles.put(worldId, file);
+        }
+        return file;
+    }
+
+    /**
+     * Opens a world file or shares the one already opened by another handler of this JVM, as file locks are held
+     * on behalf of the whole JVM and can't be acquired twice.
+     */
+    private static WorldFile open(Path path) {
+        Path key = path.toAbsolutePath().normalize();
+        synchronized (OPEN_FILES) {
+            WorldFile file = OPEN_FILES.get(key);
+            if (file == null) {
+                file = new WorldFile(key);
+                OPEN_FILES.put(key, file);
+            }
+            file.users++;
+            return file;
+        }
+    }
+
+    /**
+     * Closes the world file once no handler uses it anymore
+     */
+    private static void release(WorldFile file) throws IOException {
+        synchronized (OPEN_FILES) {
+            if (--file.users == 0) {
+                OPEN_FILES.remove(file.path);
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * The header of a record and the position of its payload
+     */
+    private static final class Record {
+        private final String className;
+        private final long payloadPosition;
+        private final int payloadLength;
+
+        private Record(String className, long payloadPosition, int payloadLength) {
+            this.className = className;
+            this.payloadPosition = payloadPosition;
+            this.payloadLength = payloadLength;
+        }
+    }
+
+    /**
+     * An open world file and the index of its records
+     */
+    private static final class WorldFile {
+        private final Path path;
+        private final FileChannel channel;
+        private final ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+        private ByteBuffer classNameAndLength = ByteBuffer.allocate(256);
+        private MappedByteBuffer mapped;
+        private long indexedSize;
+        private Record worldRecord;
+        private final Map<Long, Map<Long, Record>> populations = new LinkedHashMap<>();
+        private int users;
+
+        private WorldFile(Path path) {
+            this.path = path;
+            try {
+                Files.createDirectories(path.getParent());
+                this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                throw new FileException("Could not open " + path, e);
+            }
+            try {
+                FileLock lock = channel.lock();
+                try {
+                    if (channel.size() < FILE_HEADER_LENGTH) {
+                        // New file, or the creating JVM was killed before the header was complete
+                        channel.truncate(0);
+                        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_LENGTH).putInt(MAGIC).putShort(VERSION);
+                        header.flip();
+                        write(header, 0);
+                    }
+                    indexAndCutTornRecord();
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException | RuntimeException e) {
+                try {
+                    channel.close();
+                } catch (IOException closeFailure) {
+                    e.addSuppressed(closeFailure);
+                }
+                if (e instanceof FileException) throw (FileException) e;
+                throw new FileException("Could not open " + path, e);
+            }
+        }
+
+        private synchronized Record getWorldRecord() {
+            indexWithSharedLock();
+            return worldRecord;
+        }
+
+        private synchronized Map<Long, Map<Long, Record>> getPopulations() {
+            indexWithSharedLock();
+            return new LinkedHashMap<>(populations);
+        }
+
+        private synchronized Record getBidderRecord(long populationId, long bidderId) {
+            Record record = getPopulation(populationId).get(bidderId);
+            if (record == null) {
+                throw new FileException("Bidder " + bidderId + " of population " + populationId + " is not stored in " + path);
+            }
+            return record;
+        }
+
+        private synchronized Collection<Record> getBidderRecords(long populationId) {
+            return new ArrayList<>(getPopulation(populationId).values());
+        }
+
+        private Map<Long, Record> getPopulation(long populationId) {
+            indexWithSharedLock();
+            Map<Long, Record> bidders = populations.get(populationId);
+            if (bidders == null) {
+                throw new FileException("Population " + populationId + " is not stored in " + path);
+            }
+            return bidders;
+        }
+
+        private synchronized void append(byte type, long populationId, long bidderId, String className, String json) {
+            byte[] classBytes = className.getBytes(StandardCharsets.UTF_8);
+            byte[] payload = json.getBytes(StandardCharsets.UTF_8);
+            try {
+                FileLock lock = channel.lock();
+                try {
+                    // Index records appended by other JVMs first, such that our record is appended after them
+                    indexAndCutTornRecord();
+                    appendRecord(type, populationId, bidderId, classBytes, payload);
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new FileException("Could not write to " + path, e);
+            }
+        }
+
+        private synchronized long appendPopulation() {
+            try {
+                FileLock lock = channel.lock();
+                try {
+                    indexAndCutTornRecord();
+                    long populationId = 0;
+                    for (long existing : populations.keySet()) {
+                        populationId = Math.max(populationId, existing + 1);
+                    }
+                    appendRecord(POPULATION_RECORD, populationId, -1, new byte[0], new byte[0]);
+                    return populationId;
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new FileException("Could not write to " + path, e);
+            }
+        }
+
+        /**
+         * Writes a record at the end of the indexed records and adds it to the index.
+         * Has to be called under an exclusive file lock.
+         */
+        private void appendRecord(byte type, long populationId, long bidderId, byte[] classBytes, byte[] payload) throws IOException {
+            int length = RECORD_HEADER_LENGTH + classBytes.length + 4 + payload.length;
+            if (indexedSize + length > Integer.MAX_VALUE) {
+                throw new FileException(path + " would exceed 2 GB, which is the maximal size of a world file.");
+            }
+            ByteBuffer record = ByteBuffer.allocate(length);
+            record.put(type).putLong(populationId).putLong(bidderId);
+            record.putShort((short) classBytes.length).put(classBytes);
+            record.putInt(payload.length).put(payload);
+            record.flip();
+            write(record, indexedSize);
+            long payloadPosition = indexedSize + length - payload.length;
+            register(type, populationId, bidderId, new Record(new String(classBytes, StandardCharsets.UTF_8), payloadPosition, payload.length));
+            indexedSize += length;
+        }
+
+        private void write(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+
+        private void indexWithSharedLock() {
+            try {
+                FileLock lock = channel.lock(0, Long.MAX_VALUE, true);
+                try {
+                    // A torn record can't be in progress, as records are written under an exclusive lock.
+                    // It's ignored here and cut off by the next writer.
+                    index();
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new FileException("Could not read " + path, e);
+            }
+        }
+
+        /**
+         * Indexes the new records and cuts off a torn last record, e.g., of a JVM killed while appending.
+         * Has to be called under an exclusive file lock.
+         */
+        private void indexAndCutTornRecord() throws IOException {
+            long size = index();
+            if (indexedSize < size) {
+                logger.warn("Cutting off the torn record at offset {} of {} ({} bytes)", indexedSize, path, size - indexedSize);
+                channel.truncate(indexedSize);
+            }
+        }
+
+        /**
+         * Reads the headers of all complete records appended since the last call. Has to be called under a file lock.
+         *
+         * @return the size of the file. If it is larger than the indexed size, the last record is torn.
+         */
+        private long index() throws IOException {
+            long size = channel.size();
+            if (indexedSize == 0) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_LENGTH);
+                if (size < FILE_HEADER_LENGTH) {
+                    throw new FileException(path + " is not a SATS binary file.");
+                }
+                read(header, 0);
+                header.flip();
+                if (header.getInt() != MAGIC) {
+                    throw new FileException(path + " is not a SATS binary file.");
+                }
+                short version = header.getShort();
+                if (version != VERSION) {
+                    throw new FileException(path + " has version " + version + ", only version " + VERSION + " is supported.");
+                }
+                indexedSize = FILE_HEADER_LENGTH;
+            }
+            long position = indexedSize;
+            while (size - position >= RECORD_HEADER_LENGTH) {
+                recordHeader.clear();
+                read(recordHeader, position);
+                recordHeader.flip();
+                byte type = recordHeader.get();
+                if (type != WORLD_RECORD && type != POPULATION_RECORD && type != BIDDER_RECORD) {
+                    throw new FileException("Unknown record type " + type + " at offset " + position + " in " + path);
+                }
+                long populationId = recordHeader.getLong();
+                long bidderId = recordHeader.getLong();
+                int classLength = recordHeader.getShort() & 0xFFFF;
+                if (size - position - RECORD_HEADER_LENGTH < classLength + 4) break;
+                if (classNameAndLength.capacity() < classLength + 4) {
+                    classNameAndLength = ByteBuffer.allocate(classLength + 4);
+                }
+                classNameAndLength.clear();
+                classNameAndLength.limit(classLength + 4);
+                read(classNameAndLength, position + RECORD_HEADER_LENGTH);
+                classNameAndLength.flip();
+                String className = new String(classNameAndLength.array(), 0, classLength, StandardCharsets.UTF_8);
+                int payloadLength = classNameAndLength.getInt(classLength);
+                if (payloadLength < 0) {
+                    throw new FileException("Corrupt record at offset " + position + " in " + path);
+                }
+                long payloadPosition = position + RECORD_HEADER_LENGTH + classLength + 4;
+                if (size - payloadPosition < payloadLength) break;
+                register(type, populationId, bidderId, new Record(className, payloadPosition, payloadLength));
+                position = payloadPosition + payloadLength;
+            }
+            indexedSize = position;
+            return size;
+        }
+
+        private void register(byte type, long populationId, long bidderId, Record record) {
+            if (type == WORLD_RECORD) {
+                worldRecord = record;
+            } else if (type == POPULATION_RECORD) {
+                populations.computeIfAbsent(populationId, id -> new LinkedHashMap<>());
+            } else {
+                populations.computeIfAbsent(populationId, id -> new LinkedHashMap<>()).put(bidderId, record);
+            }
+        }
+
+        private void read(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new FileException(path + " is truncated.");
+                }
+                position += read;
+            }
+        }
+
+        private synchronized <T> T read(Record record, Class<T> type, Gson gson) {
+            long end = record.payloadPosition + record.payloadLength;
+            try {
+                if (mapped == null || mapped.capacity() < end) {
+                    // Map all indexed records at once. Only needed again once records beyond the mapping are read.
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, indexedSize);
+                }
+                ByteBuffer payload = mapped.duplicate();
+                payload.position((int) record.payloadPosition).limit((int) end);
+                return gson.fromJson(StandardCharsets.UTF_8.decode(payload).toString(), type);
+            } catch (IOException | JsonParseException e) {
+                throw new FileException("Could not read " + record.className + " from " + path, e);
+            }
+        }
+
+        private synchronized void close() throws IOException {
+            mapped = null;
+            channel.close();
+        }
+    }
+}
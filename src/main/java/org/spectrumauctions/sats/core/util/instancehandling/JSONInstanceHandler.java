@@ -7,15 +7,14 @@ package org.spectrumauctions.sats.core.util.instancehandling;
 
 import org.spectrumauctions.sats.core.model.Bidder;
 import org.spectrumauctions.sats.core.model.World;
-import org.spectrumauctions.sats.core.util.CacheMap;
 import org.spectrumauctions.sats.core.util.file.FileException;
 import org.spectrumauctions.sats.core.util.file.FilePathUtils;
+import org.spectrumauctions.sats.core.util.file.LockedCounterFile;
 import org.spectrumauctions.sats.core.util.file.gson.GsonWrapper;
 
 import java.io.File;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -29,12 +28,6 @@ public class JSONInstanceHandler extends InstanceHandler {
 
     private static JSONInstanceHandler instance;
 
-    // Caches 100 top population id's
-    private final Map<Long, Long> populationIdCache = new CacheMap<>(100);
-
-    private long worldIdCache = 0;
-
-
     private JSONInstanceHandler() {
     }
 
@@ -137,61 +130,37 @@ public class JSONInstanceHandler extends InstanceHandler {
         return bidders;
     }
 
-    /* (non-Javadoc)
-     * @see InstanceHandler#getNextWorldId()
+    /**
+     * Reserves a new world id by creating its folder. The next id is kept in a locked counter file in the output
+     * folder, such that concurrent JVMs writing to the same folder never get the same id. If there is no counter
+     * yet, the output folder is scanned once for the ids used so far.
      */
     @Override
-    public long getNextWorldId() {
-        long idCandidate = worldIdCache;
-        idCandidate = recGetAndReserveNewWorldId(idCandidate);
-        worldIdCache = idCandidate + 1;
-        return idCandidate;
+    public synchronized long getNextWorldId() {
+        LockedCounterFile counter = new LockedCounterFile(pathUtils.worldIdCounterPath());
+        return counter.next(
+                () -> nextUnused(pathUtils.getWorldIds()),
+                idCandidate -> LockedCounterFile.reserveFolder(pathUtils.worldFolderPath(idCandidate)));
     }
 
     /**
-     * Attempts to create a new world folder with the id idCandidate. <br>
-     * If the folder already exists, it tries again with a higher id
-     */
-    private long recGetAndReserveNewWorldId(long idCandidate) {
-        java.io.File potentialFolder = pathUtils.worldFolderPath(idCandidate);
-        if (potentialFolder.mkdirs()) {
-            return idCandidate;
-        } else {
-            return recGetAndReserveNewWorldId(idCandidate + 1);
-        }
-    }
-
-    /* (non-Javadoc)
-     * @see InstanceHandler#getNextPopulationId(long)
+     * Reserves a new population id by creating its folder. The next id is kept in a locked counter file in the
+     * world folder, see {@link #getNextWorldId()}.
      */
     @Override
-    public long getNextPopulationId(long worldId) {
-        //TODO check if world exists in file system
-        Long idCandidate = populationIdCache.remove(worldId);
-        if (idCandidate == null) {
-            idCandidate = Long.valueOf("0");
-        }
-
-        idCandidate = recOpenPopulation(worldId, 0);
-
-        Long newCacheId = idCandidate + 1;
-        // Register in Cache
-        populationIdCache.put(worldId, newCacheId);
-
-        return idCandidate;
+    public synchronized long getNextPopulationId(long worldId) {
+        LockedCounterFile counter = new LockedCounterFile(pathUtils.populationIdCounterPath(worldId));
+        return counter.next(
+                () -> pathUtils.worldFolderPath(worldId).isDirectory() ? nextUnused(pathUtils.getPopulationIds(worldId)) : 0,
+                idCandidate -> LockedCounterFile.reserveFolder(pathUtils.populationFolderPath(worldId, idCandidate)));
     }
 
-    /**
-     * Attempts to create a new population folder with the id idCandidate. <br>
-     * If the folder already exists, it tries again with a higher id
-     */
-    private long recOpenPopulation(long worldId, long idCandidate) {
-        java.io.File potentialPopulationFolder = pathUtils.populationFolderPath(worldId, idCandidate);
-        if (potentialPopulationFolder.mkdir()) {
-            return idCandidate;
-        } else {
-            return recOpenPopulation(worldId, ++idCandidate);
+    private static long nextUnused(Collection<Long> usedIds) {
+        long next = 0;
+        for (long id : usedIds) {
+            next = Math.max(next, id + 1);
         }
+        return next;
     }
 
     /* (non-Javadoc)
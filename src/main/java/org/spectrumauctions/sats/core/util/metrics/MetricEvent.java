@@ -0,0 +1,83 @@
+package org.spectrumauctions.sats.core.util.metrics;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A single measurement, e.g., the duration of a MIP solve or the size of a result pool, with optional tags
+ * (such as the round or the bidder id) that allow a listener to break down the measurements.
+ */
+public final class MetricEvent {
+
+    public enum Kind {
+        /**
+         * An occurrence of something, e.g., a value query or a cache hit; the value is the number of occurrences
+         */
+        COUNT,
+        /**
+         * The duration of an operation in nanoseconds
+         */
+        DURATION_NANOS,
+        /**
+         * A sampled quantity, e.g., the number of variables of a MIP
+         */
+        GAUGE
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final double value;
+    private final Map<String, String> tags;
+
+    MetricEvent(String name, Kind kind, double value, Object... tags) {
+        Preconditions.checkArgument(tags.length % 2 == 0, "Tags have to be given as key/value pairs.");
+        this.name = Preconditions.checkNotNull(name);
+        this.kind = kind;
+        this.value = value;
+        if (tags.length == 0) {
+            this.tags = Collections.emptyMap();
+        } else {
+            Map<String, String> tagMap = new LinkedHashMap<>();
+            for (int i = 0; i < tags.length; i += 2) {
+                tagMap.put(String.valueOf(tags[i]), String.valueOf(tags[i + 1]));
+            }
+            this.tags = Collections.unmodifiableMap(tagMap);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * @return the value of the tag, or null if the event doesn't have the tag
+     */
+    public String getTag(String key) {
+        return tags.get(key);
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricEvent{" +
+                "name='" + name + '\'' +
+                ", kind=" + kind +
+                ", value=" + value +
+                ", tags=" + tags +
+                '}';
+    }
+}
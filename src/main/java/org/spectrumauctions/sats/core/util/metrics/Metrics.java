@@ -0,0 +1,163 @@
+package org.spectrumauctions.sats.core.util.metrics;
+
+import com.google.common.base.Preconditions;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Reports measurements of the mechanisms and solvers to the registered {@link MetricsListener}s, e.g., to a
+ * {@link MetricsSummary} which aggregates them to a json summary of a run.<br>
+ * As long as no listener is registered, reporting costs no more than a check of {@link #isEnabled()}; callers
+ * which have to do additional work to report a measurement (e.g., creating tags) should check it first.<br>
+ * Tags are given as alternating keys and values, e.g., {@code Metrics.count(VALUE_QUERY, "bidder", id)}.<br>
+ * The listeners are shared by the whole JVM. To tell concurrent mechanism runs apart, the mechanisms report within
+ * a run (see {@link #inRun(String, Supplier)}), whose id is added to all events as the {@link #RUN_TAG} tag.
+ */
+public final class Metrics {
+
+    private static final Logger logger = LogManager.getLogger(Metrics.class);
+
+    // CCA
+    public static final String CCA_ROUND = "cca.round";
+    /**
+     * Duration of creating a demand query of a bidder in a clock round. Builders which create the MIP lazily
+     * (e.g., the caching builders) report the creation as part of {@link #CCA_DEMAND_QUERY_SOLVE}.
+     */
+    public static final String CCA_DEMAND_QUERY_BUILD = "cca.demandQuery.build";
+    public static final String CCA_DEMAND_QUERY_SOLVE = "cca.demandQuery.solve";
+    public static final String CCA_RESULT_POOL_SIZE = "cca.demandQuery.resultPoolSize";
+    public static final String CCA_SUPPLEMENTARY_ROUND = "cca.supplementaryRound";
+    // Other mechanisms
+    public static final String VCG_RUN = "vcg.run";
+    public static final String CCG_RUN = "ccg.run";
+    public static final String CCG_BLOCKING_COALITION = "ccg.blockingCoalition";
+    public static final String CCG_L1 = "ccg.l1";
+    public static final String CCG_L2 = "ccg.l2";
+    public static final String CCG_CORE_CONSTRAINTS = "ccg.coreConstraints";
+    // Winner determination
+    /**
+     * Duration of an XOR or XORQ winner determination, tagged with its type. With preprocessing, the solves of
+     * the independent components are reported as well.
+     */
+    public static final String WDP_SOLVE = "wdp.solve";
+    public static final String WDP_CACHE_HIT = "wdp.cache.hit";
+    public static final String WDP_CACHE_MISS = "wdp.cache.miss";
+    // Demand queries
+    public static final String DEMAND_QUERY_CACHE_HIT = "demandQuery.cache.hit";
+    public static final String DEMAND_QUERY_CACHE_MISS = "demandQuery.cache.miss";
+    // MIPs
+    public static final String MIP_WAIT = "mip.wait";
+    public static final String MIP_SOLVE = "mip.solve";
+    public static final String MIP_VARIABLES = "mip.variables";
+    public static final String MIP_CONSTRAINTS = "mip.constraints";
+    // Bidders
+    /**
+     * A value query to a bidder of any model. Value queries on generic quantities are counted once, even if they
+     * are answered through the bundle-based value function or vice versa.
+     */
+    public static final String VALUE_QUERY = "bidder.valueQuery";
+
+    /**
+     * The tag holding the id of the run in which an event was reported
+     */
+    public static final String RUN_TAG = "run";
+
+    private static final List<MetricsListener> listeners = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<String> currentRun = new ThreadLocal<>();
+    private static final AtomicLong runs = new AtomicLong();
+
+    private Metrics() {
+    }
+
+    public static void addListener(MetricsListener listener) {
+        listeners.add(Preconditions.checkNotNull(listener));
+    }
+
+    public static void removeListener(MetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return true if at least one listener is registered
+     */
+    public static boolean isEnabled() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * @return a new run id, unique within this JVM, e.g., {@code cca-3}
+     */
+    public static String newRunId(String prefix) {
+        return prefix + "-" + runs.incrementAndGet();
+    }
+
+    /**
+     * @return the id of the run the current thread reports in, or null if it doesn't report in a run
+     */
+    public static String getCurrentRunId() {
+        return currentRun.get();
+    }
+
+    /**
+     * Executes the task such that all events it reports on the current thread are tagged with the run id.
+     * If the thread already reports in a run (e.g., a VCG mechanism used for the payments of a CCA), the task stays
+     * in the outer run. Tasks handed to other threads have to be wrapped again.
+     *
+     * @param runId the id of the run, or null to execute the task as is
+     */
+    public static <R> R inRun(String runId, Supplier<R> task) {
+        if (runId == null || currentRun.get() != null) {
+            return task.get();
+        }
+        currentRun.set(runId);
+        try {
+            return task.get();
+        } finally {
+            currentRun.remove();
+        }
+    }
+
+    public static void count(String name, Object... tags) {
+        countOccurrences(name, 1, tags);
+    }
+
+    public static void countOccurrences(String name, long occurrences, Object... tags) {
+        publish(name, MetricEvent.Kind.COUNT, occurrences, tags);
+    }
+
+    /**
+     * @param nanos the duration, typically the difference of two {@link System#nanoTime()} calls
+     */
+    public static void time(String name, long nanos, Object... tags) {
+        publish(name, MetricEvent.Kind.DURATION_NANOS, nanos, tags);
+    }
+
+    public static void gauge(String name, double value, Object... tags) {
+        publish(name, MetricEvent.Kind.GAUGE, value, tags);
+    }
+
+    private static void publish(String name, MetricEvent.Kind kind, double value, Object... tags) {
+        if (listeners.isEmpty()) return;
+        String runId = currentRun.get();
+        if (runId != null) {
+            tags = Arrays.copyOf(tags, tags.length + 2);
+            tags[tags.length - 2] = RUN_TAG;
+            tags[tags.length - 1] = runId;
+        }
+        MetricEvent event = new MetricEvent(name, kind, value, tags);
+        for (MetricsListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                // A failing listener must never break the mechanism it observes
+                logger.warn("Metrics listener {} failed on {}.", listener, event, e);
+            }
+        }
+    }
+}
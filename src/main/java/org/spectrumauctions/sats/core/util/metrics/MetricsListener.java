@@ -0,0 +1,11 @@
+package org.spectrumauctions.sats.core.util.metrics;
+
+/**
+ * Receives the events reported through {@link Metrics}.<br>
+ * Listeners are called synchronously on the reporting thread, which may be any thread of a parallel mechanism
+ * or solver pool. Implementations therefore have to be thread-safe and should return quickly.
+ */
+public interface MetricsListener {
+
+    void onEvent(MetricEvent event);
+}
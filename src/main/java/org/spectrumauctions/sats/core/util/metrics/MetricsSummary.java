@@ -0,0 +1,172 @@
+package org.spectrumauctions.sats.core.util.metrics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import org.spectrumauctions.sats.core.util.file.FileException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregates the events per name, i.e., counts them and keeps sum, minimum and maximum of their values.
+ * Tags are ignored, except for the run; register an own {@link MetricsListener} to break down the measurements
+ * per round or bidder.<br>
+ * As the listeners are shared by the whole JVM, a summary of a single mechanism run only accepts the events of
+ * that run, such that mechanisms running concurrently don't mix:
+ * <pre>{@code
+ * MetricsSummary summary = new MetricsSummary(mechanism.getMetricsRunId());
+ * Metrics.addListener(summary);
+ * try {
+ *     mechanism.getMechanismResult();
+ * } finally {
+ *     Metrics.removeListener(summary);
+ * }
+ * summary.writeJson(path);
+ * }</pre>
+ */
+public class MetricsSummary implements MetricsListener {
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final String runId;
+    private final Map<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a summary of all events, of any run
+     */
+    public MetricsSummary() {
+        this(null);
+    }
+
+    /**
+     * @param runId the run whose events are aggregated (see {@link Metrics#RUN_TAG}), or null for all events
+     */
+    public MetricsSummary(String runId) {
+        this.runId = runId;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    @Override
+    public void onEvent(MetricEvent event) {
+        if (runId != null && !runId.equals(event.getTag(Metrics.RUN_TAG))) return;
+        aggregates.computeIfAbsent(event.getName(), name -> new Aggregate(event.getKind())).add(event.getValue());
+    }
+
+    /**
+     * @return the number of events with this name
+     */
+    public long getEvents(String name) {
+        Aggregate aggregate = aggregates.get(name);
+        return aggregate == null ? 0 : aggregate.snapshot().events;
+    }
+
+    /**
+     * @return the sum of the values of the events with this name, e.g., the number of occurrences of counts or
+     * the total nanoseconds of durations
+     */
+    public double getSum(String name) {
+        Aggregate aggregate = aggregates.get(name);
+        return aggregate == null ? 0 : aggregate.snapshot().sum;
+    }
+
+    /**
+     * @return the share of hits among all lookups, or NaN if there weren't any lookups
+     */
+    public double getHitRate(String hitName, String missName) {
+        double hits = getSum(hitName);
+        double lookups = hits + getSum(missName);
+        return lookups == 0 ? Double.NaN : hits / lookups;
+    }
+
+    public void reset() {
+        aggregates.clear();
+    }
+
+    /**
+     * @return the summary as compact json, with one object per event name (sorted by name) and the hit rates of
+     * the caches. Durations are converted to milliseconds.
+     */
+    public String toJson() {
+        return GSON.toJson(toJsonObject());
+    }
+
+    public void writeJson(Path file) {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            GSON.toJson(toJsonObject(), writer);
+        } catch (IOException e) {
+            throw new FileException("Could not write the metrics summary " + file, e);
+        }
+    }
+
+    private JsonObject toJsonObject() {
+        JsonObject metrics = new JsonObject();
+        for (Map.Entry<String, Aggregate> entry : new TreeMap<>(aggregates).entrySet()) {
+            Aggregate aggregate = entry.getValue().snapshot();
+            double scale = aggregate.kind == MetricEvent.Kind.DURATION_NANOS ? NANOS_PER_MILLI : 1;
+            JsonObject json = new JsonObject();
+            json.addProperty("kind", aggregate.kind.name());
+            json.addProperty("events", aggregate.events);
+            json.addProperty(aggregate.kind == MetricEvent.Kind.DURATION_NANOS ? "totalMillis" : "sum", aggregate.sum / scale);
+            json.addProperty("min", aggregate.min / scale);
+            json.addProperty("max", aggregate.max / scale);
+            json.addProperty("mean", aggregate.sum / aggregate.events / scale);
+            metrics.add(entry.getKey(), json);
+        }
+        JsonObject hitRates = new JsonObject();
+        addHitRate(hitRates, "wdp", Metrics.WDP_CACHE_HIT, Metrics.WDP_CACHE_MISS);
+        addHitRate(hitRates, "demandQuery", Metrics.DEMAND_QUERY_CACHE_HIT, Metrics.DEMAND_QUERY_CACHE_MISS);
+        JsonObject result = new JsonObject();
+        if (runId != null) {
+            result.addProperty("run", runId);
+        }
+        result.add("metrics", metrics);
+        result.add("cacheHitRates", hitRates);
+        return result;
+    }
+
+    private void addHitRate(JsonObject hitRates, String cache, String hitName, String missName) {
+        double hitRate = getHitRate(hitName, missName);
+        if (!Double.isNaN(hitRate)) {
+            hitRates.addProperty(cache, hitRate);
+        }
+    }
+
+    private static final class Aggregate {
+        private final MetricEvent.Kind kind;
+        private long events;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        private Aggregate(MetricEvent.Kind kind) {
+            this.kind = kind;
+        }
+
+        private synchronized void add(double value) {
+            events++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        private synchronized Aggregate snapshot() {
+            Aggregate copy = new Aggregate(kind);
+            copy.events = events;
+            copy.sum = sum;
+            copy.min = min;
+            copy.max = max;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.spectrumauctions.sats.mechanism.cca;
+
+import com.google.common.base.Preconditions;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.Bundle;
+import org.spectrumauctions.sats.core.model.Good;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Collects the bids of the clock phase per bidder, indexed by a hashable key of the bundle (see {@link #keyOf(Bundle)}
+ * for plain bundles, the quantity map for generic bundles).<br>
+ * Each bundle is stored at most once per bidder. Bidding on a bundle again only replaces the existing bid if the
+ * new amount is strictly higher, which is a constant-time operation instead of a scan over all previous bids.
+ * The bids of a bidder are kept in the order in which their bundles were first bid on.
+ *
+ * @param <T> the type of goods
+ * @param <K> the type of the bundle key
+ * @param <V> the type of the stored bids, e.g., XOR or XOR-Q values
+ */
+public class BidBook<T extends Good, K, V> {
+
+    private final Function<V, BigDecimal> amount;
+    private final Map<Bidder<T>, Map<K, V>> bids = new LinkedHashMap<>();
+
+    /**
+     * @param amount extracts the bid amount of a stored bid, used to compare a new bid with an existing one
+     */
+    public BidBook(Function<V, BigDecimal> amount) {
+        this.amount = Preconditions.checkNotNull(amount);
+    }
+
+    /**
+     * Stores the bid on the bundle with the given key, unless the bidder already bid at least as much on it.
+     *
+     * @return true if the bid was added or replaced an existing, lower bid
+     */
+    public boolean upsertIfHigher(Bidder<T> bidder, K key, V bid) {
+        Map<K, V> bidderBids = bids.computeIfAbsent(bidder, b -> new LinkedHashMap<>());
+        V existing = bidderBids.get(key);
+        if (existing == null || amount.apply(existing).compareTo(amount.apply(bid)) < 0) {
+            bidderBids.put(key, bid);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the current bid of the bidder on the bundle with the given key, or null if there is none
+     */
+    public V getBid(Bidder<T> bidder, K key) {
+        return bids.getOrDefault(bidder, Collections.emptyMap()).get(key);
+    }
+
+    /**
+     * @return a new list of all bids of the bidder, in the order in which their bundles were first bid on
+     */
+    public List<V> getBids(Bidder<T> bidder) {
+        return new ArrayList<>(bids.getOrDefault(bidder, Collections.emptyMap()).values());
+    }
+
+    /**
+     * @return the bidders which placed at least one bid, in the order of their first bid
+     */
+    public Set<Bidder<T>> getBidders() {
+        return Collections.unmodifiableSet(bids.keySet());
+    }
+
+    public int size(Bidder<T> bidder) {
+        return bids.getOrDefault(bidder, Collections.emptyMap()).size();
+    }
+
+    /**
+     * @return a compact key of the bundle, which has the bits of the ids of its goods set. Two bundles
+     * from the same world have the same key if and only if they are equal.
+     */
+    public static BitSet keyOf(Bundle<? extends Good> bundle) {
+        BitSet key = new BitSet();
+        for (Good good : bundle) {
+            key.set(Math.toIntExact(good.getId()));
+        }
+        return key;
+    }
+}
@@ -1,18 +1,28 @@
 package org.spectrumauctions.sats.mechanism.cca;
 
+import com.google.common.base.Preconditions;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.spectrumauctions.sats.core.model.Bidder;
 import org.spectrumauctions.sats.core.model.Good;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
 import org.spectrumauctions.sats.mechanism.PaymentRuleEnum;
 import org.spectrumauctions.sats.mechanism.domain.MechanismResult;
 import org.spectrumauctions.sats.mechanism.domain.Payment;
 import org.spectrumauctions.sats.mechanism.domain.mechanisms.AuctionMechanism;
 import org.spectrumauctions.sats.opt.domain.Allocation;
+import org.spectrumauctions.sats.opt.domain.WinnerDeterminationCache;
 import org.spectrumauctions.sats.opt.domain.WinnerDeterminator;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public abstract class CCAMechanism<T extends Good> implements AuctionMechanism<T> {
 
@@ -26,6 +36,7 @@ public abstract class CCAMechanism<T extends Good> implements AuctionMechanism<T
     private static final int DEFAULT_ABS_RESULT_POOL_TOLERANCE = 0;
     private static final int DEFAULT_CLOCKPHASE_NUMBER_OF_BUNDLES = 1;
     private static final double DEFAULT_EPSILON_WDP = 1e-8;
+    private static final int DEFAULT_PARALLELISM = 1;
 
     protected List<Bidder<T>> bidders;
     protected int totalRounds = 1;
@@ -42,8 +53,24 @@ public abstract class CCAMechanism<T extends Good> implements AuctionMechanism<T
     // The number of bundles returned in a demand query in the clock phase
     protected int clockPhaseNumberOfBundles = DEFAULT_CLOCKPHASE_NUMBER_OF_BUNDLES;
 
+    // Optional cache for the winner determination problems solved for the allocation and the payments
+    protected WinnerDeterminationCache wdpCache;
+
+    // The number of bidders whose demand queries are solved concurrently
+    protected int parallelism = DEFAULT_PARALLELISM;
+
+    // Optional file to which the state of the clock phase is written every checkpointInterval rounds
+    protected Path checkpointFile;
+    protected int checkpointInterval;
+
+    // A checkpoint from which the clock phase is continued instead of starting from scratch
+    protected ClockPhaseCheckpoint resumeCheckpoint;
+
     protected MechanismResult<T> result;
 
+    // Tags the metrics reported by this mechanism, such that concurrent runs can be told apart
+    protected String metricsRunId = Metrics.newRunId("cca");
+
 
     public CCAMechanism(List<Bidder<T>> bidders) {
         this.bidders = bidders;
@@ -62,6 +89,88 @@ public abstract class CCAMechanism<T extends Good> implements AuctionMechanism<T
         this.epsilonWdp = epsilon;
     }
 
+    /**
+     * Sets a cache for the winner determination problems, such that identical bid sets are solved only once,
+     * e.g., the allocation after the supplementary round and the same problem again for the payments.
+     */
+    public void setWdpCache(WinnerDeterminationCache wdpCache) {
+        this.wdpCache = wdpCache;
+    }
+
+    /**
+     * Sets the number of bidders whose demand queries (in the clock phase and the supplementary round) are solved
+     * concurrently. The queries of a round only depend on the round's prices, and their results are merged
+     * in the order of the bidders, so the outcome is the same as with the default of 1 (sequential).
+     */
+    public void setParallelism(int parallelism) {
+        Preconditions.checkArgument(parallelism > 0);
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the id with which all metrics reported by this mechanism are tagged (see {@link Metrics#RUN_TAG}).
+     * By default, a unique id is generated for each mechanism.
+     */
+    public void setMetricsRunId(String metricsRunId) {
+        this.metricsRunId = Preconditions.checkNotNull(metricsRunId);
+    }
+
+    public String getMetricsRunId() {
+        return metricsRunId;
+    }
+
+    /**
+     * Executes the task such that the metrics it reports are tagged with the id of this mechanism's run
+     */
+    protected <R> R inMetricsRun(Supplier<R> task) {
+        return Metrics.inRun(metricsRunId, task);
+    }
+
+    /**
+     * Applies the query to every bidder, using up to {@link #parallelism} threads.
+     *
+     * @return the results, in the order of the bidders
+     */
+    protected <R> List<R> queryBidders(Function<Bidder<T>, R> query) {
+        return runInParallel(bidders, query);
+    }
+
+    /**
+     * Applies the function to every input, using up to {@link #parallelism} threads.
+     *
+     * @return the results, in the order of the inputs
+     */
+    protected <S, R> List<R> runInParallel(List<S> inputs, Function<S, R> function) {
+        if (parallelism == 1 || inputs.size() < 2) {
+            List<R> results = new ArrayList<>();
+            inputs.forEach(input -> results.add(inMetricsRun(() -> function.apply(input))));
+            return results;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, inputs.size()));
+        try {
+            List<Future<R>> futures = new ArrayList<>();
+            inputs.forEach(input -> futures.add(executor.submit(() -> inMetricsRun(() -> function.apply(input)))));
+            List<R> results = new ArrayList<>();
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the parallel tasks.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Override
     public Payment<T> getPayment() {
         return getMechanismResult().getPayment();
@@ -88,6 +197,25 @@ public abstract class CCAMechanism<T extends Good> implements AuctionMechanism<T
         throw new UnsupportedOperationException("Not supported"); // FIXME: Clean up interfaces
     }
 
+    /**
+     * Writes the state of the clock phase (round, prices, price updater state, demand and bids) to the file after
+     * every interval rounds and once the clock phase is over. The file is replaced atomically, see
+     * {@link ClockPhaseCheckpoint#write(Path)}.
+     */
+    public void setCheckpointing(Path checkpointFile, int interval) {
+        Preconditions.checkNotNull(checkpointFile);
+        Preconditions.checkArgument(interval > 0);
+        this.checkpointFile = checkpointFile;
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * Continues the clock phase from a checkpoint written by a mechanism with the same bidders, settings and type of
+     * price updater, instead of starting it from scratch. The continued clock phase has the same bids and prices
+     * as an uninterrupted run.
+     */
+    public abstract void resumeFrom(Path checkpointFile);
+
     public void setFallbackStartingPrice(BigDecimal fallbackStartingPrice) {
         this.fallbackStartingPrice = fallbackStartingPrice;
     }
@@ -101,7 +229,10 @@ public abstract class CCAMechanism<T extends Good> implements AuctionMechanism<T
      * It can be compared to the auctioneer conducting some research before the auction about the bidder's preferences.
      * That way, the starting prices can be adjusted to speed up the auction without sacrificing efficiency.
      * This is simulated by drawing a number of bids from newly created (but based on the same value distributions)
-     * bidders
+     * bidders.<br>
+     * Every world sample draws its bidders and bids with its own seed, derived from the given seed. The samples are
+     * processed with up to {@link #parallelism} threads and their regressions are merged in the order of the samples,
+     * such that the starting prices only depend on the seed.
      *
      * @param bidsPerBidder         How many bids are collected per bidder in each world
      * @param numberOfWorldSamples  How many parallel worlds are created to collect these bids
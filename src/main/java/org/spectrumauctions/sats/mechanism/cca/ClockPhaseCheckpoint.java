@@ -0,0 +1,198 @@
+package org.spectrumauctions.sats.mechanism.cca;
+
+import com.google.common.base.Preconditions;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import org.spectrumauctions.sats.core.util.file.FileException;
+import org.spectrumauctions.sats.mechanism.cca.priceupdate.PriceUpdaterState;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A snapshot of the clock phase of a {@link CCAMechanism}, from which the clock phase can be continued with
+ * exactly the same bids and prices (see {@link CCAMechanism#setCheckpointing(Path, int)} and
+ * {@link CCAMechanism#resumeFrom(Path)}).<br>
+ * The snapshot is independent of the world instances: goods are identified by their id and generic definitions
+ * by their {@link org.spectrumauctions.sats.core.bidlang.generic.GenericDefinition#shortJson()}, bidders by their
+ * id. All amounts are stored as exact decimal strings. The file is gzipped, compact json.
+ */
+public final class ClockPhaseCheckpoint {
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private int round;
+    private boolean finished;
+    private Map<String, String> prices = new LinkedHashMap<>();
+    private Map<String, Integer> demand = new LinkedHashMap<>();
+    private Map<String, Map<String, String>> priceUpdaterVectors = new LinkedHashMap<>();
+    private Map<String, String> priceUpdaterScalars = new LinkedHashMap<>();
+    private Map<Long, List<Bid>> bids = new LinkedHashMap<>();
+
+    /**
+     * A single clock phase bid, i.e., the quantity per good or generic definition and the bid amount
+     */
+    static final class Bid {
+        private final Map<String, Integer> quantities;
+        private final String amount;
+
+        Bid(Map<String, Integer> quantities, BigDecimal amount) {
+            this.quantities = quantities;
+            this.amount = amount.toString();
+        }
+
+        Map<String, Integer> getQuantities() {
+            return quantities;
+        }
+
+        BigDecimal getAmount() {
+            return new BigDecimal(amount);
+        }
+    }
+
+    ClockPhaseCheckpoint() {
+    }
+
+    /**
+     * @return the round in which the clock phase continues (or ended, if {@link #isFinished()})
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * @return true if the clock phase was over when the checkpoint was written
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    void setRound(int round) {
+        this.round = round;
+    }
+
+    void setFinished(boolean finished) {
+        this.finished = finished;
+    }
+
+    <K> void setPrices(Map<K, BigDecimal> prices, Function<K, String> keys) {
+        this.prices = encode(prices, keys);
+    }
+
+    <K> Map<K, BigDecimal> getPrices(Map<String, K> keys) {
+        return decode(prices, keys);
+    }
+
+    <K> void setDemand(Map<K, Integer> demand, Function<K, String> keys) {
+        this.demand = new LinkedHashMap<>();
+        demand.forEach((key, quantity) -> this.demand.put(keys.apply(key), quantity));
+    }
+
+    <K> Map<K, Integer> getDemand(Map<String, K> keys) {
+        Map<K, Integer> result = new HashMap<>();
+        demand.forEach((key, quantity) -> result.put(lookup(keys, key), quantity));
+        return result;
+    }
+
+    <K> void setPriceUpdaterState(PriceUpdaterState<K> state, Function<K, String> keys) {
+        priceUpdaterVectors = new LinkedHashMap<>();
+        state.getVectors().forEach((name, vector) -> priceUpdaterVectors.put(name, encode(vector, keys)));
+        priceUpdaterScalars = new LinkedHashMap<>();
+        state.getScalars().forEach((name, scalar) -> priceUpdaterScalars.put(name, scalar.toString()));
+    }
+
+    <K> PriceUpdaterState<K> getPriceUpdaterState(Map<String, K> keys) {
+        PriceUpdaterState<K> state = new PriceUpdaterState<>();
+        priceUpdaterVectors.forEach((name, vector) -> state.putVector(name, decode(vector, keys)));
+        priceUpdaterScalars.forEach((name, scalar) -> state.putScalar(name, new BigDecimal(scalar)));
+        return state;
+    }
+
+    void addBid(long bidderId, Map<String, Integer> quantities, BigDecimal amount) {
+        bids.computeIfAbsent(bidderId, id -> new ArrayList<>()).add(new Bid(quantities, amount));
+    }
+
+    /**
+     * @return the ids of the bidders with at least one bid, in the order in which their first bid was added
+     */
+    Set<Long> getBidderIds() {
+        return bids.keySet();
+    }
+
+    /**
+     * @return the bids of the bidder, in the order in which they were added
+     */
+    List<Bid> getBids(long bidderId) {
+        return bids.getOrDefault(bidderId, Collections.emptyList());
+    }
+
+    private static <K> Map<String, String> encode(Map<K, BigDecimal> values, Function<K, String> keys) {
+        Map<String, String> result = new LinkedHashMap<>();
+        values.forEach((key, value) -> result.put(keys.apply(key), value.toString()));
+        return result;
+    }
+
+    private static <K> Map<K, BigDecimal> decode(Map<String, String> values, Map<String, K> keys) {
+        Map<K, BigDecimal> result = new HashMap<>();
+        values.forEach((key, value) -> result.put(lookup(keys, key), new BigDecimal(value)));
+        return result;
+    }
+
+    static <K> K lookup(Map<String, K> keys, String key) {
+        K result = keys.get(key);
+        if (result == null) {
+            throw new IllegalArgumentException("Checkpoint refers to " + key + ", which is not part of this auction.");
+        }
+        return result;
+    }
+
+    /**
+     * Writes the checkpoint to a temporary file next to the target, which then replaces the target atomically
+     * (where the file system supports it), such that an interruption never leaves a partially written checkpoint.
+     */
+    public void write(Path file) {
+        Preconditions.checkNotNull(file);
+        Path directory = file.toAbsolutePath().getParent();
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(temporary)), StandardCharsets.UTF_8)) {
+                    GSON.toJson(this, writer);
+                }
+                try {
+                    Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new FileException("Could not write the checkpoint " + file, e);
+        }
+    }
+
+    public static ClockPhaseCheckpoint read(Path file) {
+        Preconditions.checkNotNull(file);
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8)) {
+            ClockPhaseCheckpoint checkpoint = GSON.fromJson(reader, ClockPhaseCheckpoint.class);
+            if (checkpoint == null) {
+                throw new FileException("The checkpoint " + file + " is empty.");
+            }
+            return checkpoint;
+        } catch (IOException | JsonParseException e) {
+            throw new FileException("Could not read the checkpoint " + file, e);
+        }
+    }
+}
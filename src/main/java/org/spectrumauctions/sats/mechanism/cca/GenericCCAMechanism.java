@@ -9,6 +9,7 @@ import org.spectrumauctions.sats.core.bidlang.generic.GenericDefinition;
 import org.spectrumauctions.sats.core.bidlang.generic.GenericValue;
 import org.spectrumauctions.sats.core.bidlang.generic.SimpleRandomOrder.XORQRandomOrderSimple;
 import org.spectrumauctions.sats.core.model.*;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
 import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
 import org.spectrumauctions.sats.core.util.random.RNGSupplier;
 import org.spectrumauctions.sats.mechanism.cca.priceupdate.GenericPriceUpdater;
@@ -27,6 +28,7 @@ import org.spectrumauctions.sats.opt.domain.GenericDemandQueryResult;
 import org.spectrumauctions.sats.opt.xorq.XORQWinnerDetermination;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -92,23 +94,38 @@ public class GenericCCAMechanism<G extends GenericDefinition<T>, T extends Good>
                 regressions.put((G) genericDefinition, regression);
             }
 
-            RNGSupplier rngSupplier = new JavaUtilRNGSupplier(seed);
+            // The bidders are drawn sequentially (they are stored by the instance handler), the bids in parallel
+            Random seeds = new Random(seed);
+            List<List<XORQRandomOrderSimple<G, T>>> samples = new ArrayList<>();
             for (int i = 0; i < numberOfWorldSamples; i++) {
+                RNGSupplier rngSupplier = new JavaUtilRNGSupplier(seeds.nextLong());
                 List<Bidder<T>> alternateBidders = bidders.stream().map(b -> b.drawSimilarBidder(rngSupplier)).collect(Collectors.toList());
+                List<XORQRandomOrderSimple<G, T>> valueFunctions = new ArrayList<>();
                 for (Bidder<T> bidder : alternateBidders) {
                     XORQRandomOrderSimple<G, T> valueFunction;
                     valueFunction = (XORQRandomOrderSimple) bidder.getValueFunction(XORQRandomOrderSimple.class, rngSupplier);
                     valueFunction.setIterations(bidsPerBidder);
+                    valueFunctions.add(valueFunction);
+                }
+                samples.add(valueFunctions);
+            }
 
+            List<Map<G, SimpleRegression>> sampleRegressions = runInParallel(samples, valueFunctions -> {
+                Map<G, SimpleRegression> sampleRegression = new HashMap<>();
+                for (XORQRandomOrderSimple<G, T> valueFunction : valueFunctions) {
                     Iterator<? extends GenericValue<G, T>> bidIterator = valueFunction.iterator();
                     while (bidIterator.hasNext()) {
                         GenericValue<G, T> bid = bidIterator.next();
                         for (Map.Entry<G, Integer> entry : bid.getQuantities().entrySet()) {
                             double y = bid.getValue().doubleValue() * entry.getValue() / bid.getTotalQuantity();
-                            regressions.get(entry.getKey()).addData(entry.getValue().doubleValue(), y);
+                            sampleRegression.computeIfAbsent(entry.getKey(), def -> new SimpleRegression(false)).addData(entry.getValue().doubleValue(), y);
                         }
                     }
                 }
+                return sampleRegression;
+            });
+            for (Map<G, SimpleRegression> sampleRegression : sampleRegressions) {
+                sampleRegression.forEach((def, regression) -> regressions.get(def).append(regression));
             }
             double min = Infinity;
             for (Map.Entry<G, SimpleRegression> entry : regressions.entrySet()) {
@@ -147,6 +164,8 @@ public class GenericCCAMechanism<G extends GenericDefinition<T>, T extends Good>
         clone.fallbackStartingPrice = fallbackStartingPrice;
         clone.maxRounds = maxRounds;
         clone.paymentRule = paymentRule;
+        clone.wdpCache = wdpCache;
+        clone.parallelism = parallelism;
         clone.timeLimit = timeLimit;
         clone.bidsAfterClockPhase = bidsAfterClockPhase;
         clone.finalPrices = finalPrices;
@@ -164,7 +183,8 @@ public class GenericCCAMechanism<G extends GenericDefinition<T>, T extends Good>
         Set<GenericBid<G, T>> bids = new HashSet<>(bidsAfterClockPhase);
 
         XORQWinnerDetermination<G, T> wdp = new XORQWinnerDetermination<>(bids, getEpsilonWdp());
-        return wdp.calculateAllocation();
+        wdp.setCache(wdpCache);
+        return inMetricsRun(wdp::calculateAllocation);
     }
 
     public Allocation<T> calculateAllocationAfterSupplementaryRound() {
@@ -179,7 +199,8 @@ public class GenericCCAMechanism<G extends GenericDefinition<T>, T extends Good>
         Set<GenericBid<G, T>> bids = new HashSet<>(bidsAfterSupplementaryRound);
 
         XORQWinnerDetermination<G, T> wdp = new XORQWinnerDetermination<>(bids, getEpsilonWdp());
-        return wdp.calculateAllocation();
+        wdp.setCache(wdpCache);
+        return inMetricsRun(wdp::calculateAllocation);
     }
 
     public Collection<GenericBid<G, T>> getBidsAfterSupplementaryRound() {
@@ -193,21 +214,63 @@ public class GenericCCAMechanism<G extends GenericDefinition<T>, T extends Good>
     }
 
     private Collection<GenericBid<G, T>> runClockPhase() {
-        Map<Bidder<T>, GenericBid<G, T>> bids = new HashMap<>();
+        return inMetricsRun(this::clockPhase);
+    }
+
+    private Collection<GenericBid<G, T>> clockPhase() {
+        BidBook<T, Map<G, Integer>, GenericValue<G, T>> bidBook = new BidBook<>(GenericValue::getValue);
         GenericWorld<T> world = (GenericWorld<T>) bidders.iterator().next().getWorld();
         Map<G, BigDecimal> prices = new HashMap<>();
         Set<G> genericDefinitions = (Set<G>) world.getAllGenericDefinitions();
         for (G def : genericDefinitions) {
             prices.put(def, startingPrices.getOrDefault(def, fallbackStartingPrice));
         }
-        Map<G, Integer> demand;
+        Map<G, Integer> demand = new HashMap<>();
         boolean done = false;
+        if (resumeCheckpoint != null) {
+            Map<String, G> keys = new HashMap<>();
+            genericDefinitions.forEach(def -> keys.put(checkpointKey(def), def));
+            prices = resumeCheckpoint.getPrices(keys);
+            demand = resumeCheckpoint.getDemand(keys);
+            priceUpdater.restoreState(resumeCheckpoint.getPriceUpdaterState(keys));
+            Map<String, Bidder<T>> bidderKeys = new HashMap<>();
+            bidders.forEach(bidder -> bidderKeys.put(String.valueOf(bidder.getId()), bidder));
+            for (long bidderId : resumeCheckpoint.getBidderIds()) {
+                Bidder<T> bidder = ClockPhaseCheckpoint.lookup(bidderKeys, String.valueOf(bidderId));
+                for (ClockPhaseCheckpoint.Bid bid : resumeCheckpoint.getBids(bidderId)) {
+                    GenericValue.Builder<G, T> bidBuilder = new GenericValue.Builder<>(bid.getAmount());
+                    bid.getQuantities().forEach((key, quantity) -> bidBuilder.putQuantity(ClockPhaseCheckpoint.lookup(keys, key), quantity));
+                    GenericValue<G, T> value = bidBuilder.build();
+                    bidBook.upsertIfHigher(bidder, value.getQuantities(), value);
+                }
+            }
+            totalRounds = resumeCheckpoint.getRound();
+            done = resumeCheckpoint.isFinished();
+            logger.info("Resuming clock phase in round {}.", totalRounds);
+            resumeCheckpoint = null;
+        }
         while (!done) {
             demand = new HashMap<>();
-            for (Bidder<T> bidder : bidders) {
-                GenericDemandQueryMIP<G, T> demandQueryMIP = genericDemandQueryMIPBuilder.getDemandQueryMipFor(bidder, prices, epsilon);
+            Map<G, BigDecimal> currentPrices = prices; // For lambda use
+            int round = totalRounds; // For lambda use
+            long roundStart = System.nanoTime();
+            List<List<? extends GenericDemandQueryResult<G, T>>> results = queryBidders(bidder -> {
+                long start = System.nanoTime();
+                GenericDemandQueryMIP<G, T> demandQueryMIP = genericDemandQueryMIPBuilder.getDemandQueryMipFor(bidder, currentPrices, epsilon);
                 demandQueryMIP.setTimeLimit(getTimeLimit());
-                List<? extends GenericDemandQueryResult<G, T>> genericDemandQueryResults = demandQueryMIP.getResultPool(clockPhaseNumberOfBundles);
+                long built = System.nanoTime();
+                List<? extends GenericDemandQueryResult<G, T>> resultPool = demandQueryMIP.getResultPool(clockPhaseNumberOfBundles);
+                if (Metrics.isEnabled()) {
+                    long solved = System.nanoTime();
+                    Metrics.time(Metrics.CCA_DEMAND_QUERY_BUILD, built - start, "round", round, "bidder", bidder.getId());
+                    Metrics.time(Metrics.CCA_DEMAND_QUERY_SOLVE, solved - built, "round", round, "bidder", bidder.getId());
+                    Metrics.gauge(Metrics.CCA_RESULT_POOL_SIZE, resultPool.size(), "round", round, "bidder", bidder.getId());
+                }
+                return resultPool;
+            });
+            for (int i = 0; i < bidders.size(); i++) {
+                Bidder<T> bidder = bidders.get(i);
+                List<? extends GenericDemandQueryResult<G, T>> genericDemandQueryResults = results.get(i);
                 // Fill the generic map
                 GenericValue<G, T> firstResult = genericDemandQueryResults.get(0).getResultingBundle();
                 if (firstResult.getTotalQuantity() > 0) {
@@ -227,34 +290,17 @@ public class GenericCCAMechanism<G extends GenericDefinition<T>, T extends Good>
                             bid = bid.add(quantityTimesPrice);
                         }
 
-                        GenericBid<G, T> currentBid = bids.getOrDefault(bidder, new GenericBid<>(bidder, new ArrayList<>()));
-                        GenericValue<G, T> existingValue = null;
-                        for (GenericValue<G, T> value : currentBid.getValues()) {
-                            if (value.getQuantities().equals(genericResult.getQuantities())) {
-                                existingValue = value;
-                                break;
-                            }
-                        }
-
-                        if (existingValue != null && existingValue.getValue().compareTo(bid) < 0) {
-                            currentBid.removeValue(existingValue);
-                        }
-                        if (existingValue == null || existingValue.getValue().compareTo(bid) < 0) {
-                            GenericValue.Builder<G, T> bidBuilder = new GenericValue.Builder<>(bid);
-                            genericResult.getQuantities().forEach(bidBuilder::putQuantity);
-                            currentBid.addValue(bidBuilder.build());
-                        }
-
-                        bids.put(bidder, currentBid);
+                        GenericValue.Builder<G, T> bidBuilder = new GenericValue.Builder<>(bid);
+                        genericResult.getQuantities().forEach(bidBuilder::putQuantity);
+                        bidBook.upsertIfHigher(bidder, genericResult.getQuantities(), bidBuilder.build());
                     }
                 }
             }
 
             Map<G, BigDecimal> updatedPrices = priceUpdater.updatePrices(prices, demand);
+            Metrics.time(Metrics.CCA_ROUND, System.nanoTime() - roundStart, "round", round);
             if (prices.equals(updatedPrices) || totalRounds >= maxRounds) {
                 done = true;
-                finalDemand = demand;
-                finalPrices = prices;
             } else {
                 prices = updatedPrices;
                 if (logger.isInfoEnabled()) {
@@ -268,21 +314,68 @@ public class GenericCCAMechanism<G extends GenericDefinition<T>, T extends Good>
                     logger.info("Round: {} - Demand: {} - Supply: {}", totalRounds, aggregateDemand, supply);
                 }
                 totalRounds++;
+                if (checkpointFile != null && totalRounds % checkpointInterval == 0) {
+                    writeCheckpoint(bidBook, prices, demand, false);
+                }
             }
         }
-        bidsAfterClockPhase = bids.values();
+        finalDemand = demand;
+        finalPrices = prices;
+        if (checkpointFile != null) {
+            writeCheckpoint(bidBook, prices, demand, true);
+        }
+        Collection<GenericBid<G, T>> bids = new ArrayList<>();
+        for (Bidder<T> bidder : bidBook.getBidders()) {
+            bids.add(new GenericBid<>(bidder, bidBook.getBids(bidder)));
+        }
+        bidsAfterClockPhase = bids;
         return bidsAfterClockPhase;
     }
 
+    private void writeCheckpoint(BidBook<T, Map<G, Integer>, GenericValue<G, T>> bidBook, Map<G, BigDecimal> prices, Map<G, Integer> demand, boolean finished) {
+        ClockPhaseCheckpoint checkpoint = new ClockPhaseCheckpoint();
+        checkpoint.setRound(totalRounds);
+        checkpoint.setFinished(finished);
+        checkpoint.setPrices(prices, this::checkpointKey);
+        checkpoint.setDemand(demand, this::checkpointKey);
+        checkpoint.setPriceUpdaterState(priceUpdater.getState(), this::checkpointKey);
+        for (Bidder<T> bidder : bidBook.getBidders()) {
+            for (GenericValue<G, T> value : bidBook.getBids(bidder)) {
+                Map<String, Integer> quantities = new LinkedHashMap<>();
+                value.getQuantities().forEach((def, quantity) -> quantities.put(checkpointKey(def), quantity));
+                checkpoint.addBid(bidder.getId(), quantities, value.getValue());
+            }
+        }
+        checkpoint.write(checkpointFile);
+        logger.debug("Wrote checkpoint of round {} to {}.", totalRounds, checkpointFile);
+    }
+
+    private String checkpointKey(G def) {
+        return def.shortJson().toString();
+    }
+
+    @Override
+    public void resumeFrom(Path checkpointFile) {
+        Preconditions.checkArgument(bidsAfterClockPhase == null, "Already ran clock phase! Resume before.");
+        this.resumeCheckpoint = ClockPhaseCheckpoint.read(checkpointFile);
+    }
+
     private Collection<GenericBid<G, T>> runSupplementaryRound() {
         Collection<GenericBid<G, T>> bids = new HashSet<>();
         if (supplementaryRounds.isEmpty()) supplementaryRounds.add(new ProfitMaximizingGenericSupplementaryRound<>());
 
-        for (Bidder<T> bidder : bidders) {
+        List<List<GenericValue<G, T>>> results = queryBidders(bidder -> {
+            long start = System.nanoTime();
             List<GenericValue<G, T>> newValues = new ArrayList<>();
             for (GenericSupplementaryRound<G, T> supplementaryRound : supplementaryRounds) {
                 newValues.addAll(supplementaryRound.getSupplementaryBids(this, bidder));
             }
+            Metrics.time(Metrics.CCA_SUPPLEMENTARY_ROUND, System.nanoTime() - start, "bidder", bidder.getId());
+            return newValues;
+        });
+        for (int i = 0; i < bidders.size(); i++) {
+            Bidder<T> bidder = bidders.get(i);
+            List<GenericValue<G, T>> newValues = results.get(i);
 
             GenericBid<G, T> bidderBid = bidsAfterClockPhase.stream().filter(bid -> bidder.equals(bid.getBidder())).findFirst().orElseThrow(NoSuchElementException::new);
 
@@ -295,8 +388,13 @@ public class GenericCCAMechanism<G extends GenericDefinition<T>, T extends Good>
     }
 
     private MechanismResult<T> calculatePayments() {
+        return inMetricsRun(this::paymentsAfterSupplementaryRound);
+    }
+
+    private MechanismResult<T> paymentsAfterSupplementaryRound() {
         Set<GenericBid<G, T>> bids = new HashSet<>(bidsAfterSupplementaryRound);
         XORQWinnerDetermination<G, T> wdp = new XORQWinnerDetermination<>(bids, getEpsilonWdp());
+        wdp.setCache(wdpCache);
         AuctionMechanism<T> mechanism;
         switch (paymentRule) {
             case CCG:
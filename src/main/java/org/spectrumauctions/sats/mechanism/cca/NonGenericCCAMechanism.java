@@ -8,6 +8,7 @@ import org.spectrumauctions.sats.core.bidlang.xor.SizeBasedUniqueRandomXOR;
 import org.spectrumauctions.sats.core.bidlang.xor.XORBid;
 import org.spectrumauctions.sats.core.bidlang.xor.XORValue;
 import org.spectrumauctions.sats.core.model.*;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
 import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
 import org.spectrumauctions.sats.core.util.random.RNGSupplier;
 import org.spectrumauctions.sats.mechanism.cca.priceupdate.NonGenericPriceUpdater;
@@ -26,6 +27,7 @@ import org.spectrumauctions.sats.opt.domain.NonGenericDemandQueryResult;
 import org.spectrumauctions.sats.opt.xor.XORWinnerDetermination;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -89,14 +91,25 @@ public class NonGenericCCAMechanism<T extends Good> extends CCAMechanism<T> {
                 regressions.put(good, regression);
             }
 
-            RNGSupplier rngSupplier = new JavaUtilRNGSupplier(seed);
+            // The bidders are drawn sequentially (they are stored by the instance handler), the bids in parallel
+            Random seeds = new Random(seed);
+            List<List<SizeBasedUniqueRandomXOR>> samples = new ArrayList<>();
             for (int i = 0; i < numberOfWorldSamples; i++) {
+                RNGSupplier rngSupplier = new JavaUtilRNGSupplier(seeds.nextLong());
                 List<Bidder<T>> alternateBidders = bidders.stream().map(b -> b.drawSimilarBidder(rngSupplier)).collect(Collectors.toList());
+                List<SizeBasedUniqueRandomXOR> valueFunctions = new ArrayList<>();
                 for (Bidder<T> bidder : alternateBidders) {
                     SizeBasedUniqueRandomXOR valueFunction;
                     valueFunction = bidder.getValueFunction(SizeBasedUniqueRandomXOR.class, rngSupplier);
                     valueFunction.setIterations(bidsPerBidder);
+                    valueFunctions.add(valueFunction);
+                }
+                samples.add(valueFunctions);
+            }
 
+            List<Map<Good, SimpleRegression>> sampleRegressions = runInParallel(samples, valueFunctions -> {
+                Map<Good, SimpleRegression> sampleRegression = new HashMap<>();
+                for (SizeBasedUniqueRandomXOR valueFunction : valueFunctions) {
                     Iterator<XORValue<T>> bidIterator = valueFunction.iterator();
                     while (bidIterator.hasNext()) {
                         XORValue<T> bid = bidIterator.next();
@@ -104,10 +117,14 @@ public class NonGenericCCAMechanism<T extends Good> extends CCAMechanism<T> {
                         BigDecimal value = bid.value();
                         for (Good good : bundle) {
                             double y = value.doubleValue() / bundle.size();
-                            regressions.get(good).addData(1.0, y);
+                            sampleRegression.computeIfAbsent(good, g -> new SimpleRegression(false)).addData(1.0, y);
                         }
                     }
                 }
+                return sampleRegression;
+            });
+            for (Map<Good, SimpleRegression> sampleRegression : sampleRegressions) {
+                sampleRegression.forEach((good, regression) -> regressions.get(good).append(regression));
             }
 
             double min = Infinity;
@@ -148,6 +165,8 @@ public class NonGenericCCAMechanism<T extends Good> extends CCAMechanism<T> {
         clone.fallbackStartingPrice = fallbackStartingPrice;
         clone.maxRounds = maxRounds;
         clone.paymentRule = paymentRule;
+        clone.wdpCache = wdpCache;
+        clone.parallelism = parallelism;
         clone.timeLimit = timeLimit;
         clone.bidsAfterClockPhase = bidsAfterClockPhase;
         clone.finalPrices = finalPrices;
@@ -165,7 +184,8 @@ public class NonGenericCCAMechanism<T extends Good> extends CCAMechanism<T> {
         Set<XORBid<T>> bids = new HashSet<>(bidsAfterClockPhase);
 
         XORWinnerDetermination<T> wdp = new XORWinnerDetermination<>(bids, getEpsilonWdp());
-        return wdp.calculateAllocation();
+        wdp.setCache(wdpCache);
+        return inMetricsRun(wdp::calculateAllocation);
     }
 
     public Allocation<T> calculateAllocationAfterSupplementaryRound() {
@@ -180,27 +200,68 @@ public class NonGenericCCAMechanism<T extends Good> extends CCAMechanism<T> {
         Set<XORBid<T>> bids = new HashSet<>(bidsAfterSupplementaryRound);
 
         XORWinnerDetermination<T> wdp = new XORWinnerDetermination<>(bids, getEpsilonWdp());
-        return wdp.calculateAllocation();
+        wdp.setCache(wdpCache);
+        return inMetricsRun(wdp::calculateAllocation);
     }
 
     private Collection<XORBid<T>> runClockPhase() {
-        Map<Bidder<T>, XORBid<T>> bids = new HashMap<>();
-        bidders.forEach(bidder -> bids.put(bidder, new XORBid.Builder<>(bidder).build()));
+        return inMetricsRun(this::clockPhase);
+    }
+
+    private Collection<XORBid<T>> clockPhase() {
+        BidBook<T, BitSet, XORValue<T>> bidBook = new BidBook<>(XORValue::value);
         Map<T, BigDecimal> prices = new HashMap<>();
-        for (Good good : bidders.stream().findFirst().orElseThrow(IncompatibleWorldException::new).getWorld().getLicenses()) {
+        Collection<? extends Good> licenses = bidders.stream().findFirst().orElseThrow(IncompatibleWorldException::new).getWorld().getLicenses();
+        for (Good good : licenses) {
             prices.put((T) good, startingPrices.getOrDefault(good, fallbackStartingPrice));
         }
 
-        Map<T, Integer> demand;
+        Map<T, Integer> demand = new HashMap<>();
         boolean done = false;
+        if (resumeCheckpoint != null) {
+            Map<String, T> keys = new HashMap<>();
+            licenses.forEach(good -> keys.put(checkpointKey((T) good), (T) good));
+            prices = resumeCheckpoint.getPrices(keys);
+            demand = resumeCheckpoint.getDemand(keys);
+            priceUpdater.restoreState(resumeCheckpoint.getPriceUpdaterState(keys));
+            Map<String, Bidder<T>> bidderKeys = new HashMap<>();
+            bidders.forEach(bidder -> bidderKeys.put(String.valueOf(bidder.getId()), bidder));
+            for (long bidderId : resumeCheckpoint.getBidderIds()) {
+                Bidder<T> bidder = ClockPhaseCheckpoint.lookup(bidderKeys, String.valueOf(bidderId));
+                for (ClockPhaseCheckpoint.Bid bid : resumeCheckpoint.getBids(bidderId)) {
+                    Bundle<T> bundle = new Bundle<>();
+                    bid.getQuantities().keySet().forEach(key -> bundle.add(ClockPhaseCheckpoint.lookup(keys, key)));
+                    bidBook.upsertIfHigher(bidder, BidBook.keyOf(bundle), new XORValue<>(bundle, bid.getAmount()));
+                }
+            }
+            totalRounds = resumeCheckpoint.getRound();
+            done = resumeCheckpoint.isFinished();
+            logger.info("Resuming clock phase in round {}.", totalRounds);
+            resumeCheckpoint = null;
+        }
         while (!done) {
             Map<T, BigDecimal> currentPrices = prices; // For lambda use
             demand = new HashMap<>();
 
-            for (Bidder<T> bidder : bidders) {
-                NonGenericDemandQueryMIP<T> demandQueryMIP = demandQueryMIPBuilder.getDemandQueryMipFor(bidder, prices, epsilon);
+            int round = totalRounds; // For lambda use
+            long roundStart = System.nanoTime();
+            List<List<? extends NonGenericDemandQueryResult<T>>> results = queryBidders(bidder -> {
+                long start = System.nanoTime();
+                NonGenericDemandQueryMIP<T> demandQueryMIP = demandQueryMIPBuilder.getDemandQueryMipFor(bidder, currentPrices, epsilon);
                 demandQueryMIP.setTimeLimit(getTimeLimit());
-                List<? extends NonGenericDemandQueryResult<T>> demandQueryResults = demandQueryMIP.getResultPool(clockPhaseNumberOfBundles);
+                long built = System.nanoTime();
+                List<? extends NonGenericDemandQueryResult<T>> resultPool = demandQueryMIP.getResultPool(clockPhaseNumberOfBundles);
+                if (Metrics.isEnabled()) {
+                    long solved = System.nanoTime();
+                    Metrics.time(Metrics.CCA_DEMAND_QUERY_BUILD, built - start, "round", round, "bidder", bidder.getId());
+                    Metrics.time(Metrics.CCA_DEMAND_QUERY_SOLVE, solved - built, "round", round, "bidder", bidder.getId());
+                    Metrics.gauge(Metrics.CCA_RESULT_POOL_SIZE, resultPool.size(), "round", round, "bidder", bidder.getId());
+                }
+                return resultPool;
+            });
+            for (int i = 0; i < bidders.size(); i++) {
+                Bidder<T> bidder = bidders.get(i);
+                List<? extends NonGenericDemandQueryResult<T>> demandQueryResults = results.get(i);
                 Bundle<T> firstBundle = demandQueryResults.get(0).getResultingBundle().getLicenses();
                 if (firstBundle.size() > 0) {
                     for (T good : firstBundle) {
@@ -211,26 +272,15 @@ public class NonGenericCCAMechanism<T extends Good> extends CCAMechanism<T> {
                     if (demandQueryResult.getResultingBundle().getLicenses().size() > 0) {
                         Bundle<T> bundle = demandQueryResult.getResultingBundle().getLicenses();
 
-                        XORBid.Builder<T> xorBidBuilder = new XORBid.Builder<>(bidder, bids.get(bidder).getValues());
                         BigDecimal bid = bundle.stream().map(currentPrices::get).reduce(BigDecimal.ZERO, BigDecimal::add);
-                        XORValue<T> existing = xorBidBuilder.containsBundle(bundle);
-                        if (existing != null && existing.value().compareTo(bid) < 1) {
-                            xorBidBuilder.removeFromBid(existing);
-                        }
-                        if (existing == null || existing.value().compareTo(bid) < 0) {
-                            xorBidBuilder.add(new XORValue<>(bundle, bid));
-                        }
-
-                        XORBid<T> newBid = xorBidBuilder.build();
-                        bids.put(bidder, newBid);
+                        bidBook.upsertIfHigher(bidder, BidBook.keyOf(bundle), new XORValue<>(bundle, bid));
                     }
                 }
             }
             Map<T, BigDecimal> updatedPrices = priceUpdater.updatePrices(prices, demand);
+            Metrics.time(Metrics.CCA_ROUND, System.nanoTime() - roundStart, "round", round);
             if (prices.equals(updatedPrices) || totalRounds >= maxRounds) {
                 done = true;
-                finalDemand = demand;
-                finalPrices = prices;
             } else {
                 prices = updatedPrices;
                 if (logger.isInfoEnabled()) {
@@ -244,22 +294,69 @@ public class NonGenericCCAMechanism<T extends Good> extends CCAMechanism<T> {
                     logger.info("Round: {} - Demand: {} - Supply: {}", totalRounds, aggregateDemand, supply);
                 }
                 totalRounds++;
+                if (checkpointFile != null && totalRounds % checkpointInterval == 0) {
+                    writeCheckpoint(bidBook, prices, demand, false);
+                }
             }
         }
-        bidsAfterClockPhase = bids.values();
+        finalDemand = demand;
+        finalPrices = prices;
+        if (checkpointFile != null) {
+            writeCheckpoint(bidBook, prices, demand, true);
+        }
+        Collection<XORBid<T>> bids = new ArrayList<>();
+        for (Bidder<T> bidder : bidders) {
+            bids.add(new XORBid.Builder<>(bidder, bidBook.getBids(bidder)).build());
+        }
+        bidsAfterClockPhase = bids;
         return bidsAfterClockPhase;
     }
 
+    private void writeCheckpoint(BidBook<T, BitSet, XORValue<T>> bidBook, Map<T, BigDecimal> prices, Map<T, Integer> demand, boolean finished) {
+        ClockPhaseCheckpoint checkpoint = new ClockPhaseCheckpoint();
+        checkpoint.setRound(totalRounds);
+        checkpoint.setFinished(finished);
+        checkpoint.setPrices(prices, this::checkpointKey);
+        checkpoint.setDemand(demand, this::checkpointKey);
+        checkpoint.setPriceUpdaterState(priceUpdater.getState(), this::checkpointKey);
+        for (Bidder<T> bidder : bidBook.getBidders()) {
+            for (XORValue<T> value : bidBook.getBids(bidder)) {
+                Map<String, Integer> quantities = new LinkedHashMap<>();
+                value.getLicenses().forEach(good -> quantities.put(checkpointKey(good), 1));
+                checkpoint.addBid(bidder.getId(), quantities, value.value());
+            }
+        }
+        checkpoint.write(checkpointFile);
+        logger.debug("Wrote checkpoint of round {} to {}.", totalRounds, checkpointFile);
+    }
+
+    private String checkpointKey(T good) {
+        return String.valueOf(good.getId());
+    }
+
+    @Override
+    public void resumeFrom(Path checkpointFile) {
+        Preconditions.checkArgument(bidsAfterClockPhase == null, "Already ran clock phase! Resume before.");
+        this.resumeCheckpoint = ClockPhaseCheckpoint.read(checkpointFile);
+    }
+
     private Collection<XORBid<T>> runSupplementaryRound() {
         Collection<XORBid<T>> bids = new HashSet<>();
         if (supplementaryRounds.isEmpty())
             supplementaryRounds.add(new ProfitMaximizingNonGenericSupplementaryRound<>());
 
-        for (Bidder<T> bidder : bidders) {
+        List<List<XORValue<T>>> results = queryBidders(bidder -> {
+            long start = System.nanoTime();
             List<XORValue<T>> newValues = new ArrayList<>();
             for (NonGenericSupplementaryRound<T> supplementaryRound : supplementaryRounds) {
                 newValues.addAll(supplementaryRound.getSupplementaryBids(this, bidder));
             }
+            Metrics.time(Metrics.CCA_SUPPLEMENTARY_ROUND, System.nanoTime() - start, "bidder", bidder.getId());
+            return newValues;
+        });
+        for (int i = 0; i < bidders.size(); i++) {
+            Bidder<T> bidder = bidders.get(i);
+            List<XORValue<T>> newValues = results.get(i);
 
 
             XORBid<T> bidderBid = bidsAfterClockPhase.stream().filter(bid -> bidder.equals(bid.getBidder())).findFirst().orElseThrow(NoSuchElementException::new);
@@ -272,8 +369,13 @@ public class NonGenericCCAMechanism<T extends Good> extends CCAMechanism<T> {
     }
 
     private MechanismResult<T> calculatePayments() {
+        return inMetricsRun(this::paymentsAfterSupplementaryRound);
+    }
+
+    private MechanismResult<T> paymentsAfterSupplementaryRound() {
         Set<XORBid<T>> bids = new HashSet<>(bidsAfterSupplementaryRound);
         XORWinnerDetermination<T> wdp = new XORWinnerDetermination<>(bids, getEpsilonWdp());
+        wdp.setCache(wdpCache);
         AuctionMechanism<T> mechanism;
         switch (paymentRule) {
             case CCG:
@@ -0,0 +1,168 @@
+package org.spectrumauctions.sats.mechanism.cca.priceupdate;
+
+import com.google.common.base.Preconditions;
+import org.spectrumauctions.sats.core.bidlang.generic.GenericDefinition;
+import org.spectrumauctions.sats.core.model.Good;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Like {@link SimpleRelativeGenericPriceUpdate}, raises the price of overdemanded generic definitions by a relative
+ * increment, but adapts the increment per generic definition: While a definition stays overdemanded, its increment
+ * grows by the growth factor (up to the maximal increment), such that fewer rounds are needed to clear the
+ * excess demand. Once the excess demand of a definition flips, i.e., it isn't overdemanded anymore, the increment
+ * shrinks by the shrink factor (down to the minimal increment), such that the price is raised more carefully if it
+ * becomes overdemanded again.<br>
+ * Prices are never lowered. As the minimal increment is positive, the price of an overdemanded definition is
+ * strictly raised in every round. Increments and prices are rounded to {@link MathContext#DECIMAL64}.
+ */
+public class AdaptiveRelativeGenericPriceUpdate<G extends GenericDefinition<T>, T extends Good> implements GenericPriceUpdater<G, T> {
+
+    private static final BigDecimal DEFAULT_INITIAL_INCREMENT = BigDecimal.valueOf(0.1);
+    private static final BigDecimal DEFAULT_MIN_INCREMENT = BigDecimal.valueOf(0.01);
+    private static final BigDecimal DEFAULT_MAX_INCREMENT = BigDecimal.valueOf(0.5);
+    private static final BigDecimal DEFAULT_GROWTH_FACTOR = BigDecimal.valueOf(1.5);
+    private static final BigDecimal DEFAULT_SHRINK_FACTOR = BigDecimal.valueOf(0.5);
+    private static final BigDecimal DEFAULT_INITIAL_UPDATE = BigDecimal.valueOf(1e5);
+
+    private static final String INCREMENTS = "increments";
+    private static final String OVERDEMANDED = "overdemanded";
+
+    private BigDecimal initialIncrement = DEFAULT_INITIAL_INCREMENT;
+    private BigDecimal minIncrement = DEFAULT_MIN_INCREMENT;
+    private BigDecimal maxIncrement = DEFAULT_MAX_INCREMENT;
+    private BigDecimal growthFactor = DEFAULT_GROWTH_FACTOR;
+    private BigDecimal shrinkFactor = DEFAULT_SHRINK_FACTOR;
+    private BigDecimal initialUpdate = DEFAULT_INITIAL_UPDATE;
+
+    private Map<G, BigDecimal> lastPrices = new HashMap<>();
+    private Map<G, BigDecimal> increments = new HashMap<>();
+    private Map<G, Boolean> overdemanded = new HashMap<>();
+
+    @Override
+    public Map<G, BigDecimal> updatePrices(Map<G, BigDecimal> oldPrices, Map<G, Integer> demand) {
+        // Fill the last prices map with initial values
+        if (lastPrices.isEmpty()) {
+            for (Map.Entry<G, BigDecimal> oldPriceEntry : oldPrices.entrySet()) {
+                lastPrices.put(oldPriceEntry.getKey(), oldPriceEntry.getValue());
+            }
+        }
+
+        Map<G, BigDecimal> newPrices = new HashMap<>();
+
+        for (Map.Entry<G, BigDecimal> oldPriceEntry : oldPrices.entrySet()) {
+            G def = oldPriceEntry.getKey();
+            BigDecimal increment = increments.getOrDefault(def, initialIncrement).max(minIncrement).min(maxIncrement);
+            boolean wasOverdemanded = overdemanded.getOrDefault(def, false);
+            boolean isOverdemanded = def.numberOfLicenses() < demand.getOrDefault(def, 0);
+            if (isOverdemanded) {
+                if (wasOverdemanded) {
+                    increment = increment.multiply(growthFactor, MathContext.DECIMAL64).min(maxIncrement);
+                }
+                lastPrices.put(def, oldPriceEntry.getValue());
+                if (oldPriceEntry.getValue().signum() == 0)
+                    newPrices.put(def, initialUpdate);
+                else
+                    newPrices.put(def, oldPriceEntry.getValue().add(oldPriceEntry.getValue().multiply(increment), MathContext.DECIMAL64));
+            } else {
+                if (wasOverdemanded) {
+                    increment = increment.multiply(shrinkFactor, MathContext.DECIMAL64).max(minIncrement);
+                }
+                newPrices.put(def, oldPriceEntry.getValue());
+            }
+            increments.put(def, increment);
+            overdemanded.put(def, isOverdemanded);
+        }
+
+        return newPrices;
+    }
+
+    @Override
+    public Map<G, BigDecimal> getLastPrices() {
+        return lastPrices;
+    }
+
+    /**
+     * @return the current relative increment per generic definition
+     */
+    public Map<G, BigDecimal> getIncrements() {
+        return increments;
+    }
+
+    @Override
+    public PriceUpdaterState<G> getState() {
+        PriceUpdaterState<G> state = new PriceUpdaterState<>(lastPrices);
+        state.putVector(INCREMENTS, increments);
+        Map<G, BigDecimal> overdemandedFlags = new HashMap<>();
+        overdemanded.forEach((def, flag) -> overdemandedFlags.put(def, flag ? BigDecimal.ONE : BigDecimal.ZERO));
+        state.putVector(OVERDEMANDED, overdemandedFlags);
+        return state;
+    }
+
+    @Override
+    public void restoreState(PriceUpdaterState<G> state) {
+        Preconditions.checkArgument(state.hasVector(INCREMENTS) && state.hasVector(OVERDEMANDED),
+                "The state doesn't contain the increments of an AdaptiveRelativeGenericPriceUpdate; it was written by a different price updater.");
+        this.lastPrices = state.getVector(PriceUpdaterState.LAST_PRICES);
+        this.increments = state.getVector(INCREMENTS);
+        this.overdemanded = new HashMap<>();
+        state.getVector(OVERDEMANDED).forEach((def, flag) -> overdemanded.put(def, flag.signum() != 0));
+    }
+
+    public void setInitialIncrement(BigDecimal initialIncrement) {
+        Preconditions.checkArgument(initialIncrement.signum() > 0);
+        this.initialIncrement = initialIncrement;
+    }
+
+    /**
+     * Sets the bounds of the relative increment. The lower bound has to be positive.
+     */
+    public void setIncrementBounds(BigDecimal minIncrement, BigDecimal maxIncrement) {
+        Preconditions.checkArgument(minIncrement.signum() > 0);
+        Preconditions.checkArgument(minIncrement.compareTo(maxIncrement) <= 0);
+        this.minIncrement = minIncrement;
+        this.maxIncrement = maxIncrement;
+    }
+
+    public void setGrowthFactor(BigDecimal growthFactor) {
+        Preconditions.checkArgument(growthFactor.compareTo(BigDecimal.ONE) >= 0);
+        this.growthFactor = growthFactor;
+    }
+
+    public void setShrinkFactor(BigDecimal shrinkFactor) {
+        Preconditions.checkArgument(shrinkFactor.signum() > 0 && shrinkFactor.compareTo(BigDecimal.ONE) <= 0);
+        this.shrinkFactor = shrinkFactor;
+    }
+
+    public void setInitialUpdate(BigDecimal initialUpdate) {
+        this.initialUpdate = initialUpdate;
+    }
+
+    public AdaptiveRelativeGenericPriceUpdate<G, T> withInitialIncrement(BigDecimal initialIncrement) {
+        setInitialIncrement(initialIncrement);
+        return this;
+    }
+
+    public AdaptiveRelativeGenericPriceUpdate<G, T> withIncrementBounds(BigDecimal minIncrement, BigDecimal maxIncrement) {
+        setIncrementBounds(minIncrement, maxIncrement);
+        return this;
+    }
+
+    public AdaptiveRelativeGenericPriceUpdate<G, T> withGrowthFactor(BigDecimal growthFactor) {
+        setGrowthFactor(growthFactor);
+        return this;
+    }
+
+    public AdaptiveRelativeGenericPriceUpdate<G, T> withShrinkFactor(BigDecimal shrinkFactor) {
+        setShrinkFactor(shrinkFactor);
+        return this;
+    }
+
+    public AdaptiveRelativeGenericPriceUpdate<G, T> withInitialUpdate(BigDecimal initialUpdate) {
+        setInitialUpdate(initialUpdate);
+        return this;
+    }
+}
@@ -11,6 +11,7 @@ import java.util.Map;
 public class DemandDependentGenericPriceUpdate<G extends GenericDefinition<T>, T extends Good> implements GenericPriceUpdater<G, T> {
 
     private static final BigDecimal DEFAULT_CONSTANT = BigDecimal.valueOf(1e6);
+    private static final String ROUND = "round";
 
     private BigDecimal constant = DEFAULT_CONSTANT;
     private int round = 1;
@@ -49,6 +50,19 @@ public class DemandDependentGenericPriceUpdate<G extends GenericDefinition<T>, T
         return lastPrices;
     }
 
+    @Override
+    public PriceUpdaterState<G> getState() {
+        PriceUpdaterState<G> state = new PriceUpdaterState<>(lastPrices);
+        state.putScalar(ROUND, BigDecimal.valueOf(round));
+        return state;
+    }
+
+    @Override
+    public void restoreState(PriceUpdaterState<G> state) {
+        this.lastPrices = state.getVector(PriceUpdaterState.LAST_PRICES);
+        this.round = state.getScalar(ROUND, BigDecimal.ONE).intValueExact();
+    }
+
     public void setConstant(BigDecimal priceUpdate) {
         this.constant = priceUpdate;
     }
@@ -9,4 +9,19 @@ import java.util.Map;
 public interface GenericPriceUpdater<G extends GenericDefinition<S>, S extends Good> {
     Map<G, BigDecimal> updatePrices(Map<G, BigDecimal> oldPrices, Map<G, Integer> demand);
     Map<G, BigDecimal> getLastPrices();
+
+    /**
+     * @return the state needed to continue the price path of this updater exactly, e.g., from a checkpoint.
+     * By default, this only consists of the last prices.
+     */
+    default PriceUpdaterState<G> getState() {
+        return new PriceUpdaterState<>(getLastPrices());
+    }
+
+    /**
+     * Restores a state previously returned by {@link #getState()}.
+     */
+    default void restoreState(PriceUpdaterState<G> state) {
+        throw new UnsupportedOperationException("This price updater does not support restoring its state.");
+    }
 }
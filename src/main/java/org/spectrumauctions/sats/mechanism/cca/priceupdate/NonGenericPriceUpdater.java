@@ -8,4 +8,19 @@ import java.util.Map;
 public interface NonGenericPriceUpdater<T extends Good> {
     Map<T, BigDecimal> updatePrices(Map<T, BigDecimal> oldPrices, Map<T, Integer> demand);
     Map<T, BigDecimal> getLastPrices();
+
+    /**
+     * @return the state needed to continue the price path of this updater exactly, e.g., from a checkpoint.
+     * By default, this only consists of the last prices.
+     */
+    default PriceUpdaterState<T> getState() {
+        return new PriceUpdaterState<>(getLastPrices());
+    }
+
+    /**
+     * Restores a state previously returned by {@link #getState()}.
+     */
+    default void restoreState(PriceUpdaterState<T> state) {
+        throw new UnsupportedOperationException("This price updater does not support restoring its state.");
+    }
 }
@@ -0,0 +1,62 @@
+package org.spectrumauctions.sats.mechanism.cca.priceupdate;
+
+import com.google.common.base.Preconditions;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The internal state of a price updater, such that a clock phase can be checkpointed and later continued with
+ * exactly the same prices. The state consists of named per-good vectors (at least the last prices, see
+ * {@link #LAST_PRICES}) and named scalars, e.g., round counters.
+ *
+ * @param <K> the type of goods or generic definitions the prices are defined on
+ */
+public final class PriceUpdaterState<K> {
+
+    public static final String LAST_PRICES = "lastPrices";
+
+    private final Map<String, Map<K, BigDecimal>> vectors = new LinkedHashMap<>();
+    private final Map<String, BigDecimal> scalars = new LinkedHashMap<>();
+
+    public PriceUpdaterState() {
+    }
+
+    public PriceUpdaterState(Map<K, BigDecimal> lastPrices) {
+        putVector(LAST_PRICES, lastPrices);
+    }
+
+    public void putVector(String name, Map<K, BigDecimal> vector) {
+        vectors.put(name, new HashMap<>(Preconditions.checkNotNull(vector)));
+    }
+
+    public void putScalar(String name, BigDecimal scalar) {
+        scalars.put(name, Preconditions.checkNotNull(scalar));
+    }
+
+    /**
+     * @return a new, modifiable copy of the vector with the given name, which is empty if there is none
+     */
+    public Map<K, BigDecimal> getVector(String name) {
+        return new HashMap<>(vectors.getOrDefault(name, Collections.emptyMap()));
+    }
+
+    public boolean hasVector(String name) {
+        return vectors.containsKey(name);
+    }
+
+    public BigDecimal getScalar(String name, BigDecimal defaultValue) {
+        return scalars.getOrDefault(name, defaultValue);
+    }
+
+    public Map<String, Map<K, BigDecimal>> getVectors() {
+        return Collections.unmodifiableMap(vectors);
+    }
+
+    public Map<String, BigDecimal> getScalars() {
+        return Collections.unmodifiableMap(scalars);
+    }
+}
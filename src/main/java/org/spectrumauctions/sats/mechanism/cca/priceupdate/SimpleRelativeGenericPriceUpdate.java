@@ -51,6 +51,11 @@ public class SimpleRelativeGenericPriceUpdate<G extends GenericDefinition<T>, T
         return lastPrices;
     }
 
+    @Override
+    public void restoreState(PriceUpdaterState<G> state) {
+        this.lastPrices = state.getVector(PriceUpdaterState.LAST_PRICES);
+    }
+
     public void setPriceUpdate(BigDecimal priceUpdate) {
         this.priceUpdate = priceUpdate;
     }
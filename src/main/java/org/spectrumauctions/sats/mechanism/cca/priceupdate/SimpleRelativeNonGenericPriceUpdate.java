@@ -50,6 +50,11 @@ public class SimpleRelativeNonGenericPriceUpdate<T extends Good> implements NonG
         return lastPrices;
     }
 
+    @Override
+    public void restoreState(PriceUpdaterState<T> state) {
+        this.lastPrices = state.getVector(PriceUpdaterState.LAST_PRICES);
+    }
+
     public void setPriceUpdate(BigDecimal priceUpdate) {
         this.priceUpdate = priceUpdate;
     }
@@ -1,22 +1,25 @@
 package org.spectrumauctions.sats.mechanism.ccg;
 
+import com.google.common.base.Preconditions;
 import edu.harvard.econcs.jopt.solver.IMIPResult;
-import edu.harvard.econcs.jopt.solver.client.SolverClient;
+import edu.harvard.econcs.jopt.solver.IMIPSolver;
 import edu.harvard.econcs.jopt.solver.mip.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.spectrumauctions.sats.core.model.Bidder;
 import org.spectrumauctions.sats.core.model.Good;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
 import org.spectrumauctions.sats.mechanism.domain.BidderPayment;
 import org.spectrumauctions.sats.mechanism.domain.MechanismResult;
 import org.spectrumauctions.sats.mechanism.domain.Payment;
 import org.spectrumauctions.sats.mechanism.domain.mechanisms.AuctionMechanism;
 import org.spectrumauctions.sats.mechanism.vcg.VCGMechanism;
 import org.spectrumauctions.sats.opt.domain.Allocation;
+import org.spectrumauctions.sats.opt.domain.SolverExecutionService;
 import org.spectrumauctions.sats.opt.domain.WinnerDeterminator;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 public class CCGMechanism<T extends Good> implements AuctionMechanism<T> {
 
@@ -25,6 +28,9 @@ public class CCGMechanism<T extends Good> implements AuctionMechanism<T> {
 
     private WinnerDeterminator<T> baseWD;
     private MechanismResult<T> result;
+    private String metricsRunId = Metrics.newRunId("ccg");
+    private List<IterationStatistics> iterationStatistics = new ArrayList<>();
+    private boolean solveL2InProcess = true;
 
     public CCGMechanism(WinnerDeterminator<T> wdp) {
         this.baseWD = wdp;
@@ -33,11 +39,29 @@ public class CCGMechanism<T extends Good> implements AuctionMechanism<T> {
     @Override
     public MechanismResult<T> getMechanismResult() {
         if (result == null) {
-            result = calculateCCGPayments();
+            result = Metrics.inRun(metricsRunId, () -> {
+                long start = System.nanoTime();
+                MechanismResult<T> mechanismResult = calculateCCGPayments();
+                Metrics.time(Metrics.CCG_RUN, System.nanoTime() - start);
+                return mechanismResult;
+            });
         }
         return result;
     }
 
+    /**
+     * Sets the id with which all metrics reported by this mechanism are tagged (see {@link Metrics#RUN_TAG}).
+     * By default, a unique id is generated for each mechanism. Used within another mechanism's run, the metrics
+     * are tagged with the id of the outer run.
+     */
+    public void setMetricsRunId(String metricsRunId) {
+        this.metricsRunId = Preconditions.checkNotNull(metricsRunId);
+    }
+
+    public String getMetricsRunId() {
+        return metricsRunId;
+    }
+
     @Override
     public Payment<T> getPayment() {
         return getMechanismResult().getPayment();
@@ -68,11 +92,29 @@ public class CCGMechanism<T extends Good> implements AuctionMechanism<T> {
         return baseWD.getScale();
     }
 
+    /**
+     * Defines whether the quadratic payment step (L2 norm) is solved with the in-process
+     * {@link QuadraticPaymentSolver} or with the external solver, which requires QP support.
+     * Default is true.
+     */
+    public void setSolveL2InProcess(boolean solveL2InProcess) {
+        Preconditions.checkState(result == null, "Payments have already been calculated.");
+        this.solveL2InProcess = solveL2InProcess;
+    }
+
+    /**
+     * @return Timing and model size of each CCG iteration of the last payment calculation
+     */
+    public List<IterationStatistics> getIterationStatistics() {
+        getMechanismResult();
+        return Collections.unmodifiableList(iterationStatistics);
+    }
+
     private MechanismResult<T> calculateCCGPayments() {
         MechanismResult<T> vcgResult = new VCGMechanism<>(baseWD).getMechanismResult();
         Allocation<T> originalAllocation = vcgResult.getAllocation();
 
-        SolverClient solverClient = new SolverClient();
+        IMIPSolver solverClient = SolverExecutionService.getDefault();
 
         Payment<T> payment = vcgResult.getPayment();
 
@@ -81,14 +123,48 @@ public class CCGMechanism<T extends Good> implements AuctionMechanism<T> {
         paymentVariables.values().forEach(l1Mip::add);
         paymentVariables.values().forEach(v -> l1Mip.addObjectiveTerm(1, v));
 
+        // The L2 MIP shares the payment variables and the core constraints with the L1 MIP.
+        // Only the constraints fixing the total payments are replaced in each iteration. The MIP is only solved
+        // if the L2 step is not solved in process.
+        MIP l2Mip = new MIP();
+        paymentVariables.values().forEach(l2Mip::add);
+        for (Map.Entry<Bidder<T>, Variable> entry : paymentVariables.entrySet()) {
+            Variable winnerVariable = entry.getValue();
+            l2Mip.addObjectiveTerm(1, winnerVariable, winnerVariable);
+            l2Mip.addObjectiveTerm(-2 * vcgResult.getPayment().paymentOf(entry.getKey()).getAmount() * getScale(), winnerVariable);
+        }
+        Constraint fixPayments1 = null;
+        Constraint fixPayments2 = null;
+
+        List<Bidder<T>> winners = new ArrayList<>(originalAllocation.getWinners());
+        QuadraticPaymentSolver l2Solver = null;
+        if (solveL2InProcess) {
+            double[] target = new double[winners.size()];
+            double[] lowerBounds = new double[winners.size()];
+            double[] upperBounds = new double[winners.size()];
+            for (int i = 0; i < winners.size(); i++) {
+                Variable paymentVariable = paymentVariables.get(winners.get(i));
+                target[i] = vcgResult.getPayment().paymentOf(winners.get(i)).getAmount() * getScale();
+                lowerBounds[i] = paymentVariable.getLowerBound();
+                upperBounds[i] = paymentVariable.getUpperBound();
+            }
+            l2Solver = new QuadraticPaymentSolver(target, lowerBounds, upperBounds);
+        }
+
+        // The blocking coalition MIP is built once, only the payoffs are updated in each iteration
+        WinnerDeterminator<T> blockingCoalitionMip = baseWD.copyOf();
+        iterationStatistics = new ArrayList<>();
+        int coreConstraints = 0;
+
         double oldBlockingCoalitionValue = -1;
         boolean caughtInLoopDueToRoundingErrors = false;
         while (true) {
+            long blockingCoalitionStart = System.currentTimeMillis();
             Map<Bidder<T>, Double> payoffs = computePayoffs(originalAllocation, payment);
-            WinnerDeterminator<T> blockingCoalitionMip = baseWD.copyOf();
             blockingCoalitionMip.adjustPayoffs(payoffs);
 
             Allocation<T> blockingCoalition = blockingCoalitionMip.calculateAllocation();
+            long blockingCoalitionTime = System.currentTimeMillis() - blockingCoalitionStart;
 
             double traitorPayoffs = 0;
             double traitorPayments = 0;
@@ -106,6 +182,7 @@ public class CCGMechanism<T extends Good> implements AuctionMechanism<T> {
             double payments = payment.getTotalPayments();
             if (caughtInLoopDueToRoundingErrors ||
                     z_p <= payments + 1e-6) {
+                recordIteration(new IterationStatistics(iterationStatistics.size() + 1, blockingCoalitionTime, 0, 0, coreConstraints));
                 return new MechanismResult<>(payment, originalAllocation);
             } else {
                 double coalitionValue = z_p - traitorPayments;
@@ -119,40 +196,85 @@ public class CCGMechanism<T extends Good> implements AuctionMechanism<T> {
                 }
 
                 l1Mip.add(constraint);
+                l2Mip.add(constraint);
+                coreConstraints++;
 
                 // L1 Norm
+                long l1Start = System.currentTimeMillis();
                 IMIPResult l1Result = solverClient.solve(l1Mip);
+                long l1Time = System.currentTimeMillis() - l1Start;
 
                 // L2 Norm
-                MIP l2Mip = new MIP();
-                l1Mip.getVars().values().forEach(l2Mip::add);
-                l1Mip.getConstraints().forEach(l2Mip::add);
-
+                long l2Start = System.currentTimeMillis();
                 double totalPayments = l1Result.getObjectiveValue();
-                Constraint fixPayments1 = new Constraint(CompareType.LEQ, totalPayments + 1e-6);
-                Constraint fixPayments2 = new Constraint(CompareType.GEQ, totalPayments - 1e-6);
-                paymentVariables.values().forEach(v -> fixPayments1.addTerm(1, v));
-                paymentVariables.values().forEach(v -> fixPayments2.addTerm(1, v));
-                l2Mip.add(fixPayments1);
-                l2Mip.add(fixPayments2);
-
-                for (Map.Entry<Bidder<T>, Variable> entry : paymentVariables.entrySet()) {
-                    Variable winnerVariable = entry.getValue();
-                    l2Mip.addObjectiveTerm(1, winnerVariable, winnerVariable);
-                    l2Mip.addObjectiveTerm(-2 * vcgResult.getPayment().paymentOf(entry.getKey()).getAmount() * getScale(), winnerVariable);
+                double[] l2Payments = null;
+                if (solveL2InProcess) {
+                    l2Solver.addCoreConstraint(nonTraitorIndices(winners, blockingCoalition), coalitionValue * getScale());
+                    double[] l1Payments = new double[winners.size()];
+                    for (int i = 0; i < winners.size(); i++) {
+                        l1Payments[i] = l1Result.getValue(paymentVariables.get(winners.get(i)));
+                    }
+                    try {
+                        l2Payments = l2Solver.solve(totalPayments, l1Payments);
+                    } catch (IllegalStateException e) {
+                        logger.warn("In-process L2 step failed ({}). Falling back to the external solver.", e.getMessage());
+                    }
                 }
+                if (l2Payments == null) {
+                    if (fixPayments1 != null) {
+                        l2Mip.remove(fixPayments1);
+                        l2Mip.remove(fixPayments2);
+                    }
+                    fixPayments1 = new Constraint(CompareType.LEQ, totalPayments + 1e-6);
+                    fixPayments2 = new Constraint(CompareType.GEQ, totalPayments - 1e-6);
+                    for (Variable v : paymentVariables.values()) {
+                        fixPayments1.addTerm(1, v);
+                        fixPayments2.addTerm(1, v);
+                    }
+                    l2Mip.add(fixPayments1);
+                    l2Mip.add(fixPayments2);
 
-                IMIPResult l2Result = solverClient.solve(l2Mip);
+                    IMIPResult l2Result = solverClient.solve(l2Mip);
+                    l2Payments = new double[winners.size()];
+                    for (int i = 0; i < winners.size(); i++) {
+                        l2Payments[i] = l2Result.getValue(paymentVariables.get(winners.get(i)));
+                    }
+                }
+                long l2Time = System.currentTimeMillis() - l2Start;
 
-                Map<Bidder<T>, BidderPayment> paymentMap = new HashMap<>(originalAllocation.getWinners().size());
-                for (Bidder<T> bidder : originalAllocation.getWinners()) {
-                    double scaledPayment = l2Result.getValue(paymentVariables.get(bidder));
-                    paymentMap.put(bidder, new BidderPayment(scaledPayment / getScale()));
+                Map<Bidder<T>, BidderPayment> paymentMap = new HashMap<>(winners.size());
+                for (int i = 0; i < winners.size(); i++) {
+                    paymentMap.put(winners.get(i), new BidderPayment(l2Payments[i] / getScale()));
                 }
                 payment = new Payment<>(paymentMap);
+                recordIteration(new IterationStatistics(iterationStatistics.size() + 1, blockingCoalitionTime, l1Time, l2Time, coreConstraints));
+            }
+        }
+
+    }
+
+    private int[] nonTraitorIndices(List<Bidder<T>> winners, Allocation<T> blockingCoalition) {
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < winners.size(); i++) {
+            if (!blockingCoalition.getWinners().contains(winners.get(i))) {
+                indices.add(i);
             }
         }
+        return indices.stream().mapToInt(Integer::intValue).toArray();
+    }
 
+    private void recordIteration(IterationStatistics statistics) {
+        iterationStatistics.add(statistics);
+        logger.info("CCG iteration {}: blocking coalition {} ms, L1 {} ms, L2 {} ms, {} core constraints.",
+                statistics.getIteration(), statistics.getBlockingCoalitionTime(), statistics.getL1Time(),
+                statistics.getL2Time(), statistics.getCoreConstraints());
+        if (Metrics.isEnabled()) {
+            Object[] tags = {"iteration", statistics.getIteration()};
+            Metrics.time(Metrics.CCG_BLOCKING_COALITION, TimeUnit.MILLISECONDS.toNanos(statistics.getBlockingCoalitionTime()), tags);
+            Metrics.time(Metrics.CCG_L1, TimeUnit.MILLISECONDS.toNanos(statistics.getL1Time()), tags);
+            Metrics.time(Metrics.CCG_L2, TimeUnit.MILLISECONDS.toNanos(statistics.getL2Time()), tags);
+            Metrics.gauge(Metrics.CCG_CORE_CONSTRAINTS, statistics.getCoreConstraints(), tags);
+        }
     }
 
     private Map<Bidder<T>, Double> computePayoffs(Allocation<T> allocation, Payment<T> payment) {
@@ -186,4 +308,55 @@ public class CCGMechanism<T extends Good> implements AuctionMechanism<T> {
         return winnerVariables;
     }
 
+    /**
+     * Timing (in milliseconds) and number of core constraints of a single CCG iteration.
+     * The last iteration only consists of finding no more blocking coalition, so its L1 and L2 times are zero.
+     */
+    public static final class IterationStatistics {
+        private final int iteration;
+        private final long blockingCoalitionTime;
+        private final long l1Time;
+        private final long l2Time;
+        private final int coreConstraints;
+
+        IterationStatistics(int iteration, long blockingCoalitionTime, long l1Time, long l2Time, int coreConstraints) {
+            this.iteration = iteration;
+            this.blockingCoalitionTime = blockingCoalitionTime;
+            this.l1Time = l1Time;
+            this.l2Time = l2Time;
+            this.coreConstraints = coreConstraints;
+        }
+
+        public int getIteration() {
+            return iteration;
+        }
+
+        public long getBlockingCoalitionTime() {
+            return blockingCoalitionTime;
+        }
+
+        public long getL1Time() {
+            return l1Time;
+        }
+
+        public long getL2Time() {
+            return l2Time;
+        }
+
+        public int getCoreConstraints() {
+            return coreConstraints;
+        }
+
+        @Override
+        public String toString() {
+            return "IterationStatistics{" +
+                    "iteration=" + iteration +
+                    ", blockingCoalitionTime=" + blockingCoalitionTime +
+                    ", l1Time=" + l1Time +
+                    ", l2Time=" + l2Time +
+                    ", coreConstraints=" + coreConstraints +
+                    '}';
+        }
+    }
+
 }
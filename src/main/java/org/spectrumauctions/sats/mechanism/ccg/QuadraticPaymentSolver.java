@@ -0,0 +1,207 @@
+package org.spectrumauctions.sats.mechanism.ccg;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-process solver for the quadratic payment step (L2 norm) of CCG:
+ * <pre>
+ *     min   sum_i (p_i - t_i)^2
+ *     s.t.  sum_i p_i = total
+ *           lb_i &lt;= p_i &lt;= ub_i
+ *           sum_{i in S_k} p_i &gt;= c_k    for every core constraint k
+ * </pre>
+ * The problem is solved with a primal active-set method, which terminates after a finite number of steps with
+ * the exact optimum (up to floating point precision). It has to be started from a feasible point, such as the
+ * solution of the preceding L1 step.
+ * Core constraints are accumulated, so one instance can be reused over all CCG iterations.
+ */
+public class QuadraticPaymentSolver {
+
+    private static final double RELATIVE_TOLERANCE = 1e-10;
+
+    private final int n;
+    private final double[] target;
+    private final List<double[]> rows = new ArrayList<>();
+    private final List<Double> rightHandSides = new ArrayList<>();
+    private final double tolerance;
+
+    /**
+     * @param target      the payments to which the distance is minimized (usually the VCG payments)
+     * @param lowerBounds the lower bound for each payment
+     * @param upperBounds the upper bound for each payment
+     */
+    public QuadraticPaymentSolver(double[] target, double[] lowerBounds, double[] upperBounds) {
+        Preconditions.checkArgument(target.length == lowerBounds.length && target.length == upperBounds.length);
+        this.n = target.length;
+        this.target = target.clone();
+        double magnitude = 1;
+        for (int i = 0; i < n; i++) {
+            Preconditions.checkArgument(lowerBounds[i] <= upperBounds[i]);
+            double[] lower = new double[n];
+            lower[i] = 1;
+            addRow(lower, lowerBounds[i]);
+            double[] upper = new double[n];
+            upper[i] = -1;
+            addRow(upper, -upperBounds[i]);
+            magnitude = Math.max(magnitude, Math.max(Math.abs(target[i]), Math.abs(upperBounds[i])));
+        }
+        this.tolerance = RELATIVE_TOLERANCE * magnitude;
+    }
+
+    /**
+     * Adds the constraint that the payments of the given members sum up to at least rhs.
+     */
+    public void addCoreConstraint(int[] members, double rhs) {
+        double[] row = new double[n];
+        for (int member : members) {
+            Preconditions.checkElementIndex(member, n);
+            row[member] = 1;
+        }
+        addRow(row, rhs);
+    }
+
+    public int getNumberOfConstraints() {
+        return rows.size();
+    }
+
+    private void addRow(double[] row, double rhs) {
+        rows.add(row);
+        rightHandSides.add(rhs);
+    }
+
+    /**
+     * @param total    the fixed sum of all payments
+     * @param feasible a feasible starting point, e.g., the result of the L1 step
+     * @return the optimal payments
+     * @throws IllegalStateException if the active-set method does not converge
+     */
+    public double[] solve(double total, double[] feasible) {
+        Preconditions.checkArgument(feasible.length == n);
+        double[] x = feasible.clone();
+        // Distribute a possible rounding difference of the starting point evenly
+        double difference = (total - sum(x)) / n;
+        for (int i = 0; i < n; i++) x[i] += difference;
+
+        double[] ones = new double[n];
+        Arrays.fill(ones, 1);
+
+        boolean[] inWorkingSet = new boolean[rows.size()];
+        List<Integer> workingSet = new ArrayList<>();
+        int maxIterations = 100 * (rows.size() + n) + 100;
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            // Rows of the current equality system: the fixed sum followed by the working set
+            List<double[]> active = new ArrayList<>();
+            active.add(ones);
+            for (int index : workingSet) active.add(rows.get(index));
+
+            double[] gradient = new double[n];
+            for (int i = 0; i < n; i++) gradient[i] = x[i] - target[i];
+
+            double[] lambda = multipliers(active, gradient);
+            double[] direction = new double[n];
+            for (int i = 0; i < n; i++) {
+                double projected = gradient[i];
+                for (int k = 0; k < active.size(); k++) projected -= lambda[k] * active.get(k)[i];
+                direction[i] = -projected;
+            }
+
+            if (norm(direction) <= tolerance) {
+                // Stationary on the working set: drop the constraint with the most negative multiplier, if any
+                int leaving = -1;
+                double mostNegative = -tolerance;
+                for (int k = 1; k < active.size(); k++) {
+                    if (lambda[k] < mostNegative) {
+                        mostNegative = lambda[k];
+                        leaving = k - 1;
+                    }
+                }
+                if (leaving < 0) {
+                    return x;
+                }
+                inWorkingSet[workingSet.remove(leaving)] = false;
+            } else {
+                double step = 1;
+                int blocking = -1;
+                for (int j = 0; j < rows.size(); j++) {
+                    if (inWorkingSet[j]) continue;
+                    double slope = dot(rows.get(j), direction);
+                    if (slope < -tolerance) {
+                        double candidate = (rightHandSides.get(j) - dot(rows.get(j), x)) / slope;
+                        if (candidate < step) {
+                            step = Math.max(candidate, 0);
+                            blocking = j;
+                        }
+                    }
+                }
+                for (int i = 0; i < n; i++) x[i] += step * direction[i];
+                if (blocking >= 0) {
+                    workingSet.add(blocking);
+                    inWorkingSet[blocking] = true;
+                }
+            }
+        }
+        throw new IllegalStateException("Active-set method did not converge after " + maxIterations + " iterations.");
+    }
+
+    /**
+     * Solves (A A^T) lambda = A g for the given rows A.
+     */
+    private static double[] multipliers(List<double[]> active, double[] gradient) {
+        int m = active.size();
+        double[][] matrix = new double[m][m + 1];
+        for (int k = 0; k < m; k++) {
+            for (int l = k; l < m; l++) {
+                double value = dot(active.get(k), active.get(l));
+                matrix[k][l] = value;
+                matrix[l][k] = value;
+            }
+            matrix[k][m] = dot(active.get(k), gradient);
+        }
+        // Gaussian elimination with partial pivoting
+        for (int col = 0; col < m; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < m; row++) {
+                if (Math.abs(matrix[row][col]) > Math.abs(matrix[pivot][col])) pivot = row;
+            }
+            double[] swap = matrix[col];
+            matrix[col] = matrix[pivot];
+            matrix[pivot] = swap;
+            if (Math.abs(matrix[col][col]) < 1e-12) {
+                throw new IllegalStateException("Working set became linearly dependent.");
+            }
+            for (int row = col + 1; row < m; row++) {
+                double factor = matrix[row][col] / matrix[col][col];
+                if (factor == 0) continue;
+                for (int c = col; c <= m; c++) matrix[row][c] -= factor * matrix[col][c];
+            }
+        }
+        double[] result = new double[m];
+        for (int row = m - 1; row >= 0; row--) {
+            double value = matrix[row][m];
+            for (int c = row + 1; c < m; c++) value -= matrix[row][c] * result[c];
+            result[row] = value / matrix[row][row];
+        }
+        return result;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double result = 0;
+        for (int i = 0; i < a.length; i++) result += a[i] * b[i];
+        return result;
+    }
+
+    private static double sum(double[] a) {
+        double result = 0;
+        for (double value : a) result += value;
+        return result;
+    }
+
+    private static double norm(double[] a) {
+        return Math.sqrt(dot(a, a));
+    }
+
+}
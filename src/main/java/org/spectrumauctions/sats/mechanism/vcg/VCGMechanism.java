@@ -1,9 +1,11 @@
 package org.spectrumauctions.sats.mechanism.vcg;
 
+import com.google.common.base.Preconditions;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.spectrumauctions.sats.core.model.Bidder;
 import org.spectrumauctions.sats.core.model.Good;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
 import org.spectrumauctions.sats.mechanism.domain.MechanismResult;
 import org.spectrumauctions.sats.mechanism.domain.BidderPayment;
 import org.spectrumauctions.sats.mechanism.domain.Payment;
@@ -21,6 +23,7 @@ public class VCGMechanism<T extends Good> implements AuctionMechanism<T> {
 
     private WinnerDeterminator<T> baseWD;
     private MechanismResult<T> result;
+    private String metricsRunId = Metrics.newRunId("vcg");
 
 
     public VCGMechanism(WinnerDeterminator<T> wdp) {
@@ -30,11 +33,29 @@ public class VCGMechanism<T extends Good> implements AuctionMechanism<T> {
     @Override
     public MechanismResult<T> getMechanismResult() {
         if (result == null) {
-            result = calculateVCGPayments();
+            result = Metrics.inRun(metricsRunId, () -> {
+                long start = System.nanoTime();
+                MechanismResult<T> mechanismResult = calculateVCGPayments();
+                Metrics.time(Metrics.VCG_RUN, System.nanoTime() - start);
+                return mechanismResult;
+            });
         }
         return result;
     }
 
+    /**
+     * Sets the id with which all metrics reported by this mechanism are tagged (see {@link Metrics#RUN_TAG}).
+     * By default, a unique id is generated for each mechanism. Used within another mechanism's run, the metrics
+     * are tagged with the id of the outer run.
+     */
+    public void setMetricsRunId(String metricsRunId) {
+        this.metricsRunId = Preconditions.checkNotNull(metricsRunId);
+    }
+
+    public String getMetricsRunId() {
+        return metricsRunId;
+    }
+
     @Override
     public Payment<T> getPayment() {
         return getMechanismResult().getPayment();
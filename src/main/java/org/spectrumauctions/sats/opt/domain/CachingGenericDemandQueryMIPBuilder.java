@@ -0,0 +1,119 @@
+package org.spectrumauctions.sats.opt.domain;
+
+import com.google.common.base.Preconditions;
+import org.spectrumauctions.sats.core.bidlang.generic.GenericDefinition;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.Good;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
+import org.spectrumauctions.sats.opt.model.ModelMIP;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wraps a {@link GenericDemandQueryMIPBuilder} and memoizes the result pools of the demand queries.<br>
+ * A query is identified by the bidder, the exact price vector, epsilon, the number of requested results and the
+ * result pool tolerances. Repeated queries, e.g., for goods whose prices did not change, in supplementary rounds
+ * at the final or last prices, or in a CCA cloned with {@code cloneWithoutSupplementaryBids}
+ * (which shares the builder), are then answered without solving.
+ * The time limit is not part of the key: A result found under a time limit is reused for any time limit.
+ */
+public class CachingGenericDemandQueryMIPBuilder<S extends GenericDefinition<T>, T extends Good> implements GenericDemandQueryMIPBuilder<S, T> {
+
+    private final GenericDemandQueryMIPBuilder<S, T> delegate;
+    private final Map<DemandQueryKey, List<? extends GenericDemandQueryResult<S, T>>> resultPools = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public CachingGenericDemandQueryMIPBuilder(GenericDemandQueryMIPBuilder<S, T> delegate) {
+        this.delegate = Preconditions.checkNotNull(delegate);
+    }
+
+    @Override
+    public GenericDemandQueryMIP<S, T> getDemandQueryMipFor(Bidder<T> bidder, Map<S, BigDecimal> prices, double epsilon) {
+        return new CachedQuery(bidder, new HashMap<>(prices), epsilon);
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    public void clear() {
+        resultPools.clear();
+    }
+
+    private class CachedQuery implements GenericDemandQueryMIP<S, T> {
+
+        private final Bidder<T> bidder;
+        private final Map<S, BigDecimal> prices;
+        private final double epsilon;
+        private Double timeLimit;
+        private Double relativeResultPoolTolerance;
+        private Double absoluteResultPoolTolerance;
+
+        private CachedQuery(Bidder<T> bidder, Map<S, BigDecimal> prices, double epsilon) {
+            this.bidder = bidder;
+            this.prices = prices;
+            this.epsilon = epsilon;
+        }
+
+        @Override
+        public GenericDemandQueryResult<S, T> getResult() {
+            return getResultPool(1).get(0);
+        }
+
+        @Override
+        public List<? extends GenericDemandQueryResult<S, T>> getResultPool(int numberOfResults) {
+            DemandQueryKey key = new DemandQueryKey(bidder, prices, epsilon, numberOfResults,
+                    relativeResultPoolTolerance, absoluteResultPoolTolerance);
+            List<? extends GenericDemandQueryResult<S, T>> resultPool = resultPools.get(key);
+            if (resultPool != null) {
+                hits.incrementAndGet();
+                Metrics.count(Metrics.DEMAND_QUERY_CACHE_HIT);
+                return resultPool;
+            }
+            misses.incrementAndGet();
+            Metrics.count(Metrics.DEMAND_QUERY_CACHE_MISS);
+            resultPool = Collections.unmodifiableList(new ArrayList<>(createMip().getResultPool(numberOfResults)));
+            resultPools.put(key, resultPool);
+            return resultPool;
+        }
+
+        /**
+         * The model is only created (or, for reused models, updated) when the query is actually solved.
+         */
+        private GenericDemandQueryMIP<S, T> createMip() {
+            GenericDemandQueryMIP<S, T> mip = delegate.getDemandQueryMipFor(bidder, prices, epsilon);
+            if (timeLimit != null) mip.setTimeLimit(timeLimit);
+            if (relativeResultPoolTolerance != null) mip.setRelativeResultPoolTolerance(relativeResultPoolTolerance);
+            if (absoluteResultPoolTolerance != null) mip.setAbsoluteResultPoolTolerance(absoluteResultPoolTolerance);
+            return mip;
+        }
+
+        @Override
+        public ModelMIP getMip() {
+            return createMip().getMip();
+        }
+
+        @Override
+        public void setTimeLimit(double timeLimit) {
+            this.timeLimit = timeLimit;
+        }
+
+        @Override
+        public void setRelativeResultPoolTolerance(double resultPoolTolerance) {
+            this.relativeResultPoolTolerance = resultPoolTolerance;
+        }
+
+        @Override
+        public void setAbsoluteResultPoolTolerance(double resultPoolTolerance) {
+            this.absoluteResultPoolTolerance = resultPoolTolerance;
+        }
+    }
+}
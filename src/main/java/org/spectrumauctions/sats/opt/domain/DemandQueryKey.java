@@ -0,0 +1,51 @@
+package org.spectrumauctions.sats.opt.domain;
+
+import org.spectrumauctions.sats.core.model.Bidder;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Identifies a demand query by the bidder, the exact price vector and the parameters which influence the result pool.
+ * Prices are compared by their numerical value, i.e., independent of their scale.
+ */
+final class DemandQueryKey {
+
+    private final Bidder<?> bidder;
+    private final Map<Object, BigDecimal> prices;
+    private final double epsilon;
+    private final int numberOfResults;
+    private final Double relativeResultPoolTolerance;
+    private final Double absoluteResultPoolTolerance;
+
+    DemandQueryKey(Bidder<?> bidder, Map<?, BigDecimal> prices, double epsilon, int numberOfResults,
+                   Double relativeResultPoolTolerance, Double absoluteResultPoolTolerance) {
+        this.bidder = bidder;
+        this.prices = new HashMap<>();
+        prices.forEach((good, price) -> this.prices.put(good, price.stripTrailingZeros()));
+        this.epsilon = epsilon;
+        this.numberOfResults = numberOfResults;
+        this.relativeResultPoolTolerance = relativeResultPoolTolerance;
+        this.absoluteResultPoolTolerance = absoluteResultPoolTolerance;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DemandQueryKey that = (DemandQueryKey) o;
+        return Double.compare(that.epsilon, epsilon) == 0 &&
+                numberOfResults == that.numberOfResults &&
+                Objects.equals(bidder, that.bidder) &&
+                Objects.equals(prices, that.prices) &&
+                Objects.equals(relativeResultPoolTolerance, that.relativeResultPoolTolerance) &&
+                Objects.equals(absoluteResultPoolTolerance, that.absoluteResultPoolTolerance);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bidder, prices, epsilon, numberOfResults, relativeResultPoolTolerance, absoluteResultPoolTolerance);
+    }
+}
@@ -1,8 +1,13 @@
 package org.spectrumauctions.sats.opt.domain;
 
 import edu.harvard.econcs.jopt.solver.SolveParam;
+import edu.harvard.econcs.jopt.solver.mip.MIP;
+import edu.harvard.econcs.jopt.solver.mip.VarType;
+import edu.harvard.econcs.jopt.solver.mip.Variable;
 import org.spectrumauctions.sats.opt.model.ModelMIP;
 
+import java.util.Map;
+
 public interface DemandQueryMIP {
     ModelMIP getMip();
     default void setTimeLimit(double timeLimit) {
@@ -16,4 +21,23 @@ public interface DemandQueryMIP {
     default void setAbsoluteResultPoolTolerance(double resultPoolTolerance) {
         getMip().getMip().setSolveParam(SolveParam.SOLUTION_POOL_MODE_4_ABSOLUTE_GAP_TOLERANCE, resultPoolTolerance);
     }
+
+    /**
+     * Replaces the starting solution proposed to the solver, e.g., with the demanded bundle of the previous
+     * clock round. Variables which are not contained are left to the solver.
+     */
+    default void proposeStartingSolution(Map<Variable, Double> values) {
+        MIP mip = getMip().getMip();
+        mip.clearProposedValues();
+        for (Map.Entry<Variable, Double> entry : values.entrySet()) {
+            Variable var = entry.getKey();
+            if (var.getType() == VarType.BOOLEAN) {
+                mip.proposeValue(var, entry.getValue() > 0.5);
+            } else if (var.getType() == VarType.INT) {
+                mip.proposeValue(var, (int) Math.round(entry.getValue()));
+            } else {
+                mip.proposeValue(var, entry.getValue().doubleValue());
+            }
+        }
+    }
 }
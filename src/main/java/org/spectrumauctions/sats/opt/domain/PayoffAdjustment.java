@@ -0,0 +1,80 @@
+package org.spectrumauctions.sats.opt.domain;
+
+import edu.harvard.econcs.jopt.solver.IMIP;
+import edu.harvard.econcs.jopt.solver.mip.*;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.Good;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Subtracts the payoffs of winning bidders from the objective of a winner determination MIP, as needed
+ * to find blocking coalitions in CCG.<br>
+ * The indicator variables and linking constraints are only created once. Every subsequent call to
+ * {@link #setPayoffs(Map)} replaces a single constraint per bidder, so the same MIP can be re-solved
+ * across CCG iterations instead of being rebuilt.
+ */
+public class PayoffAdjustment<T extends Good> {
+
+    private final IMIP mip;
+    private final double scalingFactor;
+
+    private final Map<Bidder<T>, Variable> winnerVariables = new HashMap<>();
+    private final Map<Bidder<T>, Variable> payoffVariables = new HashMap<>();
+    private final Map<Bidder<T>, Constraint> payoffConstraints = new HashMap<>();
+
+    /**
+     * @param mip                   The winner determination MIP
+     * @param allocationVariables   Per bidder, the variables that are positive if and only if the bidder wins
+     * @param scalingFactor         The factor with which the values in the MIP are scaled
+     */
+    public PayoffAdjustment(IMIP mip, Map<? extends Bidder<T>, ? extends Collection<Variable>> allocationVariables, double scalingFactor) {
+        this.mip = mip;
+        this.scalingFactor = scalingFactor;
+        for (Map.Entry<? extends Bidder<T>, ? extends Collection<Variable>> entry : allocationVariables.entrySet()) {
+            Bidder<T> bidder = entry.getKey();
+            Variable x = new Variable("x_" + bidder.getId(), VarType.BOOLEAN, 0, 1);
+            mip.add(x);
+
+            Constraint x1 = new Constraint(CompareType.GEQ, 0);
+            Constraint x2 = new Constraint(CompareType.LEQ, 0);
+            x1.addTerm(-1, x);
+            x2.addTerm(-MIP.MAX_VALUE, x);
+            for (Variable var : entry.getValue()) {
+                x1.addTerm(1, var);
+                x2.addTerm(1, var);
+            }
+            mip.add(x1);
+            mip.add(x2);
+
+            // The payoff enters the objective through u, which is tied to payoff * x by a replaceable constraint
+            Variable u = new Variable("u_" + bidder.getId(), VarType.DOUBLE, 0, MIP.MAX_VALUE);
+            mip.add(u);
+            mip.addObjectiveTerm(-1, u);
+
+            winnerVariables.put(bidder, x);
+            payoffVariables.put(bidder, u);
+        }
+    }
+
+    /**
+     * Sets the payoffs that are subtracted from the objective. Bidders without an entry get a payoff of zero.
+     * Previously set payoffs are replaced.
+     */
+    public void setPayoffs(Map<Bidder<T>, Double> payoffs) {
+        for (Map.Entry<Bidder<T>, Variable> entry : winnerVariables.entrySet()) {
+            Bidder<T> bidder = entry.getKey();
+            Constraint old = payoffConstraints.get(bidder);
+            if (old != null) {
+                mip.remove(old);
+            }
+            Constraint payoffConstraint = new Constraint(CompareType.EQ, 0);
+            payoffConstraint.addTerm(1, payoffVariables.get(bidder));
+            payoffConstraint.addTerm(-payoffs.getOrDefault(bidder, 0.0) * scalingFactor, entry.getValue());
+            mip.add(payoffConstraint);
+            payoffConstraints.put(bidder, payoffConstraint);
+        }
+    }
+}
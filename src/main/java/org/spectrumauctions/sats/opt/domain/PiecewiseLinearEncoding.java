@@ -0,0 +1,29 @@
+package org.spectrumauctions.sats.opt.domain;
+
+/**
+ * The ways a {@link PiecewiseLinearPartialMIP} can encode a continuous piecewise linear function with k linear pieces.
+ */
+public enum PiecewiseLinearEncoding {
+
+    /**
+     * One boolean and one conditional copy of the input per linear piece (k binaries, k continuous variables).
+     * This is the original encoding and the default.
+     */
+    CONDITIONAL_X,
+
+    /**
+     * The input is a convex combination of the corner points, with one weight per corner point, of which only two
+     * adjacent ones may be positive. The adjacency is enforced with one boolean per linear piece
+     * (k binaries, k+1 continuous variables). The LP relaxation of this encoding is tighter than the one of
+     * {@link #CONDITIONAL_X}.
+     */
+    LAMBDA,
+
+    /**
+     * The convex combination of {@link #LAMBDA}, but the adjacency of the positive weights is enforced with a
+     * Gray code over the linear pieces, which requires only ceil(log2(k)) binaries.
+     * See Vielma and Nemhauser, Modeling disjunctive constraints with a logarithmic number of binary variables and
+     * constraints, Mathematical Programming 128 (2011).
+     */
+    LOGARITHMIC
+}
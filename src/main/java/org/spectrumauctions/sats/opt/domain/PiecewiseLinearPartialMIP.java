@@ -26,6 +26,8 @@ public final class PiecewiseLinearPartialMIP extends PartialMIP {
 
     private final String linearPieceVariableName = "_Z";
     private final String conditionalXVariableName = "_condX";
+    private final String lambdaVariableName = "_lambda";
+    private final String grayCodeBitVariableName = "_bit";
 
     /**
      * A boolean auxiliary variable Z_i, 
@@ -49,25 +51,53 @@ public final class PiecewiseLinearPartialMIP extends PartialMIP {
      */
     private List<Variable> conditionalXVariable;
 
+    /**
+     * A double auxiliary variable lambda_j in [0, 1], one for each corner point of the piecewise linear function,
+     * used by {@link PiecewiseLinearEncoding#LAMBDA} and {@link PiecewiseLinearEncoding#LOGARITHMIC}.<br>
+     * The input X is the convex combination of the corner points with weights lambda_j.
+     * Here, the indexing is in {0, 1, 2, ..., k}, as for the corner points.
+     */
+    private List<Variable> lambdaVariable;
+
+    /**
+     * A boolean auxiliary variable per bit of the Gray code of the linear pieces,
+     * used by {@link PiecewiseLinearEncoding#LOGARITHMIC}.
+     */
+    private List<Variable> grayCodeBitVariable;
+
     private ContinuousPiecewiseLinearFunction func;
     private Variable functionInput;
     private Variable functionOutput;
     private String auxiliaryPartialName;
     private DoubleInterval inputRange;
+    private final PiecewiseLinearEncoding encoding;
 
 
     public PiecewiseLinearPartialMIP(ContinuousPiecewiseLinearFunction func,
                                      Variable functionInput,
                                      Variable functionOutput,
                                      String auxiliaryPartialName) {
+        this(func, functionInput, functionOutput, auxiliaryPartialName, PiecewiseLinearEncoding.CONDITIONAL_X);
+    }
+
+    public PiecewiseLinearPartialMIP(ContinuousPiecewiseLinearFunction func,
+                                     Variable functionInput,
+                                     Variable functionOutput,
+                                     String auxiliaryPartialName,
+                                     PiecewiseLinearEncoding encoding) {
         super();
         this.func = func;
         this.functionInput = functionInput;
         this.functionOutput = functionOutput;
         this.auxiliaryPartialName = auxiliaryPartialName;
+        this.encoding = encoding;
         initAuxiliaryVariables();
     }
 
+    public PiecewiseLinearEncoding getEncoding() {
+        return encoding;
+    }
+
     private Variable getZVar(int piecenumber) {
         return linearPieceVariable.get(piecenumber - 1);
     }
@@ -80,16 +110,50 @@ public final class PiecewiseLinearPartialMIP extends PartialMIP {
     private void initAuxiliaryVariables() {
         this.linearPieceVariable = new ArrayList<>();
         this.conditionalXVariable = new ArrayList<Variable>();
+        this.lambdaVariable = new ArrayList<>();
+        this.grayCodeBitVariable = new ArrayList<>();
         List<SimpleImmutableEntry<BigDecimal, BigDecimal>> cornerPoints = func.getCornerPoints();
-        for (int i = 1; i < cornerPoints.size(); i++) {
-            String varName = auxiliaryPartialName.concat(linearPieceVariableName).concat(String.valueOf(i));
-            this.linearPieceVariable.add(new Variable(varName, VarType.BOOLEAN, 0, 1));
+        if (encoding == PiecewiseLinearEncoding.CONDITIONAL_X) {
+            for (int i = 1; i < cornerPoints.size(); i++) {
+                String varName = auxiliaryPartialName.concat(linearPieceVariableName).concat(String.valueOf(i));
+                this.linearPieceVariable.add(new Variable(varName, VarType.BOOLEAN, 0, 1));
 
-            varName = auxiliaryPartialName.concat(conditionalXVariableName).concat(String.valueOf(i));
-            this.conditionalXVariable.add(new Variable(varName, VarType.DOUBLE, this.functionInput.getLowerBound(), functionInput.getUpperBound()));
+                varName = auxiliaryPartialName.concat(conditionalXVariableName).concat(String.valueOf(i));
+                this.conditionalXVariable.add(new Variable(varName, VarType.DOUBLE, this.functionInput.getLowerBound(), functionInput.getUpperBound()));
+            }
+            return;
+        }
+        for (int j = 0; j < cornerPoints.size(); j++) {
+            String varName = auxiliaryPartialName.concat(lambdaVariableName).concat(String.valueOf(j));
+            this.lambdaVariable.add(new Variable(varName, VarType.DOUBLE, 0, 1));
+        }
+        if (encoding == PiecewiseLinearEncoding.LAMBDA) {
+            for (int i = 1; i < cornerPoints.size(); i++) {
+                String varName = auxiliaryPartialName.concat(linearPieceVariableName).concat(String.valueOf(i));
+                this.linearPieceVariable.add(new Variable(varName, VarType.BOOLEAN, 0, 1));
+            }
+        } else {
+            for (int bit = 0; bit < numberOfGrayCodeBits(); bit++) {
+                String varName = auxiliaryPartialName.concat(grayCodeBitVariableName).concat(String.valueOf(bit));
+                this.grayCodeBitVariable.add(new Variable(varName, VarType.BOOLEAN, 0, 1));
+            }
         }
     }
 
+    private int numberOfGrayCodeBits() {
+        int pieces = func.getCornerPoints().size() - 1;
+        return 32 - Integer.numberOfLeadingZeros(pieces - 1);
+    }
+
+    /**
+     * @param piecenumber in {1, 2, ..., k}
+     * @return the bit of the Gray code which identifies the linear piece
+     */
+    private static int grayCodeBit(int piecenumber, int bit) {
+        int index = piecenumber - 1;
+        return ((index ^ (index >> 1)) >> bit) & 1;
+    }
+
 
     /**
      * Returns a set of constraints which ensure that the auxiliary variables. 
@@ -97,6 +161,9 @@ public final class PiecewiseLinearPartialMIP extends PartialMIP {
      * @return
      */
     public Set<Constraint> constrainAuxiliaryVariables() {
+        if (encoding != PiecewiseLinearEncoding.CONDITIONAL_X) {
+            return constrainConvexCombination();
+        }
         Set<Constraint> result = new HashSet<>();
         List<SimpleImmutableEntry<BigDecimal, BigDecimal>> cornerPoints = func.getCornerPoints();
         // Ensure CornerX_{i-1} * Z_i <= condX_i <= CornerX_i * Z_i
@@ -130,6 +197,65 @@ public final class PiecewiseLinearPartialMIP extends PartialMIP {
         return result;
     }
 
+    /**
+     * The constraints of {@link PiecewiseLinearEncoding#LAMBDA} and {@link PiecewiseLinearEncoding#LOGARITHMIC}:
+     * X = \sum_{j=0}^k cornerX_j * lambda_j with \sum_j lambda_j = 1, where at most two adjacent lambda_j are positive.
+     */
+    private Set<Constraint> constrainConvexCombination() {
+        Set<Constraint> result = new HashSet<>();
+        List<SimpleImmutableEntry<BigDecimal, BigDecimal>> cornerPoints = func.getCornerPoints();
+        Constraint lambdaSum = new Constraint(CompareType.EQ, 1);
+        Constraint inputDefinition = new Constraint(CompareType.EQ, 0);
+        inputDefinition.addTerm(-1, functionInput);
+        for (int j = 0; j < cornerPoints.size(); j++) {
+            lambdaSum.addTerm(1, lambdaVariable.get(j));
+            inputDefinition.addTerm(cornerPoints.get(j).getKey().doubleValue(), lambdaVariable.get(j));
+        }
+        result.add(lambdaSum);
+        result.add(inputDefinition);
+
+        int pieces = cornerPoints.size() - 1;
+        if (encoding == PiecewiseLinearEncoding.LAMBDA) {
+            // lambda_j <= Z_j + Z_{j+1}, i.e., lambda_j may only be positive if one of its adjacent pieces is active
+            for (int j = 0; j <= pieces; j++) {
+                Constraint adjacency = new Constraint(CompareType.LEQ, 0);
+                adjacency.addTerm(1, lambdaVariable.get(j));
+                if (j >= 1) adjacency.addTerm(-1, getZVar(j));
+                if (j < pieces) adjacency.addTerm(-1, getZVar(j + 1));
+                result.add(adjacency);
+            }
+            Constraint zCount = new Constraint(CompareType.EQ, 1);
+            for (int i = 1; i <= pieces; i++) {
+                zCount.addTerm(1, getZVar(i));
+            }
+            result.add(zCount);
+        } else {
+            // For every bit, the corner points whose adjacent pieces all have the bit set (resp. unset)
+            // may only be positive if the bit variable is 1 (resp. 0)
+            for (int bit = 0; bit < grayCodeBitVariable.size(); bit++) {
+                Variable bitVar = grayCodeBitVariable.get(bit);
+                Constraint ifSet = new Constraint(CompareType.LEQ, 0);
+                ifSet.addTerm(-1, bitVar);
+                Constraint ifUnset = new Constraint(CompareType.LEQ, 1);
+                ifUnset.addTerm(1, bitVar);
+                for (int j = 0; j <= pieces; j++) {
+                    boolean allSet = true;
+                    boolean allUnset = true;
+                    for (int piece = Math.max(j, 1); piece <= Math.min(j + 1, pieces); piece++) {
+                        boolean set = grayCodeBit(piece, bit) == 1;
+                        allSet &= set;
+                        allUnset &= !set;
+                    }
+                    if (allSet) ifSet.addTerm(1, lambdaVariable.get(j));
+                    if (allUnset) ifUnset.addTerm(1, lambdaVariable.get(j));
+                }
+                result.add(ifSet);
+                result.add(ifUnset);
+            }
+        }
+        return result;
+    }
+
     /**
      * Encodes the actual continuous piecewise linear function, i.e., the following term:<br>
      * Y = \sum_{i =1}^r cornerY_{i-1}Z_i + slope(i) * condX_i  - slope(i) * cornerX_{i-1} * Z_i
@@ -142,6 +268,13 @@ public final class PiecewiseLinearPartialMIP extends PartialMIP {
         Constraint c = new Constraint(CompareType.EQ, 0);
         c.addTerm(-1, functionOutput);
         List<SimpleImmutableEntry<BigDecimal, BigDecimal>> cornerPoints = func.getCornerPoints();
+        if (encoding != PiecewiseLinearEncoding.CONDITIONAL_X) {
+            // Y = \sum_{j=0}^k cornerY_j * lambda_j
+            for (int j = 0; j < cornerPoints.size(); j++) {
+                c.addTerm(cornerPoints.get(j).getValue().doubleValue(), lambdaVariable.get(j));
+            }
+            return c;
+        }
         for (int i = 1; i < cornerPoints.size(); i++) {
             BigDecimal lowerX = cornerPoints.get(i - 1).getKey();
             BigDecimal higherX = cornerPoints.get(i).getKey();
@@ -182,6 +315,8 @@ public final class PiecewiseLinearPartialMIP extends PartialMIP {
         vars.addAll(super.getVariables());
         vars.addAll(linearPieceVariable);
         vars.addAll(conditionalXVariable);
+        vars.addAll(lambdaVariable);
+        vars.addAll(grayCodeBitVariable);
         return vars;
     }
 
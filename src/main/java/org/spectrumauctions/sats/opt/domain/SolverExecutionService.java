@@ -0,0 +1,189 @@
+package org.spectrumauctions.sats.opt.domain;
+
+import com.google.common.base.Preconditions;
+import edu.harvard.econcs.jopt.solver.IMIP;
+import edu.harvard.econcs.jopt.solver.IMIPResult;
+import edu.harvard.econcs.jopt.solver.IMIPSolver;
+import edu.harvard.econcs.jopt.solver.client.SolverClient;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Executes all MIP solves of SATS-OPT. Solver clients are pooled, such that each client is used by at most one
+ * solve at a time, and the number of concurrent solves is capped by the available license tokens and cores.
+ * Further solves wait in a fair (first come, first served) queue.<br>
+ * The default instance allows as many concurrent solves as there are cores. The number of license tokens can be
+ * limited with the system property {@value #LICENSE_TOKENS_PROPERTY} or by setting another default instance with
+ * {@link #setDefault(SolverExecutionService)}.
+ */
+public class SolverExecutionService implements IMIPSolver {
+
+    private static final Logger logger = LogManager.getLogger(SolverExecutionService.class);
+
+    public static final String LICENSE_TOKENS_PROPERTY = "sats.solver.licenseTokens";
+
+    /**
+     * Upper bounds (in milliseconds) of the buckets of the solve-time histogram. The last bucket is unbounded.
+     */
+    public static final long[] HISTOGRAM_BOUNDS_MILLIS = {10, 100, 1000, 10000, 100000};
+
+    private static volatile SolverExecutionService defaultService;
+
+    private final int maxConcurrentSolves;
+    private final Semaphore permits;
+    private final Supplier<IMIPSolver> clientFactory;
+    private final Queue<IMIPSolver> idleClients = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger runningSolves = new AtomicInteger();
+    private final AtomicLong completedSolves = new AtomicLong();
+    private final AtomicLong totalSolveTimeMillis = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BOUNDS_MILLIS.length + 1);
+
+    /**
+     * @param licenseTokens the number of solver license tokens; the number of concurrent solves is additionally
+     *                      limited by the number of available cores
+     */
+    public SolverExecutionService(int licenseTokens) {
+        this(Math.min(licenseTokens, Runtime.getRuntime().availableProcessors()), SolverClient::new);
+    }
+
+    /**
+     * @param maxConcurrentSolves the maximal number of solves running at the same time
+     * @param clientFactory       creates a new solver client when no idle one is available
+     */
+    public SolverExecutionService(int maxConcurrentSolves, Supplier<IMIPSolver> clientFactory) {
+        Preconditions.checkArgument(maxConcurrentSolves > 0);
+        this.maxConcurrentSolves = maxConcurrentSolves;
+        this.permits = new Semaphore(maxConcurrentSolves, true);
+        this.clientFactory = clientFactory;
+    }
+
+    public static SolverExecutionService getDefault() {
+        if (defaultService == null) {
+            synchronized (SolverExecutionService.class) {
+                if (defaultService == null) {
+                    int licenseTokens = Integer.getInteger(LICENSE_TOKENS_PROPERTY, Runtime.getRuntime().availableProcessors());
+                    defaultService = new SolverExecutionService(licenseTokens);
+                    logger.debug("Created default solver execution service with {} concurrent solves.", defaultService.maxConcurrentSolves);
+                }
+            }
+        }
+        return defaultService;
+    }
+
+    /**
+     * Replaces the service which is used by all MIPs of SATS-OPT. Solves already waiting in the previous
+     * service are not affected.
+     */
+    public static void setDefault(SolverExecutionService service) {
+        Preconditions.checkNotNull(service);
+        synchronized (SolverExecutionService.class) {
+            defaultService = service;
+        }
+    }
+
+    /**
+     * Solves the MIP as soon as a slot is available. Blocks until the MIP is solved.
+     */
+    @Override
+    public IMIPResult solve(IMIP mip) {
+        long queued = System.nanoTime();
+        queueDepth.incrementAndGet();
+        try {
+            permits.acquireUninterruptibly();
+        } finally {
+            queueDepth.decrementAndGet();
+        }
+        if (Metrics.isEnabled()) {
+            Metrics.time(Metrics.MIP_WAIT, System.nanoTime() - queued);
+            Metrics.gauge(Metrics.MIP_VARIABLES, mip.getNumVars());
+            Metrics.gauge(Metrics.MIP_CONSTRAINTS, mip.getNumConstraints());
+        }
+        runningSolves.incrementAndGet();
+        IMIPSolver client = null;
+        long start = System.nanoTime();
+        try {
+            client = idleClients.poll();
+            if (client == null) {
+                client = clientFactory.get();
+            }
+            return client.solve(mip);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            record(TimeUnit.NANOSECONDS.toMillis(nanos));
+            Metrics.time(Metrics.MIP_SOLVE, nanos);
+            if (client != null) {
+                idleClients.offer(client);
+            }
+            runningSolves.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    private void record(long millis) {
+        completedSolves.incrementAndGet();
+        totalSolveTimeMillis.addAndGet(millis);
+        int bucket = 0;
+        while (bucket < HISTOGRAM_BOUNDS_MILLIS.length && millis >= HISTOGRAM_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        histogram.incrementAndGet(bucket);
+    }
+
+    public int getMaxConcurrentSolves() {
+        return maxConcurrentSolves;
+    }
+
+    /**
+     * @return the number of solves currently waiting for a slot
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public int getRunningSolves() {
+        return runningSolves.get();
+    }
+
+    public long getCompletedSolves() {
+        return completedSolves.get();
+    }
+
+    public long getTotalSolveTimeMillis() {
+        return totalSolveTimeMillis.get();
+    }
+
+    /**
+     * @return the number of completed solves per bucket, as defined by {@link #HISTOGRAM_BOUNDS_MILLIS}
+     */
+    public long[] getSolveTimeHistogram() {
+        long[] result = new long[histogram.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = histogram.get(i);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SolverExecutionService{" +
+                "maxConcurrentSolves=" + maxConcurrentSolves +
+                ", queueDepth=" + getQueueDepth() +
+                ", runningSolves=" + getRunningSolves() +
+                ", completedSolves=" + getCompletedSolves() +
+                ", solveTimeHistogram=" + Arrays.toString(getSolveTimeHistogram()) +
+                '}';
+    }
+}
@@ -0,0 +1,143 @@
+package org.spectrumauctions.sats.opt.domain;
+
+import com.google.common.hash.Hashing;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.util.file.FileException;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caches the solutions of winner determination problems across calls, e.g., when the same bids are solved once for
+ * the allocation and once again for the payments.<br>
+ * An instance is identified by a SHA-256 hash over the fingerprints of all its bundle bids and its solve parameters.
+ * For a solution, only the fingerprints of the winning bundle bids are stored, from which the winner determination
+ * rebuilds the allocation with its own bid objects.<br>
+ * Entries are held in memory. If a directory is given, they are additionally written to disk, such that they can be
+ * reused across runs. Failing to read or write the disk tier is logged and otherwise ignored.
+ */
+public class WinnerDeterminationCache {
+
+    private static final Logger logger = LogManager.getLogger(WinnerDeterminationCache.class);
+    private static final String FILE_ENDING = ".wdp";
+
+    private final Map<String, List<String>> solutions = new ConcurrentHashMap<>();
+    private final Path directory;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * Creates an in-memory cache
+     */
+    public WinnerDeterminationCache() {
+        this(null);
+    }
+
+    /**
+     * @param directory the directory for the on-disk tier, or null for an in-memory cache
+     */
+    public WinnerDeterminationCache(Path directory) {
+        this.directory = directory;
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new FileException(e);
+            }
+        }
+    }
+
+    /**
+     * Creates the canonical key of a winner determination instance. The order of the fingerprints is irrelevant.
+     *
+     * @param type              distinguishes different winner determination formulations
+     * @param epsilon           the relative optimality gap with which the instance is solved
+     * @param valueFingerprints the fingerprints of all bundle bids, see {@link #fingerprint(Bidder, String, BigDecimal)}
+     */
+    public static String key(String type, double epsilon, Collection<String> valueFingerprints) {
+        List<String> sorted = new ArrayList<>(valueFingerprints);
+        Collections.sort(sorted);
+        StringBuilder canonical = new StringBuilder(type).append('\n').append(epsilon).append('\n');
+        for (String fingerprint : sorted) {
+            canonical.append(fingerprint).append('\n');
+        }
+        return Hashing.sha256().hashString(canonical, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * @param bidder the bidder of the bundle bid
+     * @param goods  a canonical description of the goods (or quantities) of the bundle bid
+     * @param value  the value of the bundle bid
+     * @return a string uniquely identifying the bundle bid
+     */
+    public static String fingerprint(Bidder<?> bidder, String goods, BigDecimal value) {
+        return bidder.getWorldId() + "/" + bidder.getPopulation() + "/" + bidder.getId()
+                + "|" + goods + "|" + value.stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * @return the fingerprints of the winning bundle bids, or null if the instance is not in the cache
+     */
+    public List<String> get(String key) {
+        List<String> winners = solutions.get(key);
+        if (winners == null && directory != null) {
+            Path file = directory.resolve(key + FILE_ENDING);
+            if (Files.exists(file)) {
+                try {
+                    winners = Collections.unmodifiableList(Files.readAllLines(file, StandardCharsets.UTF_8));
+                    solutions.put(key, winners);
+                } catch (IOException e) {
+                    logger.warn("Could not read cached solution {}", file, e);
+                }
+            }
+        }
+        if (winners == null) {
+            misses.incrementAndGet();
+            Metrics.count(Metrics.WDP_CACHE_MISS);
+        } else {
+            hits.incrementAndGet();
+            Metrics.count(Metrics.WDP_CACHE_HIT);
+        }
+        return winners;
+    }
+
+    public void put(String key, List<String> winners) {
+        List<String> copy = Collections.unmodifiableList(new ArrayList<>(winners));
+        solutions.put(key, copy);
+        if (directory != null) {
+            Path file = directory.resolve(key + FILE_ENDING);
+            try {
+                Path temp = Files.createTempFile(directory, key, ".tmp");
+                Files.write(temp, copy, StandardCharsets.UTF_8);
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.warn("Could not write cached solution {}", file, e);
+            }
+        }
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Clears the in-memory tier. Files on disk are kept.
+     */
+    public void clear() {
+        solutions.clear();
+    }
+}
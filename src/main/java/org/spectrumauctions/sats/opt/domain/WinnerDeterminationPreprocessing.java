@@ -0,0 +1,146 @@
+package org.spectrumauctions.sats.opt.domain;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Preprocessing steps which reduce a winner determination instance before it is handed to the solver:
+ * <ul>
+ * <li>Dominance pruning: Within the XOR bid of a bidder, a bundle bid is removed if there is another bundle bid
+ * on a subset of its goods with at least the same value. Such a bid can always be replaced by the dominating one
+ * without losing welfare.</li>
+ * <li>Decomposition: Bidders that (transitively) share no goods can be allocated independently, so the instance
+ * is split into the connected components of the bidder-good graph.</li>
+ * </ul>
+ */
+public final class WinnerDeterminationPreprocessing {
+
+    private WinnerDeterminationPreprocessing() {
+    }
+
+    /**
+     * Removes the dominated values of a single XOR bid. Of several equivalent values, the first one is kept.
+     *
+     * @param values     the values of one bidder
+     * @param dominates  returns true if the first value dominates the second (weakly, i.e., also for equal values)
+     * @param isPositive returns true if the value is strictly positive - other values are dominated by not winning
+     * @return the remaining values, in their original order
+     */
+    public static <V> List<V> removeDominated(List<V> values, BiPredicate<V, V> dominates, Predicate<V> isPositive) {
+        List<V> remaining = new ArrayList<>();
+        for (int i = 0; i < values.size(); i++) {
+            V candidate = values.get(i);
+            if (!isPositive.test(candidate)) continue;
+            boolean dominated = false;
+            for (int j = 0; j < values.size() && !dominated; j++) {
+                if (i == j) continue;
+                V other = values.get(j);
+                // Mutually dominating values are equivalent; only the first one dominates the others
+                dominated = dominates.test(other, candidate) && (j < i || !dominates.test(candidate, other));
+            }
+            if (!dominated) {
+                remaining.add(candidate);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Splits the bids into groups which do not share any goods (directly or transitively).
+     *
+     * @param bids  the bids, one per bidder
+     * @param goods returns the goods (or generic definitions) a bid refers to
+     * @return the components, each of them keeping the bids in their original iteration order
+     */
+    public static <B, K> List<List<B>> connectedComponents(Collection<B> bids, Function<B, ? extends Collection<K>> goods) {
+        List<B> bidList = new ArrayList<>(bids);
+        int[] parent = new int[bidList.size()];
+        for (int i = 0; i < parent.length; i++) parent[i] = i;
+
+        Map<K, Integer> firstBidOnGood = new HashMap<>();
+        for (int i = 0; i < bidList.size(); i++) {
+            for (K good : goods.apply(bidList.get(i))) {
+                Integer other = firstBidOnGood.putIfAbsent(good, i);
+                if (other != null) {
+                    parent[find(parent, i)] = find(parent, other);
+                }
+            }
+        }
+
+        Map<Integer, List<B>> components = new LinkedHashMap<>();
+        for (int i = 0; i < bidList.size(); i++) {
+            components.computeIfAbsent(find(parent, i), k -> new ArrayList<>()).add(bidList.get(i));
+        }
+        return new ArrayList<>(components.values());
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Describes how much a winner determination instance was reduced by the preprocessing.
+     */
+    public static final class Statistics {
+
+        private final int valuesBefore;
+        private final int valuesAfter;
+        private final int components;
+        private final int largestComponent;
+
+        public Statistics(int valuesBefore, int valuesAfter, int components, int largestComponent) {
+            this.valuesBefore = valuesBefore;
+            this.valuesAfter = valuesAfter;
+            this.components = components;
+            this.largestComponent = largestComponent;
+        }
+
+        /**
+         * @return the number of bundle bids before pruning
+         */
+        public int getValuesBefore() {
+            return valuesBefore;
+        }
+
+        /**
+         * @return the number of bundle bids that are passed to the solver
+         */
+        public int getValuesAfter() {
+            return valuesAfter;
+        }
+
+        public int getPrunedValues() {
+            return valuesBefore - valuesAfter;
+        }
+
+        /**
+         * @return the number of independently solved sub-instances
+         */
+        public int getComponents() {
+            return components;
+        }
+
+        /**
+         * @return the number of bidders in the largest sub-instance
+         */
+        public int getLargestComponent() {
+            return largestComponent;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{" +
+                    "valuesBefore=" + valuesBefore +
+                    ", valuesAfter=" + valuesAfter +
+                    ", components=" + components +
+                    ", largestComponent=" + largestComponent +
+                    '}';
+        }
+    }
+}
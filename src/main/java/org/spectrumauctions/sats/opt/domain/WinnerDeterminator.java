@@ -22,6 +22,11 @@ public interface WinnerDeterminator<T extends Good> {
 
     WinnerDeterminator<T> copyOf();
 
+    /**
+     * Subtracts the given payoffs from the objective for every bidder that wins, as used to find blocking
+     * coalitions in CCG. Calling this again replaces the previously set payoffs, so the same instance can be
+     * solved repeatedly with changing payoffs.
+     */
     void adjustPayoffs(Map<Bidder<T>, Double> payoffs);
 
     double getScale();
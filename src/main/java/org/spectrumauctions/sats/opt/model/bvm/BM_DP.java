@@ -0,0 +1,235 @@
+package org.spectrumauctions.sats.opt.model.bvm;
+
+import com.google.common.base.Preconditions;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spectrumauctions.sats.core.bidlang.generic.GenericValue;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.Bundle;
+import org.spectrumauctions.sats.core.model.bvm.BMBand;
+import org.spectrumauctions.sats.core.model.bvm.BMBidder;
+import org.spectrumauctions.sats.core.model.bvm.BMLicense;
+import org.spectrumauctions.sats.core.model.bvm.BMWorld;
+import org.spectrumauctions.sats.opt.domain.GenericAllocation;
+import org.spectrumauctions.sats.opt.domain.WinnerDeterminator;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Solves the winner determination problem of the Base Value Model and the Multi-Band Value Model exactly with a
+ * dynamic program, such that neither a MIP solver nor XOR bids are needed.<br>
+ * In these models, the value of a bundle is the sum of per-band values, which only depend on the number of licenses
+ * of the band. The licenses of each band can therefore be allocated independently, with a dynamic program over the
+ * remaining licenses of the band (O(bidders * licenses^2) per band).<br>
+ * Once payoffs are set (see {@link #adjustPayoffs(Map)}), the bands are coupled, as the payoff of a bidder is
+ * subtracted as soon as it wins any license. The dynamic program then runs over the vector of remaining licenses
+ * of all bands instead.
+ */
+public class BM_DP implements WinnerDeterminator<BMLicense> {
+
+    private static final Logger logger = LogManager.getLogger(BM_DP.class);
+
+    private final BMWorld world;
+    private final List<BMBidder> bidders;
+    private final List<BMBand> bands;
+    private final Map<BMBidder, BigDecimal[][]> values;
+
+    private Map<Bidder<BMLicense>, Double> payoffs = new HashMap<>();
+
+    public BM_DP(Collection<BMBidder> bidders) {
+        this(bidders.iterator().next().getWorld(), bidders);
+    }
+
+    public BM_DP(BMWorld world, Collection<BMBidder> bidders) {
+        this(world, bidders, new ConcurrentHashMap<>());
+    }
+
+    private BM_DP(BMWorld world, Collection<BMBidder> bidders, Map<BMBidder, BigDecimal[][]> values) {
+        Preconditions.checkNotNull(world);
+        Preconditions.checkNotNull(bidders);
+        this.world = world;
+        this.bands = world.getBands();
+        this.bidders = new ArrayList<>(bidders);
+        this.bidders.sort(Comparator.comparingLong(BMBidder::getId));
+        this.values = values;
+        for (BMBidder bidder : this.bidders) {
+            this.values.computeIfAbsent(bidder, BM_DP::calculateBandValues);
+        }
+    }
+
+    /**
+     * @return per band of the bidder's world (in the order of {@link BMWorld#getBands()}) and per quantity,
+     * the value of the bidder for that many licenses of the band
+     */
+    public static BigDecimal[][] calculateBandValues(BMBidder bidder) {
+        List<BMBand> bands = bidder.getWorld().getBands();
+        BigDecimal[][] result = new BigDecimal[bands.size()][];
+        for (int b = 0; b < bands.size(); b++) {
+            List<BMLicense> licenses = new ArrayList<>(bands.get(b).getLicenses());
+            result[b] = new BigDecimal[licenses.size() + 1];
+            for (int quantity = 0; quantity <= licenses.size(); quantity++) {
+                // The value of a bundle includes the free disposal above the positive value threshold
+                result[b][quantity] = bidder.calculateValue(new Bundle<>(licenses.subList(0, quantity)));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public GenericAllocation<BMBand, BMLicense> calculateAllocation() {
+        int[][] quantities;
+        if (payoffs.values().stream().allMatch(payoff -> payoff == 0)) {
+            quantities = solvePerBand();
+        } else {
+            quantities = solveOnAllBands();
+        }
+
+        GenericAllocation.Builder<BMBand, BMLicense> builder = new GenericAllocation.Builder<>();
+        for (int i = 0; i < bidders.size(); i++) {
+            if (Arrays.stream(quantities[i]).sum() == 0) {
+                // Only winners are part of the allocation
+                continue;
+            }
+            BMBidder bidder = bidders.get(i);
+            BigDecimal value = BigDecimal.ZERO;
+            for (int b = 0; b < bands.size(); b++) {
+                value = value.add(values.get(bidder)[b][quantities[i][b]]);
+            }
+            GenericValue.Builder<BMBand, BMLicense> valueBuilder = new GenericValue.Builder<>(value);
+            for (int b = 0; b < bands.size(); b++) {
+                valueBuilder.putQuantity(bands.get(b), quantities[i][b]);
+            }
+            builder.putGenericValue(bidder, valueBuilder.build());
+        }
+        return new GenericAllocation<>(builder);
+    }
+
+    /**
+     * @return per bidder and band, the allocated quantity
+     */
+    private int[][] solvePerBand() {
+        int n = bidders.size();
+        int[][] quantities = new int[n][bands.size()];
+        for (int b = 0; b < bands.size(); b++) {
+            int capacity = bands.get(b).getNumberOfLicenses();
+            // best[c] is the highest value of the bidders i, ..., n-1 for c licenses of this band
+            double[] best = new double[capacity + 1];
+            int[][] choice = new int[n][capacity + 1];
+            for (int i = n - 1; i >= 0; i--) {
+                BigDecimal[] bandValues = values.get(bidders.get(i))[b];
+                double[] next = new double[capacity + 1];
+                for (int c = 0; c <= capacity; c++) {
+                    next[c] = Double.NEGATIVE_INFINITY;
+                    for (int q = 0; q <= c; q++) {
+                        double value = bandValues[q].doubleValue() + best[c - q];
+                        if (value > next[c]) {
+                            next[c] = value;
+                            choice[i][c] = q;
+                        }
+                    }
+                }
+                best = next;
+            }
+            int remaining = capacity;
+            for (int i = 0; i < n; i++) {
+                quantities[i][b] = choice[i][remaining];
+                remaining -= quantities[i][b];
+            }
+        }
+        return quantities;
+    }
+
+    /**
+     * The remaining licenses of all bands are numbered in mixed radix, such that subtracting an allocated
+     * quantity vector from a remaining capacity vector is an index subtraction.
+     *
+     * @return per bidder and band, the allocated quantity
+     */
+    private int[][] solveOnAllBands() {
+        int n = bidders.size();
+        int[] strides = new int[bands.size()];
+        int size = 1;
+        for (int b = 0; b < bands.size(); b++) {
+            strides[b] = size;
+            size *= bands.get(b).getNumberOfLicenses() + 1;
+        }
+        int[][] points = new int[size][bands.size()];
+        for (int point = 0; point < size; point++) {
+            for (int b = 0; b < bands.size(); b++) {
+                points[point][b] = point / strides[b] % (bands.get(b).getNumberOfLicenses() + 1);
+            }
+        }
+
+        double[] best = new double[size];
+        int[][] choice = new int[n][size];
+        for (int i = n - 1; i >= 0; i--) {
+            BMBidder bidder = bidders.get(i);
+            double payoff = payoffs.getOrDefault(bidder, 0.0);
+            double[] bidderValues = new double[size];
+            for (int point = 0; point < size; point++) {
+                for (int b = 0; b < bands.size(); b++) {
+                    bidderValues[point] += values.get(bidder)[b][points[point][b]].doubleValue();
+                }
+                if (point > 0) {
+                    bidderValues[point] -= payoff;
+                }
+            }
+            double[] next = new double[size];
+            for (int capacity = 0; capacity < size; capacity++) {
+                next[capacity] = Double.NEGATIVE_INFINITY;
+                for (int point = 0; point <= capacity; point++) {
+                    if (fits(points[point], points[capacity])) {
+                        double value = bidderValues[point] + best[capacity - point];
+                        if (value > next[capacity]) {
+                            next[capacity] = value;
+                            choice[i][capacity] = point;
+                        }
+                    }
+                }
+            }
+            best = next;
+        }
+
+        int[][] quantities = new int[n][];
+        int remaining = size - 1;
+        for (int i = 0; i < n; i++) {
+            quantities[i] = points[choice[i][remaining]];
+            remaining -= choice[i][remaining];
+        }
+        logger.debug("Solved payoff-adjusted winner determination over {} capacity states.", size);
+        return quantities;
+    }
+
+    private static boolean fits(int[] quantities, int[] capacities) {
+        for (int b = 0; b < quantities.length; b++) {
+            if (quantities[b] > capacities[b]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public WinnerDeterminator<BMLicense> getWdWithoutBidder(Bidder<BMLicense> bidder) {
+        Preconditions.checkArgument(bidders.contains(bidder));
+        return new BM_DP(world, bidders.stream().filter(b -> !b.equals(bidder)).collect(Collectors.toList()), values);
+    }
+
+    @Override
+    public WinnerDeterminator<BMLicense> copyOf() {
+        return new BM_DP(world, bidders, values);
+    }
+
+    @Override
+    public void adjustPayoffs(Map<Bidder<BMLicense>, Double> payoffs) {
+        this.payoffs = new HashMap<>(payoffs);
+    }
+
+    @Override
+    public double getScale() {
+        return 1;
+    }
+}
@@ -0,0 +1,36 @@
+package org.spectrumauctions.sats.opt.model.bvm.demandquery;
+
+import org.spectrumauctions.sats.core.bidlang.generic.GenericValue;
+import org.spectrumauctions.sats.core.model.bvm.BMBand;
+import org.spectrumauctions.sats.core.model.bvm.BMLicense;
+import org.spectrumauctions.sats.opt.domain.GenericDemandQueryResult;
+
+import java.math.BigDecimal;
+
+public final class BMDemandQueryResult implements GenericDemandQueryResult<BMBand, BMLicense> {
+
+    private final BigDecimal totalUtility;
+    private final GenericValue<BMBand, BMLicense> resultingBundle;
+
+    public BMDemandQueryResult(BigDecimal totalUtility, GenericValue<BMBand, BMLicense> resultingBundle) {
+        this.totalUtility = totalUtility;
+        this.resultingBundle = resultingBundle;
+    }
+
+    @Override
+    public GenericValue<BMBand, BMLicense> getResultingBundle() {
+        return resultingBundle;
+    }
+
+    public BigDecimal getTotalUtility() {
+        return totalUtility;
+    }
+
+    @Override
+    public String toString() {
+        return "BMDemandQueryResult{" +
+                "totalUtility=" + totalUtility +
+                ", resultingBundle=" + resultingBundle +
+                '}';
+    }
+}
@@ -0,0 +1,185 @@
+package org.spectrumauctions.sats.opt.model.bvm.demandquery;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spectrumauctions.sats.core.bidlang.generic.GenericValue;
+import org.spectrumauctions.sats.core.model.bvm.BMBand;
+import org.spectrumauctions.sats.core.model.bvm.BMBidder;
+import org.spectrumauctions.sats.core.model.bvm.BMLicense;
+import org.spectrumauctions.sats.opt.domain.GenericDemandQueryMIP;
+import org.spectrumauctions.sats.opt.model.ModelMIP;
+import org.spectrumauctions.sats.opt.model.bvm.BM_DP;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Answers demand queries in the Base Value Model and the Multi-Band Value Model exactly and without a MIP solver.<br>
+ * As the value of a bundle is the sum of per-band values, the utility of a bundle is the sum of the per-band
+ * utilities value(q) - q * price. The oracle sorts the quantities of each band by their utility, and enumerates
+ * the combinations of per-band quantities best-first, such that the i-th returned bundle is the i-th best bundle.
+ * There is no underlying MIP, so {@link #getMip()} is not supported and the time limit is ignored.
+ */
+public class BM_DemandQueryOracle implements GenericDemandQueryMIP<BMBand, BMLicense> {
+
+    private static final Logger logger = LogManager.getLogger(BM_DemandQueryOracle.class);
+
+    private final BMBidder bidder;
+    private final List<BMBand> bands;
+    private final BigDecimal[][] values;
+    private final double[][] prices;
+    // As for the MIPs, a tolerance of 0 means that the result pool is not restricted
+    private double relativeResultPoolTolerance = 0;
+    private double absoluteResultPoolTolerance = 0;
+
+    public BM_DemandQueryOracle(BMBidder bidder, Map<BMBand, BigDecimal> prices) {
+        this(bidder, BM_DP.calculateBandValues(bidder), prices);
+    }
+
+    /**
+     * @param values the values of the bidder, as calculated by {@link BM_DP#calculateBandValues(BMBidder)}
+     */
+    BM_DemandQueryOracle(BMBidder bidder, BigDecimal[][] values, Map<BMBand, BigDecimal> prices) {
+        Preconditions.checkNotNull(bidder);
+        Preconditions.checkNotNull(prices);
+        this.bidder = bidder;
+        this.bands = bidder.getWorld().getBands();
+        Preconditions.checkArgument(values.length == bands.size());
+        this.values = values;
+        this.prices = new double[bands.size()][];
+        for (int b = 0; b < bands.size(); b++) {
+            BigDecimal price = prices.get(bands.get(b));
+            Preconditions.checkArgument(price != null, "No price for band %s", bands.get(b).getName());
+            this.prices[b] = new double[values[b].length];
+            for (int quantity = 0; quantity < values[b].length; quantity++) {
+                this.prices[b][quantity] = quantity * price.doubleValue();
+            }
+        }
+    }
+
+    @Override
+    public BMDemandQueryResult getResult() {
+        return getResultPool(1).get(0);
+    }
+
+    @Override
+    public List<BMDemandQueryResult> getResultPool(int numberOfResults) {
+        if (numberOfResults < 1) {
+            return Lists.newArrayList();
+        }
+        int m = bands.size();
+        // Per band, the quantities in decreasing order of their utility
+        int[][] order = new int[m][];
+        double[][] utilities = new double[m][];
+        int[] start = new int[m];
+        double startUtility = 0;
+        for (int b = 0; b < m; b++) {
+            int options = values[b].length;
+            double[] utility = new double[options];
+            Integer[] sorted = new Integer[options];
+            for (int q = 0; q < options; q++) {
+                utility[q] = values[b][q].doubleValue() - prices[b][q];
+                sorted[q] = q;
+            }
+            Arrays.sort(sorted, (x, y) -> Double.compare(utility[y], utility[x]));
+            order[b] = new int[options];
+            utilities[b] = new double[options];
+            for (int i = 0; i < options; i++) {
+                order[b][i] = sorted[i];
+                utilities[b][i] = utility[sorted[i]];
+            }
+            startUtility += utilities[b][0];
+        }
+
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        Set<String> visited = new HashSet<>();
+        queue.add(new Candidate(start, startUtility));
+        visited.add(Arrays.toString(start));
+        List<BMDemandQueryResult> results = new ArrayList<>();
+        while (results.size() < numberOfResults && !queue.isEmpty()) {
+            Candidate candidate = queue.poll();
+            double gap = startUtility - candidate.utility;
+            if (absoluteResultPoolTolerance > 0 && gap > absoluteResultPoolTolerance
+                    || relativeResultPoolTolerance > 0 && gap > relativeResultPoolTolerance * Math.abs(startUtility)) {
+                break;
+            }
+            results.add(toResult(candidate, order));
+
+            // Successors: the next best quantity in one of the bands
+            for (int b = 0; b < m; b++) {
+                if (candidate.positions[b] + 1 < order[b].length) {
+                    int[] successor = candidate.positions.clone();
+                    successor[b]++;
+                    if (visited.add(Arrays.toString(successor))) {
+                        double utility = candidate.utility - utilities[b][successor[b] - 1] + utilities[b][successor[b]];
+                        queue.add(new Candidate(successor, utility));
+                    }
+                }
+            }
+        }
+        logger.debug("Answered demand query of bidder {} with {} bundles.", bidder.getId(), results.size());
+        return results;
+    }
+
+    private BMDemandQueryResult toResult(Candidate candidate, int[][] order) {
+        BigDecimal value = BigDecimal.ZERO;
+        BigDecimal price = BigDecimal.ZERO;
+        Map<BMBand, Integer> quantities = new HashMap<>();
+        for (int b = 0; b < bands.size(); b++) {
+            int quantity = order[b][candidate.positions[b]];
+            quantities.put(bands.get(b), quantity);
+            value = value.add(values[b][quantity]);
+            price = price.add(BigDecimal.valueOf(prices[b][quantity]));
+        }
+        GenericValue.Builder<BMBand, BMLicense> valueBuilder = new GenericValue.Builder<>(value);
+        quantities.forEach(valueBuilder::putQuantity);
+        return new BMDemandQueryResult(value.subtract(price), valueBuilder.build());
+    }
+
+    /**
+     * There is no MIP behind this oracle.
+     */
+    @Override
+    public ModelMIP getMip() {
+        throw new UnsupportedOperationException("The BVM/MBVM demand query oracle does not use a MIP.");
+    }
+
+    @Override
+    public void setTimeLimit(double timeLimit) {
+        // The oracle is exact and fast, a time limit is not needed
+    }
+
+    @Override
+    public void setRelativeResultPoolTolerance(double resultPoolTolerance) {
+        this.relativeResultPoolTolerance = resultPoolTolerance;
+    }
+
+    @Override
+    public void setAbsoluteResultPoolTolerance(double resultPoolTolerance) {
+        this.absoluteResultPoolTolerance = resultPoolTolerance;
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+
+        private final int[] positions;
+        private final double utility;
+
+        private Candidate(int[] positions, double utility) {
+            this.positions = positions;
+            this.utility = utility;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            int result = Double.compare(o.utility, utility);
+            if (result != 0) return result;
+            for (int i = 0; i < positions.length; i++) {
+                result = Integer.compare(positions[i], o.positions[i]);
+                if (result != 0) return result;
+            }
+            return 0;
+        }
+    }
+}
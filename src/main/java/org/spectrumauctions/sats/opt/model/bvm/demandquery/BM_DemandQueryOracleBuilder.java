@@ -0,0 +1,29 @@
+package org.spectrumauctions.sats.opt.model.bvm.demandquery;
+
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.bvm.BMBand;
+import org.spectrumauctions.sats.core.model.bvm.BMBidder;
+import org.spectrumauctions.sats.core.model.bvm.BMLicense;
+import org.spectrumauctions.sats.opt.domain.GenericDemandQueryMIP;
+import org.spectrumauctions.sats.opt.domain.GenericDemandQueryMIPBuilder;
+import org.spectrumauctions.sats.opt.model.bvm.BM_DP;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates {@link BM_DemandQueryOracle}s, e.g., to run a generic CCA on BVM or MBVM without a MIP solver.
+ * The per-band values of a bidder are calculated in its first query and shared by all later oracles of that bidder.
+ * As the oracle is exact, epsilon is ignored.
+ */
+public class BM_DemandQueryOracleBuilder implements GenericDemandQueryMIPBuilder<BMBand, BMLicense> {
+
+    private final Map<BMBidder, BigDecimal[][]> values = new ConcurrentHashMap<>();
+
+    @Override
+    public GenericDemandQueryMIP<BMBand, BMLicense> getDemandQueryMipFor(Bidder<BMLicense> bidder, Map<BMBand, BigDecimal> prices, double epsilon) {
+        BMBidder bmBidder = (BMBidder) bidder;
+        return new BM_DemandQueryOracle(bmBidder, values.computeIfAbsent(bmBidder, BM_DP::calculateBandValues), prices);
+    }
+}
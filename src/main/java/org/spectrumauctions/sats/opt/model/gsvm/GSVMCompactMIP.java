@@ -0,0 +1,171 @@
+package org.spectrumauctions.sats.opt.model.gsvm;
+
+import com.google.common.base.Preconditions;
+import edu.harvard.econcs.jopt.solver.IMIPResult;
+import edu.harvard.econcs.jopt.solver.mip.CompareType;
+import edu.harvard.econcs.jopt.solver.mip.Constraint;
+import edu.harvard.econcs.jopt.solver.mip.VarType;
+import edu.harvard.econcs.jopt.solver.mip.Variable;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.Bundle;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMBidder;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMLicense;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMWorld;
+import org.spectrumauctions.sats.opt.domain.ItemAllocation;
+import org.spectrumauctions.sats.opt.domain.ItemAllocation.ItemAllocationBuilder;
+import org.spectrumauctions.sats.opt.domain.PayoffAdjustment;
+import org.spectrumauctions.sats.opt.domain.SolverExecutionService;
+import org.spectrumauctions.sats.opt.domain.WinnerDeterminator;
+import org.spectrumauctions.sats.opt.model.ModelMIP;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * An alternative formulation of {@link GSVMStandardMIP} with the same optimal allocations.<br>
+ * In GSVM, the value of a bundle is the sum of its base values times a markup which only depends on the size of the
+ * bundle. Instead of size-indexed copies of every license assignment, this MIP has one assignment variable per
+ * bidder and license, and one size indicator z_tau per bidder and possible bundle size tau, which is linked once to
+ * the number of assigned licenses. The product of the markup and the sum of base values is expressed through one
+ * continuous variable w_tau per size, which equals the sum of base values if z_tau is active and 0 otherwise.
+ * Per bidder, the model thus has O(licenses) variables and nonzeros instead of O(licenses^2).
+ */
+public class GSVMCompactMIP extends ModelMIP implements WinnerDeterminator<GSVMLicense> {
+
+    private final List<GSVMBidder> population;
+    private final GSVMWorld world;
+    private final boolean allowAssigningLicensesWithZeroBasevalue;
+
+    private final Map<GSVMBidder, Map<GSVMLicense, Variable>> xVariables = new HashMap<>();
+
+    private PayoffAdjustment<GSVMLicense> payoffAdjustment;
+
+    public GSVMCompactMIP(List<GSVMBidder> population) {
+        this(population.iterator().next().getWorld(), population, true);
+    }
+
+    public GSVMCompactMIP(GSVMWorld world, List<GSVMBidder> population) {
+        this(world, population, true);
+    }
+
+    public GSVMCompactMIP(GSVMWorld world, List<GSVMBidder> population, boolean allowAssigningLicensesWithZeroBasevalue) {
+        this.world = world;
+        this.population = population;
+        this.allowAssigningLicensesWithZeroBasevalue = allowAssigningLicensesWithZeroBasevalue;
+        getMip().setObjectiveMax(true);
+        population.forEach(this::addBidder);
+        addSupplyConstraints();
+    }
+
+    private void addBidder(GSVMBidder bidder) {
+        String id = "i[" + bidder.getId() + "]";
+        Map<GSVMLicense, Variable> x = new HashMap<>();
+        Constraint size = new Constraint(CompareType.EQ, 0, "Size " + id);
+        Constraint sumOfValues = new Constraint(CompareType.EQ, 0, "SumOfValues " + id);
+        double maxSumOfValues = 0;
+        for (GSVMLicense license : world.getLicenses()) {
+            double value = bidder.getBaseValues().getOrDefault(license.getId(), BigDecimal.ZERO).doubleValue();
+            if (allowAssigningLicensesWithZeroBasevalue || value > 0) {
+                Variable var = new Variable("x_" + id + "j[" + license.getId() + "]", VarType.BOOLEAN, 0, 1);
+                getMip().add(var);
+                x.put(license, var);
+                size.addTerm(1, var);
+                sumOfValues.addTerm(value, var);
+                maxSumOfValues += value;
+            }
+        }
+        xVariables.put(bidder, x);
+
+        Constraint oneSize = new Constraint(CompareType.EQ, 1, "OneSize " + id);
+        for (int tau = 0; tau <= x.size(); tau++) {
+            Variable z = new Variable("z_" + id + "t[" + tau + "]", VarType.BOOLEAN, 0, 1);
+            getMip().add(z);
+            oneSize.addTerm(1, z);
+            size.addTerm(-tau, z);
+            if (tau > 0) {
+                // w = sum of base values if the bundle has size tau, 0 otherwise
+                Variable w = new Variable("w_" + id + "t[" + tau + "]", VarType.DOUBLE, 0, maxSumOfValues);
+                getMip().add(w);
+                getMip().addObjectiveTerm(GSVMStandardMIP.calculateComplementarityMarkup(tau), w);
+                sumOfValues.addTerm(-1, w);
+                Constraint onlyIfActive = new Constraint(CompareType.LEQ, 0);
+                onlyIfActive.addTerm(1, w);
+                onlyIfActive.addTerm(-maxSumOfValues, z);
+                getMip().add(onlyIfActive);
+            }
+        }
+        getMip().add(oneSize);
+        getMip().add(size);
+        getMip().add(sumOfValues);
+    }
+
+    private void addSupplyConstraints() {
+        for (GSVMLicense license : world.getLicenses()) {
+            Constraint supply = new Constraint(CompareType.LEQ, 1, "SupplyConstraint license=" + license.getId());
+            for (GSVMBidder bidder : population) {
+                Variable x = xVariables.get(bidder).get(license);
+                if (x != null) {
+                    supply.addTerm(1, x);
+                }
+            }
+            getMip().add(supply);
+        }
+    }
+
+    /**
+     * @return the variable which is 1 if and only if the license is allocated to the bidder, or null if the license
+     * can not be allocated to the bidder
+     */
+    public Variable getXVariable(GSVMBidder bidder, GSVMLicense license) {
+        return xVariables.get(bidder).get(license);
+    }
+
+    @Override
+    public ItemAllocation<GSVMLicense> calculateAllocation() {
+        IMIPResult result = SolverExecutionService.getDefault().solve(getMip());
+
+        Map<Bidder<GSVMLicense>, Bundle<GSVMLicense>> allocation = new HashMap<>();
+        for (GSVMBidder bidder : population) {
+            Bundle<GSVMLicense> bundle = new Bundle<>();
+            for (Map.Entry<GSVMLicense, Variable> entry : xVariables.get(bidder).entrySet()) {
+                if (result.getValue(entry.getValue()) > 0.5) {
+                    bundle.add(entry.getKey());
+                }
+            }
+            allocation.put(bidder, bundle);
+        }
+
+        ItemAllocationBuilder<GSVMLicense> builder = new ItemAllocationBuilder<GSVMLicense>().withWorld(world)
+                .withTotalValue(BigDecimal.valueOf(result.getObjectiveValue())).withAllocation(allocation);
+
+        return builder.build();
+    }
+
+    @Override
+    public WinnerDeterminator<GSVMLicense> getWdWithoutBidder(Bidder<GSVMLicense> bidder) {
+        Preconditions.checkArgument(population.contains(bidder));
+        return new GSVMCompactMIP(world, population.stream().filter(b -> !b.equals(bidder)).collect(Collectors.toList()),
+                allowAssigningLicensesWithZeroBasevalue);
+    }
+
+    @Override
+    public WinnerDeterminator<GSVMLicense> copyOf() {
+        return new GSVMCompactMIP(world, population, allowAssigningLicensesWithZeroBasevalue);
+    }
+
+    @Override
+    public void adjustPayoffs(Map<Bidder<GSVMLicense>, Double> payoffs) {
+        if (payoffAdjustment == null) {
+            Map<Bidder<GSVMLicense>, Collection<Variable>> allocationVariables = new HashMap<>();
+            xVariables.forEach((bidder, variables) -> allocationVariables.put(bidder, variables.values()));
+            payoffAdjustment = new PayoffAdjustment<>(getMip(), allocationVariables, getScale());
+        }
+        payoffAdjustment.setPayoffs(payoffs);
+    }
+
+    @Override
+    public double getScale() {
+        return 1;
+    }
+}
@@ -2,7 +2,6 @@ package org.spectrumauctions.sats.opt.model.gsvm;
 
 import com.google.common.base.Preconditions;
 import edu.harvard.econcs.jopt.solver.IMIPResult;
-import edu.harvard.econcs.jopt.solver.client.SolverClient;
 import edu.harvard.econcs.jopt.solver.mip.CompareType;
 import edu.harvard.econcs.jopt.solver.mip.Constraint;
 import edu.harvard.econcs.jopt.solver.mip.VarType;
@@ -14,6 +13,7 @@ import org.spectrumauctions.sats.core.model.gsvm.GSVMLicense;
 import org.spectrumauctions.sats.core.model.gsvm.GSVMWorld;
 import org.spectrumauctions.sats.opt.domain.ItemAllocation;
 import org.spectrumauctions.sats.opt.domain.ItemAllocation.ItemAllocationBuilder;
+import org.spectrumauctions.sats.opt.domain.SolverExecutionService;
 import org.spectrumauctions.sats.opt.domain.WinnerDeterminator;
 import org.spectrumauctions.sats.opt.model.ModelMIP;
 
@@ -21,6 +21,10 @@ import java.math.BigDecimal;
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Finds the efficient allocation in an instance of the Global-Synergy Value Model.
+ * {@link GSVMCompactMIP} is a smaller formulation of the same problem.
+ */
 public class GSVMStandardMIP extends ModelMIP implements WinnerDeterminator<GSVMLicense> {
 
     private Map<GSVMBidder, Map<GSVMLicense, Map<Integer, Variable>>> gMap;
@@ -63,8 +67,7 @@ public class GSVMStandardMIP extends ModelMIP implements WinnerDeterminator<GSVM
 
 	@Override
 	public ItemAllocation<GSVMLicense> calculateAllocation() {
-		SolverClient solver = new SolverClient();
-		IMIPResult result = solver.solve(getMip());
+		IMIPResult result = SolverExecutionService.getDefault().solve(getMip());
 
 		Map<Bidder<GSVMLicense>, Bundle<GSVMLicense>> allocation = new HashMap<>();
 
@@ -210,7 +213,7 @@ public class GSVMStandardMIP extends ModelMIP implements WinnerDeterminator<GSVM
 		}
 	}
 
-	private double calculateComplementarityMarkup(int tau) {
+	public static double calculateComplementarityMarkup(int tau) {
 		if (tau < 1) {
 			throw new IllegalArgumentException("Error: tau has to be >=1");
 		}
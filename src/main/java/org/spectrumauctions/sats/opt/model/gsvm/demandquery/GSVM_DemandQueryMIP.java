@@ -5,7 +5,6 @@ import com.google.common.collect.Lists;
 import edu.harvard.econcs.jopt.solver.IMIPResult;
 import edu.harvard.econcs.jopt.solver.ISolution;
 import edu.harvard.econcs.jopt.solver.SolveParam;
-import edu.harvard.econcs.jopt.solver.client.SolverClient;
 import edu.harvard.econcs.jopt.solver.mip.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -15,6 +14,7 @@ import org.spectrumauctions.sats.core.model.gsvm.GSVMBidder;
 import org.spectrumauctions.sats.core.model.gsvm.GSVMLicense;
 import org.spectrumauctions.sats.core.model.gsvm.GSVMWorld;
 import org.spectrumauctions.sats.opt.domain.NonGenericDemandQueryMIP;
+import org.spectrumauctions.sats.opt.domain.SolverExecutionService;
 import org.spectrumauctions.sats.opt.model.ModelMIP;
 import org.spectrumauctions.sats.opt.model.gsvm.GSVMStandardMIP;
 
@@ -28,13 +28,14 @@ public class GSVM_DemandQueryMIP implements NonGenericDemandQueryMIP<GSVMLicense
 
     private static final Logger logger = LogManager.getLogger(GSVM_DemandQueryMIP.class);
 
-    private static SolverClient solver = new SolverClient();
-
     private GSVMBidder bidder;
     private GSVMWorld world;
     private GSVMStandardMIP gsvmMip;
     private Collection<Collection<Variable>> variableSetsOfInterest;
     private Variable priceVar;
+    private Constraint priceConstraint;
+    private Map<Variable, Double> lastDemand = new HashMap<>();
+    private boolean resultPoolTolerancesSet = false;
 
     public GSVM_DemandQueryMIP(GSVMBidder bidder, Map<GSVMLicense, BigDecimal> prices) {
         this(bidder, prices, 0.001);
@@ -43,29 +44,64 @@ public class GSVM_DemandQueryMIP implements NonGenericDemandQueryMIP<GSVMLicense
     public GSVM_DemandQueryMIP(GSVMBidder bidder, Map<GSVMLicense, BigDecimal> prices, double epsilon) {
         Preconditions.checkNotNull(bidder);
         this.bidder = bidder;
-        Preconditions.checkNotNull(prices);
         this.world = bidder.getWorld();
-        Preconditions.checkArgument(prices.size() == world.getLicenses().size());
         gsvmMip = new GSVMStandardMIP(world, Lists.newArrayList(bidder), true);
 
-        gsvmMip.getMip().setSolveParam(SolveParam.RELATIVE_OBJ_GAP, epsilon);
+        setEpsilon(epsilon);
         priceVar = new Variable("p", VarType.DOUBLE, 0, MIP.MAX_VALUE);
         gsvmMip.getMip().add(priceVar);
         gsvmMip.getMip().addObjectiveTerm(-1, priceVar);
+        variableSetsOfInterest = new HashSet<>();
+        for (GSVMLicense license : world.getLicenses()) {
+            variableSetsOfInterest.add(new HashSet<>(gsvmMip.getXVariables(bidder, license).values()));
+        }
+        setPrices(prices);
+    }
+
+    /**
+     * Replaces the prices of the demand query. Only the price constraint of the MIP is replaced, so the same model
+     * can be queried in every clock round. The demanded bundle of the previous query is proposed to the solver as a
+     * starting solution.
+     */
+    public void setPrices(Map<GSVMLicense, BigDecimal> prices) {
+        Preconditions.checkNotNull(prices);
+        Preconditions.checkArgument(prices.size() == world.getLicenses().size());
+        if (priceConstraint != null) {
+            gsvmMip.getMip().remove(priceConstraint);
+        }
         Constraint price = new Constraint(CompareType.EQ, 0);
         price.addTerm(-1, priceVar);
-        variableSetsOfInterest = new HashSet<>();
         for (Map.Entry<GSVMLicense, BigDecimal> entry : prices.entrySet()) {
-            Set<Variable> variablesOfInterest = new HashSet<>();
-            GSVMLicense license = entry.getKey();
-            Map<Integer, Variable> xVariables = gsvmMip.getXVariables(bidder, license);
+            Map<Integer, Variable> xVariables = gsvmMip.getXVariables(bidder, entry.getKey());
             for (Variable xVariable : xVariables.values()) {
-                variablesOfInterest.add(xVariable);
                 price.addTerm(entry.getValue().doubleValue(), xVariable);
             }
-            variableSetsOfInterest.add(variablesOfInterest);
         }
         gsvmMip.getMip().add(price);
+        priceConstraint = price;
+    }
+
+    public void setEpsilon(double epsilon) {
+        gsvmMip.getMip().setSolveParam(SolveParam.RELATIVE_OBJ_GAP, epsilon);
+    }
+
+    @Override
+    public void setRelativeResultPoolTolerance(double resultPoolTolerance) {
+        NonGenericDemandQueryMIP.super.setRelativeResultPoolTolerance(resultPoolTolerance);
+        resultPoolTolerancesSet = true;
+    }
+
+    @Override
+    public void setAbsoluteResultPoolTolerance(double resultPoolTolerance) {
+        NonGenericDemandQueryMIP.super.setAbsoluteResultPoolTolerance(resultPoolTolerance);
+        resultPoolTolerancesSet = true;
+    }
+
+    /**
+     * @return true if a result pool tolerance was set on this model, which can not be reverted
+     */
+    public boolean hasResultPoolTolerances() {
+        return resultPoolTolerancesSet;
     }
 
     @Override
@@ -84,9 +120,16 @@ public class GSVM_DemandQueryMIP implements NonGenericDemandQueryMIP<GSVMLicense
         gsvmMip.getMip().setSolveParam(SolveParam.SOLUTION_POOL_CAPACITY, numberOfResults);
         gsvmMip.getMip().setSolveParam(SolveParam.SOLUTION_POOL_MODE, 4);
         gsvmMip.getMip().setAdvancedVariablesOfInterest(variableSetsOfInterest);
+        proposeStartingSolution(lastDemand);
 
-        IMIPResult mipResult = solver.solve(gsvmMip.getMip());
+        IMIPResult mipResult = SolverExecutionService.getDefault().solve(gsvmMip.getMip());
         logger.debug("Result:\n{}", mipResult);
+        lastDemand = new HashMap<>();
+        for (Collection<Variable> variables : variableSetsOfInterest) {
+            for (Variable var : variables) {
+                lastDemand.put(var, (double) Math.round(mipResult.getValue(var)));
+            }
+        }
 
         List<GSVM_DemandQueryMipResult> results = new ArrayList<>();
         for (ISolution sol : mipResult.getPoolSolutions()) {
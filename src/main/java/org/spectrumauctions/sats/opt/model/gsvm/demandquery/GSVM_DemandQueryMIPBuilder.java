@@ -16,6 +16,7 @@ import org.spectrumauctions.sats.opt.model.mrvm.demandquery.MRVM_DemandQueryMIP;
 
 import java.math.BigDecimal;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Fabio Isler
@@ -25,8 +26,42 @@ public class GSVM_DemandQueryMIPBuilder implements NonGenericDemandQueryMIPBuild
 
     private static final Logger logger = LogManager.getLogger(GSVM_DemandQueryMIPBuilder.class);
 
+    private final boolean reuseModels;
+    private final Map<GSVMBidder, GSVM_DemandQueryMIP> models = new ConcurrentHashMap<>();
+
+    public GSVM_DemandQueryMIPBuilder() {
+        this(true);
+    }
+
+    /**
+     * @param reuseModels if true, the demand query model of a bidder is created once and only its prices are
+     *                    updated in subsequent queries (e.g., in subsequent clock rounds). If false, a new model is
+     *                    created for every query.
+     */
+    public GSVM_DemandQueryMIPBuilder(boolean reuseModels) {
+        this.reuseModels = reuseModels;
+    }
+
+    /**
+     * Note that, if models are reused, the returned model is the same for all queries of a bidder.
+     * A query for a bidder thus has to be completed before the next one for the same bidder is started.
+     */
     @Override
     public NonGenericDemandQueryMIP<GSVMLicense> getDemandQueryMipFor(Bidder bidder, Map prices, double epsilon) {
-        return new GSVM_DemandQueryMIP((GSVMBidder) bidder, (Map<GSVMLicense, BigDecimal>) prices, epsilon);
+        GSVMBidder gsvmBidder = (GSVMBidder) bidder;
+        Map<GSVMLicense, BigDecimal> typedPrices = (Map<GSVMLicense, BigDecimal>) prices;
+        if (!reuseModels) {
+            return new GSVM_DemandQueryMIP(gsvmBidder, typedPrices, epsilon);
+        }
+        GSVM_DemandQueryMIP model = models.get(gsvmBidder);
+        if (model == null || model.hasResultPoolTolerances()) {
+            // Result pool tolerances can not be unset, so such a model is replaced
+            model = new GSVM_DemandQueryMIP(gsvmBidder, typedPrices, epsilon);
+            models.put(gsvmBidder, model);
+        } else {
+            model.setPrices(typedPrices);
+            model.setEpsilon(epsilon);
+        }
+        return model;
     }
 }
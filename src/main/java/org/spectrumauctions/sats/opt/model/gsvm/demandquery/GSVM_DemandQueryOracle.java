@@ -0,0 +1,198 @@
+package org.spectrumauctions.sats.opt.model.gsvm.demandquery;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spectrumauctions.sats.core.bidlang.xor.XORValue;
+import org.spectrumauctions.sats.core.model.Bundle;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMBidder;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMLicense;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMWorld;
+import org.spectrumauctions.sats.opt.domain.NonGenericDemandQueryMIP;
+import org.spectrumauctions.sats.opt.model.ModelMIP;
+import org.spectrumauctions.sats.opt.model.gsvm.GSVMStandardMIP;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Answers GSVM demand queries exactly and without a MIP solver.<br>
+ * In GSVM, the value of a bundle of size k is markup(k) times the sum of its base values. For a fixed size k,
+ * the best bundle thus consists of the k licenses with the highest score markup(k) * baseValue - price, which is
+ * found by sorting the licenses (O(n log n) per size). For result pools, the next best bundles of each size are
+ * enumerated best-first, by moving single licenses of a bundle to the next license in the score order.
+ * The bundles of all sizes are merged in one priority queue, so the i-th returned bundle is the i-th best bundle
+ * overall.<br>
+ * As the {@link GSVM_DemandQueryMIP}, the oracle may return licenses for which the bidder has no base value.
+ * There is no underlying MIP, so {@link #getMip()} is not supported and the time limit is ignored.
+ */
+public class GSVM_DemandQueryOracle implements NonGenericDemandQueryMIP<GSVMLicense> {
+
+    private static final Logger logger = LogManager.getLogger(GSVM_DemandQueryOracle.class);
+
+    private final GSVMBidder bidder;
+    private final GSVMWorld world;
+    private final List<GSVMLicense> licenses;
+    private final double[] baseValues;
+    private final double[] prices;
+    // As for the MIPs, a tolerance of 0 means that the result pool is not restricted
+    private double relativeResultPoolTolerance = 0;
+    private double absoluteResultPoolTolerance = 0;
+
+    public GSVM_DemandQueryOracle(GSVMBidder bidder, Map<GSVMLicense, BigDecimal> prices) {
+        Preconditions.checkNotNull(bidder);
+        Preconditions.checkNotNull(prices);
+        this.bidder = bidder;
+        this.world = bidder.getWorld();
+        Preconditions.checkArgument(prices.size() == world.getLicenses().size());
+        this.licenses = new ArrayList<>(world.getLicenses());
+        this.licenses.sort(Comparator.comparingLong(GSVMLicense::getId));
+        this.baseValues = new double[licenses.size()];
+        this.prices = new double[licenses.size()];
+        for (int i = 0; i < licenses.size(); i++) {
+            GSVMLicense license = licenses.get(i);
+            baseValues[i] = bidder.getBaseValues().getOrDefault(license.getId(), BigDecimal.ZERO).doubleValue();
+            this.prices[i] = prices.get(license).doubleValue();
+        }
+    }
+
+    @Override
+    public GSVM_DemandQueryMipResult getResult() {
+        return getResultPool(1).get(0);
+    }
+
+    @Override
+    public List<GSVM_DemandQueryMipResult> getResultPool(int numberOfResults) {
+        if (numberOfResults < 1) {
+            return Lists.newArrayList();
+        }
+        int n = licenses.size();
+        // Per size, the licenses in decreasing order of their score
+        int[][] order = new int[n + 1][];
+        double[][] scores = new double[n + 1][];
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        Set<String> visited = new HashSet<>();
+        for (int size = 0; size <= n; size++) {
+            double markup = size == 0 ? 0 : GSVMStandardMIP.calculateComplementarityMarkup(size);
+            double[] score = new double[n];
+            Integer[] sorted = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                sorted[i] = i;
+            }
+            for (int i = 0; i < n; i++) {
+                score[i] = markup * baseValues[i] - prices[i];
+            }
+            Arrays.sort(sorted, (a, b) -> Double.compare(score[b], score[a]));
+            order[size] = new int[n];
+            scores[size] = new double[n];
+            for (int i = 0; i < n; i++) {
+                order[size][i] = sorted[i];
+                scores[size][i] = score[sorted[i]];
+            }
+
+            int[] positions = new int[size];
+            double utility = 0;
+            for (int i = 0; i < size; i++) {
+                positions[i] = i;
+                utility += scores[size][i];
+            }
+            queue.add(new Candidate(size, positions, utility));
+            visited.add(key(size, positions));
+        }
+
+        List<GSVM_DemandQueryMipResult> results = new ArrayList<>();
+        double best = Double.NaN;
+        while (results.size() < numberOfResults && !queue.isEmpty()) {
+            Candidate candidate = queue.poll();
+            if (results.isEmpty()) {
+                best = candidate.utility;
+            } else if (absoluteResultPoolTolerance > 0 && best - candidate.utility > absoluteResultPoolTolerance
+                    || relativeResultPoolTolerance > 0 && best - candidate.utility > relativeResultPoolTolerance * Math.abs(best)) {
+                break;
+            }
+            results.add(toResult(candidate, order[candidate.size]));
+
+            // Successors: move one license to the next free position in the score order
+            int[] positions = candidate.positions;
+            for (int t = 0; t < positions.length; t++) {
+                int next = positions[t] + 1;
+                if (next < n && (t == positions.length - 1 || positions[t + 1] != next)) {
+                    int[] successor = positions.clone();
+                    successor[t] = next;
+                    if (visited.add(key(candidate.size, successor))) {
+                        double[] score = scores[candidate.size];
+                        queue.add(new Candidate(candidate.size, successor, candidate.utility - score[positions[t]] + score[next]));
+                    }
+                }
+            }
+        }
+        logger.debug("Answered demand query of bidder {} with {} bundles.", bidder.getId(), results.size());
+        return results;
+    }
+
+    private GSVM_DemandQueryMipResult toResult(Candidate candidate, int[] order) {
+        Set<GSVMLicense> bundleLicenses = new HashSet<>();
+        BigDecimal price = BigDecimal.ZERO;
+        for (int position : candidate.positions) {
+            bundleLicenses.add(licenses.get(order[position]));
+            price = price.add(BigDecimal.valueOf(prices[order[position]]));
+        }
+        Bundle<GSVMLicense> bundle = new Bundle<>(bundleLicenses);
+        BigDecimal value = bidder.calculateValue(bundle);
+        return new GSVM_DemandQueryMipResult(value.subtract(price), new XORValue<>(bundle, value));
+    }
+
+    private static String key(int size, int[] positions) {
+        return size + ":" + Arrays.toString(positions);
+    }
+
+    /**
+     * There is no MIP behind this oracle.
+     */
+    @Override
+    public ModelMIP getMip() {
+        throw new UnsupportedOperationException("The GSVM demand query oracle does not use a MIP.");
+    }
+
+    @Override
+    public void setTimeLimit(double timeLimit) {
+        // The oracle is exact and fast, a time limit is not needed
+    }
+
+    @Override
+    public void setRelativeResultPoolTolerance(double resultPoolTolerance) {
+        this.relativeResultPoolTolerance = resultPoolTolerance;
+    }
+
+    @Override
+    public void setAbsoluteResultPoolTolerance(double resultPoolTolerance) {
+        this.absoluteResultPoolTolerance = resultPoolTolerance;
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+
+        private final int size;
+        private final int[] positions;
+        private final double utility;
+
+        private Candidate(int size, int[] positions, double utility) {
+            this.size = size;
+            this.positions = positions;
+            this.utility = utility;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            int result = Double.compare(o.utility, utility);
+            if (result != 0) return result;
+            result = Integer.compare(size, o.size);
+            if (result != 0) return result;
+            for (int i = 0; i < positions.length; i++) {
+                result = Integer.compare(positions[i], o.positions[i]);
+                if (result != 0) return result;
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.spectrumauctions.sats.opt.model.gsvm.demandquery;
+
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMBidder;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMLicense;
+import org.spectrumauctions.sats.opt.domain.NonGenericDemandQueryMIP;
+import org.spectrumauctions.sats.opt.domain.NonGenericDemandQueryMIPBuilder;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * A drop-in replacement for {@link GSVM_DemandQueryMIPBuilder} which answers the demand queries with the
+ * {@link GSVM_DemandQueryOracle}, such that no MIP solver is needed. As the oracle is exact, epsilon is ignored.
+ */
+public class GSVM_DemandQueryOracleBuilder implements NonGenericDemandQueryMIPBuilder<GSVMLicense> {
+
+    @Override
+    public NonGenericDemandQueryMIP<GSVMLicense> getDemandQueryMipFor(Bidder<GSVMLicense> bidder, Map<GSVMLicense, BigDecimal> prices, double epsilon) {
+        return new GSVM_DemandQueryOracle((GSVMBidder) bidder, prices);
+    }
+}
@@ -0,0 +1,212 @@
+package org.spectrumauctions.sats.opt.model.lsvm;
+
+import com.google.common.base.Preconditions;
+import edu.harvard.econcs.jopt.solver.IMIPResult;
+import edu.harvard.econcs.jopt.solver.SolveParam;
+import edu.harvard.econcs.jopt.solver.mip.CompareType;
+import edu.harvard.econcs.jopt.solver.mip.Constraint;
+import edu.harvard.econcs.jopt.solver.mip.VarType;
+import edu.harvard.econcs.jopt.solver.mip.Variable;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.Bundle;
+import org.spectrumauctions.sats.core.model.lsvm.LSVMBidder;
+import org.spectrumauctions.sats.core.model.lsvm.LSVMLicense;
+import org.spectrumauctions.sats.core.model.lsvm.LSVMWorld;
+import org.spectrumauctions.sats.opt.domain.ItemAllocation;
+import org.spectrumauctions.sats.opt.domain.ItemAllocation.ItemAllocationBuilder;
+import org.spectrumauctions.sats.opt.domain.PayoffAdjustment;
+import org.spectrumauctions.sats.opt.domain.SolverExecutionService;
+import org.spectrumauctions.sats.opt.domain.WinnerDeterminator;
+import org.spectrumauctions.sats.opt.model.ModelMIP;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * An alternative to {@link LSVMStandardMIP} which finds the efficient allocation in an instance of the
+ * Local-Synergy Value Model without enumerating paths in the grid.<br>
+ * The value of a bundle is the sum over its licenses of the base value times the complementarity factor of the
+ * size of the connected component the license is part of. For every license with a positive base value (i.e., in the
+ * bidder's proximity), the MIP chooses a size indicator. The chosen size is bounded by the size of the component
+ * with a single-commodity flow: The license sends one unit of flow to every other license it counts, and flow
+ * may only pass through licenses allocated to the bidder (inside or outside the proximity).
+ * As the complementarity factor is non-decreasing in the size, the optimal solution chooses the true sizes.<br>
+ * Per bidder, the model has O(|proximity| * (|licenses| + |grid edges|)) variables and constraints, as every license
+ * in the proximity has its own flow. For national bidders, this is quadratic in the grid size, i.e., the same order as
+ * the standard formulation: On the default 3x6 grid, both have about 4800 variables, and this one has more constraints.
+ * However, only the allocation and size indicators are binary (1080 instead of 4872 binaries on the default grid), and
+ * no paths are enumerated, such that the model is built in milliseconds (the standard formulation of a 4x8 grid takes
+ * minutes). The optimal objective is the same.
+ */
+public class LSVMCompactMIP extends ModelMIP implements WinnerDeterminator<LSVMLicense> {
+
+    private final LSVMWorld world;
+    private final List<LSVMBidder> population;
+    private final List<LSVMLicense> licenses;
+    private final List<LSVMLicense[]> arcs = new ArrayList<>();
+
+    private final Map<LSVMBidder, Map<LSVMLicense, Variable>> xVariables = new HashMap<>();
+
+    private PayoffAdjustment<LSVMLicense> payoffAdjustment;
+
+    public LSVMCompactMIP(List<LSVMBidder> population) {
+        this(population.iterator().next().getWorld(), population);
+    }
+
+    public LSVMCompactMIP(LSVMWorld world, List<LSVMBidder> population) {
+        this.world = world;
+        this.population = population;
+        this.licenses = new ArrayList<>(world.getLicenses());
+        for (LSVMLicense from : licenses) {
+            for (LSVMLicense to : licenses) {
+                if (world.getGrid().isNeighbor(from, to)) {
+                    arcs.add(new LSVMLicense[]{from, to});
+                }
+            }
+        }
+
+        getMip().setObjectiveMax(true);
+        getMip().setSolveParam(SolveParam.TIME_LIMIT, 3600.0);
+
+        for (LSVMBidder bidder : population) {
+            for (int size = 1; size < licenses.size(); size++) {
+                Preconditions.checkArgument(bidder.calculateFactor(size + 1) >= bidder.calculateFactor(size),
+                        "The compact formulation requires a non-decreasing complementarity factor.");
+            }
+            addBidder(bidder);
+        }
+        addSupplyConstraints();
+    }
+
+    private void addBidder(LSVMBidder bidder) {
+        Map<LSVMLicense, Variable> x = new HashMap<>();
+        for (LSVMLicense license : licenses) {
+            Variable var = new Variable(String.format("X_i[%d]j[%d]", bidder.getId(), license.getId()), VarType.BOOLEAN, 0, 1);
+            getMip().add(var);
+            x.put(license, var);
+        }
+        xVariables.put(bidder, x);
+
+        int maxFlow = licenses.size() - 1;
+        for (LSVMLicense source : licenses) {
+            double baseValue = bidder.getBaseValues().getOrDefault(source.getId(), BigDecimal.ZERO).doubleValue();
+            if (baseValue <= 0) continue;
+            String prefix = String.format("i[%d]j[%d]", bidder.getId(), source.getId());
+
+            // Size indicators: the license is counted in a component of the given size
+            Constraint oneSize = new Constraint(CompareType.LEQ, 0);
+            oneSize.addTerm(-1, x.get(source));
+            Constraint countedLicenses = new Constraint(CompareType.GEQ, 0);
+            for (int size = 1; size <= licenses.size(); size++) {
+                Variable a = new Variable("A_" + prefix + "tau[" + size + "]", VarType.BOOLEAN, 0, 1);
+                getMip().add(a);
+                getMip().addObjectiveTerm(bidder.calculateFactor(size) * baseValue, a);
+                oneSize.addTerm(1, a);
+                countedLicenses.addTerm(-(size - 1), a);
+            }
+            getMip().add(oneSize);
+
+            // Flow from the source, consumed by the other licenses of the component
+            Map<LSVMLicense, Constraint> balance = new HashMap<>();
+            for (LSVMLicense license : licenses) {
+                if (license.equals(source)) continue;
+                Variable consumption = new Variable("C_" + prefix + "u[" + license.getId() + "]", VarType.DOUBLE, 0, 1);
+                getMip().add(consumption);
+                Constraint onlyIfAllocated = new Constraint(CompareType.LEQ, 0);
+                onlyIfAllocated.addTerm(1, consumption);
+                onlyIfAllocated.addTerm(-1, x.get(license));
+                getMip().add(onlyIfAllocated);
+                countedLicenses.addTerm(1, consumption);
+
+                Constraint flowBalance = new Constraint(CompareType.EQ, 0);
+                flowBalance.addTerm(-1, consumption);
+                balance.put(license, flowBalance);
+            }
+            getMip().add(countedLicenses);
+
+            for (LSVMLicense[] arc : arcs) {
+                LSVMLicense from = arc[0];
+                LSVMLicense to = arc[1];
+                if (to.equals(source)) continue;
+                Variable flow = new Variable("F_" + prefix + "a[" + from.getId() + "," + to.getId() + "]", VarType.DOUBLE, 0, maxFlow);
+                getMip().add(flow);
+                for (LSVMLicense endpoint : arc) {
+                    Constraint capacity = new Constraint(CompareType.LEQ, 0);
+                    capacity.addTerm(1, flow);
+                    capacity.addTerm(-maxFlow, x.get(endpoint));
+                    getMip().add(capacity);
+                }
+                balance.get(to).addTerm(1, flow);
+                if (!from.equals(source)) {
+                    balance.get(from).addTerm(-1, flow);
+                }
+            }
+            balance.values().forEach(getMip()::add);
+        }
+    }
+
+    private void addSupplyConstraints() {
+        for (LSVMLicense license : licenses) {
+            Constraint supply = new Constraint(CompareType.LEQ, 1);
+            for (LSVMBidder bidder : population) {
+                supply.addTerm(1, xVariables.get(bidder).get(license));
+            }
+            getMip().add(supply);
+        }
+    }
+
+    /**
+     * @return the variable which is 1 if and only if the license is allocated to the bidder
+     */
+    public Variable getXVariable(LSVMBidder bidder, LSVMLicense license) {
+        return xVariables.get(bidder).get(license);
+    }
+
+    @Override
+    public ItemAllocation<LSVMLicense> calculateAllocation() {
+        IMIPResult result = SolverExecutionService.getDefault().solve(getMip());
+
+        Map<Bidder<LSVMLicense>, Bundle<LSVMLicense>> allocation = new HashMap<>();
+        for (LSVMBidder bidder : population) {
+            Bundle<LSVMLicense> bundle = new Bundle<>();
+            for (LSVMLicense license : licenses) {
+                if (result.getValue(xVariables.get(bidder).get(license)) > 0.5) {
+                    bundle.add(license);
+                }
+            }
+            allocation.put(bidder, bundle);
+        }
+
+        ItemAllocationBuilder<LSVMLicense> builder = new ItemAllocationBuilder<LSVMLicense>().withWorld(world)
+                .withTotalValue(BigDecimal.valueOf(result.getObjectiveValue())).withAllocation(allocation);
+
+        return builder.build();
+    }
+
+    @Override
+    public WinnerDeterminator<LSVMLicense> getWdWithoutBidder(Bidder bidder) {
+        Preconditions.checkArgument(population.contains(bidder));
+        return new LSVMCompactMIP(world, population.stream().filter(b -> !b.equals(bidder)).collect(Collectors.toList()));
+    }
+
+    @Override
+    public WinnerDeterminator<LSVMLicense> copyOf() {
+        return new LSVMCompactMIP(world, population);
+    }
+
+    @Override
+    public void adjustPayoffs(Map<Bidder<LSVMLicense>, Double> payoffs) {
+        if (payoffAdjustment == null) {
+            Map<Bidder<LSVMLicense>, Collection<Variable>> allocationVariables = new HashMap<>();
+            xVariables.forEach((bidder, variables) -> allocationVariables.put(bidder, variables.values()));
+            payoffAdjustment = new PayoffAdjustment<>(getMip(), allocationVariables, getScale());
+        }
+        payoffAdjustment.setPayoffs(payoffs);
+    }
+
+    @Override
+    public double getScale() {
+        return 1;
+    }
+}
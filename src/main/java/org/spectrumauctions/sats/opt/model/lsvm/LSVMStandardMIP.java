@@ -4,7 +4,6 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import edu.harvard.econcs.jopt.solver.IMIPResult;
 import edu.harvard.econcs.jopt.solver.SolveParam;
-import edu.harvard.econcs.jopt.solver.client.SolverClient;
 import edu.harvard.econcs.jopt.solver.mip.CompareType;
 import edu.harvard.econcs.jopt.solver.mip.Constraint;
 import edu.harvard.econcs.jopt.solver.mip.VarType;
@@ -18,6 +17,7 @@ import org.spectrumauctions.sats.core.model.lsvm.LSVMLicense;
 import org.spectrumauctions.sats.core.model.lsvm.LSVMWorld;
 import org.spectrumauctions.sats.opt.domain.ItemAllocation;
 import org.spectrumauctions.sats.opt.domain.ItemAllocation.ItemAllocationBuilder;
+import org.spectrumauctions.sats.opt.domain.SolverExecutionService;
 import org.spectrumauctions.sats.opt.domain.WinnerDeterminator;
 import org.spectrumauctions.sats.opt.model.ModelMIP;
 
@@ -27,7 +27,8 @@ import java.util.stream.Collectors;
 
 /**
  * This class implements a mip finding the efficient allocation in an instance
- * of the Local-Synergy Value Model
+ * of the Local-Synergy Value Model.
+ * For larger grids, {@link LSVMCompactMIP} is built much faster, as it doesn't enumerate paths.
  *
  * @author Nicolas Küchler
  */
@@ -77,8 +78,7 @@ public class LSVMStandardMIP extends ModelMIP implements WinnerDeterminator<LSVM
 
 	@Override
 	public ItemAllocation<LSVMLicense> calculateAllocation() {
-		SolverClient solver = new SolverClient();
-		IMIPResult result = solver.solve(getMip());
+		IMIPResult result = SolverExecutionService.getDefault().solve(getMip());
 
 		Map<Bidder<LSVMLicense>, Bundle<LSVMLicense>> allocation = new HashMap<>();
 		for (LSVMBidder bidder : population) {
@@ -5,7 +5,6 @@ import com.google.common.collect.Lists;
 import edu.harvard.econcs.jopt.solver.IMIPResult;
 import edu.harvard.econcs.jopt.solver.ISolution;
 import edu.harvard.econcs.jopt.solver.SolveParam;
-import edu.harvard.econcs.jopt.solver.client.SolverClient;
 import edu.harvard.econcs.jopt.solver.mip.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -15,6 +14,7 @@ import org.spectrumauctions.sats.core.model.lsvm.LSVMBidder;
 import org.spectrumauctions.sats.core.model.lsvm.LSVMLicense;
 import org.spectrumauctions.sats.core.model.lsvm.LSVMWorld;
 import org.spectrumauctions.sats.opt.domain.NonGenericDemandQueryMIP;
+import org.spectrumauctions.sats.opt.domain.SolverExecutionService;
 import org.spectrumauctions.sats.opt.model.ModelMIP;
 import org.spectrumauctions.sats.opt.model.lsvm.LSVMStandardMIP;
 
@@ -28,13 +28,14 @@ public class LSVM_DemandQueryMIP implements NonGenericDemandQueryMIP<LSVMLicense
 
     private static final Logger logger = LogManager.getLogger(LSVM_DemandQueryMIP.class);
 
-    private static SolverClient solver = new SolverClient();
-
     private LSVMBidder bidder;
     private LSVMWorld world;
     private LSVMStandardMIP lsvmMip;
     private Collection<Collection<Variable>> variableSetsOfInterest;
     private Variable priceVar;
+    private Constraint priceConstraint;
+    private Map<Variable, Double> lastDemand = new HashMap<>();
+    private boolean resultPoolTolerancesSet = false;
 
     public LSVM_DemandQueryMIP(LSVMBidder bidder, Map<LSVMLicense, BigDecimal> prices) {
         this(bidder, prices, 0.001);
@@ -43,29 +44,64 @@ public class LSVM_DemandQueryMIP implements NonGenericDemandQueryMIP<LSVMLicense
     public LSVM_DemandQueryMIP(LSVMBidder bidder, Map<LSVMLicense, BigDecimal> prices, double epsilon) {
         Preconditions.checkNotNull(bidder);
         this.bidder = bidder;
-        Preconditions.checkNotNull(prices);
         this.world = bidder.getWorld();
-        Preconditions.checkArgument(prices.size() == world.getLicenses().size());
         lsvmMip = new LSVMStandardMIP(Lists.newArrayList(bidder));
 
-        lsvmMip.getMip().setSolveParam(SolveParam.RELATIVE_OBJ_GAP, epsilon);
+        setEpsilon(epsilon);
         priceVar = new Variable("p", VarType.DOUBLE, 0, MIP.MAX_VALUE);
         lsvmMip.getMip().add(priceVar);
         lsvmMip.getMip().addObjectiveTerm(-1, priceVar);
+        variableSetsOfInterest = new HashSet<>();
+        for (LSVMLicense license : world.getLicenses()) {
+            variableSetsOfInterest.add(new HashSet<>(lsvmMip.getXVariables(bidder, license).values()));
+        }
+        setPrices(prices);
+    }
+
+    /**
+     * Replaces the prices of the demand query. Only the price constraint of the MIP is replaced, so the same model
+     * can be queried in every clock round. The demanded bundle of the previous query is proposed to the solver as a
+     * starting solution.
+     */
+    public void setPrices(Map<LSVMLicense, BigDecimal> prices) {
+        Preconditions.checkNotNull(prices);
+        Preconditions.checkArgument(prices.size() == world.getLicenses().size());
+        if (priceConstraint != null) {
+            lsvmMip.getMip().remove(priceConstraint);
+        }
         Constraint price = new Constraint(CompareType.EQ, 0);
         price.addTerm(-1, priceVar);
-        variableSetsOfInterest = new HashSet<>();
         for (Map.Entry<LSVMLicense, BigDecimal> entry : prices.entrySet()) {
-            Set<Variable> variablesOfInterest = new HashSet<>();
-            LSVMLicense license = entry.getKey();
-            Map<Integer, Variable> xVariables = lsvmMip.getXVariables(bidder, license);
+            Map<Integer, Variable> xVariables = lsvmMip.getXVariables(bidder, entry.getKey());
             for (Variable xVariable : xVariables.values()) {
-                variablesOfInterest.add(xVariable);
                 price.addTerm(entry.getValue().doubleValue(), xVariable);
             }
-            variableSetsOfInterest.add(variablesOfInterest);
         }
         lsvmMip.getMip().add(price);
+        priceConstraint = price;
+    }
+
+    public void setEpsilon(double epsilon) {
+        lsvmMip.getMip().setSolveParam(SolveParam.RELATIVE_OBJ_GAP, epsilon);
+    }
+
+    @Override
+    public void setRelativeResultPoolTolerance(double resultPoolTolerance) {
+        NonGenericDemandQueryMIP.super.setRelativeResultPoolTolerance(resultPoolTolerance);
+        resultPoolTolerancesSet = true;
+    }
+
+    @Override
+    public void setAbsoluteResultPoolTolerance(double resultPoolTolerance) {
+        NonGenericDemandQueryMIP.super.setAbsoluteResultPoolTolerance(resultPoolTolerance);
+        resultPoolTolerancesSet = true;
+    }
+
+    /**
+     * @return true if a result pool tolerance was set on this model, which can not be reverted
+     */
+    public boolean hasResultPoolTolerances() {
+        return resultPoolTolerancesSet;
     }
 
     @Override
@@ -86,8 +122,15 @@ public class LSVM_DemandQueryMIP implements NonGenericDemandQueryMIP<LSVMLicense
         // immensely large solution space
         lsvmMip.getMip().setSolveParam(SolveParam.SOLUTION_POOL_MODE, 3);
         lsvmMip.getMip().setAdvancedVariablesOfInterest(variableSetsOfInterest);
-        IMIPResult mipResult = solver.solve(lsvmMip.getMip());
+        proposeStartingSolution(lastDemand);
+        IMIPResult mipResult = SolverExecutionService.getDefault().solve(lsvmMip.getMip());
         logger.debug("Result:\n{}", mipResult);
+        lastDemand = new HashMap<>();
+        for (Collection<Variable> variables : variableSetsOfInterest) {
+            for (Variable var : variables) {
+                lastDemand.put(var, (double) Math.round(mipResult.getValue(var)));
+            }
+        }
 
         List<LSVM_DemandQueryMipResult> results = new ArrayList<>();
         for (ISolution sol : mipResult.getPoolSolutions()) {
@@ -10,6 +10,7 @@ import org.spectrumauctions.sats.opt.domain.NonGenericDemandQueryMIPBuilder;
 
 import java.math.BigDecimal;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Fabio Isler
@@ -19,8 +20,42 @@ public class LSVM_DemandQueryMIPBuilder implements NonGenericDemandQueryMIPBuild
 
     private static final Logger logger = LogManager.getLogger(LSVM_DemandQueryMIPBuilder.class);
 
+    private final boolean reuseModels;
+    private final Map<LSVMBidder, LSVM_DemandQueryMIP> models = new ConcurrentHashMap<>();
+
+    public LSVM_DemandQueryMIPBuilder() {
+        this(true);
+    }
+
+    /**
+     * @param reuseModels if true, the demand query model of a bidder is created once and only its prices are
+     *                    updated in subsequent queries (e.g., in subsequent clock rounds). If false, a new model is
+     *                    created for every query.
+     */
+    public LSVM_DemandQueryMIPBuilder(boolean reuseModels) {
+        this.reuseModels = reuseModels;
+    }
+
+    /**
+     * Note that, if models are reused, the returned model is the same for all queries of a bidder.
+     * A query for a bidder thus has to be completed before the next one for the same bidder is started.
+     */
     @Override
     public NonGenericDemandQueryMIP<LSVMLicense> getDemandQueryMipFor(Bidder bidder, Map prices, double epsilon) {
-        return new LSVM_DemandQueryMIP((LSVMBidder) bidder, (Map<LSVMLicense, BigDecimal>) prices, epsilon);
+        LSVMBidder lsvmBidder = (LSVMBidder) bidder;
+        Map<LSVMLicense, BigDecimal> typedPrices = (Map<LSVMLicense, BigDecimal>) prices;
+        if (!reuseModels) {
+            return new LSVM_DemandQueryMIP(lsvmBidder, typedPrices, epsilon);
+        }
+        LSVM_DemandQueryMIP model = models.get(lsvmBidder);
+        if (model == null || model.hasResultPoolTolerances()) {
+            // Result pool tolerances can not be unset, so such a model is replaced
+            model = new LSVM_DemandQueryMIP(lsvmBidder, typedPrices, epsilon);
+            models.put(lsvmBidder, model);
+        } else {
+            model.setPrices(typedPrices);
+            model.setEpsilon(epsilon);
+        }
+        return model;
     }
 }
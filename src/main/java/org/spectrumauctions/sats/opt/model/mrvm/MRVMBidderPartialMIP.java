@@ -15,6 +15,7 @@ import org.spectrumauctions.sats.core.model.mrvm.MRVMRegionsMap.Region;
 import org.spectrumauctions.sats.core.model.mrvm.MRVMWorld;
 import org.spectrumauctions.sats.core.util.math.ContinuousPiecewiseLinearFunction;
 import org.spectrumauctions.sats.opt.domain.PartialMIP;
+import org.spectrumauctions.sats.opt.domain.PiecewiseLinearEncoding;
 import org.spectrumauctions.sats.opt.domain.PiecewiseLinearPartialMIP;
 
 import java.math.BigDecimal;
@@ -42,6 +43,7 @@ public abstract class MRVMBidderPartialMIP extends PartialMIP {
     private final MRVMBidder bidder;
 
     private final double scaling;
+    private PiecewiseLinearEncoding piecewiseLinearEncoding = PiecewiseLinearEncoding.CONDITIONAL_X;
 
     public MRVMBidderPartialMIP(MRVMBidder bidder, double scalingFactor, MRVMWorldPartialMip worldMip) {
         this.bidder = bidder;
@@ -50,6 +52,17 @@ public abstract class MRVMBidderPartialMIP extends PartialMIP {
         initVariables();
     }
 
+    /**
+     * Sets the encoding of the sv and capacity functions. Must be set before the partial MIP is appended to a MIP.
+     */
+    public void setPiecewiseLinearEncoding(PiecewiseLinearEncoding piecewiseLinearEncoding) {
+        this.piecewiseLinearEncoding = Preconditions.checkNotNull(piecewiseLinearEncoding);
+    }
+
+    public PiecewiseLinearEncoding getPiecewiseLinearEncoding() {
+        return piecewiseLinearEncoding;
+    }
+
     private void initVariables() {
         this.omegaVariables = createOmegaVariables();
         this.cVariables = createCVariables();
@@ -176,7 +189,8 @@ public abstract class MRVMBidderPartialMIP extends PartialMIP {
                     sv,
                     svInput,
                     svOutput,
-                    helperVariablesPrefix);
+                    helperVariablesPrefix,
+                    piecewiseLinearEncoding);
             result.add(piecewiseLinearPartialMIP);
         }
         return result;
@@ -245,7 +259,8 @@ public abstract class MRVMBidderPartialMIP extends PartialMIP {
                         new PiecewiseLinearPartialMIP(func,
                                 input,
                                 output,
-                                auxiliaryVariableName);
+                                auxiliaryVariableName,
+                                piecewiseLinearEncoding);
                 result.add(partialMip);
             }
         }
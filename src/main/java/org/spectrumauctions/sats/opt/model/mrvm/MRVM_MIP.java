@@ -8,7 +8,6 @@ package org.spectrumauctions.sats.opt.model.mrvm;
 import com.google.common.base.Preconditions;
 import edu.harvard.econcs.jopt.solver.IMIPResult;
 import edu.harvard.econcs.jopt.solver.SolveParam;
-import edu.harvard.econcs.jopt.solver.client.SolverClient;
 import edu.harvard.econcs.jopt.solver.mip.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -16,6 +15,9 @@ import org.spectrumauctions.sats.core.bidlang.generic.GenericValue;
 import org.spectrumauctions.sats.core.model.Bidder;
 import org.spectrumauctions.sats.core.model.mrvm.*;
 import org.spectrumauctions.sats.core.model.mrvm.MRVMRegionsMap.Region;
+import org.spectrumauctions.sats.opt.domain.PayoffAdjustment;
+import org.spectrumauctions.sats.opt.domain.PiecewiseLinearEncoding;
+import org.spectrumauctions.sats.opt.domain.SolverExecutionService;
 import org.spectrumauctions.sats.opt.domain.WinnerDeterminator;
 import org.spectrumauctions.sats.opt.model.ModelMIP;
 
@@ -25,8 +27,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import static edu.harvard.econcs.jopt.solver.mip.MIP.MAX_VALUE;
-
 /**
  * @author Michael Weiss
  *
@@ -38,8 +38,6 @@ public class MRVM_MIP extends ModelMIP implements WinnerDeterminator<MRVMLicense
 
     public static boolean PRINT_SOLVER_RESULT = false;
 
-    private static SolverClient SOLVER = new SolverClient();
-
     /**
      * If the highest possible value any bidder can have is higher than {@link MIP#MAX_VALUE} - MAXVAL_SAFETYGAP}
      * a non-zero scaling factor for the calculation is chosen.
@@ -50,14 +48,24 @@ public class MRVM_MIP extends ModelMIP implements WinnerDeterminator<MRVMLicense
     private Collection<MRVMBidder> bidders;
     private double epsilon = DEFAULT_EPSILON;
     private double scalingFactor;
+    private PayoffAdjustment<MRVMLicense> payoffAdjustment;
+    private final PiecewiseLinearEncoding piecewiseLinearEncoding;
 
     public MRVM_MIP(Collection<MRVMBidder> bidders) {
+        this(bidders, PiecewiseLinearEncoding.CONDITIONAL_X);
+    }
+
+    /**
+     * @param piecewiseLinearEncoding the encoding of the piecewise linear sv and capacity functions of all bidders
+     */
+    public MRVM_MIP(Collection<MRVMBidder> bidders, PiecewiseLinearEncoding piecewiseLinearEncoding) {
         Preconditions.checkNotNull(bidders);
         Preconditions.checkArgument(bidders.size() > 0);
         world = bidders.iterator().next().getWorld();
         scalingFactor = Scalor.scalingFactor(bidders);
         double biggestPossibleValue = Scalor.biggestUnscaledPossibleValue(bidders).doubleValue() / scalingFactor;
         this.bidders = bidders;
+        this.piecewiseLinearEncoding = Preconditions.checkNotNull(piecewiseLinearEncoding);
         this.worldPartialMip = new MRVMWorldPartialMip(
                 bidders,
                 biggestPossibleValue);
@@ -75,6 +83,7 @@ public class MRVM_MIP extends ModelMIP implements WinnerDeterminator<MRVMLicense
                 MRVMRegionalBidder globalBidder = (MRVMRegionalBidder) bidder;
                 bidderPartialMIP = new MRVMRegionalBidderPartialMip(globalBidder, scalingFactor, worldPartialMip);
             }
+            bidderPartialMIP.setPiecewiseLinearEncoding(piecewiseLinearEncoding);
             bidderPartialMIP.appendToMip(getMip());
             bidderPartialMips.put(bidder, bidderPartialMIP);
         }
@@ -98,7 +107,7 @@ public class MRVM_MIP extends ModelMIP implements WinnerDeterminator<MRVMLicense
     @Override
     public WinnerDeterminator<MRVMLicense> getWdWithoutBidder(Bidder<MRVMLicense> bidder) {
         Preconditions.checkArgument(bidders.contains(bidder));
-        return new MRVM_MIP(bidders.stream().filter(b -> !b.equals(bidder)).collect(Collectors.toSet()));
+        return new MRVM_MIP(bidders.stream().filter(b -> !b.equals(bidder)).collect(Collectors.toSet()), piecewiseLinearEncoding);
     }
 
     /* (non-Javadoc)
@@ -107,7 +116,7 @@ public class MRVM_MIP extends ModelMIP implements WinnerDeterminator<MRVMLicense
     @Override
     public MRVMMipResult calculateAllocation() {
         getMip().setSolveParam(SolveParam.RELATIVE_OBJ_GAP, epsilon);
-        IMIPResult mipResult = SOLVER.solve(getMip());
+        IMIPResult mipResult = SolverExecutionService.getDefault().solve(getMip());
         if (PRINT_SOLVER_RESULT) {
             logger.info("Result:\n" + mipResult);
         }
@@ -142,7 +151,7 @@ public class MRVM_MIP extends ModelMIP implements WinnerDeterminator<MRVMLicense
 
     @Override
     public WinnerDeterminator<MRVMLicense> copyOf() {
-        return new MRVM_MIP(bidders);
+        return new MRVM_MIP(bidders, piecewiseLinearEncoding);
     }
 
     public MRVMWorldPartialMip getWorldPartialMip() {
@@ -156,28 +165,12 @@ public class MRVM_MIP extends ModelMIP implements WinnerDeterminator<MRVMLicense
 
     @Override
     public void adjustPayoffs(Map<Bidder<MRVMLicense>, Double> payoffs) {
-        for (Map.Entry<Bidder<MRVMLicense>, Double> entry : payoffs.entrySet()) {
-            MRVMBidder bidder = (MRVMBidder) entry.getKey();
-            double negativePayoff = -entry.getValue();
-            Variable x = new Variable("x_" + bidder.getId(), VarType.BOOLEAN, 0, 1);
-            addVariable(x);
-            addObjectiveTerm(negativePayoff, x);
-
-            Constraint xConstraint = new Constraint(CompareType.GEQ, 0);
-            xConstraint.addTerm(-1, x);
-            for (Variable var : worldPartialMip.getXVariables(bidder)) {
-                xConstraint.addTerm(1, var);
-            }
-            addConstraint(xConstraint);
-
-            Constraint xConstraint2 = new Constraint(CompareType.LEQ, 0);
-            xConstraint2.addTerm(-MAX_VALUE, x);
-            for (Variable var : worldPartialMip.getXVariables(bidder)) {
-                xConstraint2.addTerm(1, var);
-            }
-            addConstraint(xConstraint2);
-
+        if (payoffAdjustment == null) {
+            Map<MRVMBidder, Collection<Variable>> allocationVariables = new HashMap<>();
+            bidders.forEach(bidder -> allocationVariables.put(bidder, worldPartialMip.getXVariables(bidder)));
+            payoffAdjustment = new PayoffAdjustment<>(getMip(), allocationVariables, getScale());
         }
+        payoffAdjustment.setPayoffs(payoffs);
     }
 
     @Override
@@ -185,6 +178,10 @@ public class MRVM_MIP extends ModelMIP implements WinnerDeterminator<MRVMLicense
         return 1 / scalingFactor;
     }
 
+    public PiecewiseLinearEncoding getPiecewiseLinearEncoding() {
+        return piecewiseLinearEncoding;
+    }
+
     public void setEpsilon(double epsilon) {
         this.epsilon = epsilon;
     }
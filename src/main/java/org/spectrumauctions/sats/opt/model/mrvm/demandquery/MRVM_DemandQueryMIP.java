@@ -6,7 +6,6 @@ import com.google.common.collect.Sets;
 import edu.harvard.econcs.jopt.solver.IMIPResult;
 import edu.harvard.econcs.jopt.solver.ISolution;
 import edu.harvard.econcs.jopt.solver.SolveParam;
-import edu.harvard.econcs.jopt.solver.client.SolverClient;
 import edu.harvard.econcs.jopt.solver.mip.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -14,6 +13,7 @@ import org.spectrumauctions.sats.core.bidlang.generic.GenericValue;
 import org.spectrumauctions.sats.core.model.mrvm.*;
 import org.spectrumauctions.sats.core.model.mrvm.MRVMRegionsMap.Region;
 import org.spectrumauctions.sats.opt.domain.GenericDemandQueryMIP;
+import org.spectrumauctions.sats.opt.domain.SolverExecutionService;
 import org.spectrumauctions.sats.opt.model.ModelMIP;
 import org.spectrumauctions.sats.opt.model.mrvm.MRVM_MIP;
 
@@ -27,13 +27,14 @@ public class MRVM_DemandQueryMIP implements GenericDemandQueryMIP<MRVMGenericDef
 
     private static final Logger logger = LogManager.getLogger(MRVM_DemandQueryMIP.class);
 
-    private static SolverClient solver = new SolverClient();
-
     private MRVMBidder bidder;
     private MRVMWorld world;
     private MRVM_MIP mrvmMip;
 
     private Variable priceVar;
+    private Constraint priceConstraint;
+    private Map<Variable, Double> lastDemand = new HashMap<>();
+    private boolean resultPoolTolerancesSet = false;
 
     public MRVM_DemandQueryMIP(MRVMBidder bidder, Map<MRVMGenericDefinition, BigDecimal> prices) {
         this(bidder, prices, 0.001);
@@ -42,16 +43,28 @@ public class MRVM_DemandQueryMIP implements GenericDemandQueryMIP<MRVMGenericDef
     public MRVM_DemandQueryMIP(MRVMBidder bidder, Map<MRVMGenericDefinition, BigDecimal> prices, double epsilon) {
         Preconditions.checkNotNull(bidder);
         this.bidder = bidder;
-        Preconditions.checkNotNull(prices);
         this.world = bidder.getWorld();
-        Preconditions.checkArgument(prices.size() == world.getAllGenericDefinitions().size());
         mrvmMip = new MRVM_MIP(Sets.newHashSet(bidder));
 
-        mrvmMip.getMip().setSolveParam(SolveParam.RELATIVE_OBJ_GAP, epsilon);
-        double scalingFactor = mrvmMip.getBidderPartialMips().get(bidder).getScalingFactor();
+        setEpsilon(epsilon);
         priceVar = new Variable("p", VarType.DOUBLE, 0, MIP.MAX_VALUE);
         mrvmMip.addVariable(priceVar);
         mrvmMip.addObjectiveTerm(-1, priceVar);
+        setPrices(prices);
+    }
+
+    /**
+     * Replaces the prices of the demand query. Only the price constraint of the MIP is replaced, so the same model
+     * can be queried in every clock round. The demanded bundle of the previous query is proposed to the solver as a
+     * starting solution.
+     */
+    public void setPrices(Map<MRVMGenericDefinition, BigDecimal> prices) {
+        Preconditions.checkNotNull(prices);
+        Preconditions.checkArgument(prices.size() == world.getAllGenericDefinitions().size());
+        if (priceConstraint != null) {
+            mrvmMip.getMip().remove(priceConstraint);
+        }
+        double scalingFactor = mrvmMip.getBidderPartialMips().get(bidder).getScalingFactor();
         Constraint price = new Constraint(CompareType.EQ, 0);
         price.addTerm(-1, priceVar);
         for (Map.Entry<MRVMGenericDefinition, BigDecimal> entry : prices.entrySet()) {
@@ -60,6 +73,30 @@ public class MRVM_DemandQueryMIP implements GenericDemandQueryMIP<MRVMGenericDef
             price.addTerm(entry.getValue().doubleValue() / scalingFactor, xVariable);
         }
         mrvmMip.addConstraint(price);
+        priceConstraint = price;
+    }
+
+    public void setEpsilon(double epsilon) {
+        mrvmMip.getMip().setSolveParam(SolveParam.RELATIVE_OBJ_GAP, epsilon);
+    }
+
+    @Override
+    public void setRelativeResultPoolTolerance(double resultPoolTolerance) {
+        GenericDemandQueryMIP.super.setRelativeResultPoolTolerance(resultPoolTolerance);
+        resultPoolTolerancesSet = true;
+    }
+
+    @Override
+    public void setAbsoluteResultPoolTolerance(double resultPoolTolerance) {
+        GenericDemandQueryMIP.super.setAbsoluteResultPoolTolerance(resultPoolTolerance);
+        resultPoolTolerancesSet = true;
+    }
+
+    /**
+     * @return true if a result pool tolerance was set on this model, which can not be reverted
+     */
+    public boolean hasResultPoolTolerances() {
+        return resultPoolTolerancesSet;
     }
 
     @Override
@@ -78,8 +115,13 @@ public class MRVM_DemandQueryMIP implements GenericDemandQueryMIP<MRVMGenericDef
         mrvmMip.getMip().setSolveParam(SolveParam.SOLUTION_POOL_CAPACITY, numberOfResults);
         mrvmMip.getMip().setSolveParam(SolveParam.SOLUTION_POOL_MODE, 4);
         mrvmMip.getMip().setVariablesOfInterest(mrvmMip.getXVariables());
-        IMIPResult mipResult = solver.solve(mrvmMip.getMip());
+        proposeStartingSolution(lastDemand);
+        IMIPResult mipResult = SolverExecutionService.getDefault().solve(mrvmMip.getMip());
         logger.debug("Result:\n{}", mipResult);
+        lastDemand = new HashMap<>();
+        for (Variable xVar : mrvmMip.getXVariables()) {
+            lastDemand.put(xVar, (double) Math.round(mipResult.getValue(xVar)));
+        }
 
         List<MRVMDemandQueryMipResult> results = new ArrayList<>();
         for (ISolution sol : mipResult.getPoolSolutions()) {
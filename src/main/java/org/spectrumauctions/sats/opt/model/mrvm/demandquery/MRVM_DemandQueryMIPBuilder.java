@@ -9,6 +9,7 @@ import org.spectrumauctions.sats.opt.domain.GenericDemandQueryMIPBuilder;
 
 import java.math.BigDecimal;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Fabio Isler
@@ -18,8 +19,42 @@ public class MRVM_DemandQueryMIPBuilder implements GenericDemandQueryMIPBuilder
 
     private static final Logger logger = LogManager.getLogger(MRVM_DemandQueryMIPBuilder.class);
 
+    private final boolean reuseModels;
+    private final Map<MRVMBidder, MRVM_DemandQueryMIP> models = new ConcurrentHashMap<>();
+
+    public MRVM_DemandQueryMIPBuilder() {
+        this(true);
+    }
+
+    /**
+     * @param reuseModels if true, the demand query model of a bidder is created once and only its prices are
+     *                    updated in subsequent queries (e.g., in subsequent clock rounds). If false, a new model is
+     *                    created for every query.
+     */
+    public MRVM_DemandQueryMIPBuilder(boolean reuseModels) {
+        this.reuseModels = reuseModels;
+    }
+
+    /**
+     * Note that, if models are reused, the returned model is the same for all queries of a bidder.
+     * A query for a bidder thus has to be completed before the next one for the same bidder is started.
+     */
     @Override
     public GenericDemandQueryMIP<MRVMGenericDefinition, MRVMLicense> getDemandQueryMipFor(Bidder bidder, Map prices, double epsilon) {
-        return new MRVM_DemandQueryMIP((MRVMBidder) bidder, (Map<MRVMGenericDefinition, BigDecimal>) prices, epsilon);
+        MRVMBidder mrvmBidder = (MRVMBidder) bidder;
+        Map<MRVMGenericDefinition, BigDecimal> typedPrices = (Map<MRVMGenericDefinition, BigDecimal>) prices;
+        if (!reuseModels) {
+            return new MRVM_DemandQueryMIP(mrvmBidder, typedPrices, epsilon);
+        }
+        MRVM_DemandQueryMIP model = models.get(mrvmBidder);
+        if (model == null || model.hasResultPoolTolerances()) {
+            // Result pool tolerances can not be unset, so such a model is replaced
+            model = new MRVM_DemandQueryMIP(mrvmBidder, typedPrices, epsilon);
+            models.put(mrvmBidder, model);
+        } else {
+            model.setPrices(typedPrices);
+            model.setEpsilon(epsilon);
+        }
+        return model;
     }
 }
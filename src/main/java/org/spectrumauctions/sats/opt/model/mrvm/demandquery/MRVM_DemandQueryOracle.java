@@ -0,0 +1,313 @@
+package org.spectrumauctions.sats.opt.model.mrvm.demandquery;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spectrumauctions.sats.core.bidlang.generic.GenericValue;
+import org.spectrumauctions.sats.core.model.Bundle;
+import org.spectrumauctions.sats.core.model.mrvm.*;
+import org.spectrumauctions.sats.core.model.mrvm.MRVMRegionsMap.Region;
+import org.spectrumauctions.sats.core.util.math.ContinuousPiecewiseLinearFunction;
+import org.spectrumauctions.sats.opt.domain.GenericDemandQueryMIP;
+import org.spectrumauctions.sats.opt.model.ModelMIP;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Answers MRVM demand queries exactly and without a MIP solver, as an alternative to {@link MRVM_DemandQueryMIP}.<br>
+ * The value of an MRVM bundle is the sum of the regional values omega(sv(c)), each discounted by a factor gamma.
+ * For local and regional bidders, gamma only depends on the region, so the utility decomposes by region.
+ * For national bidders, gamma depends on the number k of uncovered regions. Once k is fixed, the utility decomposes
+ * as well, so the oracle solves one problem per k, restricted to bundles with exactly k uncovered regions.<br>
+ * The oracle tabulates omega(sv(c)) minus the price for every quantity vector of every region. It then
+ * combines the regions with a dynamic program over the number of uncovered regions, which keeps the
+ * numberOfResults best partial bundles per state. The result pool is therefore exact: the i-th returned bundle is
+ * the i-th best bundle of the bidder.
+ * There is no underlying MIP, so {@link #getMip()} is not supported and the time limit is ignored.
+ */
+public class MRVM_DemandQueryOracle implements GenericDemandQueryMIP<MRVMGenericDefinition, MRVMLicense> {
+
+    private static final Logger logger = LogManager.getLogger(MRVM_DemandQueryOracle.class);
+
+    private final MRVMBidder bidder;
+    private final MRVMWorld world;
+    private final List<Region> regions;
+    private final List<MRVMBand> bands;
+    /**
+     * Per option (i.e., per quantity vector of a region), the quantity of every band
+     */
+    private final int[][] options;
+    /**
+     * Per region and option, the undiscounted regional value omega(sv(c))
+     */
+    private final double[][] regionalValues;
+    /**
+     * Per region and option, the price
+     */
+    private double[][] regionalPrices;
+    private Map<MRVMGenericDefinition, BigDecimal> prices;
+    // As for the MIPs, a tolerance of 0 means that the result pool is not restricted
+    private double relativeResultPoolTolerance = 0;
+    private double absoluteResultPoolTolerance = 0;
+
+    public MRVM_DemandQueryOracle(MRVMBidder bidder, Map<MRVMGenericDefinition, BigDecimal> prices) {
+        Preconditions.checkNotNull(bidder);
+        this.bidder = bidder;
+        this.world = bidder.getWorld();
+        this.regions = new ArrayList<>(world.getRegionsMap().getRegions());
+        this.regions.sort(Comparator.comparingInt(Region::getId));
+        this.bands = new ArrayList<>(world.getBands());
+        this.bands.sort(Comparator.comparing(MRVMBand::getName));
+
+        int numberOfOptions = 1;
+        for (MRVMBand band : bands) {
+            numberOfOptions *= band.getNumberOfLots() + 1;
+        }
+        this.options = new int[numberOfOptions][bands.size()];
+        for (int option = 0; option < numberOfOptions; option++) {
+            int rest = option;
+            for (int b = 0; b < bands.size(); b++) {
+                options[option][b] = rest % (bands.get(b).getNumberOfLots() + 1);
+                rest /= bands.get(b).getNumberOfLots() + 1;
+            }
+        }
+
+        this.regionalValues = new double[regions.size()][numberOfOptions];
+        for (int r = 0; r < regions.size(); r++) {
+            Region region = regions.get(r);
+            ContinuousPiecewiseLinearFunction sv = bidder.svFunction(region);
+            for (int option = 0; option < numberOfOptions; option++) {
+                BigDecimal c = BigDecimal.ZERO;
+                for (int b = 0; b < bands.size(); b++) {
+                    if (options[option][b] > 0) {
+                        c = c.add(bands.get(b).calculateCAP(options[option][b]));
+                    }
+                }
+                regionalValues[r][option] = bidder.omegaFactor(region, sv.getY(c)).doubleValue();
+            }
+        }
+        setPrices(prices);
+    }
+
+    /**
+     * Creates an oracle for the same bidder with other prices, reusing the regional value tables of the template.
+     */
+    MRVM_DemandQueryOracle(MRVM_DemandQueryOracle template, Map<MRVMGenericDefinition, BigDecimal> prices) {
+        this.bidder = template.bidder;
+        this.world = template.world;
+        this.regions = template.regions;
+        this.bands = template.bands;
+        this.options = template.options;
+        this.regionalValues = template.regionalValues;
+        setPrices(prices);
+    }
+
+    /**
+     * Replaces the prices of the demand query.
+     */
+    public void setPrices(Map<MRVMGenericDefinition, BigDecimal> prices) {
+        Preconditions.checkNotNull(prices);
+        Preconditions.checkArgument(prices.size() == world.getAllGenericDefinitions().size());
+        this.prices = prices;
+        this.regionalPrices = new double[regions.size()][options.length];
+        for (int r = 0; r < regions.size(); r++) {
+            for (int b = 0; b < bands.size(); b++) {
+                double price = prices.get(new MRVMGenericDefinition(bands.get(b), regions.get(r))).doubleValue();
+                for (int option = 0; option < options.length; option++) {
+                    regionalPrices[r][option] += options[option][b] * price;
+                }
+            }
+        }
+    }
+
+    public MRVMBidder getBidder() {
+        return bidder;
+    }
+
+    @Override
+    public MRVMDemandQueryMipResult getResult() {
+        return getResultPool(1).get(0);
+    }
+
+    @Override
+    public List<MRVMDemandQueryMipResult> getResultPool(int numberOfResults) {
+        if (numberOfResults < 1) {
+            return Lists.newArrayList();
+        }
+        List<Node> candidates = new ArrayList<>();
+        if (bidder instanceof MRVMNationalBidder) {
+            MRVMNationalBidder nationalBidder = (MRVMNationalBidder) bidder;
+            for (int uncovered = 0; uncovered <= regions.size(); uncovered++) {
+                double[] gammas = new double[regions.size()];
+                Arrays.fill(gammas, nationalBidder.getGamma(uncovered).doubleValue());
+                candidates.addAll(solve(gammas, uncovered, numberOfResults));
+            }
+        } else {
+            // The gamma factors of local and regional bidders do not depend on the bundle
+            Map<Region, BigDecimal> gammaFactors = bidder.gammaFactors(new Bundle<>());
+            double[] gammas = new double[regions.size()];
+            for (int r = 0; r < regions.size(); r++) {
+                gammas[r] = gammaFactors.get(regions.get(r)).doubleValue();
+            }
+            candidates.addAll(solve(gammas, -1, numberOfResults));
+        }
+        candidates.sort(Comparator.comparingDouble((Node node) -> node.utility).reversed());
+
+        List<MRVMDemandQueryMipResult> results = new ArrayList<>();
+        double best = candidates.get(0).utility;
+        for (Node candidate : candidates) {
+            double gap = best - candidate.utility;
+            if (results.size() >= numberOfResults
+                    || absoluteResultPoolTolerance > 0 && gap > absoluteResultPoolTolerance
+                    || relativeResultPoolTolerance > 0 && gap > relativeResultPoolTolerance * Math.abs(best)) {
+                break;
+            }
+            results.add(toResult(candidate));
+        }
+        logger.debug("Answered demand query of bidder {} with {} bundles.", bidder.getId(), results.size());
+        return results;
+    }
+
+    /**
+     * Dynamic program over the regions, where the state is the number of uncovered regions so far.
+     * For every state, the numberOfResults best partial bundles are kept.
+     *
+     * @param gammas            the discount per region
+     * @param uncoveredRegions  the exact number of uncovered regions of the returned bundles, or -1 if any
+     * @return the numberOfResults best bundles with the given number of uncovered regions
+     */
+    private List<Node> solve(double[] gammas, int uncoveredRegions, int numberOfResults) {
+        int numberOfStates = uncoveredRegions < 0 ? 1 : uncoveredRegions + 1;
+        List<List<Node>> states = new ArrayList<>();
+        for (int s = 0; s < numberOfStates; s++) {
+            states.add(new ArrayList<>());
+        }
+        states.get(0).add(new Node(null, -1, 0));
+
+        for (int r = 0; r < regions.size(); r++) {
+            double[] utilities = new double[options.length];
+            Integer[] covered = new Integer[options.length - 1];
+            for (int option = 0; option < options.length; option++) {
+                utilities[option] = gammas[r] * regionalValues[r][option] - regionalPrices[r][option];
+                if (option > 0) covered[option - 1] = option;
+            }
+            Arrays.sort(covered, (a, b) -> Double.compare(utilities[b], utilities[a]));
+
+            int remainingRegions = regions.size() - r - 1;
+            List<List<Node>> next = new ArrayList<>();
+            for (int s = 0; s < numberOfStates; s++) {
+                next.add(new ArrayList<>());
+            }
+            for (int s = 0; s < numberOfStates; s++) {
+                List<Node> partials = states.get(s);
+                if (partials.isEmpty()) continue;
+                // Option 0 is the empty quantity vector, i.e., the region stays uncovered
+                int uncoveredState = uncoveredRegions < 0 ? s : s + 1;
+                if (uncoveredState < numberOfStates) {
+                    for (Node partial : partials) {
+                        next.get(uncoveredState).add(new Node(partial, 0, partial.utility + utilities[0]));
+                    }
+                }
+                if (uncoveredRegions < 0 || s + remainingRegions >= uncoveredRegions) {
+                    next.get(s).addAll(bestSums(partials, covered, utilities, numberOfResults));
+                }
+            }
+            for (List<Node> state : next) {
+                state.sort(Comparator.comparingDouble((Node node) -> node.utility).reversed());
+                if (state.size() > numberOfResults) {
+                    state.subList(numberOfResults, state.size()).clear();
+                }
+            }
+            states = next;
+        }
+        return states.get(numberOfStates - 1);
+    }
+
+    /**
+     * @return the numberOfResults best extensions of the (decreasingly sorted) partials by one of the
+     * (decreasingly sorted) options
+     */
+    private List<Node> bestSums(List<Node> partials, Integer[] sortedOptions, double[] utilities, int numberOfResults) {
+        List<Node> result = new ArrayList<>();
+        PriorityQueue<int[]> queue = new PriorityQueue<>((a, b) -> Double.compare(
+                partials.get(b[0]).utility + utilities[sortedOptions[b[1]]],
+                partials.get(a[0]).utility + utilities[sortedOptions[a[1]]]));
+        Set<Long> visited = new HashSet<>();
+        queue.add(new int[]{0, 0});
+        visited.add(0L);
+        while (result.size() < numberOfResults && !queue.isEmpty()) {
+            int[] pair = queue.poll();
+            Node partial = partials.get(pair[0]);
+            int option = sortedOptions[pair[1]];
+            result.add(new Node(partial, option, partial.utility + utilities[option]));
+            if (pair[0] + 1 < partials.size() && visited.add((long) (pair[0] + 1) * sortedOptions.length + pair[1])) {
+                queue.add(new int[]{pair[0] + 1, pair[1]});
+            }
+            if (pair[1] + 1 < sortedOptions.length && visited.add((long) pair[0] * sortedOptions.length + pair[1] + 1)) {
+                queue.add(new int[]{pair[0], pair[1] + 1});
+            }
+        }
+        return result;
+    }
+
+    private MRVMDemandQueryMipResult toResult(Node node) {
+        Map<MRVMGenericDefinition, Integer> quantities = new HashMap<>();
+        BigDecimal price = BigDecimal.ZERO;
+        for (int r = regions.size() - 1; r >= 0; r--, node = node.parent) {
+            for (int b = 0; b < bands.size(); b++) {
+                int quantity = options[node.option][b];
+                if (quantity > 0) {
+                    MRVMGenericDefinition def = new MRVMGenericDefinition(bands.get(b), regions.get(r));
+                    quantities.put(def, quantity);
+                    price = price.add(prices.get(def).multiply(BigDecimal.valueOf(quantity)));
+                }
+            }
+        }
+        BigDecimal value = bidder.calculateValue(quantities);
+        GenericValue.Builder<MRVMGenericDefinition, MRVMLicense> valueBuilder = new GenericValue.Builder<>(value);
+        quantities.forEach(valueBuilder::putQuantity);
+        return new MRVMDemandQueryMipResult.Builder(world, value.subtract(price).doubleValue(), valueBuilder.build()).build();
+    }
+
+    /**
+     * There is no MIP behind this oracle.
+     */
+    @Override
+    public ModelMIP getMip() {
+        throw new UnsupportedOperationException("The MRVM demand query oracle does not use a MIP.");
+    }
+
+    @Override
+    public void setTimeLimit(double timeLimit) {
+        // The oracle is exact and fast, a time limit is not needed
+    }
+
+    @Override
+    public void setRelativeResultPoolTolerance(double resultPoolTolerance) {
+        this.relativeResultPoolTolerance = resultPoolTolerance;
+    }
+
+    @Override
+    public void setAbsoluteResultPoolTolerance(double resultPoolTolerance) {
+        this.absoluteResultPoolTolerance = resultPoolTolerance;
+    }
+
+    /**
+     * A partial bundle, i.e., the chosen option of the last processed region and a link to the options of the
+     * regions before.
+     */
+    private static final class Node {
+
+        private final Node parent;
+        private final int option;
+        private final double utility;
+
+        private Node(Node parent, int option, double utility) {
+            this.parent = parent;
+            this.option = option;
+            this.utility = utility;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.spectrumauctions.sats.opt.model.mrvm.demandquery;
+
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.mrvm.MRVMBidder;
+import org.spectrumauctions.sats.core.model.mrvm.MRVMGenericDefinition;
+import org.spectrumauctions.sats.core.model.mrvm.MRVMLicense;
+import org.spectrumauctions.sats.opt.domain.GenericDemandQueryMIP;
+import org.spectrumauctions.sats.opt.domain.GenericDemandQueryMIPBuilder;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A drop-in replacement for {@link MRVM_DemandQueryMIPBuilder} which answers the demand queries with the
+ * {@link MRVM_DemandQueryOracle}, such that no MIP has to be solved per bidder and round.
+ * The regional value tables of a bidder are calculated in its first query and shared by all later oracles of that
+ * bidder. As the oracle is exact, epsilon is ignored.
+ */
+public class MRVM_DemandQueryOracleBuilder implements GenericDemandQueryMIPBuilder<MRVMGenericDefinition, MRVMLicense> {
+
+    private final Map<MRVMBidder, MRVM_DemandQueryOracle> templates = new ConcurrentHashMap<>();
+
+    @Override
+    public GenericDemandQueryMIP<MRVMGenericDefinition, MRVMLicense> getDemandQueryMipFor(Bidder<MRVMLicense> bidder, Map<MRVMGenericDefinition, BigDecimal> prices, double epsilon) {
+        MRVMBidder mrvmBidder = (MRVMBidder) bidder;
+        MRVM_DemandQueryOracle template = templates.get(mrvmBidder);
+        if (template == null) {
+            MRVM_DemandQueryOracle oracle = new MRVM_DemandQueryOracle(mrvmBidder, prices);
+            templates.put(mrvmBidder, oracle);
+            return oracle;
+        }
+        return new MRVM_DemandQueryOracle(template, prices);
+    }
+}
@@ -12,6 +12,7 @@ import org.spectrumauctions.sats.core.model.Bidder;
 import org.spectrumauctions.sats.core.model.srvm.SRVMBidder;
 import org.spectrumauctions.sats.core.util.math.ContinuousPiecewiseLinearFunction;
 import org.spectrumauctions.sats.opt.domain.PartialMIP;
+import org.spectrumauctions.sats.opt.domain.PiecewiseLinearEncoding;
 import org.spectrumauctions.sats.opt.domain.PiecewiseLinearPartialMIP;
 
 import java.math.BigDecimal;
@@ -37,6 +38,7 @@ public class SRVMBidderPartialMIP extends PartialMIP {
     private Map<Band, Variable> gammaVariables;
     protected final SRVMWorldPartialMip worldPartialMip;
     private final SRVMBidder bidder;
+    private PiecewiseLinearEncoding piecewiseLinearEncoding = PiecewiseLinearEncoding.CONDITIONAL_X;
 
     public SRVMBidderPartialMIP(SRVMBidder bidder, SRVMWorldPartialMip worldMip) {
         this.bidder = bidder;
@@ -44,6 +46,17 @@ public class SRVMBidderPartialMIP extends PartialMIP {
         initVariables();
     }
 
+    /**
+     * Sets the encoding of the alpha, beta and gamma functions. Must be set before the partial MIP is appended to a MIP.
+     */
+    public void setPiecewiseLinearEncoding(PiecewiseLinearEncoding piecewiseLinearEncoding) {
+        this.piecewiseLinearEncoding = Preconditions.checkNotNull(piecewiseLinearEncoding);
+    }
+
+    public PiecewiseLinearEncoding getPiecewiseLinearEncoding() {
+        return piecewiseLinearEncoding;
+    }
+
     private void initVariables() {
         this.zVariables = createZVariables();
         this.wVariable = new Variable(wVariablePrefix + "_" + bidder.getId(), VarType.BOOLEAN, 0, 1);
@@ -232,7 +245,8 @@ public class SRVMBidderPartialMIP extends PartialMIP {
                     new PiecewiseLinearPartialMIP(funcAlpha,
                             inputAlpha,
                             outputAlpha,
-                            "aux_alpha_helper_" + createIndex(bidder, band) + "_");
+                            "aux_alpha_helper_" + createIndex(bidder, band) + "_",
+                            piecewiseLinearEncoding);
             result.add(partialMipAlpha);
 
             // Add C.15
@@ -243,7 +257,8 @@ public class SRVMBidderPartialMIP extends PartialMIP {
                     new PiecewiseLinearPartialMIP(funcBeta,
                             inputBeta,
                             outputBeta,
-                            "aux_beta_helper_" + createIndex(bidder, band) + "_");
+                            "aux_beta_helper_" + createIndex(bidder, band) + "_",
+                            piecewiseLinearEncoding);
             result.add(partialMipBeta);
 
             // Add C.16
@@ -254,7 +269,8 @@ public class SRVMBidderPartialMIP extends PartialMIP {
                     new PiecewiseLinearPartialMIP(funcGamma,
                             inputGamma,
                             outputGamma,
-                            "aux_gamma_helper_" + createIndex(bidder, band) + "_");
+                            "aux_gamma_helper_" + createIndex(bidder, band) + "_",
+                            piecewiseLinearEncoding);
             result.add(partialMipGamma);
         }
         return result;
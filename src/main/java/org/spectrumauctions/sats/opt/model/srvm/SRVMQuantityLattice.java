@@ -0,0 +1,131 @@
+package org.spectrumauctions.sats.opt.model.srvm;
+
+import com.google.common.base.Preconditions;
+import org.spectrumauctions.sats.core.bidlang.generic.GenericValue;
+import org.spectrumauctions.sats.core.model.srvm.SRVMBand;
+import org.spectrumauctions.sats.core.model.srvm.SRVMBidder;
+import org.spectrumauctions.sats.core.model.srvm.SRVMLicense;
+import org.spectrumauctions.sats.core.model.srvm.SRVMWorld;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * The set of all per-band quantity vectors of an SRVM world.<br>
+ * SRVM bidders only value how many licenses of each band they get, so every bundle of interest is a point
+ * (q_1, ..., q_m) with 0 &lt;= q_b &lt;= number of licenses in band b. The points are numbered in mixed radix, i.e.,
+ * point = sum_b q_b * stride_b. If a point p is componentwise smaller or equal than a point c,
+ * the point c - p is numbered c - p, which the dynamic programs in this package use to track remaining capacities.
+ */
+public class SRVMQuantityLattice {
+
+    private final SRVMWorld world;
+    private final List<SRVMBand> bands;
+    private final int[] capacities;
+    private final int[] strides;
+    private final int size;
+
+    public SRVMQuantityLattice(SRVMWorld world) {
+        Preconditions.checkNotNull(world);
+        this.world = world;
+        this.bands = new ArrayList<>(world.getBands());
+        this.bands.sort(Comparator.comparing(SRVMBand::getName));
+        this.capacities = new int[bands.size()];
+        this.strides = new int[bands.size()];
+        int stride = 1;
+        for (int b = 0; b < bands.size(); b++) {
+            capacities[b] = bands.get(b).getNumberOfLicenses();
+            strides[b] = stride;
+            stride *= capacities[b] + 1;
+        }
+        this.size = stride;
+    }
+
+    public SRVMWorld getWorld() {
+        return world;
+    }
+
+    /**
+     * @return the bands, in the order in which they are numbered in the lattice
+     */
+    public List<SRVMBand> getBands() {
+        return Collections.unmodifiableList(bands);
+    }
+
+    /**
+     * @return the number of points, i.e., the product of (number of licenses + 1) over all bands
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the point with all licenses of all bands
+     */
+    public int getTop() {
+        return size - 1;
+    }
+
+    public int getQuantity(int point, int bandIndex) {
+        return point / strides[bandIndex] % (capacities[bandIndex] + 1);
+    }
+
+    /**
+     * @return true if the point has at most as many licenses of each band as the capacity
+     */
+    public boolean fits(int point, int capacity) {
+        for (int b = 0; b < bands.size(); b++) {
+            if (getQuantity(point, b) > getQuantity(capacity, b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Map<SRVMBand, Integer> getQuantities(int point) {
+        Map<SRVMBand, Integer> quantities = new HashMap<>();
+        for (int b = 0; b < bands.size(); b++) {
+            quantities.put(bands.get(b), getQuantity(point, b));
+        }
+        return quantities;
+    }
+
+    /**
+     * @return the value the bidder has for every point of the lattice
+     */
+    public BigDecimal[] calculateValues(SRVMBidder bidder) {
+        Preconditions.checkArgument(bidder.getWorld().equals(world));
+        BigDecimal[] values = new BigDecimal[size];
+        for (int point = 0; point < size; point++) {
+            values[point] = bidder.calculateValue(getQuantities(point));
+        }
+        return values;
+    }
+
+    /**
+     * @return the price of every point of the lattice, given the price per license of each band
+     */
+    public double[] calculatePrices(Map<SRVMBand, BigDecimal> prices) {
+        double[] bandPrices = new double[bands.size()];
+        for (int b = 0; b < bands.size(); b++) {
+            BigDecimal price = prices.get(bands.get(b));
+            Preconditions.checkArgument(price != null, "No price for band %s", bands.get(b).getName());
+            bandPrices[b] = price.doubleValue();
+        }
+        double[] result = new double[size];
+        for (int point = 0; point < size; point++) {
+            for (int b = 0; b < bands.size(); b++) {
+                result[point] += getQuantity(point, b) * bandPrices[b];
+            }
+        }
+        return result;
+    }
+
+    public GenericValue<SRVMBand, SRVMLicense> toGenericValue(int point, BigDecimal value) {
+        GenericValue.Builder<SRVMBand, SRVMLicense> valueBuilder = new GenericValue.Builder<>(value);
+        for (int b = 0; b < bands.size(); b++) {
+            valueBuilder.putQuantity(bands.get(b), getQuantity(point, b));
+        }
+        return valueBuilder.build();
+    }
+}
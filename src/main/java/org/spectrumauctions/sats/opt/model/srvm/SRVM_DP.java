@@ -0,0 +1,135 @@
+package org.spectrumauctions.sats.opt.model.srvm;
+
+import com.google.common.base.Preconditions;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.srvm.SRVMBand;
+import org.spectrumauctions.sats.core.model.srvm.SRVMBidder;
+import org.spectrumauctions.sats.core.model.srvm.SRVMLicense;
+import org.spectrumauctions.sats.core.model.srvm.SRVMWorld;
+import org.spectrumauctions.sats.opt.domain.GenericAllocation;
+import org.spectrumauctions.sats.opt.domain.WinnerDeterminator;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Solves the SRVM winner determination problem exactly with a dynamic program instead of the {@link SRVM_MIP},
+ * such that no MIP solver is needed.<br>
+ * As SRVM bidders only value per-band quantities, the state of the dynamic program is the vector of remaining
+ * licenses per band (see {@link SRVMQuantityLattice}). The bidders are added one after the other, and for every
+ * remaining capacity, the best quantity vector of the current bidder is chosen given the best welfare of the
+ * bidders after it. With the default world (6, 14 and 9 licenses), there are 1050 states and the effort per bidder
+ * is below a million steps, independent of the bidders' values.
+ */
+public class SRVM_DP implements WinnerDeterminator<SRVMLicense> {
+
+    private static final Logger logger = LogManager.getLogger(SRVM_DP.class);
+
+    private final SRVMWorld world;
+    private final List<SRVMBidder> bidders;
+    private final SRVMQuantityLattice lattice;
+    private final Map<SRVMBidder, BigDecimal[]> values;
+
+    private Map<Bidder<SRVMLicense>, Double> payoffs = new HashMap<>();
+
+    public SRVM_DP(Collection<SRVMBidder> bidders) {
+        this(bidders.iterator().next().getWorld(), bidders);
+    }
+
+    public SRVM_DP(SRVMWorld world, Collection<SRVMBidder> bidders) {
+        this(world, bidders, new SRVMQuantityLattice(world), new ConcurrentHashMap<>());
+    }
+
+    private SRVM_DP(SRVMWorld world, Collection<SRVMBidder> bidders, SRVMQuantityLattice lattice, Map<SRVMBidder, BigDecimal[]> values) {
+        Preconditions.checkNotNull(world);
+        Preconditions.checkNotNull(bidders);
+        this.world = world;
+        this.bidders = new ArrayList<>(bidders);
+        this.bidders.sort(Comparator.comparingLong(SRVMBidder::getId));
+        this.lattice = lattice;
+        this.values = values;
+        for (SRVMBidder bidder : this.bidders) {
+            this.values.computeIfAbsent(bidder, lattice::calculateValues);
+        }
+    }
+
+    @Override
+    public GenericAllocation<SRVMBand, SRVMLicense> calculateAllocation() {
+        int n = bidders.size();
+        int size = lattice.size();
+        // best[c] is the highest welfare of the bidders i, ..., n-1 with the remaining capacity c
+        double[] best = new double[size];
+        int[][] choice = new int[n][size];
+        for (int i = n - 1; i >= 0; i--) {
+            SRVMBidder bidder = bidders.get(i);
+            double[] bidderValues = adjustedValues(bidder);
+            double[] next = new double[size];
+            for (int capacity = 0; capacity < size; capacity++) {
+                double bestValue = Double.NEGATIVE_INFINITY;
+                int bestPoint = 0;
+                for (int point = 0; point <= capacity; point++) {
+                    if (lattice.fits(point, capacity)) {
+                        double value = bidderValues[point] + best[capacity - point];
+                        if (value > bestValue) {
+                            bestValue = value;
+                            bestPoint = point;
+                        }
+                    }
+                }
+                next[capacity] = bestValue;
+                choice[i][capacity] = bestPoint;
+            }
+            best = next;
+        }
+
+        GenericAllocation.Builder<SRVMBand, SRVMLicense> builder = new GenericAllocation.Builder<>();
+        int capacity = lattice.getTop();
+        for (int i = 0; i < n; i++) {
+            SRVMBidder bidder = bidders.get(i);
+            int point = choice[i][capacity];
+            // Only winners are part of the allocation
+            if (point != 0) {
+                builder.putGenericValue(bidder, lattice.toGenericValue(point, values.get(bidder)[point]));
+                capacity -= point;
+            }
+        }
+        logger.debug("Solved SRVM winner determination for {} bidders with objective {}.", n, n == 0 ? 0 : best[lattice.getTop()]);
+        return new GenericAllocation<>(builder);
+    }
+
+    private double[] adjustedValues(SRVMBidder bidder) {
+        BigDecimal[] bidderValues = values.get(bidder);
+        double payoff = payoffs.getOrDefault(bidder, 0.0);
+        double[] result = new double[bidderValues.length];
+        for (int point = 0; point < bidderValues.length; point++) {
+            // Only winning bidders, i.e., bidders with a non-empty bundle, have their payoff subtracted
+            result[point] = bidderValues[point].doubleValue() - (point == 0 ? 0 : payoff);
+        }
+        return result;
+    }
+
+    @Override
+    public WinnerDeterminator<SRVMLicense> getWdWithoutBidder(Bidder<SRVMLicense> bidder) {
+        Preconditions.checkArgument(bidders.contains(bidder));
+        return new SRVM_DP(world, bidders.stream().filter(b -> !b.equals(bidder)).collect(Collectors.toList()), lattice, values);
+    }
+
+    @Override
+    public WinnerDeterminator<SRVMLicense> copyOf() {
+        return new SRVM_DP(world, bidders, lattice, values);
+    }
+
+    @Override
+    public void adjustPayoffs(Map<Bidder<SRVMLicense>, Double> payoffs) {
+        this.payoffs = new HashMap<>(payoffs);
+    }
+
+    @Override
+    public double getScale() {
+        return 1;
+    }
+}
@@ -8,7 +8,6 @@ package org.spectrumauctions.sats.opt.model.srvm;
 import com.google.common.base.Preconditions;
 import edu.harvard.econcs.jopt.solver.IMIPResult;
 import edu.harvard.econcs.jopt.solver.SolveParam;
-import edu.harvard.econcs.jopt.solver.client.SolverClient;
 import edu.harvard.econcs.jopt.solver.mip.Constraint;
 import edu.harvard.econcs.jopt.solver.mip.MIP;
 import edu.harvard.econcs.jopt.solver.mip.Variable;
@@ -21,6 +20,8 @@ import org.spectrumauctions.sats.core.model.srvm.SRVMBand;
 import org.spectrumauctions.sats.core.model.srvm.SRVMBidder;
 import org.spectrumauctions.sats.core.model.srvm.SRVMLicense;
 import org.spectrumauctions.sats.core.model.srvm.SRVMWorld;
+import org.spectrumauctions.sats.opt.domain.PiecewiseLinearEncoding;
+import org.spectrumauctions.sats.opt.domain.SolverExecutionService;
 import org.spectrumauctions.sats.opt.domain.WinnerDeterminator;
 import org.spectrumauctions.sats.opt.model.ModelMIP;
 
@@ -40,8 +41,6 @@ public class SRVM_MIP extends ModelMIP implements WinnerDeterminator<SRVMLicense
 
     public static boolean PRINT_SOLVER_RESULT = false;
 
-    private static SolverClient SOLVER = new SolverClient();
-
     private double scalingFactor;
 
     /**
@@ -52,11 +51,20 @@ public class SRVM_MIP extends ModelMIP implements WinnerDeterminator<SRVMLicense
     private SRVMWorldPartialMip worldPartialMip;
     private Map<SRVMBidder, SRVMBidderPartialMIP> bidderPartialMips;
     private SRVMWorld world;
+    private final PiecewiseLinearEncoding piecewiseLinearEncoding;
 
     public SRVM_MIP(Collection<SRVMBidder> bidders) {
+        this(bidders, PiecewiseLinearEncoding.CONDITIONAL_X);
+    }
+
+    /**
+     * @param piecewiseLinearEncoding the encoding of the piecewise linear alpha, beta and gamma functions of all bidders
+     */
+    public SRVM_MIP(Collection<SRVMBidder> bidders, PiecewiseLinearEncoding piecewiseLinearEncoding) {
         Preconditions.checkNotNull(bidders);
         Preconditions.checkArgument(bidders.size() > 0);
         world = bidders.iterator().next().getWorld();
+        this.piecewiseLinearEncoding = Preconditions.checkNotNull(piecewiseLinearEncoding);
         getMip().setSolveParam(SolveParam.RELATIVE_OBJ_GAP, 0.001);
         scalingFactor = calculateScalingFactor(bidders);
         double biggestPossibleValue = biggestUnscaledPossibleValue(bidders).doubleValue() / scalingFactor;
@@ -69,6 +77,7 @@ public class SRVM_MIP extends ModelMIP implements WinnerDeterminator<SRVMLicense
         for (SRVMBidder bidder : bidders) {
             SRVMBidderPartialMIP bidderPartialMIP;
             bidderPartialMIP = new SRVMBidderPartialMIP(bidder, worldPartialMip);
+            bidderPartialMIP.setPiecewiseLinearEncoding(piecewiseLinearEncoding);
             bidderPartialMIP.appendToMip(getMip());
             bidderPartialMips.put(bidder, bidderPartialMIP);
         }
@@ -112,7 +121,7 @@ public class SRVM_MIP extends ModelMIP implements WinnerDeterminator<SRVMLicense
     @Override
     public WinnerDeterminator<SRVMLicense> getWdWithoutBidder(Bidder<SRVMLicense> bidder) {
         Preconditions.checkArgument(bidderPartialMips.containsKey(bidder));
-        return new SRVM_MIP(bidderPartialMips.keySet().stream().filter(b -> !b.equals(bidder)).collect(Collectors.toSet()));
+        return new SRVM_MIP(bidderPartialMips.keySet().stream().filter(b -> !b.equals(bidder)).collect(Collectors.toSet()), piecewiseLinearEncoding);
     }
 
     /* (non-Javadoc)
@@ -120,7 +129,7 @@ public class SRVM_MIP extends ModelMIP implements WinnerDeterminator<SRVMLicense
      */
     @Override
     public SRVMMipResult calculateAllocation() {
-        IMIPResult mipResult = SOLVER.solve(getMip());
+        IMIPResult mipResult = SolverExecutionService.getDefault().solve(getMip());
         if (PRINT_SOLVER_RESULT) {
             logger.info("Result:\n" + mipResult);
         }
@@ -150,7 +159,11 @@ public class SRVM_MIP extends ModelMIP implements WinnerDeterminator<SRVMLicense
 
     @Override
     public WinnerDeterminator<SRVMLicense> copyOf() {
-        return new SRVM_MIP(bidderPartialMips.keySet());
+        return new SRVM_MIP(bidderPartialMips.keySet(), piecewiseLinearEncoding);
+    }
+
+    public PiecewiseLinearEncoding getPiecewiseLinearEncoding() {
+        return piecewiseLinearEncoding;
     }
 
     @Override
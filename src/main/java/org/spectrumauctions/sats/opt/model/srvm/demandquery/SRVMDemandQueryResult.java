@@ -0,0 +1,36 @@
+package org.spectrumauctions.sats.opt.model.srvm.demandquery;
+
+import org.spectrumauctions.sats.core.bidlang.generic.GenericValue;
+import org.spectrumauctions.sats.core.model.srvm.SRVMBand;
+import org.spectrumauctions.sats.core.model.srvm.SRVMLicense;
+import org.spectrumauctions.sats.opt.domain.GenericDemandQueryResult;
+
+import java.math.BigDecimal;
+
+public final class SRVMDemandQueryResult implements GenericDemandQueryResult<SRVMBand, SRVMLicense> {
+
+    private final BigDecimal totalUtility;
+    private final GenericValue<SRVMBand, SRVMLicense> resultingBundle;
+
+    public SRVMDemandQueryResult(BigDecimal totalUtility, GenericValue<SRVMBand, SRVMLicense> resultingBundle) {
+        this.totalUtility = totalUtility;
+        this.resultingBundle = resultingBundle;
+    }
+
+    @Override
+    public GenericValue<SRVMBand, SRVMLicense> getResultingBundle() {
+        return resultingBundle;
+    }
+
+    public BigDecimal getTotalUtility() {
+        return totalUtility;
+    }
+
+    @Override
+    public String toString() {
+        return "SRVMDemandQueryResult{" +
+                "totalUtility=" + totalUtility +
+                ", resultingBundle=" + resultingBundle +
+                '}';
+    }
+}
@@ -0,0 +1,122 @@
+package org.spectrumauctions.sats.opt.model.srvm.demandquery;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.spectrumauctions.sats.core.model.srvm.SRVMBand;
+import org.spectrumauctions.sats.core.model.srvm.SRVMBidder;
+import org.spectrumauctions.sats.core.model.srvm.SRVMLicense;
+import org.spectrumauctions.sats.opt.domain.GenericDemandQueryMIP;
+import org.spectrumauctions.sats.opt.model.ModelMIP;
+import org.spectrumauctions.sats.opt.model.srvm.SRVMQuantityLattice;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Answers SRVM demand queries exactly and without a MIP solver.<br>
+ * SRVM bidders only value per-band quantities, so the oracle evaluates the price-adjusted utility of every point of
+ * the {@link SRVMQuantityLattice} (1050 points in the default world) and returns the best ones.
+ * The values of a bidder are only calculated once per oracle, so a query with new prices (see {@link #setPrices(Map)})
+ * only costs one pass over the lattice.
+ * There is no underlying MIP, so {@link #getMip()} is not supported and the time limit is ignored.
+ */
+public class SRVM_DemandQueryOracle implements GenericDemandQueryMIP<SRVMBand, SRVMLicense> {
+
+    private static final Logger logger = LogManager.getLogger(SRVM_DemandQueryOracle.class);
+
+    private final SRVMBidder bidder;
+    private final SRVMQuantityLattice lattice;
+    private final BigDecimal[] values;
+    private double[] prices;
+    // As for the MIPs, a tolerance of 0 means that the result pool is not restricted
+    private double relativeResultPoolTolerance = 0;
+    private double absoluteResultPoolTolerance = 0;
+
+    public SRVM_DemandQueryOracle(SRVMBidder bidder, Map<SRVMBand, BigDecimal> prices) {
+        this(bidder, new SRVMQuantityLattice(bidder.getWorld()), prices);
+    }
+
+    public SRVM_DemandQueryOracle(SRVMBidder bidder, SRVMQuantityLattice lattice, Map<SRVMBand, BigDecimal> prices) {
+        this(bidder, lattice, lattice.calculateValues(bidder), prices);
+    }
+
+    /**
+     * @param values the values of the bidder for all points of the lattice, as calculated by
+     *               {@link SRVMQuantityLattice#calculateValues(SRVMBidder)}
+     */
+    SRVM_DemandQueryOracle(SRVMBidder bidder, SRVMQuantityLattice lattice, BigDecimal[] values, Map<SRVMBand, BigDecimal> prices) {
+        Preconditions.checkNotNull(bidder);
+        Preconditions.checkNotNull(lattice);
+        Preconditions.checkArgument(values.length == lattice.size());
+        this.bidder = bidder;
+        this.lattice = lattice;
+        this.values = values;
+        setPrices(prices);
+    }
+
+    /**
+     * Replaces the prices of the demand query, such that the same oracle can be queried in every clock round.
+     */
+    public void setPrices(Map<SRVMBand, BigDecimal> prices) {
+        Preconditions.checkNotNull(prices);
+        this.prices = lattice.calculatePrices(prices);
+    }
+
+    @Override
+    public SRVMDemandQueryResult getResult() {
+        return getResultPool(1).get(0);
+    }
+
+    @Override
+    public List<SRVMDemandQueryResult> getResultPool(int numberOfResults) {
+        if (numberOfResults < 1) {
+            return Lists.newArrayList();
+        }
+        double[] utilities = new double[lattice.size()];
+        Integer[] points = new Integer[lattice.size()];
+        for (int point = 0; point < lattice.size(); point++) {
+            utilities[point] = values[point].doubleValue() - prices[point];
+            points[point] = point;
+        }
+        Arrays.sort(points, (a, b) -> Double.compare(utilities[b], utilities[a]));
+
+        List<SRVMDemandQueryResult> results = new ArrayList<>();
+        double best = utilities[points[0]];
+        for (int i = 0; i < points.length && results.size() < numberOfResults; i++) {
+            int point = points[i];
+            double gap = best - utilities[point];
+            if (absoluteResultPoolTolerance > 0 && gap > absoluteResultPoolTolerance
+                    || relativeResultPoolTolerance > 0 && gap > relativeResultPoolTolerance * Math.abs(best)) {
+                break;
+            }
+            results.add(new SRVMDemandQueryResult(BigDecimal.valueOf(utilities[point]), lattice.toGenericValue(point, values[point])));
+        }
+        logger.debug("Answered demand query of bidder {} with {} bundles.", bidder.getId(), results.size());
+        return results;
+    }
+
+    /**
+     * There is no MIP behind this oracle.
+     */
+    @Override
+    public ModelMIP getMip() {
+        throw new UnsupportedOperationException("The SRVM demand query oracle does not use a MIP.");
+    }
+
+    @Override
+    public void setTimeLimit(double timeLimit) {
+        // The oracle is exact and fast, a time limit is not needed
+    }
+
+    @Override
+    public void setRelativeResultPoolTolerance(double resultPoolTolerance) {
+        this.relativeResultPoolTolerance = resultPoolTolerance;
+    }
+
+    @Override
+    public void setAbsoluteResultPoolTolerance(double resultPoolTolerance) {
+        this.absoluteResultPoolTolerance = resultPoolTolerance;
+    }
+}
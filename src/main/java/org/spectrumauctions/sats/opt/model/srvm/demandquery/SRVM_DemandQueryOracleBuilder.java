@@ -0,0 +1,40 @@
+package org.spectrumauctions.sats.opt.model.srvm.demandquery;
+
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.srvm.SRVMBand;
+import org.spectrumauctions.sats.core.model.srvm.SRVMBidder;
+import org.spectrumauctions.sats.core.model.srvm.SRVMLicense;
+import org.spectrumauctions.sats.opt.domain.GenericDemandQueryMIP;
+import org.spectrumauctions.sats.opt.domain.GenericDemandQueryMIPBuilder;
+import org.spectrumauctions.sats.opt.model.srvm.SRVMQuantityLattice;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates {@link SRVM_DemandQueryOracle}s, e.g., to run a generic CCA on SRVM without a MIP solver.
+ * The values of a bidder are calculated in its first query and shared by all later oracles of that bidder.
+ * As the oracle is exact, epsilon is ignored.
+ */
+public class SRVM_DemandQueryOracleBuilder implements GenericDemandQueryMIPBuilder<SRVMBand, SRVMLicense> {
+
+    private SRVMQuantityLattice lattice;
+    private final Map<SRVMBidder, BigDecimal[]> values = new ConcurrentHashMap<>();
+
+    @Override
+    public GenericDemandQueryMIP<SRVMBand, SRVMLicense> getDemandQueryMipFor(Bidder<SRVMLicense> bidder, Map<SRVMBand, BigDecimal> prices, double epsilon) {
+        SRVMBidder srvmBidder = (SRVMBidder) bidder;
+        SRVMQuantityLattice lattice = getLattice(srvmBidder);
+        BigDecimal[] bidderValues = values.computeIfAbsent(srvmBidder, lattice::calculateValues);
+        return new SRVM_DemandQueryOracle(srvmBidder, lattice, bidderValues, prices);
+    }
+
+    private synchronized SRVMQuantityLattice getLattice(SRVMBidder bidder) {
+        if (lattice == null || !lattice.getWorld().equals(bidder.getWorld())) {
+            lattice = new SRVMQuantityLattice(bidder.getWorld());
+            values.clear();
+        }
+        return lattice;
+    }
+}
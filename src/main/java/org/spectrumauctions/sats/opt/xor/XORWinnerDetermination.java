@@ -5,9 +5,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.math.DoubleMath;
 import edu.harvard.econcs.jopt.solver.IMIP;
 import edu.harvard.econcs.jopt.solver.IMIPResult;
-import edu.harvard.econcs.jopt.solver.IMIPSolver;
 import edu.harvard.econcs.jopt.solver.SolveParam;
-import edu.harvard.econcs.jopt.solver.client.SolverClient;
 import edu.harvard.econcs.jopt.solver.mip.*;
 import org.spectrumauctions.sats.core.bidlang.xor.XORBid;
 import org.spectrumauctions.sats.core.bidlang.xor.XORValue;
@@ -15,15 +13,18 @@ import org.spectrumauctions.sats.core.model.Bidder;
 import org.spectrumauctions.sats.core.model.Bundle;
 import org.spectrumauctions.sats.core.model.Good;
 import org.spectrumauctions.sats.core.model.World;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
 import org.spectrumauctions.sats.opt.domain.Allocation;
 import org.spectrumauctions.sats.opt.domain.ItemAllocation;
+import org.spectrumauctions.sats.opt.domain.PayoffAdjustment;
+import org.spectrumauctions.sats.opt.domain.SolverExecutionService;
+import org.spectrumauctions.sats.opt.domain.WinnerDeterminationCache;
+import org.spectrumauctions.sats.opt.domain.WinnerDeterminationPreprocessing;
 import org.spectrumauctions.sats.opt.domain.WinnerDeterminator;
 
 import java.math.BigDecimal;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
 /**
@@ -36,10 +37,15 @@ public class XORWinnerDetermination<T extends Good> implements WinnerDeterminato
     private Collection<XORBid<T>> bids;
     private IMIP winnerDeterminationProgram;
     private Allocation<T> result = null;
+    private PayoffAdjustment<T> payoffAdjustment;
     private World world;
     private double scalingFactor = 1;
     private double epsilon;
-
+    private boolean preprocessing = false;
+    private List<XORWinnerDetermination<T>> components;
+    private WinnerDeterminationPreprocessing.Statistics preprocessingStatistics;
+    private WinnerDeterminationCache cache;
+    private boolean payoffsAdjusted = false;
 
     public XORWinnerDetermination(Collection<XORBid<T>> bids) {
         this(bids, 1e-8);
@@ -62,9 +68,33 @@ public class XORWinnerDetermination<T extends Good> implements WinnerDeterminato
             this.scalingFactor = (MIP.MAX_VALUE * 0.9) / maxValue;
         }
         this.world = bids.iterator().next().getBidder().getWorld();
-        winnerDeterminationProgram = createWinnerDeterminationMIP();
         this.epsilon = epsilon;
-        winnerDeterminationProgram.setSolveParam(SolveParam.RELATIVE_OBJ_GAP, epsilon);
+    }
+
+    /**
+     * Enables the preprocessing of the bids before they are handed to the solver: Dominated bundle bids are removed
+     * and the instance is split into independent sub-instances, which are solved in parallel.
+     * See {@link WinnerDeterminationPreprocessing}.
+     */
+    public void setPreprocessing(boolean preprocessing) {
+        Preconditions.checkState(winnerDeterminationProgram == null && components == null,
+                "Preprocessing has to be configured before the winner determination is used.");
+        this.preprocessing = preprocessing;
+    }
+
+    /**
+     * Sets a cache which is queried before the winner determination is solved and which stores the solution
+     * afterwards. Instances with adjusted payoffs are never cached.
+     */
+    public void setCache(WinnerDeterminationCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @return the statistics of the preprocessing, or null if the preprocessing has not (yet) been applied
+     */
+    public WinnerDeterminationPreprocessing.Statistics getPreprocessingStatistics() {
+        return preprocessingStatistics;
     }
 
     private IMIP createWinnerDeterminationMIP() {
@@ -104,47 +134,86 @@ public class XORWinnerDetermination<T extends Good> implements WinnerDeterminato
     }
 
     protected IMIP getMIP() {
+        if (winnerDeterminationProgram == null) {
+            winnerDeterminationProgram = createWinnerDeterminationMIP();
+            winnerDeterminationProgram.setSolveParam(SolveParam.RELATIVE_OBJ_GAP, epsilon);
+        }
         return winnerDeterminationProgram;
     }
 
+    private List<XORWinnerDetermination<T>> getComponents() {
+        if (components == null) {
+            int valuesBefore = 0;
+            List<XORBid<T>> prunedBids = new ArrayList<>();
+            for (XORBid<T> bid : bids) {
+                valuesBefore += bid.getValues().size();
+                List<XORValue<T>> remaining = WinnerDeterminationPreprocessing.removeDominated(bid.getValues(),
+                        (a, b) -> b.getLicenses().containsAll(a.getLicenses()) && a.value().compareTo(b.value()) >= 0,
+                        v -> v.value().signum() > 0);
+                if (!remaining.isEmpty()) {
+                    prunedBids.add(new XORBid.Builder<>(bid.getBidder(), remaining).build());
+                }
+            }
+            List<List<XORBid<T>>> split = WinnerDeterminationPreprocessing.connectedComponents(prunedBids,
+                    bid -> bid.getValues().stream().flatMap(v -> v.getLicenses().stream()).collect(Collectors.toSet()));
+            components = new ArrayList<>();
+            for (List<XORBid<T>> component : split) {
+                components.add(new XORWinnerDetermination<>(component, epsilon));
+            }
+            preprocessingStatistics = new WinnerDeterminationPreprocessing.Statistics(valuesBefore,
+                    prunedBids.stream().mapToInt(b -> b.getValues().size()).sum(),
+                    split.size(), split.stream().mapToInt(List::size).max().orElse(0));
+        }
+        return components;
+    }
+
     private Variable getBidVariable(Bidder<T> bidder, XORValue<T> bundleBid) {
         return bidVariables.get(bidder).get(bundleBid.getId());
     }
 
     @Override
     public WinnerDeterminator<T> getWdWithoutBidder(Bidder bidder) {
-        return new XORWinnerDetermination<>(bids.stream().filter(b -> !b.getBidder().equals(bidder)).collect(Collectors.toSet()), epsilon);
+        XORWinnerDetermination<T> wdWithoutBidder = new XORWinnerDetermination<>(bids.stream().filter(b -> !b.getBidder().equals(bidder)).collect(Collectors.toSet()), epsilon);
+        wdWithoutBidder.setPreprocessing(preprocessing);
+        wdWithoutBidder.setCache(cache);
+        return wdWithoutBidder;
     }
 
     @Override
     public Allocation<T> calculateAllocation() {
         if (result == null) {
+            long start = System.nanoTime();
             result = solveWinnerDetermination();
+            Metrics.time(Metrics.WDP_SOLVE, System.nanoTime() - start, "type", "XOR");
         }
         return result;
     }
 
     @Override
     public WinnerDeterminator<T> copyOf() {
-        return new XORWinnerDetermination<>(bids, epsilon);
+        XORWinnerDetermination<T> copy = new XORWinnerDetermination<>(bids, epsilon);
+        copy.setPreprocessing(preprocessing);
+        copy.setCache(cache);
+        return copy;
     }
 
     @Override
     public void adjustPayoffs(Map<Bidder<T>, Double> payoffs) {
-        for (XORBid<T> bidPerBidder : bids) {
-            Variable x = new Variable("x_" + bidPerBidder.getBidder().getId(), VarType.BOOLEAN, 0, 1);
-            winnerDeterminationProgram.add(x);
-            winnerDeterminationProgram.addObjectiveTerm(-payoffs.getOrDefault(bidPerBidder.getBidder(), 0.0) * scalingFactor, x);
-
-            Constraint x1 = new Constraint(CompareType.GEQ, 0);
-            Constraint x2 = new Constraint(CompareType.LEQ, 0);
-            x1.addTerm(-1, x);
-            x2.addTerm(-MIP.MAX_VALUE, x);
-            bidPerBidder.getValues().forEach(b -> x1.addTerm(1, bidVariables.get(bidPerBidder.getBidder()).get(b.getId())));
-            bidPerBidder.getValues().forEach(b -> x2.addTerm(1, bidVariables.get(bidPerBidder.getBidder()).get(b.getId())));
-            winnerDeterminationProgram.add(x1);
-            winnerDeterminationProgram.add(x2);
+        payoffsAdjusted = true;
+        if (preprocessing) {
+            // Each bidder belongs to exactly one component, which ignores the payoffs of the other bidders
+            getComponents().forEach(component -> component.adjustPayoffs(payoffs));
+            result = null;
+            return;
+        }
+        if (payoffAdjustment == null) {
+            IMIP mip = getMIP();
+            Map<Bidder<T>, Collection<Variable>> allocationVariables = new HashMap<>();
+            bidVariables.forEach((bidder, variables) -> allocationVariables.put(bidder, variables.values()));
+            payoffAdjustment = new PayoffAdjustment<>(mip, allocationVariables, scalingFactor);
         }
+        payoffAdjustment.setPayoffs(payoffs);
+        result = null;
     }
 
     @Override
@@ -153,13 +222,72 @@ public class XORWinnerDetermination<T extends Good> implements WinnerDeterminato
     }
 
     private Allocation<T> solveWinnerDetermination() {
-        IMIPSolver solver = new SolverClient();
-        IMIPResult mipResult = solver.solve(getMIP());
-        return adaptMIPResult(mipResult);
+        String key = null;
+        if (cache != null && !payoffsAdjusted) {
+            key = WinnerDeterminationCache.key("XOR", epsilon, bids.stream()
+                    .flatMap(bid -> bid.getValues().stream().map(value -> fingerprint(bid.getBidder(), value.getLicenses(), value.value())))
+                    .collect(Collectors.toList()));
+            List<String> winners = cache.get(key);
+            if (winners != null) {
+                // Every fingerprint marks exactly one bundle bid as winning, even if a bidder submitted duplicates
+                List<String> remaining = new ArrayList<>(winners);
+                return toAllocation((bidder, bundleBid) -> remaining.remove(fingerprint(bidder, bundleBid.getLicenses(), bundleBid.value())));
+            }
+        }
+
+        Allocation<T> allocation;
+        if (preprocessing) {
+            allocation = solveComponents();
+        } else {
+            IMIPResult mipResult = SolverExecutionService.getDefault().solve(getMIP());
+            allocation = adaptMIPResult(mipResult);
+        }
+
+        if (key != null) {
+            List<String> winners = new ArrayList<>();
+            for (Bidder<T> winner : allocation.getWinners()) {
+                winners.add(fingerprint(winner, allocation.getAllocation(winner), allocation.getTradeValue(winner)));
+            }
+            cache.put(key, winners);
+        }
+        return allocation;
+    }
+
+    private static String fingerprint(Bidder<?> bidder, Bundle<?> licenses, BigDecimal value) {
+        return WinnerDeterminationCache.fingerprint(bidder, licenses.itemIds(","), value);
+    }
+
+    private Allocation<T> solveComponents() {
+        // The components are solved on other threads, which have to report in the run of this thread
+        String runId = Metrics.getCurrentRunId();
+        List<Allocation<T>> partialResults = getComponents().parallelStream()
+                .map(component -> Metrics.inRun(runId, component::calculateAllocation))
+                .collect(Collectors.toList());
+
+        Map<Bidder<T>, Bundle<T>> trades = new HashMap<>();
+        Map<Bidder<T>, BigDecimal> declaredValues = new HashMap<>();
+        BigDecimal totalValue = BigDecimal.ZERO;
+        for (Allocation<T> partialResult : partialResults) {
+            for (Bidder<T> winner : partialResult.getWinners()) {
+                trades.put(winner, partialResult.getAllocation(winner));
+                declaredValues.put(winner, partialResult.getTradeValue(winner));
+            }
+            totalValue = totalValue.add(partialResult.getTotalValue());
+        }
+
+        ItemAllocation.ItemAllocationBuilder<T> builder = new ItemAllocation.ItemAllocationBuilder<>();
+        return builder
+                .withAllocation(trades)
+                .withTotalValue(totalValue)
+                .withDeclaredValues(declaredValues)
+                .withWorld(world).build();
     }
 
     private Allocation<T> adaptMIPResult(IMIPResult mipResult) {
+        return toAllocation((bidder, bundleBid) -> DoubleMath.fuzzyEquals(mipResult.getValue(getBidVariable(bidder, bundleBid)), 1, 1e-3));
+    }
 
+    private Allocation<T> toAllocation(BiPredicate<Bidder<T>, XORValue<T>> isWinning) {
         Map<Bidder<T>, Bundle<T>> trades = new HashMap<>();
         Map<Bidder<T>, BigDecimal> declaredValues = new HashMap<>();
         BigDecimal totalValue = BigDecimal.ZERO;
@@ -167,7 +295,7 @@ public class XORWinnerDetermination<T extends Good> implements WinnerDeterminato
             BigDecimal bidValue = BigDecimal.ZERO;
             ImmutableSet.Builder<T> goodsBuilder = ImmutableSet.builder();
             for (XORValue<T> bundleBid : xorBid.getValues()) {
-                if (DoubleMath.fuzzyEquals(mipResult.getValue(getBidVariable(xorBid.getBidder(), bundleBid)), 1, 1e-3)) {
+                if (isWinning.test(xorBid.getBidder(), bundleBid)) {
                     goodsBuilder.addAll(bundleBid.getLicenses());
                     totalValue = totalValue.add(bundleBid.value());
                     bidValue = bidValue.add(bundleBid.value());
@@ -4,33 +4,39 @@ import com.google.common.base.Preconditions;
 import com.google.common.math.DoubleMath;
 import edu.harvard.econcs.jopt.solver.IMIP;
 import edu.harvard.econcs.jopt.solver.IMIPResult;
-import edu.harvard.econcs.jopt.solver.IMIPSolver;
 import edu.harvard.econcs.jopt.solver.SolveParam;
-import edu.harvard.econcs.jopt.solver.client.SolverClient;
 import edu.harvard.econcs.jopt.solver.mip.*;
 import org.spectrumauctions.sats.core.bidlang.generic.GenericBid;
 import org.spectrumauctions.sats.core.bidlang.generic.GenericDefinition;
 import org.spectrumauctions.sats.core.bidlang.generic.GenericValue;
 import org.spectrumauctions.sats.core.model.Bidder;
 import org.spectrumauctions.sats.core.model.Good;
+import org.spectrumauctions.sats.core.util.metrics.Metrics;
 import org.spectrumauctions.sats.opt.domain.Allocation;
 import org.spectrumauctions.sats.opt.domain.GenericAllocation;
+import org.spectrumauctions.sats.opt.domain.PayoffAdjustment;
+import org.spectrumauctions.sats.opt.domain.SolverExecutionService;
+import org.spectrumauctions.sats.opt.domain.WinnerDeterminationCache;
+import org.spectrumauctions.sats.opt.domain.WinnerDeterminationPreprocessing;
 import org.spectrumauctions.sats.opt.domain.WinnerDeterminator;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
-import static edu.harvard.econcs.jopt.solver.mip.MIP.MAX_VALUE;
-
 public class XORQWinnerDetermination<G extends GenericDefinition<T>, T extends Good> implements WinnerDeterminator<T> {
     private Map<Bidder<T>, Map<Integer, Variable>> bidVariables = new HashMap<>();
     private Set<GenericBid<G, T>> bids;
     private IMIP winnerDeterminationProgram;
     private Allocation<T> result = null;
+    private PayoffAdjustment<T> payoffAdjustment;
     private double scalingFactor = 1;
     private double epsilon;
+    private boolean preprocessing = false;
+    private List<XORQWinnerDetermination<G, T>> components;
+    private WinnerDeterminationPreprocessing.Statistics preprocessingStatistics;
+    private WinnerDeterminationCache cache;
+    private boolean payoffsAdjusted = false;
 
     public XORQWinnerDetermination(Set<GenericBid<G, T>> bids) {
         this(bids, 1e-8);
@@ -53,9 +59,33 @@ public class XORQWinnerDetermination<G extends GenericDefinition<T>, T extends G
             this.scalingFactor = (MIP.MAX_VALUE * 0.9) / maxValue;
         }
 
-        winnerDeterminationProgram = createWinnerDeterminationMIP();
         this.epsilon = epsilon;
-        winnerDeterminationProgram.setSolveParam(SolveParam.RELATIVE_OBJ_GAP, epsilon);
+    }
+
+    /**
+     * Enables the preprocessing of the bids before they are handed to the solver: Dominated bundle bids are removed
+     * and the instance is split into independent sub-instances, which are solved in parallel.
+     * See {@link WinnerDeterminationPreprocessing}.
+     */
+    public void setPreprocessing(boolean preprocessing) {
+        Preconditions.checkState(winnerDeterminationProgram == null && components == null,
+                "Preprocessing has to be configured before the winner determination is used.");
+        this.preprocessing = preprocessing;
+    }
+
+    /**
+     * Sets a cache which is queried before the winner determination is solved and which stores the solution
+     * afterwards. Instances with adjusted payoffs are never cached.
+     */
+    public void setCache(WinnerDeterminationCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @return the statistics of the preprocessing, or null if the preprocessing has not (yet) been applied
+     */
+    public WinnerDeterminationPreprocessing.Statistics getPreprocessingStatistics() {
+        return preprocessingStatistics;
     }
 
     private IMIP createWinnerDeterminationMIP() {
@@ -98,49 +128,137 @@ public class XORQWinnerDetermination<G extends GenericDefinition<T>, T extends G
     }
 
     protected IMIP getMIP() {
+        if (winnerDeterminationProgram == null) {
+            winnerDeterminationProgram = createWinnerDeterminationMIP();
+            winnerDeterminationProgram.setSolveParam(SolveParam.RELATIVE_OBJ_GAP, epsilon);
+        }
         return winnerDeterminationProgram;
     }
 
+    private List<XORQWinnerDetermination<G, T>> getComponents() {
+        if (components == null) {
+            int valuesBefore = 0;
+            List<GenericBid<G, T>> prunedBids = new ArrayList<>();
+            for (GenericBid<G, T> bid : bids) {
+                valuesBefore += bid.getValues().size();
+                List<GenericValue<G, T>> remaining = WinnerDeterminationPreprocessing.removeDominated(bid.getValues(),
+                        (a, b) -> isSmallerOrEqual(a, b) && a.getValue().compareTo(b.getValue()) >= 0,
+                        v -> v.getValue().signum() > 0);
+                if (!remaining.isEmpty()) {
+                    prunedBids.add(new GenericBid<>(bid.getBidder(), remaining));
+                }
+            }
+            List<List<GenericBid<G, T>>> split = WinnerDeterminationPreprocessing.connectedComponents(prunedBids,
+                    bid -> bid.getValues().stream().flatMap(v -> v.getQuantities().keySet().stream()).collect(Collectors.toSet()));
+            components = new ArrayList<>();
+            for (List<GenericBid<G, T>> component : split) {
+                components.add(new XORQWinnerDetermination<>(new LinkedHashSet<>(component), epsilon));
+            }
+            preprocessingStatistics = new WinnerDeterminationPreprocessing.Statistics(valuesBefore,
+                    prunedBids.stream().mapToInt(b -> b.getValues().size()).sum(),
+                    split.size(), split.stream().mapToInt(List::size).max().orElse(0));
+        }
+        return components;
+    }
+
+    /**
+     * @return true if a requests at most as many licenses of each generic definition as b
+     */
+    private boolean isSmallerOrEqual(GenericValue<G, T> a, GenericValue<G, T> b) {
+        for (Map.Entry<G, Integer> entry : a.getQuantities().entrySet()) {
+            if (entry.getValue() > b.getQuantity(entry.getKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private Allocation<T> solveWinnerDetermination() {
-        IMIPSolver solver = new SolverClient();
-        IMIPResult mipResult = solver.solve(getMIP());
-        return adaptMIPResult(mipResult);
+        String key = null;
+        if (cache != null && !payoffsAdjusted) {
+            key = WinnerDeterminationCache.key("XORQ", epsilon, bids.stream()
+                    .flatMap(bid -> bid.getValues().stream().map(value -> fingerprint(bid.getBidder(), value)))
+                    .collect(Collectors.toList()));
+            List<String> winners = cache.get(key);
+            if (winners != null) {
+                // Every fingerprint marks exactly one bundle bid as winning, even if a bidder submitted duplicates
+                List<String> remaining = new ArrayList<>(winners);
+                return toAllocation((bidder, value) -> remaining.remove(fingerprint(bidder, value)));
+            }
+        }
+
+        GenericAllocation<G, T> allocation;
+        if (preprocessing) {
+            allocation = solveComponents();
+        } else {
+            IMIPResult mipResult = SolverExecutionService.getDefault().solve(getMIP());
+            allocation = adaptMIPResult(mipResult);
+        }
+
+        if (key != null) {
+            List<String> winners = new ArrayList<>();
+            for (Bidder<T> winner : allocation.getWinners()) {
+                winners.add(fingerprint(winner, allocation.getGenericAllocation(winner)));
+            }
+            cache.put(key, winners);
+        }
+        return allocation;
+    }
+
+    private static String fingerprint(Bidder<?> bidder, GenericValue<?, ?> value) {
+        List<String> quantities = new ArrayList<>();
+        for (Map.Entry<? extends GenericDefinition<?>, Integer> entry : value.getQuantities().entrySet()) {
+            if (entry.getValue() > 0) {
+                quantities.add(entry.getKey().shortJson() + "*" + entry.getValue());
+            }
+        }
+        Collections.sort(quantities);
+        return WinnerDeterminationCache.fingerprint(bidder, String.join(";", quantities), value.getValue());
     }
 
     @Override
     public WinnerDeterminator<T> getWdWithoutBidder(Bidder<T> bidder) {
-        return new XORQWinnerDetermination<>(bids.stream().filter(b -> !b.getBidder().equals(bidder)).collect(Collectors.toSet()), epsilon);
+        XORQWinnerDetermination<G, T> wdWithoutBidder = new XORQWinnerDetermination<>(bids.stream().filter(b -> !b.getBidder().equals(bidder)).collect(Collectors.toSet()), epsilon);
+        wdWithoutBidder.setPreprocessing(preprocessing);
+        wdWithoutBidder.setCache(cache);
+        return wdWithoutBidder;
     }
 
     @Override
     public Allocation<T> calculateAllocation() {
         if (result == null) {
+            long start = System.nanoTime();
             result = solveWinnerDetermination();
+            Metrics.time(Metrics.WDP_SOLVE, System.nanoTime() - start, "type", "XORQ");
         }
         return result;
     }
 
     @Override
     public WinnerDeterminator<T> copyOf() {
-        return new XORQWinnerDetermination<>(bids, epsilon);
+        XORQWinnerDetermination<G, T> copy = new XORQWinnerDetermination<>(bids, epsilon);
+        copy.setPreprocessing(preprocessing);
+        copy.setCache(cache);
+        return copy;
     }
 
     @Override
     public void adjustPayoffs(Map<Bidder<T>, Double> payoffs) {
-        for (GenericBid<G, T> bidPerBidder : bids) {
-            Variable x = new Variable("x_" + bidPerBidder.getBidder().getId(), VarType.BOOLEAN, 0, 1);
-            winnerDeterminationProgram.add(x);
-            winnerDeterminationProgram.addObjectiveTerm(-payoffs.getOrDefault(bidPerBidder.getBidder(), 0.0) * scalingFactor, x);
-
-            Constraint x1 = new Constraint(CompareType.GEQ, 0);
-            Constraint x2 = new Constraint(CompareType.LEQ, 0);
-            x1.addTerm(-1, x);
-            x2.addTerm(-MAX_VALUE, x);
-            bidPerBidder.getValues().forEach(b -> x1.addTerm(1, bidVariables.get(bidPerBidder.getBidder()).get(b.getId())));
-            bidPerBidder.getValues().forEach(b -> x2.addTerm(1, bidVariables.get(bidPerBidder.getBidder()).get(b.getId())));
-            winnerDeterminationProgram.add(x1);
-            winnerDeterminationProgram.add(x2);
+        payoffsAdjusted = true;
+        if (preprocessing) {
+            // Each bidder belongs to exactly one component, which ignores the payoffs of the other bidders
+            getComponents().forEach(component -> component.adjustPayoffs(payoffs));
+            result = null;
+            return;
         }
+        if (payoffAdjustment == null) {
+            IMIP mip = getMIP();
+            Map<Bidder<T>, Collection<Variable>> allocationVariables = new HashMap<>();
+            bidVariables.forEach((bidder, variables) -> allocationVariables.put(bidder, variables.values()));
+            payoffAdjustment = new PayoffAdjustment<>(mip, allocationVariables, scalingFactor);
+        }
+        payoffAdjustment.setPayoffs(payoffs);
+        result = null;
     }
 
     @Override
@@ -152,12 +270,33 @@ public class XORQWinnerDetermination<G extends GenericDefinition<T>, T extends G
         return bidVariables.get(bidder).get(bundleBid.getId());
     }
 
-    private Allocation<T> adaptMIPResult(IMIPResult mipResult) {
+    @SuppressWarnings("unchecked")
+    private GenericAllocation<G, T> solveComponents() {
+        // The components are solved on other threads, which have to report in the run of this thread
+        String runId = Metrics.getCurrentRunId();
+        List<Allocation<T>> partialResults = getComponents().parallelStream()
+                .map(component -> Metrics.inRun(runId, component::calculateAllocation))
+                .collect(Collectors.toList());
+
+        GenericAllocation.Builder<G, T> builder = new GenericAllocation.Builder<>();
+        for (Allocation<T> partialResult : partialResults) {
+            GenericAllocation<G, T> genericResult = (GenericAllocation<G, T>) partialResult;
+            for (Bidder<T> winner : genericResult.getWinners()) {
+                builder.putGenericValue(winner, genericResult.getGenericAllocation(winner));
+            }
+        }
+        return new GenericAllocation<>(builder);
+    }
+
+    private GenericAllocation<G, T> adaptMIPResult(IMIPResult mipResult) {
+        return toAllocation((bidder, value) -> DoubleMath.fuzzyEquals(mipResult.getValue(getBidVariable(bidder, value)), 1, 1e-3));
+    }
 
+    private GenericAllocation<G, T> toAllocation(BiPredicate<Bidder<T>, GenericValue<G, T>> isWinning) {
         GenericAllocation.Builder<G, T> builder = new GenericAllocation.Builder<>();
         for (GenericBid<G, T> bid : bids) {
             for (GenericValue<G, T> value : bid.getValues()) {
-                if (DoubleMath.fuzzyEquals(mipResult.getValue(getBidVariable(bid.getBidder(), value)), 1, 1e-3)) {
+                if (isWinning.test(bid.getBidder(), value)) {
                     builder.putGenericValue(bid.getBidder(), value);
                 }
             }
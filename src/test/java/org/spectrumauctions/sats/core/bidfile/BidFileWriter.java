@@ -13,6 +13,8 @@ import org.spectrumauctions.sats.core.bidlang.generic.GenericDefinition;
 import org.spectrumauctions.sats.core.bidlang.generic.GenericLang;
 import org.spectrumauctions.sats.core.bidlang.xor.SizeBasedUniqueRandomXOR;
 import org.spectrumauctions.sats.core.bidlang.xor.XORLanguage;
+import org.spectrumauctions.sats.core.bidlang.xor.XORValue;
+import org.spectrumauctions.sats.core.model.Bidder;
 import org.spectrumauctions.sats.core.model.Good;
 import org.spectrumauctions.sats.core.model.UnsupportedBiddingLanguageException;
 import org.spectrumauctions.sats.core.model.bvm.BMBidder;
@@ -23,6 +25,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Random;
 
 import static org.junit.Assert.fail;
@@ -125,4 +128,37 @@ public abstract class BidFileWriter {
             }
         }
     }
+
+    /**
+     * @return a value function which fails after the given number of bids
+     */
+    protected static <T extends Good> XORLanguage<T> failingAfter(XORLanguage<T> lang, int bids) {
+        return new XORLanguage<T>() {
+            @Override
+            public Iterator<XORValue<T>> iterator() {
+                Iterator<XORValue<T>> iterator = lang.iterator();
+                return new Iterator<XORValue<T>>() {
+                    private int returned = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public XORValue<T> next() {
+                        if (returned++ == bids) {
+                            throw new IllegalStateException("Value function failed");
+                        }
+                        return iterator.next();
+                    }
+                };
+            }
+
+            @Override
+            public Bidder<? extends Good> getBidder() {
+                return lang.getBidder();
+            }
+        };
+    }
 }
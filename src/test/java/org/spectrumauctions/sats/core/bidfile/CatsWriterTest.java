@@ -8,15 +8,23 @@ package org.spectrumauctions.sats.core.bidfile;
 import org.junit.Assert;
 import org.junit.Test;
 import org.spectrumauctions.sats.core.bidlang.xor.CatsXOR;
+import org.spectrumauctions.sats.core.bidlang.xor.SizeBasedUniqueRandomXOR;
 import org.spectrumauctions.sats.core.bidlang.xor.XORLanguage;
 import org.spectrumauctions.sats.core.model.Good;
 import org.spectrumauctions.sats.core.model.UnsupportedBiddingLanguageException;
+import org.spectrumauctions.sats.core.model.bvm.BMBidder;
+import org.spectrumauctions.sats.core.model.bvm.bvm.BaseValueModel;
 import org.spectrumauctions.sats.core.model.cats.CATSBidder;
 import org.spectrumauctions.sats.core.model.cats.CATSLicense;
 import org.spectrumauctions.sats.core.model.cats.CATSRegionModel;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Random;
@@ -59,4 +67,51 @@ public class CatsWriterTest extends BidFileWriter {
         System.out.println(file.toPath().toString());
     }
 
+    @Test
+    public void testHeaderCountsStreamedBids() throws IOException {
+        CatsExporter exporter = new CatsExporter(new File(EXPORT_TEST_FOLDER_NAME));
+        CATSRegionModel model = new CATSRegionModel();
+        model.setNumberOfBidders(5);
+        Collection<CATSBidder> bidders = model.createNewPopulation(8642L);
+        Collection<XORLanguage<? extends Good>> langs = bidders.stream().map(b -> {
+            try {
+                return (XORLanguage<? extends Good>) b.getValueFunction(CatsXOR.class, 0L);
+            } catch (UnsupportedBiddingLanguageException e) {
+                throw new IllegalStateException(e);
+            }
+        }).collect(Collectors.toList());
+
+        File file = exporter.writeMultiBidderXOR(langs, 20, "TestStreamedXOR_");
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        long bidLines = lines.stream().filter(line -> line.endsWith("#")).count();
+        String bidsHeader = lines.stream().filter(line -> line.startsWith("bids ")).findFirst().orElseThrow(AssertionError::new);
+        Assert.assertEquals(bidLines, Long.parseLong(bidsHeader.substring("bids ".length()).trim()));
+        Assert.assertTrue(lines.contains("dummy 5"));
+    }
+
+    @Test
+    public void testFailedExportLeavesNoFile() throws IOException, UnsupportedBiddingLanguageException {
+        CatsExporter exporter = new CatsExporter(new File(EXPORT_TEST_FOLDER_NAME));
+        List<BMBidder> bidders = new BaseValueModel().createNewPopulation(0L);
+        @SuppressWarnings("unchecked")
+        XORLanguage<Good> lang = bidders.get(0).getValueFunction(SizeBasedUniqueRandomXOR.class);
+        @SuppressWarnings("unchecked")
+        XORLanguage<Good> otherLang = bidders.get(1).getValueFunction(SizeBasedUniqueRandomXOR.class);
+        XORLanguage<Good> failing = failingAfter(lang, 10);
+        try {
+            exporter.writeSingleBidderXOR(failing, 50, "TestFailedSingle_");
+            fail("The failure of the value function should have been thrown.");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            exporter.writeMultiBidderXOR(Arrays.asList(otherLang, failing), 50, "TestFailedMulti_");
+            fail("The failure of the value function should have been thrown.");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(new File(EXPORT_TEST_FOLDER_NAME).toPath(), "TestFailed*")) {
+            Assert.assertFalse(files.iterator().hasNext());
+        }
+    }
 }
@@ -5,9 +5,26 @@
  */
 package org.spectrumauctions.sats.core.bidfile;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.junit.Assert;
 import org.junit.Test;
+import org.spectrumauctions.sats.core.bidlang.generic.FlatSizeIterators.GenericSizeIncreasing;
+import org.spectrumauctions.sats.core.bidlang.generic.GenericDefinition;
+import org.spectrumauctions.sats.core.bidlang.xor.SizeBasedUniqueRandomXOR;
+import org.spectrumauctions.sats.core.bidlang.xor.XORLanguage;
+import org.spectrumauctions.sats.core.model.Good;
+import org.spectrumauctions.sats.core.model.bvm.BMBidder;
+import org.spectrumauctions.sats.core.model.bvm.bvm.BaseValueModel;
 
 import java.io.File;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
 
 /**
  * @author Michael Weiss
@@ -41,4 +58,41 @@ public class JSONWriterTest extends BidFileWriter {
         JsonExporter exporter = new JsonExporter(new File(EXPORT_TEST_FOLDER_NAME));
         super.testSingleBidderXORQ(exporter);
     }
+
+    @Test
+    public void testCompactGzipExportEqualsPrettyExport() throws Exception {
+        BMBidder bidder = new BaseValueModel().createNewPopulation(0L).iterator().next();
+        @SuppressWarnings("unchecked")
+        GenericSizeIncreasing<GenericDefinition<? extends Good>, ?> lang = bidder.getValueFunction(GenericSizeIncreasing.class);
+
+        File pretty = new JsonExporter(new File(EXPORT_TEST_FOLDER_NAME)).writeSingleBidderXORQ(lang, 50, "TestPretty_");
+        File compressed = new JsonExporter(new File(EXPORT_TEST_FOLDER_NAME)).withCompact(true).withGzip(true)
+                .writeSingleBidderXORQ(lang, 50, "TestCompactGzip_");
+
+        Assert.assertTrue(compressed.getName().endsWith(".json.gz"));
+        JsonElement expected = new JsonParser().parse(new String(Files.readAllBytes(pretty.toPath()), StandardCharsets.UTF_8));
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(Files.newInputStream(compressed.toPath())), StandardCharsets.UTF_8)) {
+            Assert.assertEquals(expected, new JsonParser().parse(reader));
+        }
+    }
+
+    @Test
+    public void testFailedExportLeavesNoFile() throws Exception {
+        BMBidder bidder = new BaseValueModel().createNewPopulation(0L).iterator().next();
+        @SuppressWarnings("unchecked")
+        SizeBasedUniqueRandomXOR<Good> lang = bidder.getValueFunction(SizeBasedUniqueRandomXOR.class);
+        XORLanguage<Good> failing = failingAfter(lang, 10);
+        for (boolean gzip : new boolean[]{false, true}) {
+            JsonExporter exporter = new JsonExporter(new File(EXPORT_TEST_FOLDER_NAME)).withGzip(gzip);
+            try {
+                exporter.writeSingleBidderXOR(failing, 50, "TestFailed_");
+                Assert.fail("The failure of the value function should have been thrown.");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(new File(EXPORT_TEST_FOLDER_NAME).toPath(), "TestFailed_*")) {
+                Assert.assertFalse(files.iterator().hasNext());
+            }
+        }
+    }
 }
@@ -0,0 +1,205 @@
+package org.spectrumauctions.sats.core.instancehandling;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.World;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMBidder;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMWorld;
+import org.spectrumauctions.sats.core.model.gsvm.GlobalSynergyValueModel;
+import org.spectrumauctions.sats.core.util.file.FileException;
+import org.spectrumauctions.sats.core.util.instancehandling.AsyncInstanceHandler;
+import org.spectrumauctions.sats.core.util.instancehandling.InstanceHandler;
+import org.spectrumauctions.sats.core.util.instancehandling.JSONInstanceHandler;
+import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AsyncInstanceHandlerTest {
+
+    @Test
+    public void testReadsWaitForPreviousWrites() {
+        RecordingInstanceHandler delegate = new RecordingInstanceHandler();
+        AsyncInstanceHandler handler = new AsyncInstanceHandler(delegate, 4, 2);
+        for (int i = 0; i < 10; i++) {
+            handler.writeWorld(null);
+            handler.writeBidder(null);
+        }
+        handler.readWorld(World.class, 0);
+        handler.writeWorld(null);
+        handler.getPopulationIds(0);
+        handler.close();
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            expected.add("writeWorld");
+            expected.add("writeBidder");
+        }
+        expected.add("readWorld");
+        expected.add("writeWorld");
+        expected.add("getPopulationIds");
+        Assert.assertEquals(expected, delegate.calls);
+    }
+
+    @Test
+    public void testReadsSeeAllPreviousWrites() {
+        InstanceHandler previous = InstanceHandler.getDefaultHandler();
+        AsyncInstanceHandler handler = new AsyncInstanceHandler(JSONInstanceHandler.getInstance(), 4, 2);
+        try {
+            InstanceHandler.setDefaultHandler(handler);
+            GlobalSynergyValueModel model = new GlobalSynergyValueModel();
+            GSVMWorld world = model.createWorld(new JavaUtilRNGSupplier(951L));
+            List<GSVMBidder> population = model.createPopulation(world, new JavaUtilRNGSupplier(159L));
+
+            Assert.assertEquals(world, handler.readWorld(GSVMWorld.class, world.getId()));
+            Collection<GSVMBidder> restored = handler.readPopulation(GSVMBidder.class, world, population.get(0).getPopulation());
+            Assert.assertEquals(new HashSet<>(population), new HashSet<>(restored));
+            Assert.assertEquals(0, handler.getPendingWrites());
+        } finally {
+            handler.close();
+            InstanceHandler.setDefaultHandler(previous);
+        }
+    }
+
+    @Test
+    public void testFailedWriteIsThrownByNextCall() {
+        AtomicLong ids = new AtomicLong();
+        AsyncInstanceHandler handler = new AsyncInstanceHandler(new FailingInstanceHandler(ids));
+        handler.writeWorld(null);
+        try {
+            handler.flush();
+            Assert.fail("The failed write should have been thrown.");
+        } catch (FileException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        // The failure is only thrown once
+        Assert.assertEquals(0, handler.getNextWorldId());
+        handler.close();
+        try {
+            handler.writeWorld(null);
+            Assert.fail("Writes to a closed handler should be rejected.");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Records the order of the calls. Writes are slow, such that a read which doesn't wait for them would overtake them.
+     */
+    private static class RecordingInstanceHandler extends StubInstanceHandler {
+
+        private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void writeWorld(World world) {
+            slowWrite("writeWorld");
+        }
+
+        @Override
+        public void writeBidder(Bidder<?> bidder) {
+            slowWrite("writeBidder");
+        }
+
+        private void slowWrite(String call) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            calls.add(call);
+        }
+
+        @Override
+        public <T extends World> T readWorld(Class<T> type, long world) {
+            calls.add("readWorld");
+            return null;
+        }
+
+        @Override
+        public Collection<Long> getPopulationIds(long worldId) {
+            calls.add("getPopulationIds");
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Fails on every write, only allocates world ids
+     */
+    private static class FailingInstanceHandler extends StubInstanceHandler {
+
+        private final AtomicLong ids;
+
+        private FailingInstanceHandler(AtomicLong ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public void writeWorld(World world) {
+            throw new IllegalStateException("Disk full");
+        }
+
+        @Override
+        public void writeBidder(Bidder<?> bidder) {
+            throw new IllegalStateException("Disk full");
+        }
+
+        @Override
+        public long getNextWorldId() {
+            return ids.getAndIncrement();
+        }
+    }
+
+    private static class StubInstanceHandler extends InstanceHandler {
+
+        @Override
+        public void writeWorld(World world) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T extends World> T readWorld(Class<T> type, long world) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void writeBidder(Bidder<?> bidder) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Collection<Long> getPopulationIds(long worldId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T extends Bidder<?>> T readBidder(Class<T> type, World world, long populationId, long bidderId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T extends Bidder<?>> T readBidderWithUnknownType(Class<T> bidderSuperType, World world, long populationId, long bidderId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T extends Bidder<?>> Collection<T> readPopulation(Class<T> type, World world, long populationId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T extends Bidder<?>> Collection<T> readPopulationWithUnknownTypes(Class<T> bidderSuperType, World world, long populationId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getNextWorldId() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getNextPopulationId(long worldId) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.spectrumauctions.sats.core.instancehandling;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.spectrumauctions.sats.core.TestSuite;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.DefaultModel;
+import org.spectrumauctions.sats.core.model.World;
+import org.spectrumauctions.sats.core.util.instancehandling.BinaryInstanceHandler;
+import org.spectrumauctions.sats.core.util.instancehandling.InstanceHandler;
+import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
+import org.spectrumauctions.sats.core.util.random.UniformDistributionRNG;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@RunWith(Parameterized.class)
+public class BinaryInstanceHandlerTest {
+
+    private final UniformDistributionRNG rng = new JavaUtilRNGSupplier(842365L).getUniformDistributionRNG();
+    private final DefaultModel<?, ?> model;
+
+    private InstanceHandler previousHandler;
+    private Path folder;
+    private BinaryInstanceHandler handler;
+
+    public BinaryInstanceHandlerTest(DefaultModel<?, ?> model) {
+        this.model = model;
+    }
+
+    @Parameterized.Parameters
+    public static Iterable<Object[]> models() {
+        List<Object[]> testInput = new ArrayList<>();
+        for (Object o : TestSuite.getAllModelAccessors()) {
+            testInput.add(new Object[]{o});
+        }
+        return testInput;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        previousHandler = InstanceHandler.getDefaultHandler();
+        folder = Files.createTempDirectory("sats-binary");
+        handler = new BinaryInstanceHandler(folder);
+        InstanceHandler.setDefaultHandler(handler);
+    }
+
+    @After
+    public void tearDown() {
+        InstanceHandler.setDefaultHandler(previousHandler);
+        handler.close();
+    }
+
+    @Test
+    public void testWorldAndPopulationsRoundTrip() {
+        roundTrip(model);
+    }
+
+    private <W extends World, B extends Bidder<?>> void roundTrip(DefaultModel<W, B> model) {
+        W world = model.createWorld(rng.nextLong());
+        List<B> first = model.createPopulation(world, rng.nextLong());
+        List<B> second = model.createPopulation(world, rng.nextLong());
+        long firstId = first.get(0).getPopulation();
+        long secondId = second.get(0).getPopulation();
+        Assert.assertNotEquals(firstId, secondId);
+
+        // A fresh handler only sees what's on disk
+        handler.close();
+        Assert.assertEquals(world, handler.readWorld(world.getClass(), world.getId()));
+        Assert.assertEquals(new HashSet<>(first), new HashSet<>(world.restorePopulation(firstId)));
+        Assert.assertEquals(new HashSet<>(second), new HashSet<>(world.restorePopulation(secondId)));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(firstId, secondId)), new HashSet<>(handler.getPopulationIds(world.getId())));
+
+        B single = second.get(second.size() - 1);
+        Bidder<?> restored = handler.readBidderWithUnknownType(Bidder.class, world, secondId, single.getId());
+        Assert.assertEquals(single, restored);
+    }
+
+    @Test
+    public void testTornLastRecordIsCutOff() throws IOException {
+        tornLastRecord(model);
+    }
+
+    private <W extends World, B extends Bidder<?>> void tornLastRecord(DefaultModel<W, B> model) throws IOException {
+        W world = model.createWorld(rng.nextLong());
+        List<B> population = model.createPopulation(world, rng.nextLong());
+        long populationId = population.get(0).getPopulation();
+        B last = population.get(population.size() - 1);
+        handler.close();
+
+        // As if the JVM was killed while appending the payload of the last bidder
+        Path file = folder.resolve(world.getId() + ".sats");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        Assert.assertEquals(new HashSet<>(population.subList(0, population.size() - 1)), new HashSet<>(world.restorePopulation(populationId)));
+        handler.writeBidder(last);
+        Assert.assertEquals(new HashSet<>(population), new HashSet<>(world.restorePopulation(populationId)));
+        handler.close();
+
+        // As if the JVM was killed while appending the header of a record
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{3, 0, 0, 0, 0}));
+        }
+        Assert.assertEquals(new HashSet<>(population), new HashSet<>(world.restorePopulation(populationId)));
+        handler.writeBidder(last);
+        Assert.assertEquals(new HashSet<>(population), new HashSet<>(world.restorePopulation(populationId)));
+    }
+
+    @Test
+    public void testHandlersInSameJvmShareWorldFiles() throws Exception {
+        BinaryInstanceHandler other = new BinaryInstanceHandler(folder);
+        try {
+            sharedWorldFile(model, other);
+        } finally {
+            other.close();
+        }
+    }
+
+    private <W extends World, B extends Bidder<?>> void sharedWorldFile(DefaultModel<W, B> model, BinaryInstanceHandler other) throws Exception {
+        W world = model.createWorld(rng.nextLong());
+        List<B> population = model.createPopulation(world, rng.nextLong());
+        long populationId = population.get(0).getPopulation();
+        // Both handlers append to the same world file at the same time
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (BinaryInstanceHandler writer : Arrays.asList(handler, other)) {
+                writes.add(executor.submit(() -> {
+                    for (int i = 0; i < 20; i++) {
+                        population.forEach(writer::writeBidder);
+                    }
+                }));
+            }
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        other.close();
+        Assert.assertEquals(new HashSet<>(population), new HashSet<>(handler.readPopulationWithUnknownTypes(Bidder.class, world, populationId)));
+        Assert.assertEquals(new HashSet<>(population), new HashSet<>(other.readPopulationWithUnknownTypes(Bidder.class, world, populationId)));
+    }
+}
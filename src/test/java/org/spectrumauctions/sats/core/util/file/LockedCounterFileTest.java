@@ -0,0 +1,71 @@
+package org.spectrumauctions.sats.core.util.file;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class LockedCounterFileTest {
+
+    @Test
+    public void testAllocatesUnusedIdsInSequence() throws IOException {
+        File file = Files.createTempDirectory("sats-counter").resolve("counter").toFile();
+        Set<Long> taken = new HashSet<>(Arrays.asList(7L, 8L, 10L));
+
+        // Without counter file, the initial candidate is used
+        Assert.assertEquals(9, new LockedCounterFile(file).next(() -> 7, id -> !taken.contains(id)));
+        Assert.assertEquals(11, new LockedCounterFile(file).next(() -> 0, id -> !taken.contains(id)));
+        // The counter is persisted, the initial candidate is not computed again
+        Assert.assertEquals(12, new LockedCounterFile(file).next(() -> {
+            throw new AssertionError("The counter file exists.");
+        }, id -> true));
+        Assert.assertEquals("13", new String(Files.readAllBytes(file.toPath()), "UTF-8"));
+    }
+
+    @Test
+    public void testReservesFoldersUntilOneIsFree() throws IOException {
+        File folder = Files.createTempDirectory("sats-counter").toFile();
+        Assert.assertTrue(new File(folder, "0").mkdir());
+        LockedCounterFile counter = new LockedCounterFile(new File(folder, "counter"));
+        Assert.assertEquals(1, counter.next(() -> 0, id -> LockedCounterFile.reserveFolder(new File(folder, String.valueOf(id)))));
+        Assert.assertTrue(new File(folder, "1").isDirectory());
+    }
+
+    @Test
+    public void testReadOnlyFolderFailsInsteadOfLooping() throws IOException {
+        File folder = Files.createTempDirectory("sats-counter").toFile();
+        File readOnly = new File(folder, "readOnly");
+        Assert.assertTrue(readOnly.mkdir());
+        Assert.assertTrue(readOnly.setWritable(false));
+        try {
+            // Privileged users can write anyway
+            Assume.assumeFalse(readOnly.canWrite());
+            assertReservationFails(new LockedCounterFile(new File(folder, "counter")), readOnly);
+        } finally {
+            readOnly.setWritable(true);
+        }
+    }
+
+    @Test
+    public void testFolderBelowFileFailsInsteadOfLooping() throws IOException {
+        File folder = Files.createTempDirectory("sats-counter").toFile();
+        File file = new File(folder, "file");
+        Assert.assertTrue(file.createNewFile());
+        assertReservationFails(new LockedCounterFile(new File(folder, "counter")), file);
+    }
+
+    private void assertReservationFails(LockedCounterFile counter, File parent) {
+        try {
+            counter.next(() -> 0, id -> LockedCounterFile.reserveFolder(new File(parent, String.valueOf(id))));
+            Assert.fail("No folder can be created in " + parent);
+        } catch (FileException e) {
+            Assert.assertTrue(e.getMessage().contains(parent.getPath()));
+        }
+    }
+}
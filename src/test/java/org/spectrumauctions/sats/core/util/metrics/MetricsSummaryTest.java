@@ -0,0 +1,150 @@
+package org.spectrumauctions.sats.core.util.metrics;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMBidder;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMLicense;
+import org.spectrumauctions.sats.core.model.gsvm.GlobalSynergyValueModel;
+import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
+import org.spectrumauctions.sats.mechanism.cca.NonGenericCCAMechanism;
+import org.spectrumauctions.sats.opt.model.gsvm.demandquery.GSVM_DemandQueryOracleBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+public class MetricsSummaryTest {
+
+    @Test
+    public void testAggregatesEventsPerName() {
+        MetricsSummary summary = new MetricsSummary();
+        Metrics.addListener(summary);
+        try {
+            Metrics.time(Metrics.MIP_SOLVE, 2000000, "bidder", 1);
+            Metrics.time(Metrics.MIP_SOLVE, 4000000, "bidder", 2);
+            Metrics.count(Metrics.WDP_CACHE_HIT);
+            Metrics.countOccurrences(Metrics.WDP_CACHE_MISS, 3);
+        } finally {
+            Metrics.removeListener(summary);
+        }
+        Metrics.count(Metrics.WDP_CACHE_HIT);
+
+        Assert.assertEquals(2, summary.getEvents(Metrics.MIP_SOLVE));
+        Assert.assertEquals(6000000, summary.getSum(Metrics.MIP_SOLVE), 0);
+        Assert.assertEquals(0.25, summary.getHitRate(Metrics.WDP_CACHE_HIT, Metrics.WDP_CACHE_MISS), 1e-9);
+
+        JsonObject json = new JsonParser().parse(summary.toJson()).getAsJsonObject();
+        JsonObject solve = json.getAsJsonObject("metrics").getAsJsonObject(Metrics.MIP_SOLVE);
+        Assert.assertEquals(6, solve.get("totalMillis").getAsDouble(), 1e-9);
+        Assert.assertEquals(2, solve.get("min").getAsDouble(), 1e-9);
+        Assert.assertEquals(4, solve.get("max").getAsDouble(), 1e-9);
+        Assert.assertEquals(0.25, json.getAsJsonObject("cacheHitRates").get("wdp").getAsDouble(), 1e-9);
+    }
+
+    @Test
+    public void testFailingListenerDoesNotBreakReporting() {
+        MetricsListener failing = event -> {
+            throw new IllegalStateException("Listener failure");
+        };
+        MetricsSummary summary = new MetricsSummary();
+        Metrics.addListener(failing);
+        Metrics.addListener(summary);
+        try {
+            Metrics.count(Metrics.VALUE_QUERY);
+        } finally {
+            Metrics.removeListener(failing);
+            Metrics.removeListener(summary);
+        }
+        Assert.assertEquals(1, summary.getEvents(Metrics.VALUE_QUERY));
+    }
+
+    @Test
+    public void testClockPhaseReportsRoundsAndDemandQueries() {
+        List<GSVMBidder> rawBidders = new GlobalSynergyValueModel().createNewPopulation(new JavaUtilRNGSupplier(73L));
+        List<Bidder<GSVMLicense>> bidders = rawBidders.stream().map(b -> (Bidder<GSVMLicense>) b).collect(Collectors.toList());
+        NonGenericCCAMechanism<GSVMLicense> cca = new NonGenericCCAMechanism<>(bidders, new GSVM_DemandQueryOracleBuilder());
+
+        MetricsSummary summary = new MetricsSummary();
+        Metrics.addListener(summary);
+        try {
+            cca.getBidsAfterClockPhase();
+        } finally {
+            Metrics.removeListener(summary);
+        }
+
+        Assert.assertEquals(cca.getTotalRounds(), summary.getEvents(Metrics.CCA_ROUND));
+        Assert.assertEquals(cca.getTotalRounds() * bidders.size(), summary.getEvents(Metrics.CCA_DEMAND_QUERY_SOLVE));
+        Assert.assertEquals(cca.getTotalRounds() * bidders.size(), summary.getEvents(Metrics.CCA_RESULT_POOL_SIZE));
+        Assert.assertTrue(summary.getEvents(Metrics.VALUE_QUERY) > 0);
+    }
+
+    @Test
+    public void testSummaryOfRunIgnoresOtherRuns() {
+        MetricsSummary summary = new MetricsSummary("a");
+        Metrics.addListener(summary);
+        try {
+            Metrics.inRun("a", () -> {
+                Metrics.count(Metrics.VALUE_QUERY);
+                // A nested run stays in the outer run
+                return Metrics.inRun("b", () -> {
+                    Metrics.count(Metrics.VALUE_QUERY);
+                    return null;
+                });
+            });
+            Metrics.inRun("b", () -> {
+                Metrics.count(Metrics.VALUE_QUERY);
+                return null;
+            });
+            Metrics.count(Metrics.VALUE_QUERY);
+        } finally {
+            Metrics.removeListener(summary);
+        }
+        Assert.assertEquals(2, summary.getEvents(Metrics.VALUE_QUERY));
+        Assert.assertNull(Metrics.getCurrentRunId());
+        JsonObject json = new JsonParser().parse(summary.toJson()).getAsJsonObject();
+        Assert.assertEquals("a", json.get("run").getAsString());
+    }
+
+    @Test
+    public void testConcurrentMechanismsDontMix() throws Exception {
+        List<NonGenericCCAMechanism<GSVMLicense>> ccas = new ArrayList<>();
+        List<MetricsSummary> summaries = new ArrayList<>();
+        int numberOfBidders = 0;
+        for (long seed : new long[]{73L, 74L}) {
+            List<GSVMBidder> rawBidders = new GlobalSynergyValueModel().createNewPopulation(new JavaUtilRNGSupplier(seed));
+            List<Bidder<GSVMLicense>> bidders = rawBidders.stream().map(b -> (Bidder<GSVMLicense>) b).collect(Collectors.toList());
+            NonGenericCCAMechanism<GSVMLicense> cca = new NonGenericCCAMechanism<>(bidders, new GSVM_DemandQueryOracleBuilder());
+            cca.setParallelism(2);
+            numberOfBidders = bidders.size();
+            ccas.add(cca);
+            summaries.add(new MetricsSummary(cca.getMetricsRunId()));
+        }
+        summaries.forEach(Metrics::addListener);
+        ExecutorService executor = Executors.newFixedThreadPool(ccas.size());
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (NonGenericCCAMechanism<GSVMLicense> cca : ccas) {
+                runs.add(executor.submit(cca::getBidsAfterClockPhase));
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        } finally {
+            executor.shutdown();
+            summaries.forEach(Metrics::removeListener);
+        }
+
+        for (int i = 0; i < ccas.size(); i++) {
+            NonGenericCCAMechanism<GSVMLicense> cca = ccas.get(i);
+            MetricsSummary summary = summaries.get(i);
+            Assert.assertEquals(cca.getTotalRounds(), summary.getEvents(Metrics.CCA_ROUND));
+            Assert.assertEquals(cca.getTotalRounds() * numberOfBidders, summary.getEvents(Metrics.CCA_DEMAND_QUERY_SOLVE));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.spectrumauctions.sats.mechanism.cca;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spectrumauctions.sats.core.bidlang.xor.XORValue;
+import org.spectrumauctions.sats.core.model.Bundle;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMBidder;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMLicense;
+import org.spectrumauctions.sats.core.model.gsvm.GlobalSynergyValueModel;
+import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+public class BidBookTest {
+
+    @Test
+    public void testUpsertIfHigher() {
+        List<GSVMBidder> bidders = new GlobalSynergyValueModel().createNewPopulation(new JavaUtilRNGSupplier(147258369L));
+        GSVMBidder bidder = bidders.get(0);
+        List<GSVMLicense> licenses = new ArrayList<>(bidder.getWorld().getLicenses());
+        Bundle<GSVMLicense> first = new Bundle<>(licenses.get(0), licenses.get(1));
+        Bundle<GSVMLicense> second = new Bundle<>(licenses.get(2));
+
+        BidBook<GSVMLicense, BitSet, XORValue<GSVMLicense>> bidBook = new BidBook<>(XORValue::value);
+        Assert.assertTrue(bidBook.upsertIfHigher(bidder, BidBook.keyOf(first), new XORValue<>(first, BigDecimal.ONE)));
+        Assert.assertTrue(bidBook.upsertIfHigher(bidder, BidBook.keyOf(second), new XORValue<>(second, BigDecimal.ONE)));
+        // Equal or lower bids on the same bundle keep the existing bid
+        Assert.assertFalse(bidBook.upsertIfHigher(bidder, BidBook.keyOf(new Bundle<>(licenses.get(1), licenses.get(0))), new XORValue<>(first, BigDecimal.ONE)));
+        Assert.assertFalse(bidBook.upsertIfHigher(bidder, BidBook.keyOf(first), new XORValue<>(first, BigDecimal.ZERO)));
+        Assert.assertTrue(bidBook.upsertIfHigher(bidder, BidBook.keyOf(first), new XORValue<>(first, BigDecimal.TEN)));
+
+        List<XORValue<GSVMLicense>> bids = bidBook.getBids(bidder);
+        Assert.assertEquals(2, bids.size());
+        Assert.assertEquals(first, bids.get(0).getLicenses());
+        Assert.assertEquals(BigDecimal.TEN, bids.get(0).value());
+        Assert.assertEquals(BigDecimal.TEN, bidBook.getBid(bidder, BidBook.keyOf(first)).value());
+        Assert.assertEquals(0, bidBook.size(bidders.get(1)));
+        Assert.assertTrue(bidBook.getBids(bidders.get(1)).isEmpty());
+        Assert.assertEquals(1, bidBook.getBidders().size());
+    }
+
+}
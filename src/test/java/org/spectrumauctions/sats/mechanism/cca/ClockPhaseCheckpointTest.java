@@ -0,0 +1,99 @@
+package org.spectrumauctions.sats.mechanism.cca;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spectrumauctions.sats.core.bidlang.xor.XORBid;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMBidder;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMLicense;
+import org.spectrumauctions.sats.core.model.gsvm.GlobalSynergyValueModel;
+import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
+import org.spectrumauctions.sats.mechanism.cca.priceupdate.NonGenericPriceUpdater;
+import org.spectrumauctions.sats.mechanism.cca.priceupdate.PriceUpdaterState;
+import org.spectrumauctions.sats.mechanism.cca.priceupdate.SimpleRelativeNonGenericPriceUpdate;
+import org.spectrumauctions.sats.opt.model.gsvm.demandquery.GSVM_DemandQueryOracleBuilder;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class ClockPhaseCheckpointTest {
+
+    private static final int INTERRUPTED_ROUND = 7;
+
+    @Test
+    public void testResumedClockPhaseEqualsUninterruptedRun() throws Exception {
+        List<GSVMBidder> rawBidders = new GlobalSynergyValueModel().createNewPopulation(new JavaUtilRNGSupplier(147258369L));
+        Path checkpoint = Files.createTempDirectory("cca-checkpoint").resolve("clockphase.json.gz");
+
+        NonGenericCCAMechanism<GSVMLicense> uninterrupted = getMechanism(rawBidders, newPriceUpdater());
+        Collection<XORBid<GSVMLicense>> expectedBids = uninterrupted.getBidsAfterClockPhase();
+        Assert.assertTrue(uninterrupted.getTotalRounds() > INTERRUPTED_ROUND);
+
+        NonGenericCCAMechanism<GSVMLicense> interrupted = getMechanism(rawBidders, new InterruptingPriceUpdater());
+        interrupted.setCheckpointing(checkpoint, 1);
+        try {
+            interrupted.getBidsAfterClockPhase();
+            Assert.fail("The clock phase should have been interrupted.");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals(INTERRUPTED_ROUND, ClockPhaseCheckpoint.read(checkpoint).getRound());
+            Assert.assertFalse(ClockPhaseCheckpoint.read(checkpoint).isFinished());
+        }
+
+        NonGenericCCAMechanism<GSVMLicense> resumed = getMechanism(rawBidders, newPriceUpdater());
+        resumed.setCheckpointing(checkpoint, 1);
+        resumed.resumeFrom(checkpoint);
+        Assert.assertEquals(new ArrayList<>(expectedBids), new ArrayList<>(resumed.getBidsAfterClockPhase()));
+        Assert.assertEquals(uninterrupted.getFinalPrices(), resumed.getFinalPrices());
+        Assert.assertEquals(uninterrupted.getLastPrices(), resumed.getLastPrices());
+        Assert.assertEquals(uninterrupted.getTotalRounds(), resumed.getTotalRounds());
+        Assert.assertTrue(ClockPhaseCheckpoint.read(checkpoint).isFinished());
+
+        // A finished checkpoint restores the result of the clock phase without any further round
+        NonGenericCCAMechanism<GSVMLicense> restored = getMechanism(rawBidders, newPriceUpdater());
+        restored.resumeFrom(checkpoint);
+        Assert.assertEquals(new ArrayList<>(expectedBids), new ArrayList<>(restored.getBidsAfterClockPhase()));
+        Assert.assertEquals(uninterrupted.getFinalPrices(), restored.getFinalPrices());
+    }
+
+    private NonGenericCCAMechanism<GSVMLicense> getMechanism(List<GSVMBidder> rawBidders, NonGenericPriceUpdater<GSVMLicense> priceUpdater) {
+        List<Bidder<GSVMLicense>> bidders = rawBidders.stream().map(b -> (Bidder<GSVMLicense>) b).collect(Collectors.toList());
+        NonGenericCCAMechanism<GSVMLicense> cca = new NonGenericCCAMechanism<>(bidders, new GSVM_DemandQueryOracleBuilder());
+        cca.setClockPhaseNumberOfBundles(3);
+        cca.setPriceUpdater(priceUpdater);
+        return cca;
+    }
+
+    private static SimpleRelativeNonGenericPriceUpdate<GSVMLicense> newPriceUpdater() {
+        return new SimpleRelativeNonGenericPriceUpdate<GSVMLicense>().withInitialUpdate(BigDecimal.ONE);
+    }
+
+    /**
+     * Simulates an interruption of the clock phase by failing in the price update of a certain round
+     */
+    private static class InterruptingPriceUpdater implements NonGenericPriceUpdater<GSVMLicense> {
+
+        private final SimpleRelativeNonGenericPriceUpdate<GSVMLicense> delegate = newPriceUpdater();
+        private int round = 1;
+
+        @Override
+        public Map<GSVMLicense, BigDecimal> updatePrices(Map<GSVMLicense, BigDecimal> oldPrices, Map<GSVMLicense, Integer> demand) {
+            if (round++ == INTERRUPTED_ROUND) {
+                throw new IllegalStateException("Interrupted");
+            }
+            return delegate.updatePrices(oldPrices, demand);
+        }
+
+        @Override
+        public Map<GSVMLicense, BigDecimal> getLastPrices() {
+            return delegate.getLastPrices();
+        }
+
+        @Override
+        public PriceUpdaterState<GSVMLicense> getState() {
+            return delegate.getState();
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.spectrumauctions.sats.core.bidlang.xor.XORBid;
 import org.spectrumauctions.sats.core.bidlang.xor.XORValue;
 import org.spectrumauctions.sats.core.model.*;
 import org.spectrumauctions.sats.core.model.gsvm.*;
+import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
 import org.spectrumauctions.sats.mechanism.PaymentRuleEnum;
 import org.spectrumauctions.sats.mechanism.cca.priceupdate.SimpleRelativeNonGenericPriceUpdate;
 import org.spectrumauctions.sats.mechanism.cca.supplementaryround.LastBidsTrueValueNonGenericSupplementaryRound;
@@ -107,6 +108,31 @@ public class GSVMCCATest {
         return cca;
     }
 
+    @Test
+    public void testParallelEqualsSequentialCCA() {
+        List<GSVMBidder> rawBidders = new GlobalSynergyValueModel().createNewPopulation(new JavaUtilRNGSupplier(73246104));
+        NonGenericCCAMechanism<GSVMLicense> sequential = getMechanism(rawBidders);
+        NonGenericCCAMechanism<GSVMLicense> parallel = getMechanism(rawBidders);
+        parallel.setParallelism(4);
+        assertEquals(Sets.newHashSet(sequential.getBidsAfterClockPhase()), Sets.newHashSet(parallel.getBidsAfterClockPhase()));
+        assertEquals(sequential.getTotalRounds(), parallel.getTotalRounds());
+        assertEquals(Sets.newHashSet(sequential.getBidsAfterSupplementaryRound()), Sets.newHashSet(parallel.getBidsAfterSupplementaryRound()));
+    }
+
+    @Test
+    public void testParallelSampledStartingPricesAreReproducible() {
+        List<GSVMBidder> rawBidders = new GlobalSynergyValueModel().createNewPopulation(new JavaUtilRNGSupplier(73246104));
+        NonGenericCCAMechanism<GSVMLicense> sequential = getMechanism(rawBidders);
+        sequential.calculateSampledStartingPrices(20, 10, 0.5, 4711);
+        NonGenericCCAMechanism<GSVMLicense> parallel = getMechanism(rawBidders);
+        parallel.setParallelism(4);
+        parallel.calculateSampledStartingPrices(20, 10, 0.5, 4711);
+        for (GSVMLicense license : rawBidders.get(0).getWorld().getLicenses()) {
+            assertEquals(sequential.getStartingPrice(license), parallel.getStartingPrice(license));
+            assertTrue(parallel.getStartingPrice(license).compareTo(BigDecimal.ZERO) > 0);
+        }
+    }
+
     @Test
     public void testClonedCCA() {
         NonGenericCCAMechanism<GSVMLicense> cca = getMechanism(new GlobalSynergyValueModel().createNewPopulation());
@@ -0,0 +1,247 @@
+package org.spectrumauctions.sats.mechanism.cca;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.spectrumauctions.sats.core.bidlang.generic.GenericDefinition;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.Good;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMLicense;
+import org.spectrumauctions.sats.core.model.gsvm.GlobalSynergyValueModel;
+import org.spectrumauctions.sats.core.model.lsvm.LSVMLicense;
+import org.spectrumauctions.sats.core.model.lsvm.LocalSynergyValueModel;
+import org.spectrumauctions.sats.core.model.mrvm.MRVMGenericDefinition;
+import org.spectrumauctions.sats.core.model.mrvm.MRVMLicense;
+import org.spectrumauctions.sats.core.model.mrvm.MultiRegionModel;
+import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
+import org.spectrumauctions.sats.mechanism.cca.priceupdate.*;
+import org.spectrumauctions.sats.opt.domain.*;
+import org.spectrumauctions.sats.opt.model.ModelMIP;
+import org.spectrumauctions.sats.opt.model.gsvm.demandquery.GSVM_DemandQueryMIPBuilder;
+import org.spectrumauctions.sats.opt.model.lsvm.demandquery.LSVM_DemandQueryMIPBuilder;
+import org.spectrumauctions.sats.opt.model.mrvm.demandquery.MRVM_DemandQueryMIPBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the clock phases with the simple and the adaptive relative price updaters on the same instances,
+ * reporting the number of rounds, the total time spent in demand queries and the value of the clock phase
+ * allocation. Ignored by default, as it runs six clock phases with CPLEX.
+ */
+public class PriceUpdaterComparisonTest {
+
+    private static final Logger logger = LogManager.getLogger(PriceUpdaterComparisonTest.class);
+
+    private static final long SEED = 147258369L;
+
+    @Test
+    @Ignore
+    public void compareOnGSVM() {
+        List<Bidder<GSVMLicense>> bidders = new GlobalSynergyValueModel().createNewPopulation(new JavaUtilRNGSupplier(SEED))
+                .stream().map(b -> (Bidder<GSVMLicense>) b).collect(Collectors.toList());
+
+        TimingNonGenericBuilder<GSVMLicense> simpleBuilder = new TimingNonGenericBuilder<>(new GSVM_DemandQueryMIPBuilder());
+        NonGenericCCAMechanism<GSVMLicense> simple = new NonGenericCCAMechanism<>(bidders, simpleBuilder);
+        simple.setEpsilon(1e-2);
+        simple.setPriceUpdater(new SimpleRelativeNonGenericPriceUpdate<GSVMLicense>()
+                .withPriceUpdate(BigDecimal.valueOf(0.05)).withInitialUpdate(BigDecimal.valueOf(0.5)));
+
+        TimingNonGenericBuilder<GSVMLicense> adaptiveBuilder = new TimingNonGenericBuilder<>(new GSVM_DemandQueryMIPBuilder());
+        NonGenericCCAMechanism<GSVMLicense> adaptive = new NonGenericCCAMechanism<>(bidders, adaptiveBuilder);
+        adaptive.setEpsilon(1e-2);
+        adaptive.setPriceUpdater(new AdaptiveRelativeNonGenericPriceUpdate<GSVMLicense>()
+                .withInitialIncrement(BigDecimal.valueOf(0.05)).withInitialUpdate(BigDecimal.valueOf(0.5)));
+
+        compare("GSVM", simple, simpleBuilder.nanos, adaptive, adaptiveBuilder.nanos);
+    }
+
+    @Test
+    @Ignore
+    public void compareOnLSVM() {
+        List<Bidder<LSVMLicense>> bidders = new LocalSynergyValueModel().createNewPopulation(new JavaUtilRNGSupplier(SEED))
+                .stream().map(b -> (Bidder<LSVMLicense>) b).collect(Collectors.toList());
+
+        TimingNonGenericBuilder<LSVMLicense> simpleBuilder = new TimingNonGenericBuilder<>(new LSVM_DemandQueryMIPBuilder());
+        NonGenericCCAMechanism<LSVMLicense> simple = new NonGenericCCAMechanism<>(bidders, simpleBuilder);
+        simple.calculateSampledStartingPrices(50, 100, 0.1, SEED);
+        simple.setEpsilon(1e-5);
+        simple.setTimeLimit(60);
+        simple.setPriceUpdater(new SimpleRelativeNonGenericPriceUpdate<LSVMLicense>()
+                .withPriceUpdate(BigDecimal.valueOf(0.1)).withInitialUpdate(BigDecimal.valueOf(0.2)));
+
+        TimingNonGenericBuilder<LSVMLicense> adaptiveBuilder = new TimingNonGenericBuilder<>(new LSVM_DemandQueryMIPBuilder());
+        NonGenericCCAMechanism<LSVMLicense> adaptive = new NonGenericCCAMechanism<>(bidders, adaptiveBuilder);
+        adaptive.calculateSampledStartingPrices(50, 100, 0.1, SEED);
+        adaptive.setEpsilon(1e-5);
+        adaptive.setTimeLimit(60);
+        adaptive.setPriceUpdater(new AdaptiveRelativeNonGenericPriceUpdate<LSVMLicense>()
+                .withInitialIncrement(BigDecimal.valueOf(0.1)).withInitialUpdate(BigDecimal.valueOf(0.2)));
+
+        compare("LSVM", simple, simpleBuilder.nanos, adaptive, adaptiveBuilder.nanos);
+    }
+
+    @Test
+    @Ignore
+    public void compareOnMRVM() {
+        List<Bidder<MRVMLicense>> bidders = new MultiRegionModel().createNewPopulation(new JavaUtilRNGSupplier(SEED))
+                .stream().map(b -> (Bidder<MRVMLicense>) b).collect(Collectors.toList());
+
+        TimingGenericBuilder<MRVMGenericDefinition, MRVMLicense> simpleBuilder = new TimingGenericBuilder<>(new MRVM_DemandQueryMIPBuilder());
+        GenericCCAMechanism<MRVMGenericDefinition, MRVMLicense> simple = new GenericCCAMechanism<>(bidders, simpleBuilder);
+        simple.setEpsilon(1e-5);
+        simple.setTimeLimit(60);
+        simple.setPriceUpdater(new SimpleRelativeGenericPriceUpdate<MRVMGenericDefinition, MRVMLicense>()
+                .withPriceUpdate(BigDecimal.valueOf(0.1)));
+
+        TimingGenericBuilder<MRVMGenericDefinition, MRVMLicense> adaptiveBuilder = new TimingGenericBuilder<>(new MRVM_DemandQueryMIPBuilder());
+        GenericCCAMechanism<MRVMGenericDefinition, MRVMLicense> adaptive = new GenericCCAMechanism<>(bidders, adaptiveBuilder);
+        adaptive.setEpsilon(1e-5);
+        adaptive.setTimeLimit(60);
+        adaptive.setPriceUpdater(new AdaptiveRelativeGenericPriceUpdate<MRVMGenericDefinition, MRVMLicense>()
+                .withInitialIncrement(BigDecimal.valueOf(0.1)));
+
+        compare("MRVM", simple, simpleBuilder.nanos, adaptive, adaptiveBuilder.nanos);
+    }
+
+    private <T extends Good> void compare(String model, CCAMechanism<T> simple, AtomicLong simpleNanos, CCAMechanism<T> adaptive, AtomicLong adaptiveNanos) {
+        BigDecimal simpleValue = clockPhaseValue(simple);
+        BigDecimal adaptiveValue = clockPhaseValue(adaptive);
+        logger.info("{} - simple price update: {} rounds, {}s in demand queries, clock phase value {}",
+                model, simple.getTotalRounds(), simpleNanos.get() / 1e9, simpleValue);
+        logger.info("{} - adaptive price update: {} rounds, {}s in demand queries, clock phase value {}",
+                model, adaptive.getTotalRounds(), adaptiveNanos.get() / 1e9, adaptiveValue);
+    }
+
+    private <T extends Good> BigDecimal clockPhaseValue(CCAMechanism<T> cca) {
+        Allocation<T> allocation;
+        if (cca instanceof GenericCCAMechanism) {
+            allocation = ((GenericCCAMechanism<?, T>) cca).calculateClockPhaseAllocation();
+        } else {
+            allocation = ((NonGenericCCAMechanism<T>) cca).calculateClockPhaseAllocation();
+        }
+        return allocation.getAllocationWithTrueValues().getTotalValue();
+    }
+
+    /**
+     * Measures the time spent in the result pools of the demand queries of the wrapped builder
+     */
+    private static class TimingNonGenericBuilder<T extends Good> implements NonGenericDemandQueryMIPBuilder<T> {
+
+        private final NonGenericDemandQueryMIPBuilder<T> delegate;
+        private final AtomicLong nanos = new AtomicLong();
+
+        /**
+         * @param delegate a builder for the goods T; the model builders implement the raw builder interface
+         */
+        @SuppressWarnings("unchecked")
+        private TimingNonGenericBuilder(NonGenericDemandQueryMIPBuilder<?> delegate) {
+            this.delegate = (NonGenericDemandQueryMIPBuilder<T>) delegate;
+        }
+
+        @Override
+        public NonGenericDemandQueryMIP<T> getDemandQueryMipFor(Bidder<T> bidder, Map<T, BigDecimal> prices, double epsilon) {
+            NonGenericDemandQueryMIP<T> mip = delegate.getDemandQueryMipFor(bidder, prices, epsilon);
+            return new NonGenericDemandQueryMIP<T>() {
+                @Override
+                public NonGenericDemandQueryResult<T> getResult() {
+                    long start = System.nanoTime();
+                    NonGenericDemandQueryResult<T> result = mip.getResult();
+                    nanos.addAndGet(System.nanoTime() - start);
+                    return result;
+                }
+
+                @Override
+                public List<? extends NonGenericDemandQueryResult<T>> getResultPool(int numberOfResults) {
+                    long start = System.nanoTime();
+                    List<? extends NonGenericDemandQueryResult<T>> results = mip.getResultPool(numberOfResults);
+                    nanos.addAndGet(System.nanoTime() - start);
+                    return results;
+                }
+
+                @Override
+                public ModelMIP getMip() {
+                    return mip.getMip();
+                }
+
+                @Override
+                public void setTimeLimit(double timeLimit) {
+                    mip.setTimeLimit(timeLimit);
+                }
+
+                @Override
+                public void setRelativeResultPoolTolerance(double resultPoolTolerance) {
+                    mip.setRelativeResultPoolTolerance(resultPoolTolerance);
+                }
+
+                @Override
+                public void setAbsoluteResultPoolTolerance(double resultPoolTolerance) {
+                    mip.setAbsoluteResultPoolTolerance(resultPoolTolerance);
+                }
+            };
+        }
+    }
+
+    /**
+     * Measures the time spent in the result pools of the demand queries of the wrapped builder
+     */
+    private static class TimingGenericBuilder<G extends GenericDefinition<T>, T extends Good> implements GenericDemandQueryMIPBuilder<G, T> {
+
+        private final GenericDemandQueryMIPBuilder<G, T> delegate;
+        private final AtomicLong nanos = new AtomicLong();
+
+        /**
+         * @param delegate a builder for the definitions G; the model builders implement the raw builder interface
+         */
+        @SuppressWarnings("unchecked")
+        private TimingGenericBuilder(GenericDemandQueryMIPBuilder<?, ?> delegate) {
+            this.delegate = (GenericDemandQueryMIPBuilder<G, T>) delegate;
+        }
+
+        @Override
+        public GenericDemandQueryMIP<G, T> getDemandQueryMipFor(Bidder<T> bidder, Map<G, BigDecimal> prices, double epsilon) {
+            GenericDemandQueryMIP<G, T> mip = delegate.getDemandQueryMipFor(bidder, prices, epsilon);
+            return new GenericDemandQueryMIP<G, T>() {
+                @Override
+                public GenericDemandQueryResult<G, T> getResult() {
+                    long start = System.nanoTime();
+                    GenericDemandQueryResult<G, T> result = mip.getResult();
+                    nanos.addAndGet(System.nanoTime() - start);
+                    return result;
+                }
+
+                @Override
+                public List<? extends GenericDemandQueryResult<G, T>> getResultPool(int numberOfResults) {
+                    long start = System.nanoTime();
+                    List<? extends GenericDemandQueryResult<G, T>> results = mip.getResultPool(numberOfResults);
+                    nanos.addAndGet(System.nanoTime() - start);
+                    return results;
+                }
+
+                @Override
+                public ModelMIP getMip() {
+                    return mip.getMip();
+                }
+
+                @Override
+                public void setTimeLimit(double timeLimit) {
+                    mip.setTimeLimit(timeLimit);
+                }
+
+                @Override
+                public void setRelativeResultPoolTolerance(double resultPoolTolerance) {
+                    mip.setRelativeResultPoolTolerance(resultPoolTolerance);
+                }
+
+                @Override
+                public void setAbsoluteResultPoolTolerance(double resultPoolTolerance) {
+                    mip.setAbsoluteResultPoolTolerance(resultPoolTolerance);
+                }
+            };
+        }
+    }
+}
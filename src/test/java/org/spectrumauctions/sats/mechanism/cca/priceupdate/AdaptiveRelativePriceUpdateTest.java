@@ -0,0 +1,76 @@
+package org.spectrumauctions.sats.mechanism.cca.priceupdate;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMLicense;
+import org.spectrumauctions.sats.core.model.gsvm.GlobalSynergyValueModel;
+import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+public class AdaptiveRelativePriceUpdateTest {
+
+    @Test
+    public void testIncrementGrowsAndShrinks() {
+        List<GSVMLicense> licenses = new ArrayList<>(new GlobalSynergyValueModel().createNewPopulation(new JavaUtilRNGSupplier(147258369L)).get(0).getWorld().getLicenses());
+        GSVMLicense overdemanded = licenses.get(0);
+        GSVMLicense cleared = licenses.get(1);
+        AdaptiveRelativeNonGenericPriceUpdate<GSVMLicense> priceUpdater = new AdaptiveRelativeNonGenericPriceUpdate<GSVMLicense>()
+                .withInitialIncrement(BigDecimal.valueOf(0.1))
+                .withIncrementBounds(BigDecimal.valueOf(0.05), BigDecimal.valueOf(0.3))
+                .withGrowthFactor(BigDecimal.valueOf(2))
+                .withShrinkFactor(BigDecimal.valueOf(0.5));
+
+        Map<GSVMLicense, BigDecimal> prices = new HashMap<>();
+        prices.put(overdemanded, BigDecimal.TEN);
+        prices.put(cleared, BigDecimal.TEN);
+        Map<GSVMLicense, Integer> demand = new HashMap<>();
+        demand.put(overdemanded, 3);
+        demand.put(cleared, 1);
+
+        // Increments of 10%, 20% and 30% (bounded) while the license stays overdemanded
+        double[] expected = {11, 13.2, 17.16};
+        for (double price : expected) {
+            Map<GSVMLicense, BigDecimal> newPrices = priceUpdater.updatePrices(prices, demand);
+            Assert.assertEquals(price, newPrices.get(overdemanded).doubleValue(), 1e-9);
+            Assert.assertEquals(BigDecimal.TEN, newPrices.get(cleared));
+            prices = newPrices;
+        }
+        Assert.assertEquals(BigDecimal.valueOf(13.2).compareTo(priceUpdater.getLastPrices().get(overdemanded)), 0);
+
+        // Once the excess demand is gone, the price stays and the increment shrinks
+        demand.put(overdemanded, 1);
+        Map<GSVMLicense, BigDecimal> newPrices = priceUpdater.updatePrices(prices, demand);
+        Assert.assertEquals(prices, newPrices);
+        Assert.assertEquals(0.15, priceUpdater.getIncrements().get(overdemanded).doubleValue(), 1e-9);
+
+        demand.put(overdemanded, 2);
+        newPrices = priceUpdater.updatePrices(prices, demand);
+        Assert.assertEquals(17.16 * 1.15, newPrices.get(overdemanded).doubleValue(), 1e-9);
+    }
+
+    @Test
+    public void testStateCanBeRestored() {
+        List<GSVMLicense> licenses = new ArrayList<>(new GlobalSynergyValueModel().createNewPopulation(new JavaUtilRNGSupplier(147258369L)).get(0).getWorld().getLicenses());
+        Map<GSVMLicense, BigDecimal> prices = new HashMap<>();
+        Map<GSVMLicense, Integer> demand = new HashMap<>();
+        for (int i = 0; i < licenses.size(); i++) {
+            prices.put(licenses.get(i), BigDecimal.valueOf(i));
+            demand.put(licenses.get(i), i % 3);
+        }
+        AdaptiveRelativeNonGenericPriceUpdate<GSVMLicense> original = new AdaptiveRelativeNonGenericPriceUpdate<>();
+        Map<GSVMLicense, BigDecimal> originalPrices = original.updatePrices(original.updatePrices(prices, demand), demand);
+
+        AdaptiveRelativeNonGenericPriceUpdate<GSVMLicense> restored = new AdaptiveRelativeNonGenericPriceUpdate<>();
+        restored.restoreState(original.getState());
+        Assert.assertEquals(original.updatePrices(originalPrices, demand), restored.updatePrices(originalPrices, demand));
+        Assert.assertEquals(original.getLastPrices(), restored.getLastPrices());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStateOfOtherUpdaterIsRejected() {
+        SimpleRelativeNonGenericPriceUpdate<GSVMLicense> other = new SimpleRelativeNonGenericPriceUpdate<>();
+        new AdaptiveRelativeNonGenericPriceUpdate<GSVMLicense>().restoreState(other.getState());
+    }
+}
@@ -23,6 +23,7 @@ import org.spectrumauctions.sats.opt.xorq.XORQWinnerDetermination;
 import java.util.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class CCGTest {
 
@@ -190,6 +191,33 @@ public class CCGTest {
         assertEquals(payment.paymentOf(bidder(7)).getAmount(), 0, 1e-1);
     }
 
+    @Test
+    public void testIterationStatistics() {
+        bidder(1).addBid(new Bundle<>(A), 10);
+        bidder(2).addBid(new Bundle<>(B), 10);
+        bidder(3).addBid(new Bundle<>(C), 10);
+        bidder(4).addBid(new Bundle<>(A, B), 6);
+
+        Set<XORBid<MockWorld.MockGood>> xorBids = new HashSet<>();
+        xorBids.add(new XORBid.Builder<>(bidder(1), bidder(1).getBids()).build());
+        xorBids.add(new XORBid.Builder<>(bidder(2), bidder(2).getBids()).build());
+        xorBids.add(new XORBid.Builder<>(bidder(3), bidder(3).getBids()).build());
+        xorBids.add(new XORBid.Builder<>(bidder(4), bidder(4).getBids()).build());
+
+        WinnerDeterminator<MockWorld.MockGood> wdp = new XORWinnerDetermination<>(xorBids);
+        CCGMechanism<MockWorld.MockGood> am = new CCGMechanism<>(wdp);
+        List<CCGMechanism.IterationStatistics> statistics = am.getIterationStatistics();
+        assertTrue(statistics.size() >= 2);
+        for (int i = 0; i < statistics.size() - 1; i++) {
+            assertEquals(i + 1, statistics.get(i).getIteration());
+            assertEquals(i + 1, statistics.get(i).getCoreConstraints());
+        }
+        CCGMechanism.IterationStatistics last = statistics.get(statistics.size() - 1);
+        assertEquals(statistics.size() - 1, last.getCoreConstraints());
+        assertEquals(0, last.getL1Time());
+        assertEquals(3, am.getPayment().paymentOf(bidder(1)).getAmount(), 0.00001);
+    }
+
     @Test
     public void testCCGWithGenericGoods() {
         Map<MockWorld.MockBand, Integer> bid1 = new HashMap<>();
@@ -0,0 +1,53 @@
+package org.spectrumauctions.sats.mechanism.ccg;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class QuadraticPaymentSolverTest {
+
+    @Test
+    public void testSymmetricCoreConstraint() {
+        // Two local bidders against a global bidder bidding 2 for both goods (see CCGTest#testSimpleCCG)
+        QuadraticPaymentSolver solver = new QuadraticPaymentSolver(new double[]{0, 0}, new double[]{0, 0}, new double[]{2, 2});
+        solver.addCoreConstraint(new int[]{0, 1}, 2);
+        double[] payments = solver.solve(2, new double[]{2, 0});
+        assertEquals(1, payments[0], 1e-9);
+        assertEquals(1, payments[1], 1e-9);
+    }
+
+    @Test
+    public void testUpperBoundIsRespected() {
+        QuadraticPaymentSolver solver = new QuadraticPaymentSolver(new double[]{0, 0, 0}, new double[]{0, 0, 0}, new double[]{1, 10, 10});
+        solver.addCoreConstraint(new int[]{0, 1, 2}, 9);
+        double[] payments = solver.solve(9, new double[]{1, 8, 0});
+        assertEquals(1, payments[0], 1e-9);
+        assertEquals(4, payments[1], 1e-9);
+        assertEquals(4, payments[2], 1e-9);
+    }
+
+    @Test
+    public void testAccumulatedCoreConstraints() {
+        // Minimizes the distance to the VCG payments (1, 1, 0) with two overlapping core constraints
+        QuadraticPaymentSolver solver = new QuadraticPaymentSolver(new double[]{1, 1, 0}, new double[]{1, 1, 0}, new double[]{10, 10, 10});
+        solver.addCoreConstraint(new int[]{0, 1}, 6);
+        solver.addCoreConstraint(new int[]{1, 2}, 5);
+        double[] payments = solver.solve(8, new double[]{3, 3, 2});
+        assertEquals(8, payments[0] + payments[1] + payments[2], 1e-9);
+        assertEquals(3, payments[0], 1e-9);
+        assertEquals(3, payments[1], 1e-9);
+        assertEquals(2, payments[2], 1e-9);
+        assertEquals(8, solver.getNumberOfConstraints());
+    }
+
+    @Test
+    public void testLargeScale() {
+        double scale = 5e8;
+        QuadraticPaymentSolver solver = new QuadraticPaymentSolver(new double[]{0, 0}, new double[]{0, 0}, new double[]{scale, scale});
+        solver.addCoreConstraint(new int[]{0, 1}, scale);
+        double[] payments = solver.solve(scale, new double[]{scale, 0});
+        assertEquals(scale / 2, payments[0], 1e-3);
+        assertEquals(scale / 2, payments[1], 1e-3);
+    }
+
+}
@@ -9,6 +9,7 @@ import org.spectrumauctions.sats.mechanism.MockWorld;
 import org.spectrumauctions.sats.mechanism.MockWorld.MockGood;
 
 import org.spectrumauctions.sats.opt.domain.Allocation;
+import org.spectrumauctions.sats.opt.domain.WinnerDeterminationPreprocessing;
 import org.spectrumauctions.sats.opt.domain.WinnerDeterminator;
 import org.spectrumauctions.sats.opt.xor.XORWinnerDetermination;
 
@@ -109,4 +110,30 @@ public class XORWinnerDeterminationTest {
         assertEquals(result.getTradeValue(bidder(4)).doubleValue(), 0, 0.0001);
 
     }
+
+    @Test
+    public void testPreprocessing() {
+        bidder(1).addBid(new Bundle<>(A), 2);
+        bidder(1).addBid(new Bundle<>(A, B), 1);
+        bidder(2).addBid(new Bundle<>(B), 3);
+        bidder(3).addBid(new Bundle<>(C), 1);
+        bidder(3).addBid(new Bundle<>(C, D), 1);
+        Set<XORBid<MockGood>> bids = new HashSet<>();
+        bids.add(new XORBid.Builder<>(bidder(1), bidder(1).getBids()).build());
+        bids.add(new XORBid.Builder<>(bidder(2), bidder(2).getBids()).build());
+        bids.add(new XORBid.Builder<>(bidder(3), bidder(3).getBids()).build());
+
+        XORWinnerDetermination<MockGood> wd = new XORWinnerDetermination<>(bids);
+        wd.setPreprocessing(true);
+        Allocation<MockGood> result = wd.calculateAllocation();
+        assertEquals(result.getTotalValue().doubleValue(), 6, 0.0001);
+        assertEquals(result.getTradeValue(bidder(1)).doubleValue(), 2, 0.0001);
+        assertEquals(result.getTradeValue(bidder(2)).doubleValue(), 3, 0.0001);
+        assertEquals(result.getAllocation(bidder(3)), new Bundle<>(C));
+
+        WinnerDeterminationPreprocessing.Statistics statistics = wd.getPreprocessingStatistics();
+        assertEquals(5, statistics.getValuesBefore());
+        assertEquals(3, statistics.getValuesAfter());
+        assertEquals(3, statistics.getComponents());
+    }
 }
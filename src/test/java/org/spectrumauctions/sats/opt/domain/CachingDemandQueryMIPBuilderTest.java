@@ -0,0 +1,94 @@
+package org.spectrumauctions.sats.opt.domain;
+
+import org.junit.Test;
+import org.spectrumauctions.sats.core.bidlang.xor.XORValue;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.Bundle;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMBidder;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMLicense;
+import org.spectrumauctions.sats.core.model.gsvm.GlobalSynergyValueModel;
+import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
+import org.spectrumauctions.sats.opt.model.ModelMIP;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CachingDemandQueryMIPBuilderTest {
+
+    @Test
+    public void testRepeatedQueriesAreSolvedOnce() {
+        List<GSVMBidder> bidders = new GlobalSynergyValueModel().createNewPopulation(new JavaUtilRNGSupplier(73246104));
+        GSVMBidder bidder = bidders.get(0);
+        CountingBuilder countingBuilder = new CountingBuilder();
+        CachingNonGenericDemandQueryMIPBuilder<GSVMLicense> builder = new CachingNonGenericDemandQueryMIPBuilder<>(countingBuilder);
+
+        Map<GSVMLicense, BigDecimal> prices = new HashMap<>();
+        bidder.getWorld().getLicenses().forEach(license -> prices.put(license, BigDecimal.ONE));
+        Map<GSVMLicense, BigDecimal> samePrices = new HashMap<>();
+        bidder.getWorld().getLicenses().forEach(license -> samePrices.put(license, new BigDecimal("1.00")));
+        Map<GSVMLicense, BigDecimal> otherPrices = new HashMap<>();
+        bidder.getWorld().getLicenses().forEach(license -> otherPrices.put(license, BigDecimal.TEN));
+
+        List<? extends NonGenericDemandQueryResult<GSVMLicense>> first = builder.getDemandQueryMipFor(bidder, prices, 0.01).getResultPool(3);
+        assertSame(first, builder.getDemandQueryMipFor(bidder, samePrices, 0.01).getResultPool(3));
+        assertEquals(1, countingBuilder.solves.get());
+
+        builder.getDemandQueryMipFor(bidder, otherPrices, 0.01).getResultPool(3);
+        builder.getDemandQueryMipFor(bidder, prices, 0.01).getResultPool(5);
+        builder.getDemandQueryMipFor(bidder, prices, 0.001).getResultPool(3);
+        builder.getDemandQueryMipFor(bidders.get(1), prices, 0.01).getResultPool(3);
+        NonGenericDemandQueryMIP<GSVMLicense> withTolerance = builder.getDemandQueryMipFor(bidder, prices, 0.01);
+        withTolerance.setRelativeResultPoolTolerance(0.1);
+        withTolerance.getResultPool(3);
+        assertEquals(6, countingBuilder.solves.get());
+        assertEquals(1, builder.getHits());
+        assertEquals(6, builder.getMisses());
+
+        builder.clear();
+        builder.getDemandQueryMipFor(bidder, prices, 0.01).getResultPool(3);
+        assertEquals(7, countingBuilder.solves.get());
+    }
+
+    private static class CountingBuilder implements NonGenericDemandQueryMIPBuilder<GSVMLicense> {
+
+        private final AtomicInteger solves = new AtomicInteger();
+
+        @Override
+        public NonGenericDemandQueryMIP<GSVMLicense> getDemandQueryMipFor(Bidder<GSVMLicense> bidder, Map<GSVMLicense, BigDecimal> prices, double epsilon) {
+            return new NonGenericDemandQueryMIP<GSVMLicense>() {
+                @Override
+                public NonGenericDemandQueryResult<GSVMLicense> getResult() {
+                    return getResultPool(1).get(0);
+                }
+
+                @Override
+                public List<? extends NonGenericDemandQueryResult<GSVMLicense>> getResultPool(int numberOfResults) {
+                    solves.incrementAndGet();
+                    XORValue<GSVMLicense> empty = new XORValue<>(new Bundle<>(), BigDecimal.ZERO);
+                    NonGenericDemandQueryResult<GSVMLicense> result = () -> empty;
+                    return Collections.singletonList(result);
+                }
+
+                @Override
+                public ModelMIP getMip() {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void setRelativeResultPoolTolerance(double resultPoolTolerance) {
+                }
+
+                @Override
+                public void setAbsoluteResultPoolTolerance(double resultPoolTolerance) {
+                }
+
+                @Override
+                public void setTimeLimit(double timeLimit) {
+                }
+            };
+        }
+    }
+}
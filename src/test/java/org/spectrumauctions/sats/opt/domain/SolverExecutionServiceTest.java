@@ -0,0 +1,55 @@
+package org.spectrumauctions.sats.opt.domain;
+
+import edu.harvard.econcs.jopt.solver.IMIPSolver;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SolverExecutionServiceTest {
+
+    @Test
+    public void testConcurrentSolvesAreCapped() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger createdClients = new AtomicInteger();
+        SolverExecutionService service = new SolverExecutionService(2, () -> {
+            createdClients.incrementAndGet();
+            return (IMIPSolver) mip -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return null;
+            };
+        });
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> service.solve(null));
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(maxRunning.get() <= 2);
+        assertTrue(createdClients.get() <= 2);
+        assertEquals(8, service.getCompletedSolves());
+        assertEquals(0, service.getQueueDepth());
+        assertEquals(0, service.getRunningSolves());
+        long histogramTotal = 0;
+        for (long count : service.getSolveTimeHistogram()) {
+            histogramTotal += count;
+        }
+        assertEquals(8, histogramTotal);
+    }
+}
@@ -0,0 +1,53 @@
+package org.spectrumauctions.sats.opt.domain;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class WinnerDeterminationCacheTest {
+
+    @Test
+    public void testKeyIsIndependentOfOrder() {
+        String key = WinnerDeterminationCache.key("XOR", 1e-8, Arrays.asList("a", "b", "c"));
+        assertEquals(key, WinnerDeterminationCache.key("XOR", 1e-8, Arrays.asList("c", "a", "b")));
+        assertNotEquals(key, WinnerDeterminationCache.key("XOR", 1e-6, Arrays.asList("a", "b", "c")));
+        assertNotEquals(key, WinnerDeterminationCache.key("XORQ", 1e-8, Arrays.asList("a", "b", "c")));
+        assertNotEquals(key, WinnerDeterminationCache.key("XOR", 1e-8, Arrays.asList("a", "b")));
+    }
+
+    @Test
+    public void testInMemory() {
+        WinnerDeterminationCache cache = new WinnerDeterminationCache();
+        String key = WinnerDeterminationCache.key("XOR", 1e-8, Collections.singletonList("a"));
+        assertNull(cache.get(key));
+        cache.put(key, Collections.singletonList("a"));
+        assertEquals(Collections.singletonList("a"), cache.get(key));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testOnDisk() throws IOException {
+        Path directory = Files.createTempDirectory("wdp-cache");
+        String key = WinnerDeterminationCache.key("XOR", 1e-8, Arrays.asList("a", "b"));
+        List<String> winners = Arrays.asList("a", "b");
+        new WinnerDeterminationCache(directory).put(key, winners);
+
+        WinnerDeterminationCache fresh = new WinnerDeterminationCache(directory);
+        assertEquals(winners, fresh.get(key));
+        fresh.clear();
+        assertEquals(winners, fresh.get(key));
+
+        // A solution without winners is a valid entry as well
+        String emptyKey = WinnerDeterminationCache.key("XOR", 1e-8, Collections.emptyList());
+        fresh.put(emptyKey, Collections.emptyList());
+        assertEquals(Collections.emptyList(), new WinnerDeterminationCache(directory).get(emptyKey));
+    }
+}
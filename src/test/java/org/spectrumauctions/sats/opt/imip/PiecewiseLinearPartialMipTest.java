@@ -15,6 +15,7 @@ import org.apache.logging.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Test;
 import org.spectrumauctions.sats.core.util.math.ContinuousPiecewiseLinearFunction;
+import org.spectrumauctions.sats.opt.domain.PiecewiseLinearEncoding;
 import org.spectrumauctions.sats.opt.domain.PiecewiseLinearPartialMIP;
 
 import java.math.BigDecimal;
@@ -73,4 +74,58 @@ public class PiecewiseLinearPartialMipTest {
         logger.info("Result:\n" + result.toString());
         Assert.assertEquals(3, result.getObjectiveValue(), 0.00001);
     }
+
+    @Test
+    public void pieceWiseLinearAllEncodings() {
+        Map<BigDecimal, BigDecimal> cornerPoints = new HashMap<>();
+        cornerPoints.put(new BigDecimal(0), new BigDecimal(0));
+        cornerPoints.put(new BigDecimal(1), new BigDecimal(1));
+        cornerPoints.put(new BigDecimal(2), new BigDecimal(4));
+        cornerPoints.put(new BigDecimal(3), new BigDecimal(3));
+        cornerPoints.put(new BigDecimal(4), new BigDecimal(5));
+        cornerPoints.put(new BigDecimal(6), new BigDecimal(2));
+        ContinuousPiecewiseLinearFunction func = new ContinuousPiecewiseLinearFunction(cornerPoints);
+        for (PiecewiseLinearEncoding encoding : PiecewiseLinearEncoding.values()) {
+            // Maximizing y - x and y + x picks different pieces of the function
+            Assert.assertEquals(2, solve(func, encoding, -1, 0, 6), 0.00001);
+            Assert.assertEquals(9, solve(func, encoding, 1, 0, 6), 0.00001);
+            // Fixing the input evaluates the function
+            Assert.assertEquals(3.5, solve(func, encoding, 0, 5, 5), 0.00001);
+            Assert.assertEquals(2.5, solve(func, encoding, 0, 1.5, 1.5), 0.00001);
+        }
+    }
+
+    @Test
+    public void logarithmicEncodingUsesFewerBinaries() {
+        Map<BigDecimal, BigDecimal> cornerPoints = new HashMap<>();
+        for (int i = 0; i <= 8; i++) {
+            cornerPoints.put(new BigDecimal(i), new BigDecimal(i * i));
+        }
+        ContinuousPiecewiseLinearFunction func = new ContinuousPiecewiseLinearFunction(cornerPoints);
+        Variable x = new Variable("x", VarType.DOUBLE, 0, 8);
+        Variable y = new Variable("y", VarType.DOUBLE, -MIP.MAX_VALUE, MIP.MAX_VALUE);
+        Assert.assertEquals(8, countBinaries(new PiecewiseLinearPartialMIP(func, x, y, "aux", PiecewiseLinearEncoding.CONDITIONAL_X)));
+        Assert.assertEquals(8, countBinaries(new PiecewiseLinearPartialMIP(func, x, y, "aux", PiecewiseLinearEncoding.LAMBDA)));
+        Assert.assertEquals(3, countBinaries(new PiecewiseLinearPartialMIP(func, x, y, "aux", PiecewiseLinearEncoding.LOGARITHMIC)));
+    }
+
+    private long countBinaries(PiecewiseLinearPartialMIP partialMip) {
+        return partialMip.getVariables().stream().filter(v -> v.getType() == VarType.BOOLEAN).count();
+    }
+
+    private double solve(ContinuousPiecewiseLinearFunction func, PiecewiseLinearEncoding encoding,
+                         double inputCoefficient, double lowerBound, double upperBound) {
+        Variable x = new Variable("x", VarType.DOUBLE, lowerBound, upperBound);
+        Variable y = new Variable("y", VarType.DOUBLE, -MIP.MAX_VALUE, MIP.MAX_VALUE);
+        PiecewiseLinearPartialMIP mipArtifacts = new PiecewiseLinearPartialMIP(func, x, y, "aux_plf_1", encoding);
+        MIP mip = new MIP();
+        mip.setObjectiveMax(true);
+        mip.addObjectiveTerm(1, y);
+        mip.addObjectiveTerm(inputCoefficient, x);
+        mip.add(x);
+        mip.add(y);
+        mipArtifacts.appendToMip(mip);
+        IMIPResult result = new SolverClient().solve(mip);
+        return result.getObjectiveValue();
+    }
 }
@@ -0,0 +1,193 @@
+package org.spectrumauctions.sats.opt.model.bvm;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.bvm.BMBand;
+import org.spectrumauctions.sats.core.model.bvm.BMBidder;
+import org.spectrumauctions.sats.core.model.bvm.BMLicense;
+import org.spectrumauctions.sats.core.model.bvm.bvm.BaseValueModel;
+import org.spectrumauctions.sats.core.model.bvm.mbvm.MultiBandValueModel;
+import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
+import org.spectrumauctions.sats.mechanism.ccg.CCGMechanism;
+import org.spectrumauctions.sats.mechanism.domain.MechanismResult;
+import org.spectrumauctions.sats.mechanism.vcg.VCGMechanism;
+import org.spectrumauctions.sats.opt.domain.GenericAllocation;
+import org.spectrumauctions.sats.opt.model.bvm.demandquery.BMDemandQueryResult;
+import org.spectrumauctions.sats.opt.model.bvm.demandquery.BM_DemandQueryOracle;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+public class BMDynamicProgrammingTest {
+
+    @Test
+    public void testBVMEqualsBruteForceForTwoBidders() {
+        List<BMBidder> bidders = new BaseValueModel().createNewPopulation(new JavaUtilRNGSupplier(147258369L));
+        List<BMBidder> twoBidders = bidders.subList(0, 2);
+        GenericAllocation<BMBand, BMLicense> allocation = new BM_DP(twoBidders).calculateAllocation();
+        Assert.assertEquals(bruteForce(twoBidders, new HashMap<>()), allocation.getTotalValue().doubleValue(), 1e-6);
+    }
+
+    @Test
+    public void testMBVMWithPayoffsEqualsBruteForceForTwoBidders() {
+        List<BMBidder> bidders = new MultiBandValueModel().createNewPopulation(new JavaUtilRNGSupplier(147258369L));
+        List<BMBidder> twoBidders = bidders.subList(0, 2);
+        Map<Bidder<BMLicense>, Double> payoffs = new HashMap<>();
+        payoffs.put(twoBidders.get(0), 50.0);
+        payoffs.put(twoBidders.get(1), 20.0);
+        BM_DP dp = new BM_DP(twoBidders);
+        dp.adjustPayoffs(payoffs);
+        GenericAllocation<BMBand, BMLicense> allocation = dp.calculateAllocation();
+        double adjusted = allocation.getTotalValue().doubleValue();
+        for (Bidder<BMLicense> winner : allocation.getWinners()) {
+            adjusted -= payoffs.get(winner);
+        }
+        Assert.assertEquals(bruteForce(twoBidders, payoffs), adjusted, 1e-6);
+    }
+
+    @Test
+    public void testAllocationIsFeasible() {
+        List<BMBidder> bidders = new MultiBandValueModel().createNewPopulation(new JavaUtilRNGSupplier(147258369L));
+        GenericAllocation<BMBand, BMLicense> allocation = new BM_DP(bidders).calculateAllocation();
+        for (BMBand band : bidders.get(0).getWorld().getBands()) {
+            int allocated = 0;
+            for (Bidder<BMLicense> winner : allocation.getWinners()) {
+                allocated += allocation.getGenericAllocation(winner).getQuantity(band);
+            }
+            Assert.assertTrue(allocated <= band.getNumberOfLicenses());
+        }
+    }
+
+    @Test
+    public void testVCGAndCCGWinnersEqualBruteForce() {
+        // With this seed, two of the five bidders lose
+        List<BMBidder> bidders = new BaseValueModel().createNewPopulation(new JavaUtilRNGSupplier(1L));
+        Set<Bidder<BMLicense>> winners = bruteForceWinners(bidders);
+        Assert.assertTrue(winners.size() < bidders.size());
+        MechanismResult<BMLicense> vcg = new VCGMechanism<>(new BM_DP(bidders)).getMechanismResult();
+        Assert.assertEquals(winners, new HashSet<>(vcg.getAllocation().getWinners()));
+        Assert.assertEquals(winners, vcg.getPayment().getWinners());
+        MechanismResult<BMLicense> ccg = new CCGMechanism<>(new BM_DP(bidders)).getMechanismResult();
+        Assert.assertEquals(winners, new HashSet<>(ccg.getAllocation().getWinners()));
+        Assert.assertEquals(winners, ccg.getPayment().getWinners());
+        for (Bidder<BMLicense> winner : winners) {
+            double payment = ccg.getPayment().paymentOf(winner).getAmount();
+            Assert.assertTrue(payment >= vcg.getPayment().paymentOf(winner).getAmount() - 1e-6);
+            Assert.assertTrue(payment <= ccg.getAllocation().getTradeValue(winner).doubleValue() + 1e-6);
+        }
+    }
+
+    @Test
+    public void testDemandOracleFindsBestBundles() {
+        List<BMBidder> bidders = new MultiBandValueModel().createNewPopulation(new JavaUtilRNGSupplier(147258369L));
+        Random random = new Random(4711);
+        for (BMBidder bidder : bidders) {
+            List<BMBand> bands = bidder.getWorld().getBands();
+            Map<BMBand, BigDecimal> prices = new HashMap<>();
+            bands.forEach(band -> prices.put(band, BigDecimal.valueOf(random.nextDouble() * bidder.getBaseValue(band).doubleValue() * 2)));
+            BigDecimal[][] values = BM_DP.calculateBandValues(bidder);
+            double best = 0;
+            for (int b = 0; b < bands.size(); b++) {
+                double bestOfBand = Double.NEGATIVE_INFINITY;
+                for (int q = 0; q < values[b].length; q++) {
+                    bestOfBand = Math.max(bestOfBand, values[b][q].doubleValue() - q * prices.get(bands.get(b)).doubleValue());
+                }
+                best += bestOfBand;
+            }
+
+            List<BMDemandQueryResult> pool = new BM_DemandQueryOracle(bidder, prices).getResultPool(10);
+            Assert.assertEquals(10, pool.size());
+            Assert.assertEquals(best, pool.get(0).getTotalUtility().doubleValue(), 1e-6);
+            Set<Map<BMBand, Integer>> bundles = new HashSet<>();
+            for (int i = 0; i < pool.size(); i++) {
+                Assert.assertTrue(bundles.add(pool.get(i).getResultingBundle().getQuantities()));
+                if (i > 0) {
+                    Assert.assertTrue(pool.get(i - 1).getTotalUtility().compareTo(pool.get(i).getTotalUtility()) >= 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the highest payoff-adjusted welfare of two bidders, enumerating all pairs of quantity vectors
+     */
+    private double bruteForce(List<BMBidder> twoBidders, Map<Bidder<BMLicense>, Double> payoffs) {
+        List<BMBand> bands = twoBidders.get(0).getWorld().getBands();
+        List<int[]> vectors = new ArrayList<>();
+        vectors.add(new int[0]);
+        for (BMBand band : bands) {
+            List<int[]> extended = new ArrayList<>();
+            for (int[] vector : vectors) {
+                for (int q = 0; q <= band.getNumberOfLicenses(); q++) {
+                    int[] next = Arrays.copyOf(vector, vector.length + 1);
+                    next[vector.length] = q;
+                    extended.add(next);
+                }
+            }
+            vectors = extended;
+        }
+        BigDecimal[][] first = BM_DP.calculateBandValues(twoBidders.get(0));
+        BigDecimal[][] second = BM_DP.calculateBandValues(twoBidders.get(1));
+        double best = 0;
+        for (int[] p : vectors) {
+            for (int[] q : vectors) {
+                double value = 0;
+                boolean feasible = true;
+                boolean firstWins = false;
+                boolean secondWins = false;
+                for (int b = 0; b < bands.size(); b++) {
+                    feasible &= p[b] + q[b] <= bands.get(b).getNumberOfLicenses();
+                    value += first[b][p[b]].doubleValue() + second[b][q[b]].doubleValue();
+                    firstWins |= p[b] > 0;
+                    secondWins |= q[b] > 0;
+                }
+                if (feasible) {
+                    if (firstWins) value -= payoffs.getOrDefault(twoBidders.get(0), 0.0);
+                    if (secondWins) value -= payoffs.getOrDefault(twoBidders.get(1), 0.0);
+                    best = Math.max(best, value);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Without payoffs, the bands are independent, so the efficient allocation is found by enumerating all splits
+     * of each band among the bidders.
+     *
+     * @return the winners of the efficient allocation
+     */
+    private Set<Bidder<BMLicense>> bruteForceWinners(List<BMBidder> bidders) {
+        List<BMBand> bands = bidders.get(0).getWorld().getBands();
+        List<BigDecimal[][]> values = new ArrayList<>();
+        bidders.forEach(bidder -> values.add(BM_DP.calculateBandValues(bidder)));
+        Set<Bidder<BMLicense>> winners = new HashSet<>();
+        for (int b = 0; b < bands.size(); b++) {
+            int[] best = bestSplit(values, b, new int[bidders.size()], 0, bands.get(b).getNumberOfLicenses(), null);
+            for (int i = 0; i < bidders.size(); i++) {
+                if (best[i] > 0) winners.add(bidders.get(i));
+            }
+        }
+        return winners;
+    }
+
+    private int[] bestSplit(List<BigDecimal[][]> values, int band, int[] split, int bidder, int remaining, int[] best) {
+        if (bidder == split.length) {
+            return best == null || splitValue(values, band, split) > splitValue(values, band, best) ? split.clone() : best;
+        }
+        for (int q = 0; q <= remaining; q++) {
+            split[bidder] = q;
+            best = bestSplit(values, band, split, bidder + 1, remaining - q, best);
+        }
+        return best;
+    }
+
+    private double splitValue(List<BigDecimal[][]> values, int band, int[] split) {
+        double value = 0;
+        for (int i = 0; i < split.length; i++) {
+            value += values.get(i)[band][split[i]].doubleValue();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,39 @@
+package org.spectrumauctions.sats.opt.model.gsvm;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spectrumauctions.sats.core.model.Bundle;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMBidder;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMLicense;
+import org.spectrumauctions.sats.core.model.gsvm.GSVMWorld;
+import org.spectrumauctions.sats.core.model.gsvm.GlobalSynergyValueModel;
+import org.spectrumauctions.sats.opt.domain.ItemAllocation;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Compares the {@link GSVMCompactMIP} to the {@link GSVMStandardMIP}
+ */
+public class GSVMCompactMIPTest {
+
+    @Test
+    public void testSameValueAsStandardMIP() {
+        for (boolean allowZeroBaseValues : new boolean[]{true, false}) {
+            GlobalSynergyValueModel model = new GlobalSynergyValueModel();
+            GSVMWorld world = model.createWorld(82364L);
+            List<GSVMBidder> population = model.createPopulation(world, 82364L);
+
+            ItemAllocation<GSVMLicense> standard = new GSVMStandardMIP(world, population, allowZeroBaseValues).calculateAllocation();
+            ItemAllocation<GSVMLicense> compact = new GSVMCompactMIP(world, population, allowZeroBaseValues).calculateAllocation();
+            Assert.assertEquals(standard.getTotalValue().doubleValue(), compact.getTotalValue().doubleValue(), 1e-6);
+
+            BigDecimal trueValue = BigDecimal.ZERO;
+            for (GSVMBidder bidder : population) {
+                Bundle<GSVMLicense> bundle = compact.getAllocation(bidder);
+                trueValue = trueValue.add(bidder.calculateValue(bundle));
+            }
+            Assert.assertEquals(compact.getTotalValue().doubleValue(), trueValue.doubleValue(), 1e-6);
+        }
+    }
+}
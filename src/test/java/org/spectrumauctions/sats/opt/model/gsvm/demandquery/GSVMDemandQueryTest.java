@@ -4,6 +4,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.Assert;
 import org.junit.Test;
+import org.spectrumauctions.sats.core.model.Bundle;
 import org.spectrumauctions.sats.core.model.gsvm.GSVMBidder;
 import org.spectrumauctions.sats.core.model.gsvm.GSVMLicense;
 import org.spectrumauctions.sats.core.model.gsvm.GSVMWorld;
@@ -11,9 +12,8 @@ import org.spectrumauctions.sats.core.model.gsvm.GlobalSynergyValueModel;
 import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * @author Fabio Isler
@@ -36,4 +36,117 @@ public class GSVMDemandQueryTest {
             logger.info(result.getResultingBundle());
         }
     }
+
+    @Test
+    public void testReusedModelEqualsNewModel() {
+        List<GSVMBidder> bidders = new GlobalSynergyValueModel().createNewPopulation(new JavaUtilRNGSupplier(73246104));
+        GSVMWorld world = bidders.iterator().next().getWorld();
+        GSVM_DemandQueryMIPBuilder builder = new GSVM_DemandQueryMIPBuilder();
+        for (int round = 0; round < 3; round++) {
+            Map<GSVMLicense, BigDecimal> prices = new HashMap<>();
+            BigDecimal price = BigDecimal.valueOf(round * 5);
+            world.getLicenses().forEach(license -> prices.put(license, price));
+            for (GSVMBidder bidder : bidders) {
+                GSVM_DemandQueryMipResult reused = (GSVM_DemandQueryMipResult) builder.getDemandQueryMipFor(bidder, prices, 1e-6).getResult();
+                GSVM_DemandQueryMipResult fresh = new GSVM_DemandQueryMIP(bidder, prices, 1e-6).getResult();
+                Assert.assertEquals(utility(fresh, price), utility(reused, price), 1e-4);
+            }
+        }
+        Assert.assertSame(builder.getDemandQueryMipFor(bidders.get(0), new HashMap<>(getZeroPrices(world)), 1e-6),
+                builder.getDemandQueryMipFor(bidders.get(0), new HashMap<>(getZeroPrices(world)), 1e-6));
+    }
+
+    @Test
+    public void testOracleEqualsBruteForce() {
+        List<GSVMBidder> bidders = new GlobalSynergyValueModel().createNewPopulation(new JavaUtilRNGSupplier(73246104));
+        GSVMWorld world = bidders.iterator().next().getWorld();
+        Random random = new Random(4711);
+        for (int round = 0; round < 3; round++) {
+            Map<GSVMLicense, BigDecimal> prices = new HashMap<>();
+            world.getLicenses().forEach(license -> prices.put(license, BigDecimal.valueOf(1 + random.nextInt(30))));
+            for (GSVMBidder bidder : bidders) {
+                List<Double> expected = bruteForceUtilities(bidder, prices);
+                List<GSVM_DemandQueryMipResult> pool = new GSVM_DemandQueryOracleBuilder()
+                        .getDemandQueryMipFor(bidder, prices, 0).getResultPool(20)
+                        .stream().map(r -> (GSVM_DemandQueryMipResult) r).collect(Collectors.toList());
+                Assert.assertEquals(expected.size(), pool.size());
+                Set<Bundle<GSVMLicense>> bundles = new HashSet<>();
+                for (int i = 0; i < pool.size(); i++) {
+                    Bundle<GSVMLicense> bundle = pool.get(i).getResultingBundle().getLicenses();
+                    Assert.assertTrue(bundles.add(bundle));
+                    Assert.assertEquals(expected.get(i), utility(pool.get(i), prices), 1e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOracleRespectsAbsoluteTolerance() {
+        List<GSVMBidder> bidders = new GlobalSynergyValueModel().createNewPopulation(new JavaUtilRNGSupplier(73246104));
+        GSVMWorld world = bidders.iterator().next().getWorld();
+        Map<GSVMLicense, BigDecimal> prices = new HashMap<>();
+        world.getLicenses().forEach(license -> prices.put(license, BigDecimal.valueOf(5)));
+        for (GSVMBidder bidder : bidders) {
+            GSVM_DemandQueryOracle oracle = new GSVM_DemandQueryOracle(bidder, prices);
+            oracle.setAbsoluteResultPoolTolerance(10);
+            List<GSVM_DemandQueryMipResult> pool = oracle.getResultPool(100);
+            double best = utility(pool.get(0), prices);
+            for (GSVM_DemandQueryMipResult result : pool) {
+                Assert.assertTrue(best - utility(result, prices) <= 10 + 1e-6);
+            }
+        }
+    }
+
+    /**
+     * @return the utilities of all bundles, in decreasing order. Licenses without a base value are included, as they
+     * still increase the size of a bundle and thus the complementarity markup.
+     */
+    private List<Double> bruteForceUtilities(GSVMBidder bidder, Map<GSVMLicense, BigDecimal> prices) {
+        List<GSVMLicense> licenses = new ArrayList<>(bidder.getWorld().getLicenses());
+        int n = licenses.size();
+        double[] baseValues = new double[n];
+        double[] licensePrices = new double[n];
+        for (int i = 0; i < n; i++) {
+            baseValues[i] = bidder.getBaseValues().getOrDefault(licenses.get(i).getId(), BigDecimal.ZERO).doubleValue();
+            licensePrices[i] = prices.get(licenses.get(i)).doubleValue();
+        }
+        double[] utilities = new double[1 << n];
+        for (int subset = 0; subset < 1 << n; subset++) {
+            double value = 0;
+            double price = 0;
+            for (int i = 0; i < n; i++) {
+                if ((subset & 1 << i) != 0) {
+                    value += baseValues[i];
+                    price += licensePrices[i];
+                }
+            }
+            int size = Integer.bitCount(subset);
+            utilities[subset] = (size == 0 ? 0 : value * (1 + 0.2 * (size - 1))) - price;
+        }
+        Arrays.sort(utilities);
+        List<Double> result = new ArrayList<>();
+        for (int i = utilities.length - 1; i >= 0 && result.size() < 20; i--) {
+            result.add(utilities[i]);
+        }
+        return result;
+    }
+
+    private double utility(GSVM_DemandQueryMipResult result, Map<GSVMLicense, BigDecimal> prices) {
+        BigDecimal price = BigDecimal.ZERO;
+        for (GSVMLicense license : result.getResultingBundle().getLicenses()) {
+            price = price.add(prices.get(license));
+        }
+        return result.getResultingBundle().value().subtract(price).doubleValue();
+    }
+
+    private double utility(GSVM_DemandQueryMipResult result, BigDecimal pricePerLicense) {
+        int size = result.getResultingBundle().getLicenses().size();
+        return result.getResultingBundle().value().subtract(pricePerLicense.multiply(BigDecimal.valueOf(size))).doubleValue();
+    }
+
+    private Map<GSVMLicense, BigDecimal> getZeroPrices(GSVMWorld world) {
+        Map<GSVMLicense, BigDecimal> prices = new HashMap<>();
+        world.getLicenses().forEach(license -> prices.put(license, BigDecimal.ZERO));
+        return prices;
+    }
 }
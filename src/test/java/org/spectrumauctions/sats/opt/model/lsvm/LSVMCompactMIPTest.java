@@ -0,0 +1,54 @@
+package org.spectrumauctions.sats.opt.model.lsvm;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spectrumauctions.sats.core.model.Bundle;
+import org.spectrumauctions.sats.core.model.lsvm.LSVMBidder;
+import org.spectrumauctions.sats.core.model.lsvm.LSVMLicense;
+import org.spectrumauctions.sats.core.model.lsvm.LSVMWorld;
+import org.spectrumauctions.sats.core.model.lsvm.LocalSynergyValueModel;
+import org.spectrumauctions.sats.opt.domain.ItemAllocation;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Compares the {@link LSVMCompactMIP} to the {@link LSVMStandardMIP}
+ */
+public class LSVMCompactMIPTest {
+
+    @Test
+    public void testKnownSeeds() {
+        for (long seed : new long[]{1498246131808L, 1498247338147L}) {
+            LocalSynergyValueModel model = new LocalSynergyValueModel();
+            LSVMWorld world = model.createWorld(seed);
+            List<LSVMBidder> population = model.createPopulation(world, seed);
+
+            ItemAllocation<LSVMLicense> allocation = new LSVMCompactMIP(world, population).calculateAllocation();
+            Assert.assertEquals("Objective value not matching test data for seed " + seed,
+                    LSVMStandardMIPTestData.getTestData().get(seed), allocation.getTotalValue().doubleValue(), 1e-6);
+            assertTrueValues(population, allocation);
+        }
+    }
+
+    @Test
+    public void testSameAllocationValueAsStandardMIP() {
+        long seed = 1498246131808L;
+        LocalSynergyValueModel model = new LocalSynergyValueModel();
+        LSVMWorld world = model.createWorld(seed);
+        List<LSVMBidder> population = model.createPopulation(world, seed);
+
+        ItemAllocation<LSVMLicense> standard = new LSVMStandardMIP(world, population).calculateAllocation();
+        ItemAllocation<LSVMLicense> compact = new LSVMCompactMIP(world, population).calculateAllocation();
+        Assert.assertEquals(standard.getTotalValue().doubleValue(), compact.getTotalValue().doubleValue(), 1e-6);
+    }
+
+    private void assertTrueValues(List<LSVMBidder> population, ItemAllocation<LSVMLicense> allocation) {
+        BigDecimal totalValue = BigDecimal.ZERO;
+        for (LSVMBidder bidder : population) {
+            Bundle<LSVMLicense> bundle = allocation.getAllocation(bidder);
+            totalValue = totalValue.add(bidder.calculateValue(bundle));
+        }
+        Assert.assertEquals(allocation.getTotalValue().doubleValue(), totalValue.doubleValue(), 1e-6);
+    }
+}
@@ -0,0 +1,46 @@
+package org.spectrumauctions.sats.opt.model.mrvm;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.spectrumauctions.sats.core.model.mrvm.MRVMBidder;
+import org.spectrumauctions.sats.core.model.mrvm.MRVMWorld;
+import org.spectrumauctions.sats.core.model.mrvm.MultiRegionModel;
+import org.spectrumauctions.sats.opt.domain.PiecewiseLinearEncoding;
+
+import java.util.List;
+
+public class MRVMPiecewiseLinearEncodingTest {
+
+    private static final Logger logger = LogManager.getLogger(MRVMPiecewiseLinearEncodingTest.class);
+
+    @Test
+    @Ignore // Takes a long time
+    public void testSameWelfareWithAllEncodings() {
+        long[] seeds = {1234567L, 2345678L, 3456789L};
+        for (long seed : seeds) {
+            MultiRegionModel model = new MultiRegionModel();
+            MRVMWorld world = model.createWorld(seed);
+            List<MRVMBidder> bidders = model.createPopulation(world, seed);
+            Double welfare = null;
+            for (PiecewiseLinearEncoding encoding : PiecewiseLinearEncoding.values()) {
+                long start = System.currentTimeMillis();
+                MRVM_MIP mip = new MRVM_MIP(bidders, encoding);
+                long constructed = System.currentTimeMillis();
+                MRVMMipResult result = mip.calculateAllocation();
+                long solved = System.currentTimeMillis();
+                logger.info("Seed {}, encoding {}: {} variables, {} constraints, constructed in {}ms, solved in {}ms, welfare {}",
+                        seed, encoding, mip.getMip().getNumVars(), mip.getMip().getNumConstraints(),
+                        constructed - start, solved - constructed, result.getTotalValue());
+                if (welfare == null) {
+                    welfare = result.getTotalValue().doubleValue();
+                } else {
+                    // The MIP is solved with a relative gap of 1e-5
+                    Assert.assertEquals(welfare, result.getTotalValue().doubleValue(), welfare * 1e-4);
+                }
+            }
+        }
+    }
+}
@@ -49,7 +49,7 @@ public class MRVMDemandQueryTest {
         List<MRVMBidder> bidders = new MultiRegionModel().createNewPopulation(new JavaUtilRNGSupplier(73246104));
         MRVMWorld world = bidders.iterator().next().getWorld();
         Map<MRVMGenericDefinition, BigDecimal> prices = new HashMap<>();
-        world.getAllGenericDefinitions().forEach(def -> prices.put((MRVMGenericDefinition) def, BigDecimal.valueOf(1000000)));
+        world.getAllGenericDefinitions().forEach(def -> prices.put(def, BigDecimal.valueOf(1000000)));
 
         for (MRVMBidder bidder : bidders) {
             MRVM_DemandQueryMIP mip = new MRVM_DemandQueryMIP(bidder, prices);
@@ -97,7 +97,7 @@ public class MRVMDemandQueryTest {
         List<MRVMBidder> bidders = minimalWorld.createPopulation(localBidderSetups, new HashSet<>(), new HashSet<>(), new JavaUtilRNGSupplier(654798));
 
         Map<MRVMGenericDefinition, BigDecimal> prices = new HashMap<>();
-        minimalWorld.getAllGenericDefinitions().forEach(def -> prices.put((MRVMGenericDefinition) def, BigDecimal.valueOf(10000)));
+        minimalWorld.getAllGenericDefinitions().forEach(def -> prices.put(def, BigDecimal.valueOf(10000)));
 
         Map<MRVMBidder, GenericValue<MRVMGenericDefinition, MRVMLicense>> resultMap = new HashMap<>();
         Map<MRVMGenericDefinition, Integer> map = new HashMap<>();
@@ -139,7 +139,7 @@ public class MRVMDemandQueryTest {
         List<MRVMBidder> bidders = minimalWorld.createPopulation(new HashSet<>(), regionalBidderSetups, new HashSet<>(), new JavaUtilRNGSupplier(654798));
 
         Map<MRVMGenericDefinition, BigDecimal> prices = new HashMap<>();
-        minimalWorld.getAllGenericDefinitions().forEach(def -> prices.put((MRVMGenericDefinition) def, BigDecimal.valueOf(10000)));
+        minimalWorld.getAllGenericDefinitions().forEach(def -> prices.put(def, BigDecimal.valueOf(10000)));
 
         Map<MRVMBidder, GenericValue<MRVMGenericDefinition, MRVMLicense>> resultMap = new HashMap<>();
         Map<MRVMGenericDefinition, Integer> map = new HashMap<>();
@@ -178,7 +178,7 @@ public class MRVMDemandQueryTest {
         MRVMWorld world = new MultiRegionModel().createWorld(new JavaUtilRNGSupplier(74563245));
         MRVMBidder bidder = world.createPopulation(new HashSet<>(), new HashSet<>(), nationalBidderSetups,  new JavaUtilRNGSupplier(654798)).iterator().next();
         Map<MRVMGenericDefinition, BigDecimal> prices = new HashMap<>();
-        world.getAllGenericDefinitions().forEach(def -> prices.put((MRVMGenericDefinition) def, BigDecimal.ZERO));
+        world.getAllGenericDefinitions().forEach(def -> prices.put(def, BigDecimal.ZERO));
         MRVMRegionsMap.Region region = world.getRegionsMap().getRegions().stream().findAny().get();
         Set<MRVMGenericDefinition> genericDefinitions = prices.keySet().stream().filter(def -> def.getRegion().equals(region)).collect(Collectors.toSet());
 
@@ -201,4 +201,88 @@ public class MRVMDemandQueryTest {
         Assert.assertEquals(regionsCovered2.size(), world.getRegionsMap().getNumberOfRegions());
 
     }
+
+    @Test
+    public void testOracleEqualsMIP() {
+        List<MRVMBidder> bidders = new MultiRegionModel().createNewPopulation(new JavaUtilRNGSupplier(73246104));
+        MRVMWorld world = bidders.iterator().next().getWorld();
+        Map<MRVMGenericDefinition, BigDecimal> prices = new HashMap<>();
+        world.getAllGenericDefinitions().forEach(def -> prices.put(def, BigDecimal.valueOf(1000000)));
+
+        MRVM_DemandQueryOracleBuilder oracleBuilder = new MRVM_DemandQueryOracleBuilder();
+        for (MRVMBidder bidder : bidders) {
+            double mipUtility = utility(new MRVM_DemandQueryMIP(bidder, prices, 1e-6).getResult(), prices);
+            double oracleUtility = utility((MRVMDemandQueryMipResult) oracleBuilder.getDemandQueryMipFor(bidder, prices, 1e-6).getResult(), prices);
+            Assert.assertEquals(mipUtility, oracleUtility, Math.max(1e-4, Math.abs(mipUtility) * 1e-4));
+        }
+    }
+
+    @Test
+    public void testOracleResultPool() {
+        List<MRVMBidder> bidders = new MultiRegionModel().createNewPopulation(new JavaUtilRNGSupplier(73246104));
+        MRVMWorld world = bidders.iterator().next().getWorld();
+        Map<MRVMGenericDefinition, BigDecimal> prices = new HashMap<>();
+        world.getAllGenericDefinitions().forEach(def -> prices.put(def, BigDecimal.valueOf(1000000)));
+
+        for (MRVMBidder bidder : bidders) {
+            List<MRVMDemandQueryMipResult> pool = new MRVM_DemandQueryOracle(bidder, prices).getResultPool(20);
+            Assert.assertEquals(20, pool.size());
+            Set<Map<MRVMGenericDefinition, Integer>> bundles = new HashSet<>();
+            for (int i = 0; i < pool.size(); i++) {
+                Assert.assertTrue(bundles.add(pool.get(i).getResultingBundle().getQuantities()));
+                if (i > 0) {
+                    Assert.assertTrue(utility(pool.get(i - 1), prices) >= utility(pool.get(i), prices) - 1e-6);
+                }
+            }
+
+            // No bundle which differs from the best one by a single license is better
+            double best = utility(pool.get(0), prices);
+            Map<MRVMGenericDefinition, Integer> demand = pool.get(0).getResultingBundle().getQuantities();
+            for (MRVMGenericDefinition def : world.getAllGenericDefinitions()) {
+                int quantity = demand.getOrDefault(def, 0);
+                for (int neighbor : new int[]{quantity - 1, quantity + 1}) {
+                    if (neighbor >= 0 && neighbor <= def.numberOfLicenses()) {
+                        Map<MRVMGenericDefinition, Integer> other = new HashMap<>(demand);
+                        other.put(def, neighbor);
+                        Assert.assertTrue(best >= utility(bidder.calculateValue(other), other, prices) - 1e-6);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void minimalWorldNationalBidderDemandOracleTest() {
+        MRVMNationalBidderSetup.Builder nationalBuilder = new MRVMNationalBidderSetup.Builder();
+        nationalBuilder.setNumberOfBidders(1);
+        Set<MRVMNationalBidderSetup> nationalBidderSetups = new HashSet<>();
+        nationalBidderSetups.add(nationalBuilder.build());
+
+        MRVMWorld world = new MultiRegionModel().createWorld(new JavaUtilRNGSupplier(74563245));
+        MRVMBidder bidder = world.createPopulation(new HashSet<>(), new HashSet<>(), nationalBidderSetups, new JavaUtilRNGSupplier(654798)).iterator().next();
+        Map<MRVMGenericDefinition, BigDecimal> prices = new HashMap<>();
+        world.getAllGenericDefinitions().forEach(def -> prices.put(def, BigDecimal.ZERO));
+        MRVMRegionsMap.Region region = world.getRegionsMap().getRegions().stream().findAny().get();
+        prices.keySet().stream().filter(def -> def.getRegion().equals(region))
+                .forEach(def -> prices.put(def, BigDecimal.valueOf(1000000000)));
+
+        MRVMDemandQueryMipResult result = new MRVM_DemandQueryOracle(bidder, prices).getResult();
+        Set<MRVMRegionsMap.Region> regionsCovered = new HashSet<>();
+        result.getResultingBundle().getQuantities().entrySet().stream().filter(e -> e.getValue() > 0)
+                .forEach(e -> regionsCovered.add(e.getKey().getRegion()));
+        Assert.assertEquals(world.getRegionsMap().getNumberOfRegions() - 1, regionsCovered.size());
+    }
+
+    private double utility(MRVMDemandQueryMipResult result, Map<MRVMGenericDefinition, BigDecimal> prices) {
+        GenericValue<MRVMGenericDefinition, MRVMLicense> bundle = result.getResultingBundle();
+        return utility(bundle.getValue(), bundle.getQuantities(), prices);
+    }
+
+    private double utility(BigDecimal value, Map<MRVMGenericDefinition, Integer> quantities, Map<MRVMGenericDefinition, BigDecimal> prices) {
+        BigDecimal price = BigDecimal.ZERO;
+        for (Map.Entry<MRVMGenericDefinition, Integer> entry : quantities.entrySet()) {
+            price = price.add(prices.get(entry.getKey()).multiply(BigDecimal.valueOf(entry.getValue())));
+        }
+        return value.subtract(price).doubleValue();
+    }
 }
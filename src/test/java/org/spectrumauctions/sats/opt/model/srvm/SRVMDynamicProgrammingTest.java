@@ -0,0 +1,115 @@
+package org.spectrumauctions.sats.opt.model.srvm;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spectrumauctions.sats.core.model.Bidder;
+import org.spectrumauctions.sats.core.model.srvm.SRVMBand;
+import org.spectrumauctions.sats.core.model.srvm.SRVMBidder;
+import org.spectrumauctions.sats.core.model.srvm.SRVMLicense;
+import org.spectrumauctions.sats.core.model.srvm.SingleRegionModel;
+import org.spectrumauctions.sats.core.util.random.JavaUtilRNGSupplier;
+import org.spectrumauctions.sats.mechanism.ccg.CCGMechanism;
+import org.spectrumauctions.sats.mechanism.domain.MechanismResult;
+import org.spectrumauctions.sats.mechanism.vcg.VCGMechanism;
+import org.spectrumauctions.sats.opt.domain.GenericAllocation;
+import org.spectrumauctions.sats.opt.model.srvm.demandquery.SRVMDemandQueryResult;
+import org.spectrumauctions.sats.opt.model.srvm.demandquery.SRVM_DemandQueryOracle;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class SRVMDynamicProgrammingTest {
+
+    @Test
+    public void testDPEqualsBruteForceForTwoBidders() {
+        List<SRVMBidder> bidders = new SingleRegionModel().createNewPopulation(new JavaUtilRNGSupplier(147258369L));
+        List<SRVMBidder> twoBidders = bidders.subList(0, 2);
+        SRVMQuantityLattice lattice = new SRVMQuantityLattice(twoBidders.get(0).getWorld());
+        BigDecimal[] first = lattice.calculateValues(twoBidders.get(0));
+        BigDecimal[] second = lattice.calculateValues(twoBidders.get(1));
+        double best = 0;
+        for (int p = 0; p < lattice.size(); p++) {
+            int remaining = lattice.getTop() - p;
+            for (int q = 0; q <= remaining; q++) {
+                if (lattice.fits(q, remaining)) {
+                    best = Math.max(best, first[p].doubleValue() + second[q].doubleValue());
+                }
+            }
+        }
+        GenericAllocation<SRVMBand, SRVMLicense> allocation = new SRVM_DP(twoBidders).calculateAllocation();
+        Assert.assertEquals(best, allocation.getTotalValue().doubleValue(), 1e-6);
+    }
+
+    @Test
+    public void testDPIsFeasibleAndAtLeastAsGoodAsMIP() {
+        List<SRVMBidder> bidders = new SingleRegionModel().createNewPopulation(new JavaUtilRNGSupplier(147258369L));
+        GenericAllocation<SRVMBand, SRVMLicense> allocation = new SRVM_DP(bidders).calculateAllocation();
+        for (SRVMBand band : bidders.get(0).getWorld().getBands()) {
+            int allocated = 0;
+            for (Bidder<SRVMLicense> winner : allocation.getWinners()) {
+                allocated += allocation.getGenericAllocation(winner).getQuantity(band);
+            }
+            Assert.assertTrue(allocated <= band.getNumberOfLicenses());
+        }
+        double mipValue = new SRVM_MIP(bidders).calculateAllocation().getAllocationWithTrueValues().getTotalValue().doubleValue();
+        double dpValue = allocation.getTotalValue().doubleValue();
+        // The MIP is solved with a relative gap of 1e-3
+        Assert.assertTrue(dpValue >= mipValue - 1e-6);
+        Assert.assertTrue(mipValue >= dpValue * (1 - 1e-3) - 1e-6);
+    }
+
+    @Test
+    public void testLosersAreNoWinners() {
+        List<SRVMBidder> bidders = new SingleRegionModel().createNewPopulation(new JavaUtilRNGSupplier(147258369L));
+        GenericAllocation<SRVMBand, SRVMLicense> allocation = new SRVM_DP(bidders).calculateAllocation();
+        Assert.assertTrue(allocation.getWinners().size() < bidders.size());
+        for (Bidder<SRVMLicense> winner : allocation.getWinners()) {
+            Assert.assertTrue(allocation.getGenericAllocation(winner).getTotalQuantity() > 0);
+        }
+    }
+
+    @Test
+    public void testCCGFindsCorePayments() {
+        List<SRVMBidder> bidders = new SingleRegionModel().createNewPopulation(new JavaUtilRNGSupplier(147258369L));
+        MechanismResult<SRVMLicense> vcg = new VCGMechanism<>(new SRVM_DP(bidders)).getMechanismResult();
+        MechanismResult<SRVMLicense> ccg = new CCGMechanism<>(new SRVM_DP(bidders)).getMechanismResult();
+        Collection<Bidder<SRVMLicense>> winners = ccg.getAllocation().getWinners();
+        Assert.assertEquals(winners, vcg.getPayment().getWinners());
+        Assert.assertEquals(winners, ccg.getPayment().getWinners());
+        for (Bidder<SRVMLicense> winner : winners) {
+            double payment = ccg.getPayment().paymentOf(winner).getAmount();
+            Assert.assertTrue(payment >= vcg.getPayment().paymentOf(winner).getAmount() - 1e-6);
+            Assert.assertTrue(payment <= ccg.getAllocation().getTradeValue(winner).doubleValue() + 1e-6);
+        }
+        // The losers can't block the outcome on their own
+        List<SRVMBidder> losers = bidders.stream().filter(bidder -> !winners.contains(bidder)).collect(Collectors.toList());
+        double losersWelfare = new SRVM_DP(losers).calculateAllocation().getTotalValue().doubleValue();
+        Assert.assertTrue(ccg.getPayment().getTotalPayments() >= losersWelfare - 1e-6);
+    }
+
+    @Test
+    public void testDemandOracleFindsBestBundles() {
+        List<SRVMBidder> bidders = new SingleRegionModel().createNewPopulation(new JavaUtilRNGSupplier(147258369L));
+        SRVMQuantityLattice lattice = new SRVMQuantityLattice(bidders.get(0).getWorld());
+        Random random = new Random(4711);
+        for (SRVMBidder bidder : bidders) {
+            Map<SRVMBand, BigDecimal> prices = new HashMap<>();
+            lattice.getBands().forEach(band -> prices.put(band, BigDecimal.valueOf(random.nextDouble() * bidder.getBaseValues().get(band.getName()).doubleValue())));
+            BigDecimal[] values = lattice.calculateValues(bidder);
+            double[] bundlePrices = lattice.calculatePrices(prices);
+            double best = Double.NEGATIVE_INFINITY;
+            for (int point = 0; point < lattice.size(); point++) {
+                best = Math.max(best, values[point].doubleValue() - bundlePrices[point]);
+            }
+
+            List<SRVMDemandQueryResult> pool = new SRVM_DemandQueryOracle(bidder, lattice, prices).getResultPool(10);
+            Assert.assertEquals(10, pool.size());
+            Assert.assertEquals(best, pool.get(0).getTotalUtility().doubleValue(), 1e-6);
+            for (int i = 1; i < pool.size(); i++) {
+                Assert.assertTrue(pool.get(i - 1).getTotalUtility().compareTo(pool.get(i).getTotalUtility()) >= 0);
+                Assert.assertNotEquals(pool.get(i - 1).getResultingBundle().getQuantities(), pool.get(i).getResultingBundle().getQuantities());
+            }
+        }
+    }
+}